@@ -0,0 +1,108 @@
+package it.polimi.ingsw.am37.model;
+
+import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
+import it.polimi.ingsw.am37.model.student_container.UnlimitedStudentsContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the extractions from the bag when it's full, half full and nearly empty, compared to the rejection
+ * sampling the bag used before, which picked a color at random and retried while that color was exhausted. Each
+ * extraction is put back in the bag, so every invocation sees the same bag.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BagBenchmark {
+
+    /**
+     * The students of each color in the bag
+     */
+    @Param({"full", "half", "nearlyEmpty"})
+    public String fill;
+
+    /**
+     * The bag measured
+     */
+    private Bag bag;
+
+    /**
+     * A single student of each color, to put the extracted one back
+     */
+    private UnlimitedStudentsContainer[] single;
+
+    /**
+     * The students of the bag, for the rejection sampling
+     */
+    private int[] counts;
+
+    /**
+     * The source of the rejection sampling
+     */
+    private Random random;
+
+    /**
+     * Fills the bag
+     */
+    @Setup
+    public void setUp() {
+        counts = switch (fill) {
+            case "full" -> new int[]{24, 24, 24, 24, 24};
+            case "half" -> new int[]{12, 12, 12, 12, 12};
+            default -> new int[]{0, 1, 0, 0, 5};
+        };
+        UnlimitedStudentsContainer contents = new UnlimitedStudentsContainer();
+        single = new UnlimitedStudentsContainer[FactionColor.values().length];
+        for (FactionColor color : FactionColor.values()) {
+            contents.addStudents(counts[color.getIndex()], color);
+            single[color.getIndex()] = new UnlimitedStudentsContainer();
+            single[color.getIndex()].addStudents(1, color);
+        }
+        bag = new Bag(new MatchRandom(42));
+        bag.extractStudents(bag.size());
+        bag.addStudents(contents);
+        random = new Random(42);
+    }
+
+    /**
+     * @return the color of a student extracted from the bag
+     */
+    @Benchmark
+    public FactionColor extractStudent() {
+        FactionColor color = bag.extractStudent();
+        bag.addStudents(single[color.getIndex()]);
+        return color;
+    }
+
+    /**
+     * @return the refill of a cloud of a game with three players
+     */
+    @Benchmark
+    public LimitedStudentsContainer extractCloud() {
+        LimitedStudentsContainer cloud = bag.extractStudents(4);
+        bag.addStudents(cloud);
+        return cloud;
+    }
+
+    /**
+     * @return the refill of a cloud of a game with three players, with the rejection sampling
+     */
+    @Benchmark
+    public LimitedStudentsContainer extractCloudRejecting() {
+        int[] extracted = new int[counts.length];
+        for (int i = 0; i < 4; i++) {
+            int color = random.nextInt(counts.length);
+            if (counts[color] > extracted[color]) extracted[color]++;
+            else i--;
+        }
+        LimitedStudentsContainer cloud = new LimitedStudentsContainer(extracted);
+        for (FactionColor color : FactionColor.values())
+            cloud.addStudents(extracted[color.getIndex()], color);
+        return cloud;
+    }
+}
@@ -0,0 +1,120 @@
+package it.polimi.ingsw.am37.model;
+
+import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding who gets a professor after a student of its color is moved, in a game with three players where
+ * the first two have the same students of that color and the first has the professor. The turn manager looks at the
+ * last known owner first; the scans below are how it found the owner before, with a map of the students of every
+ * player when a student was removed. Run with {@code -prof gc} to see the allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfessorBenchmark {
+
+    /**
+     * The color of the students moved
+     */
+    private static final FactionColor COLOR = FactionColor.GREEN;
+
+    /**
+     * The turn manager measured, the second player is playing
+     */
+    private TurnManager turnManager;
+
+    /**
+     * The players of the game
+     */
+    private ArrayList<Player> players;
+
+    /**
+     * A single student of the color, moved in and out of the dining room
+     */
+    private LimitedStudentsContainer student;
+
+    /**
+     * Fills the dining rooms and gives the professor to the first player
+     */
+    @Setup
+    public void setUp() {
+        turnManager = new TurnManager(false, 3);
+        turnManager.setUp(new Bag(new MatchRandom(42)), new MatchRandom(42));
+        players = turnManager.getPlayers();
+        int[] students = {5, 5, 3};
+        for (int i = 0; i < players.size(); i++) {
+            LimitedStudentsContainer dining = new LimitedStudentsContainer(10);
+            dining.addStudents(students[i], COLOR);
+            turnManager.setCurrentPlayer(players.get(i));
+            turnManager.addStudentsToDining(dining);
+        }
+        turnManager.setCurrentPlayer(players.get(1));
+        student = new LimitedStudentsContainer(1);
+        student.addStudents(1, COLOR);
+    }
+
+    /**
+     * @return the owner of the professor after the check
+     */
+    @Benchmark
+    public boolean checkProfessors() {
+        turnManager.checkProfessors(COLOR);
+        return players.get(0).getBoard().getProfTable()[COLOR.getIndex()];
+    }
+
+    /**
+     * @return the owner of the professor after the check, scanning the professors tables of every player
+     */
+    @Benchmark
+    public boolean checkProfessorsScanning() {
+        Player current = turnManager.getCurrentPlayer();
+        Player exOwner = null;
+        for (Player player : players)
+            if (current.getBoard().getDiningRoom().getByColor(COLOR) >
+                    player.getBoard().getDiningRoom().getByColor(COLOR) &&
+                    player.getBoard().getProfTable()[COLOR.getIndex()] &&
+                    current.getBoard().getTowers().getCurrentTower() !=
+                            player.getBoard().getTowers().getCurrentTower())
+                exOwner = player;
+        return exOwner == null && players.get(0).getBoard().getProfTable()[COLOR.getIndex()];
+    }
+
+    /**
+     * @return the owner of the professor after a student of the second player leaves its dining room and comes back
+     */
+    @Benchmark
+    public boolean removeAndAddBack() {
+        turnManager.removeStudentsFromDining(student);
+        turnManager.addStudentsToDining(student);
+        return players.get(0).getBoard().getProfTable()[COLOR.getIndex()];
+    }
+
+    /**
+     * @return the player with most students after a removal, found with the map of the students of every player
+     */
+    @Benchmark
+    public Player resolveWithMap() {
+        HashMap<Player, Integer> playerPower = new HashMap<>();
+        Player owner = null;
+        for (Player player : players) {
+            if (player.getBoard().getProfTable()[COLOR.getIndex()]) owner = player;
+            playerPower.put(player, player.getBoard().getDiningRoom().getByColor(COLOR));
+        }
+        int max = 0;
+        Player playerMax = null;
+        for (Player player : players)
+            if (playerPower.get(player) > max) {
+                max = playerPower.get(player);
+                playerMax = player;
+            }
+        return max > playerPower.get(owner) ? playerMax : owner;
+    }
+}
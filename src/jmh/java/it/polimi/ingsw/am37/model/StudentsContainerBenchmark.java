@@ -0,0 +1,135 @@
+package it.polimi.ingsw.am37.model;
+
+import it.polimi.ingsw.am37.model.student_container.FixedUnlimitedStudentsContainer;
+import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static it.polimi.ingsw.am37.controller.UpdateController.Properties.P_ISLAND_STUDENTS;
+
+/**
+ * Cost of moving a student through the entrance, the dining room and an island, the paths a game takes on every
+ * move. Nobody listens to the changes, as in a game played by bots, so the old contents aren't copied and every
+ * operation should allocate nothing; the last benchmark has a listener to show what the copy and the event cost. Run
+ * with {@code -prof gc} to see the allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentsContainerBenchmark {
+
+    /**
+     * The color of the students moved
+     */
+    private static final FactionColor COLOR = FactionColor.RED;
+
+    /**
+     * The turn manager whose current player moves the students, with coins
+     */
+    private TurnManager turnManager;
+
+    /**
+     * The board of the current player
+     */
+    private Board board;
+
+    /**
+     * The island the students are moved to
+     */
+    private Island island;
+
+    /**
+     * An island whose changes are listened to
+     */
+    private Island observedIsland;
+
+    /**
+     * A single student of the color
+     */
+    private LimitedStudentsContainer student;
+
+    /**
+     * The entrance of the current player, with the students of the color
+     */
+    private LimitedStudentsContainer entrance;
+
+    /**
+     * Gives the current player students of the color in the entrance and in the dining room
+     */
+    @Setup
+    public void setUp() {
+        turnManager = new TurnManager(true, 2);
+        turnManager.setUp(new Bag(new MatchRandom(42)), new MatchRandom(42));
+        turnManager.setCurrentPlayer(turnManager.getPlayers().get(0));
+        board = turnManager.getCurrentPlayer().getBoard();
+        student = new LimitedStudentsContainer(1);
+        student.addStudents(1, COLOR);
+        LimitedStudentsContainer dining = new LimitedStudentsContainer(10);
+        dining.addStudents(4, COLOR);
+        turnManager.addStudentsToDining(dining);
+        entrance = board.getEntrance();
+        board.removeStudentsFromEntrance(entrance.copy());
+        board.addStudentsToEntrance(dining);
+    }
+
+    /**
+     * Empties the islands, so that their students don't grow without bounds
+     */
+    @Setup(Level.Iteration)
+    public void setUpIslands() {
+        island = new Island(new FixedUnlimitedStudentsContainer(), 0);
+        observedIsland = new Island(new FixedUnlimitedStudentsContainer(), 1);
+        observedIsland.getSupport().addPropertyChangeListener(P_ISLAND_STUDENTS.toString(), event -> {
+        });
+    }
+
+    /**
+     * @return the students in the entrance after one leaves it and comes back
+     */
+    @Benchmark
+    public int entranceRemoveAndAdd() {
+        board.removeStudentsFromEntrance(student);
+        board.addStudentsToEntrance(student);
+        return entrance.size();
+    }
+
+    /**
+     * @return true if the entrance has the student
+     */
+    @Benchmark
+    public boolean entranceContains() {
+        return entrance.contains(student);
+    }
+
+    /**
+     * @return the students of the color in the dining room after one leaves it and comes back
+     */
+    @Benchmark
+    public int diningRemoveAndAdd() {
+        turnManager.removeStudentsFromDining(student);
+        turnManager.addStudentsToDining(student);
+        return board.getDiningRoom().getByColor(COLOR);
+    }
+
+    /**
+     * @return the students on the island after one is added
+     */
+    @Benchmark
+    public int islandAdd() {
+        island.addStudents(student);
+        return island.getByColor(COLOR);
+    }
+
+    /**
+     * @return the students on the island after one is added, copying the old ones for the listener
+     */
+    @Benchmark
+    public int observedIslandAdd() {
+        observedIsland.addStudents(student);
+        return observedIsland.getByColor(COLOR);
+    }
+}
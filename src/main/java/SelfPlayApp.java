@@ -0,0 +1,67 @@
+import it.polimi.ingsw.am37.bot.Policy;
+import it.polimi.ingsw.am37.bot.SelfPlay;
+import it.polimi.ingsw.am37.bot.SelfPlayReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Self-play launcher: plays games without a server and prints what happened in them
+ */
+public class SelfPlayApp {
+
+    /**
+     * How to launch the harness
+     */
+    private static final String USAGE = "Usage: --games <number> --players <2|3> --advanced <true|false> "
+            + "--policies <random|easy|medium|hard,...> --seed <number> --threads <number>";
+
+    /**
+     * @param args the arguments received in input.
+     */
+    public static void main(String[] args) {
+        long games = 10000;
+        int playersNumber = 2;
+        boolean advancedMode = true;
+        String[] policyLabels = {"random"};
+        long seed = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            if (args.length % 2 != 0) throw new IllegalArgumentException("Every option needs a value");
+            for (int i = 0; i < args.length; i += 2) {
+                String value = args[i + 1].toLowerCase();
+                switch (args[i].toLowerCase()) {
+                    case "--games" -> games = Long.parseLong(value);
+                    case "--players" -> playersNumber = Integer.parseInt(value);
+                    case "--advanced" -> advancedMode = Boolean.parseBoolean(value);
+                    case "--policies" -> policyLabels = value.split(",");
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (playersNumber != 2 && playersNumber != 3)
+                throw new IllegalArgumentException("Only 2 or 3 players are supported");
+            if (policyLabels.length != 1 && policyLabels.length != playersNumber)
+                throw new IllegalArgumentException("Give one policy, or one for each seat");
+            List<Policy> policies = new ArrayList<>();
+            for (int seat = 0; seat < playersNumber; seat++)
+                policies.add(Policy.findByLabel(policyLabels[policyLabels.length == 1 ? 0 : seat]));
+
+            System.out.println("Playing " + games + " games with " + playersNumber + " players, policies "
+                    + Arrays.toString(policyLabels) + (advancedMode ? ", advanced rules" : "") + ", seed " + seed);
+            long start = System.nanoTime();
+            SelfPlayReport report = new SelfPlay(new ForkJoinPool(threads), playersNumber, advancedMode, policies,
+                    seed).run(games);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.print(report);
+            System.out.printf("%.1f games/s over %.1f s%n", report.getGames() / seconds, seconds);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+    }
+}
@@ -1,4 +1,6 @@
+import it.polimi.ingsw.am37.bot.Difficulty;
 import it.polimi.ingsw.am37.network.server.Server;
+import it.polimi.ingsw.am37.network.server.TransportMode;
 
 import java.util.*;
 
@@ -13,13 +15,24 @@ public class ServerApp {
      */
     static private String portValue;
 
+    /**
+     * Transport used by the server, blocking by default
+     */
+    static private TransportMode transportMode = TransportMode.BLOCKING;
+
+    /**
+     * How hard the bots which replace the players who don't come back play, null if they're off; medium by default
+     */
+    static private Difficulty botDifficulty = Difficulty.MEDIUM;
+
     /**
      * @param args the arguments received in input.
      */
     public static void main(String[] args) {
         Server server = new Server();
         parseArgument(args);
-        server.loadServer(Integer.parseInt(portValue));
+        server.setBotDifficulty(botDifficulty);
+        server.loadServer(Integer.parseInt(portValue), transportMode);
     }
 
     /**
@@ -36,23 +49,46 @@ public class ServerApp {
      */
     public static boolean tryConnectionWithArgs(String[] args) {
         final int expectedArguments = 2;
+        final int maxArguments = 6;
         int i = 0;
         boolean wrongInitialInput = false;
         String portString = "port";
+        String transportString = "transport";
+        String botsString = "bots";
 
         List<String> list = Arrays.stream(args).map(String::toLowerCase).toList();
         args = list.toArray(new String[0]);
-        if (args.length != expectedArguments) {
+        if (args.length < expectedArguments) {
             wrongInsertFewArguments();
             wrongInitialInput = true;
+        } else if (args.length > maxArguments || args.length % 2 != 0) {
+            wrongInsert();
+            wrongInitialInput = true;
         } else {
             while (i < args.length) {
-                if (!(args[i].equals("--" + portString))) {
+                if (args[i].equals("--" + portString))
+                    portValue = args[i + 1];
+                else if (args[i].equals("--" + transportString)) {
+                    try {
+                        transportMode = TransportMode.findByLabel(args[i + 1]);
+                    } catch (IllegalArgumentException e) {
+                        wrongInsertTransport();
+                        wrongInitialInput = true;
+                        break;
+                    }
+                } else if (args[i].equals("--" + botsString)) {
+                    try {
+                        botDifficulty = args[i + 1].equals("off") ? null : Difficulty.findByLabel(args[i + 1]);
+                    } catch (IllegalArgumentException e) {
+                        wrongInsertBots();
+                        wrongInitialInput = true;
+                        break;
+                    }
+                } else {
                     wrongInsert();
                     wrongInitialInput = true;
                     break;
                 }
-                portValue = args[i + 1];
                 i = i + 2;
             }
             try {
@@ -150,6 +186,24 @@ public class ServerApp {
         System.out.println("You haven't written a number as server's port");
     }
 
+    /**
+     * Notify when an unknown transport mode was given
+     */
+    private static void wrongInsertTransport() {
+        System.out.println("You haven't written a valid transport: use " + Arrays.stream(TransportMode.values())
+                .map(TransportMode::getLabel)
+                .toList());
+    }
+
+    /**
+     * Notify when an unknown difficulty of the bots was given
+     */
+    private static void wrongInsertBots() {
+        System.out.println("You haven't written a valid difficulty of the bots: use " + Arrays.stream(Difficulty.values())
+                .map(Difficulty::getLabel)
+                .toList() + " or off");
+    }
+
     /**
      * Notify if a player has inserted fewer parameters than expected during opening of the terminal
      */
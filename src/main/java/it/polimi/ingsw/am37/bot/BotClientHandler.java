@@ -0,0 +1,192 @@
+package it.polimi.ingsw.am37.bot;
+
+import it.polimi.ingsw.am37.client.ClientStatus;
+import it.polimi.ingsw.am37.controller.Lobby;
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.MessageType;
+import it.polimi.ingsw.am37.network.exceptions.InternetException;
+import it.polimi.ingsw.am37.network.server.BroadcastFrame;
+import it.polimi.ingsw.am37.network.server.ClientHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plays in place of a player, without a connection: when the lobby passes the turn, the bot looks at a copy of the
+ * game, chooses its moves with a {@link MonteCarloTreeSearch} and sends them to the lobby as the messages a client
+ * would send.
+ */
+public final class BotClientHandler extends ClientHandler {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(BotClientHandler.class);
+
+    /**
+     * The lobby the bot plays in
+     */
+    private final Lobby lobby;
+
+    /**
+     * The nickname of the player the bot plays for
+     */
+    private final String nickname;
+
+    /**
+     * How hard the bot plays
+     */
+    private final Difficulty difficulty;
+
+    /**
+     * Chooses the moves of the bot
+     */
+    private final MonteCarloTreeSearch search;
+
+    /**
+     * True from when the bot starts choosing its moves until the lobby has received them
+     */
+    private final AtomicBoolean thinking;
+
+    /**
+     * True until the bot leaves the game
+     */
+    private volatile boolean connected;
+
+    /**
+     * Default constructor
+     *
+     * @param UUID       the player the bot plays for.
+     * @param nickname   the nickname of the player.
+     * @param lobby      the lobby the bot plays in.
+     * @param difficulty how hard the bot plays.
+     * @param search     chooses the moves of the bot.
+     */
+    public BotClientHandler(String UUID, String nickname, Lobby lobby, Difficulty difficulty,
+                            MonteCarloTreeSearch search) {
+        setUUID(UUID);
+        setMessageReceiver(lobby);
+        this.nickname = nickname;
+        this.lobby = lobby;
+        this.difficulty = difficulty;
+        this.search = search;
+        this.thinking = new AtomicBoolean();
+        this.connected = true;
+    }
+
+    @Override
+    public boolean isConnectedToClient() {
+        return connected;
+    }
+
+    @Override
+    public void sendMessageToClient(Message message) throws InternetException {
+        if (!connected) throw new InternetException();
+        message.setUUID(getUUID());
+        if (message.getMessageType() == MessageType.PLANNING_PHASE)
+            takeTurnIfDue();
+        else if (message.getMessageType() == MessageType.ERROR)
+            LOGGER.warn("The lobby refused a move of the bot of " + nickname);
+    }
+
+    @Override
+    public void sendFrameToClient(BroadcastFrame frame) throws InternetException {
+        if (!connected) throw new InternetException();
+        if (frame.getMessageType() == MessageType.NEXT_TURN) takeTurnIfDue();
+    }
+
+    /**
+     * The bot reads the messages before they are encoded, so no frame is ever queued
+     */
+    @Override
+    protected void queueFrame(byte[] envelope, byte[] payload) {
+    }
+
+    /**
+     * Leaves the game, the lobby is told as if the connection was lost
+     */
+    @Override
+    public void disconnect() {
+        if (!connected) return;
+        connected = false;
+        lobby.onDisconnect(getUUID());
+    }
+
+    /**
+     * Leaves the game without telling the lobby, used when the player comes back.
+     */
+    public void retire() {
+        connected = false;
+    }
+
+    /**
+     * Plays the turn of the bot, if it's its turn and it isn't already playing it. The game is looked at once the lobby
+     * has handled what it has received so far.
+     */
+    public void takeTurnIfDue() {
+        lobby.inspectGame(this::playIfDue);
+    }
+
+    /**
+     * Starts playing the turn of the bot, if it's its turn and it isn't already playing it. Run by the mailbox of the
+     * lobby.
+     *
+     * @param game a copy of the game.
+     */
+    private void playIfDue(Simulation game) {
+        if (!connected || game.isOver() || game.getCurrentSeat() != game.getSeat(nickname)) return;
+        if (thinking.compareAndSet(false, true))
+            Thread.ofVirtual().name("bot-" + nickname).start(() -> play(game));
+    }
+
+    /**
+     * Chooses the moves of the turn and sends them to the lobby
+     *
+     * @param game a copy of the game, at the turn of the bot.
+     */
+    private void play(Simulation game) {
+        try {
+            long start = System.currentTimeMillis();
+            List<Message> messages = planTurn(game);
+            LOGGER.debug("The bot of " + nickname + " has chosen " + messages.size() + " moves in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            for (Message message : messages) {
+                if (!connected) return;
+                lobby.onMessageReceived(message, this);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("The bot of " + nickname + " can't play: " + e);
+        } finally {
+            // the moves are handled before the bot can think again, so it never plays the same turn twice; the last move
+            // may have handed the turn back to the bot while it was still thinking, so the turn is looked at again
+            lobby.inspectGame(next -> {
+                thinking.set(false);
+                playIfDue(next);
+            });
+        }
+    }
+
+    /**
+     * Chooses the moves of the current player: an assistant in the planning phase, the whole turn in the action
+     * phase, since nothing random happens until its end
+     *
+     * @param game a copy of the game, which the moves are made on.
+     * @return the messages of the moves, in order
+     */
+    List<Message> planTurn(Simulation game) {
+        List<Message> messages = new ArrayList<>();
+        boolean planning = game.getStatus() == ClientStatus.PLAYINGASSISTANT;
+        Move move;
+        do {
+            move = search.search(game, difficulty, ThreadLocalRandom.current().nextLong());
+            Message message = game.toMessage(move, getUUID());
+            if (message != null) messages.add(message);
+            game.apply(move);
+        } while (!planning && move.type() != Move.Type.CLOUD && !game.isOver());
+        return messages;
+    }
+}
@@ -0,0 +1,87 @@
+package it.polimi.ingsw.am37.bot;
+
+/**
+ * How hard the bots play: each decision of a bot is given a budget of playouts and of time, and the playouts look a
+ * number of rounds ahead before the game is judged.
+ */
+public enum Difficulty {
+    /**
+     * A few short playouts, the bot mostly avoids the worst moves
+     */
+    EASY("easy", 200, 100, 1),
+    /**
+     * Enough playouts to see the next few rounds
+     */
+    MEDIUM("medium", 2000, 500, 3),
+    /**
+     * Many playouts, which usually reach the end of the game
+     */
+    HARD("hard", 10000, 2000, 10);
+
+    /**
+     * The name used to select this difficulty from the command line
+     */
+    private final String label;
+
+    /**
+     * The playouts run for each decision
+     */
+    private final int playouts;
+
+    /**
+     * The time a decision can take, in milliseconds, even if not all the playouts have been run
+     */
+    private final long maxMillis;
+
+    /**
+     * The rounds a playout plays before the game is judged, if it isn't over earlier
+     */
+    private final int horizon;
+
+    Difficulty(String label, int playouts, long maxMillis, int horizon) {
+        this.label = label;
+        this.playouts = playouts;
+        this.maxMillis = maxMillis;
+        this.horizon = horizon;
+    }
+
+    /**
+     * @return the name used to select this difficulty from the command line
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the playouts run for each decision
+     */
+    public int getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * @return the time a decision can take, in milliseconds
+     */
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * @return the rounds a playout plays before the game is judged
+     */
+    public int getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * @param label the name of the difficulty
+     * @return the difficulty with the given name
+     * @throws IllegalArgumentException if no difficulty has the given name
+     */
+    public static Difficulty findByLabel(String label) {
+        for (Difficulty difficulty : Difficulty.values()) {
+            if (difficulty.label.equals(label)) return difficulty;
+        }
+        throw new IllegalArgumentException("No difficulty with label " + label);
+    }
+}
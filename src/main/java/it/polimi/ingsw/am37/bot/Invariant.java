@@ -0,0 +1,220 @@
+package it.polimi.ingsw.am37.bot;
+
+import it.polimi.ingsw.am37.model.*;
+import it.polimi.ingsw.am37.model.character.Character;
+import it.polimi.ingsw.am37.model.student_container.StudentsContainer;
+
+import java.util.List;
+
+/**
+ * A rule of the game which must hold after every move that doesn't end the game, since the model stops updating as
+ * soon as a player wins; the {@link SelfPlay} harness checks them to find the moves the model handles wrongly.
+ */
+public enum Invariant {
+
+    /**
+     * No student is created or lost
+     */
+    STUDENTS("there are 26 students of each color") {
+        @Override
+        boolean holdsIn(GameManager manager) {
+            for (FactionColor color : COLORS) {
+                int students = manager.getBag().getByColor(color);
+                for (Cloud cloud : manager.getClouds())
+                    students += cloud.getByColor(color);
+                for (Island island : manager.getIslandsManager().getIslands())
+                    students += island.getByColor(color);
+                for (Player player : manager.getTurnManager().getPlayers())
+                    students += player.getBoard().getEntrance().getByColor(color)
+                            + player.getBoard().getDiningRoom().getByColor(color);
+                if (manager.isAdvancedMode())
+                    for (Character character : manager.getCharacters()) {
+                        StudentsContainer container = character.getState().getContainer();
+                        if (container != null) students += container.getByColor(color);
+                    }
+                if (students != STUDENTS_PER_COLOR) return false;
+            }
+            return true;
+        }
+    },
+
+    /**
+     * A professor is owned by a single player at a time
+     */
+    PROFESSORS("each professor has at most one owner") {
+        @Override
+        boolean holdsIn(GameManager manager) {
+            for (FactionColor color : COLORS) {
+                int owners = 0;
+                for (Player player : manager.getTurnManager().getPlayers())
+                    if (player.getBoard().getProfTable()[color.getIndex()]) owners++;
+                if (owners > 1) return false;
+            }
+            return true;
+        }
+    },
+
+    /**
+     * The influence the islands keep up to date matches their students and the professors
+     */
+    INFLUENCE("the influence kept on each island is the one counted from its students and the professors") {
+        @Override
+        boolean holdsIn(GameManager manager) {
+            List<Player> players = manager.getTurnManager().getPlayers();
+            for (Island island : manager.getIslandsManager().getIslands())
+                for (int seat = 0; seat < players.size(); seat++) {
+                    int influence = 0;
+                    for (FactionColor color : COLORS)
+                        if (players.get(seat).getBoard().getProfTable()[color.getIndex()])
+                            influence += island.getByColor(color);
+                    if (island.getInfluence(seat) != influence) return false;
+                }
+            return true;
+        }
+    },
+
+    /**
+     * No tower is created or lost
+     */
+    TOWERS("the towers of a player are either on its board or on the islands it conquered") {
+        @Override
+        boolean holdsIn(GameManager manager) {
+            int towersPerPlayer = manager.getPlayersNumber() == 2 ? TOWERS_FOR_2 : TOWERS_FOR_3;
+            for (Player player : manager.getTurnManager().getPlayers()) {
+                LimitedTowerContainer towers = player.getBoard().getTowers();
+                int placed = 0;
+                for (Island island : manager.getIslandsManager().getIslands())
+                    if (island.getCurrentTower() == towers.getCurrentTower()) placed += island.getNumIslands();
+                if (towers.getCurrentSize() + placed != towersPerPlayer) return false;
+            }
+            return true;
+        }
+    },
+
+    /**
+     * The islands are numbered by position and mother nature is on one of them
+     */
+    ISLANDS("the islands are numbered in order and mother nature is on one of them") {
+        @Override
+        boolean holdsIn(GameManager manager) {
+            IslandsManager islandsManager = manager.getIslandsManager();
+            List<Island> islands = islandsManager.getIslands();
+            int motherNature = 0;
+            int merged = 0;
+            for (int i = 0; i < islands.size(); i++) {
+                Island island = islands.get(i);
+                if (island.getIslandId() != i) return false;
+                if (island.getMotherNatureHere()) {
+                    if (island != islandsManager.getMotherNaturePosition()) return false;
+                    motherNature++;
+                }
+                merged += island.getNumIslands();
+            }
+            return motherNature == 1 && merged == INITIAL_ISLANDS;
+        }
+    },
+
+    /**
+     * The boards hold no more students than they have room for
+     */
+    BOARDS("no table has more than ten students and no entrance more than it can hold") {
+        @Override
+        boolean holdsIn(GameManager manager) {
+            int entranceSize = manager.getPlayersNumber() == 2 ? ENTRANCE_FOR_2 : ENTRANCE_FOR_3;
+            for (Player player : manager.getTurnManager().getPlayers()) {
+                Board board = player.getBoard();
+                if (board.getEntrance().size() > entranceSize) return false;
+                for (FactionColor color : COLORS)
+                    if (board.getDiningRoom().getByColor(color) > TABLE_SIZE) return false;
+            }
+            return true;
+        }
+    },
+
+    /**
+     * The coins are never spent beyond what a player has
+     */
+    COINS("no player has a negative number of coins") {
+        @Override
+        boolean holdsIn(GameManager manager) {
+            for (Player player : manager.getTurnManager().getPlayers())
+                if (player.getNumberOfCoins() < 0) return false;
+            return true;
+        }
+    };
+
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    private static final FactionColor[] COLORS = FactionColor.values();
+
+    /**
+     * The students of a color in a game: 24 in the bag and 2 on the islands
+     */
+    private static final int STUDENTS_PER_COLOR = 26;
+
+    /**
+     * The towers of a player with two players
+     */
+    private static final int TOWERS_FOR_2 = 8;
+
+    /**
+     * The towers of a player with three players
+     */
+    private static final int TOWERS_FOR_3 = 6;
+
+    /**
+     * The islands at the start of a game, each merged island counts the ones it's made of
+     */
+    private static final int INITIAL_ISLANDS = 12;
+
+    /**
+     * The students an entrance holds with two players
+     */
+    private static final int ENTRANCE_FOR_2 = 7;
+
+    /**
+     * The students an entrance holds with three players
+     */
+    private static final int ENTRANCE_FOR_3 = 9;
+
+    /**
+     * The students of a color a dining room holds
+     */
+    private static final int TABLE_SIZE = 10;
+
+    /**
+     * What the invariant requires
+     */
+    private final String description;
+
+    /**
+     * Default constructor
+     *
+     * @param description what the invariant requires.
+     */
+    Invariant(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return what the invariant requires
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @param game a game.
+     * @return true if the invariant holds in the game
+     */
+    public boolean holds(Simulation game) {
+        return holdsIn(game.getManager());
+    }
+
+    /**
+     * @param manager the model of a game, which is only read.
+     * @return true if the invariant holds in the model
+     */
+    abstract boolean holdsIn(GameManager manager);
+}
@@ -0,0 +1,208 @@
+package it.polimi.ingsw.am37.bot;
+
+import it.polimi.ingsw.am37.model.MatchRandom;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+/**
+ * Chooses the moves of the bots with a Monte Carlo tree search. Each playout starts from a copy of the game whose
+ * random choices, like the students drawn for the clouds, come from a new seed, so a node of the tree stands for the
+ * moves made to reach it rather than for a single state. The playouts of a decision are split among the workers,
+ * each growing its own tree; the visits of the first moves of the trees are then added up.
+ */
+public class MonteCarloTreeSearch {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(MonteCarloTreeSearch.class);
+
+    /**
+     * How much the search tries the moves visited less, against the ones which won more
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * The search shared by the bots of the process, created on first use
+     */
+    private static MonteCarloTreeSearch instance;
+
+    /**
+     * The workers which run the playouts
+     */
+    private final ForkJoinPool workers;
+
+    /**
+     * Default constructor
+     *
+     * @param parallelism number of workers, usually the number of cores
+     */
+    public MonteCarloTreeSearch(int parallelism) {
+        this.workers = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                (thread, e) -> LOGGER.error("Uncaught error in " + thread.getName() + ": " + e), false);
+    }
+
+    /**
+     * @return the search shared by the whole process, with a worker per core
+     */
+    public static synchronized MonteCarloTreeSearch getInstance() {
+        if (instance == null) instance = new MonteCarloTreeSearch(Runtime.getRuntime().availableProcessors());
+        return instance;
+    }
+
+    /**
+     * Chooses the move of the current player, the one whose subtree has been visited the most
+     *
+     * @param game       the game, which isn't changed.
+     * @param difficulty the budget of the search.
+     * @param seed       the seed of the playouts.
+     * @return the move chosen
+     * @throws IllegalStateException if the game is over.
+     */
+    public Move search(Simulation game, Difficulty difficulty, long seed) {
+        List<Move> moves = game.legalMoves();
+        if (moves.isEmpty()) throw new IllegalStateException("The game is over");
+        if (moves.size() == 1) return moves.get(0);
+        int parallelism = workers.getParallelism();
+        long deadline = System.nanoTime() + difficulty.getMaxMillis() * 1_000_000;
+        MatchRandom random = new MatchRandom(seed);
+        List<Callable<Node>> trees = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            int playouts = difficulty.getPlayouts() / parallelism + (i < difficulty.getPlayouts() % parallelism ? 1 : 0);
+            RandomGenerator source = random.fork(i);
+            trees.add(() -> grow(game, playouts, difficulty.getHorizon(), deadline, source));
+        }
+        Map<Move, Node> visits = new HashMap<>();
+        try {
+            for (Future<Node> tree : workers.invokeAll(trees))
+                for (Map.Entry<Move, Node> child : tree.get().children.entrySet())
+                    visits.computeIfAbsent(child.getKey(), move -> new Node(-1)).add(child.getValue());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The search has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The search has failed", e.getCause());
+        }
+        return visits.entrySet()
+                .stream()
+                .max(Comparator.comparingInt((Map.Entry<Move, Node> entry) -> entry.getValue().visits)
+                        .thenComparingDouble(entry -> entry.getValue().reward))
+                .map(Map.Entry::getKey)
+                .orElse(moves.get(0));
+    }
+
+    /**
+     * Grows a tree from the game
+     *
+     * @param game     the game at the root of the tree.
+     * @param playouts the playouts to run.
+     * @param horizon  the rounds of a playout.
+     * @param deadline when the search stops even if not all the playouts have been run, in {@link System#nanoTime()}
+     * @param random   the source of the seeds of the playouts and of their moves.
+     * @return the root of the tree
+     */
+    private static Node grow(Simulation game, int playouts, int horizon, long deadline, RandomGenerator random) {
+        Node root = new Node(game.getCurrentSeat());
+        List<Node> path = new ArrayList<>();
+        for (int i = 0; i < playouts && System.nanoTime() < deadline; i++) {
+            Simulation simulation = game.copy(random.nextLong());
+            Node node = root;
+            path.clear();
+            while (!simulation.isOver()) {
+                List<Move> moves = simulation.legalMoves();
+                Map<Move, Node> children = node.children;
+                List<Move> untried = moves.stream().filter(move -> !children.containsKey(move)).toList();
+                int seat = simulation.getCurrentSeat();
+                Move move = untried.isEmpty() ? node.select(moves) : untried.get(random.nextInt(untried.size()));
+                Node child = children.computeIfAbsent(move, m -> new Node(seat));
+                simulation.apply(move);
+                path.add(child);
+                node = child;
+                if (!untried.isEmpty()) break;
+            }
+            simulation.playout(random, horizon);
+            double[] rewards = simulation.rewards();
+            root.visits++;
+            for (Node visited : path) {
+                visited.visits++;
+                visited.reward += rewards[visited.seat];
+            }
+        }
+        return root;
+    }
+
+    /**
+     * A node of the tree, reached by a move
+     */
+    private static class Node {
+
+        /**
+         * The seat of the player who made the move, whose share of the victory the node adds up
+         */
+        private final int seat;
+
+        /**
+         * The moves tried after this one
+         */
+        private final Map<Move, Node> children;
+
+        /**
+         * The playouts which went through the node
+         */
+        private int visits;
+
+        /**
+         * The share of the victory of the player who made the move, added up over the playouts
+         */
+        private double reward;
+
+        /**
+         * Default constructor
+         *
+         * @param seat the seat of the player who made the move.
+         */
+        private Node(int seat) {
+            this.seat = seat;
+            this.children = new HashMap<>();
+        }
+
+        /**
+         * Chooses the next move to follow, by upper confidence bound; only the moves which can be made in the current
+         * copy are considered
+         *
+         * @param moves the moves which can be made.
+         * @return the move chosen
+         */
+        private Move select(List<Move> moves) {
+            Move best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(visits);
+            for (Move move : moves) {
+                Node child = children.get(move);
+                double value = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = move;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Adds the visits and the rewards of a node of another tree reached by the same move
+         *
+         * @param other the other node.
+         */
+        private void add(Node other) {
+            visits += other.visits;
+            reward += other.reward;
+        }
+    }
+}
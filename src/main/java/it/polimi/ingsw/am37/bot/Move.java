@@ -0,0 +1,57 @@
+package it.polimi.ingsw.am37.bot;
+
+/**
+ * A single decision of a player, as seen by the bots. A turn of the action phase is split into several moves: the
+ * character, one move for each student, mother nature and the cloud.
+ *
+ * @param type   the kind of decision
+ * @param value  the assistant, the effect of the character ({@link Move#NONE} for no character), the color of the
+ *               student, the steps of mother nature or the index of the cloud ({@link Move#NONE} for no cloud)
+ * @param target the parameter of the character, the destination of the student ({@link Move#DINING} or the index of
+ *               the island), unused otherwise
+ */
+public record Move(Type type, int value, int target) implements Comparable<Move> {
+
+    /**
+     * The value of the moves which don't use a character or a cloud
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The target of the students moved to the dining room
+     */
+    public static final int DINING = -1;
+
+    /**
+     * The kinds of decisions
+     */
+    public enum Type {
+        /**
+         * Plays an assistant, in the planning phase
+         */
+        ASSISTANT,
+        /**
+         * Plays a character, or none, at the beginning of the turn
+         */
+        CHARACTER,
+        /**
+         * Moves a student out of the entrance
+         */
+        STUDENT,
+        /**
+         * Moves mother nature forward
+         */
+        MOTHER_NATURE,
+        /**
+         * Takes the students of a cloud, which ends the turn
+         */
+        CLOUD
+    }
+
+    @Override
+    public int compareTo(Move other) {
+        if (type != other.type) return type.compareTo(other.type);
+        if (value != other.value) return Integer.compare(value, other.value);
+        return Integer.compare(target, other.target);
+    }
+}
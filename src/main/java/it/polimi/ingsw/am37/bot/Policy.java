@@ -0,0 +1,49 @@
+package it.polimi.ingsw.am37.bot;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Chooses the moves of a player in a game played by the {@link SelfPlay} harness
+ */
+@FunctionalInterface
+public interface Policy {
+
+    /**
+     * Chooses the move of the current player
+     *
+     * @param game   the game, which must not be changed.
+     * @param random the source of the random choices of the policy.
+     * @return one of the legal moves of the game
+     */
+    Move choose(Simulation game, RandomGenerator random);
+
+    /**
+     * @return a policy which makes any legal move with the same probability, characters included
+     */
+    static Policy random() {
+        return (game, random) -> {
+            List<Move> moves = game.legalMoves();
+            return moves.get(random.nextInt(moves.size()));
+        };
+    }
+
+    /**
+     * @param search     the search which chooses the moves.
+     * @param difficulty the budget of the search.
+     * @return a policy which plays as the bots do
+     */
+    static Policy search(MonteCarloTreeSearch search, Difficulty difficulty) {
+        return (game, random) -> search.search(game, difficulty, random.nextLong());
+    }
+
+    /**
+     * @param label random, or the label of a {@link Difficulty}.
+     * @return the policy with the given label, the bots share {@link MonteCarloTreeSearch#getInstance()}
+     * @throws IllegalArgumentException if no policy has the label.
+     */
+    static Policy findByLabel(String label) {
+        if (label.equals("random")) return random();
+        return search(MonteCarloTreeSearch.getInstance(), Difficulty.findByLabel(label));
+    }
+}
@@ -0,0 +1,179 @@
+package it.polimi.ingsw.am37.bot;
+
+import it.polimi.ingsw.am37.model.MatchRandom;
+import it.polimi.ingsw.am37.model.character.Effect;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays whole games without a server, the moves of each seat chosen by a {@link Policy}, and checks the
+ * {@link Invariant}s after every move which doesn't end the game. The games are split among the workers of a fork join
+ * pool; each game draws from its own stream of the seed of the harness, so a game reported as broken can be played
+ * again on its own with {@link #play(long)}.
+ */
+public class SelfPlay {
+
+    /**
+     * The games a task plays on its own instead of splitting them
+     */
+    private static final int GAMES_PER_TASK = 16;
+
+    /**
+     * The moves after which a game is given up as unfinished, far more than the longest game lasts
+     */
+    private static final int MAX_MOVES = 5000;
+
+    /**
+     * The invariants, cached since {@link Invariant#values()} copies them on every call
+     */
+    private static final Invariant[] INVARIANTS = Invariant.values();
+
+    /**
+     * The workers which play the games
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of players of the games
+     */
+    private final int playersNumber;
+
+    /**
+     * True for the advanced rules
+     */
+    private final boolean advancedMode;
+
+    /**
+     * The policies of the players, by seat
+     */
+    private final Policy[] policies;
+
+    /**
+     * The seed of the games
+     */
+    private final long seed;
+
+    /**
+     * Default constructor
+     *
+     * @param pool          the workers which play the games.
+     * @param playersNumber the number of players of the games.
+     * @param advancedMode  true for the advanced rules.
+     * @param policies      the policies of the players, by seat.
+     * @param seed          the seed of the games.
+     * @throws IllegalArgumentException if there isn't a policy for each seat.
+     */
+    public SelfPlay(ForkJoinPool pool, int playersNumber, boolean advancedMode, List<Policy> policies, long seed) {
+        if (policies.size() != playersNumber)
+            throw new IllegalArgumentException("Expected " + playersNumber + " policies, got " + policies.size());
+        this.pool = pool;
+        this.playersNumber = playersNumber;
+        this.advancedMode = advancedMode;
+        this.policies = policies.toArray(new Policy[0]);
+        this.seed = seed;
+    }
+
+    /**
+     * Plays games in parallel
+     *
+     * @param games the games to play, numbered from 0.
+     * @return the report of the games
+     */
+    public SelfPlayReport run(long games) {
+        return pool.invoke(new Batch(0, games));
+    }
+
+    /**
+     * Plays a single game, the same one {@link #run(long)} plays with that number
+     *
+     * @param game the number of the game.
+     * @return the report of the game
+     */
+    public SelfPlayReport play(long game) {
+        SelfPlayReport report = new SelfPlayReport(playersNumber);
+        play(game, report);
+        return report;
+    }
+
+    /**
+     * Plays a game until it's over, the model refuses a move or it lasts too long
+     *
+     * @param game   the number of the game.
+     * @param report where the game is added.
+     */
+    private void play(long game, SelfPlayReport report) {
+        MatchRandom random = new MatchRandom(seed).fork(game);
+        Simulation simulation = Simulation.newGame(playersNumber, advancedMode, random.nextLong());
+        Set<Invariant> violated = EnumSet.noneOf(Invariant.class);
+        RuntimeException failure = null;
+        int moves = 0;
+        while (!simulation.isOver() && moves < MAX_MOVES) {
+            Move move = policies[simulation.getCurrentSeat()].choose(simulation, random);
+            if (move.type() == Move.Type.CHARACTER && move.value() != Move.NONE)
+                report.addCharacterUse(Effect.values()[move.value()]);
+            try {
+                simulation.apply(move);
+            } catch (RuntimeException e) {
+                failure = e;
+                break;
+            }
+            moves++;
+            if (simulation.isOver()) break;
+            for (Invariant invariant : INVARIANTS)
+                if (!violated.contains(invariant) && !invariant.holds(simulation)) violated.add(invariant);
+        }
+        if (failure == null) failure = simulation.getFailure();
+        report.addGame(game, simulation, moves, violated, failure);
+    }
+
+    /**
+     * Plays a range of games, splitting it among the workers while it's large
+     */
+    private class Batch extends RecursiveTask<SelfPlayReport> {
+
+        /**
+         * Version of the serialized form
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first game of the range
+         */
+        private final long from;
+
+        /**
+         * The game after the last one of the range
+         */
+        private final long to;
+
+        /**
+         * Default constructor
+         *
+         * @param from the first game of the range.
+         * @param to   the game after the last one of the range.
+         */
+        private Batch(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SelfPlayReport compute() {
+            if (to - from > GAMES_PER_TASK) {
+                long middle = (from + to) >>> 1;
+                Batch first = new Batch(from, middle);
+                first.fork();
+                SelfPlayReport second = new Batch(middle, to).compute();
+                return first.join().merge(second);
+            }
+            SelfPlayReport report = new SelfPlayReport(playersNumber);
+            for (long game = from; game < to; game++)
+                play(game, report);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package it.polimi.ingsw.am37.bot;
+
+import it.polimi.ingsw.am37.model.character.Effect;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * What the {@link SelfPlay} harness has seen in the games it played: who won, how long the games lasted, which
+ * characters were played and which rules the model broke. The reports of parts of the games are merged into the
+ * report of all of them.
+ */
+public class SelfPlayReport {
+
+    /**
+     * The number of players of the games
+     */
+    private final int playersNumber;
+
+    /**
+     * The games played
+     */
+    private long games;
+
+    /**
+     * The games won, by seat
+     */
+    private final long[] wins;
+
+    /**
+     * The games which were still going on after the most moves a game can last
+     */
+    private long unfinished;
+
+    /**
+     * The rounds ended in the games which finished, added up
+     */
+    private long rounds;
+
+    /**
+     * The fewest rounds a finished game lasted
+     */
+    private int minRounds;
+
+    /**
+     * The most rounds a finished game lasted
+     */
+    private int maxRounds;
+
+    /**
+     * The moves made in all the games
+     */
+    private long moves;
+
+    /**
+     * The times each character was played, by effect
+     */
+    private final long[] characterUses;
+
+    /**
+     * The games in which each invariant was broken
+     */
+    private final Map<Invariant, Long> violations;
+
+    /**
+     * The first game in which each invariant was broken, to play it again
+     */
+    private final Map<Invariant, Long> firstViolations;
+
+    /**
+     * The games ended by a move the model refused, by error
+     */
+    private final Map<String, Long> failures;
+
+    /**
+     * The first game ended by a move the model refused, -1 if none was
+     */
+    private long firstFailure;
+
+    /**
+     * Default constructor, of a report of no games
+     *
+     * @param playersNumber the number of players of the games.
+     */
+    public SelfPlayReport(int playersNumber) {
+        this.playersNumber = playersNumber;
+        this.wins = new long[playersNumber];
+        this.minRounds = Integer.MAX_VALUE;
+        this.characterUses = new long[Effect.values().length];
+        this.violations = new EnumMap<>(Invariant.class);
+        this.firstViolations = new EnumMap<>(Invariant.class);
+        this.failures = new TreeMap<>();
+        this.firstFailure = -1;
+    }
+
+    /**
+     * Adds a game to the report
+     *
+     * @param game     the number of the game.
+     * @param result   the game, as it ended.
+     * @param moves    the moves made in the game.
+     * @param violated the invariants broken in the game.
+     * @param failure  the error with which the model refused a move, null if none did.
+     */
+    void addGame(long game, Simulation result, int moves, Set<Invariant> violated, RuntimeException failure) {
+        games++;
+        this.moves += moves;
+        for (Invariant invariant : violated) {
+            violations.merge(invariant, 1L, Long::sum);
+            firstViolations.merge(invariant, game, Math::min);
+        }
+        if (failure != null) {
+            failures.merge(failure.getClass().getSimpleName() + ": " + failure.getMessage(), 1L, Long::sum);
+            firstFailure = firstFailure == -1 ? game : Math.min(firstFailure, game);
+        } else if (!result.isOver())
+            unfinished++;
+        else {
+            wins[result.getWinnerSeat()]++;
+            rounds += result.getRounds();
+            minRounds = Math.min(minRounds, result.getRounds());
+            maxRounds = Math.max(maxRounds, result.getRounds());
+        }
+    }
+
+    /**
+     * Counts a character played
+     *
+     * @param effect the effect of the character.
+     */
+    void addCharacterUse(Effect effect) {
+        characterUses[effect.ordinal()]++;
+    }
+
+    /**
+     * Adds the games of another report to this one
+     *
+     * @param other the report of other games with the same number of players.
+     * @return this report
+     */
+    SelfPlayReport merge(SelfPlayReport other) {
+        games += other.games;
+        for (int i = 0; i < playersNumber; i++)
+            wins[i] += other.wins[i];
+        unfinished += other.unfinished;
+        rounds += other.rounds;
+        minRounds = Math.min(minRounds, other.minRounds);
+        maxRounds = Math.max(maxRounds, other.maxRounds);
+        moves += other.moves;
+        for (int i = 0; i < characterUses.length; i++)
+            characterUses[i] += other.characterUses[i];
+        other.violations.forEach((invariant, count) -> violations.merge(invariant, count, Long::sum));
+        other.firstViolations.forEach((invariant, game) -> firstViolations.merge(invariant, game, Math::min));
+        other.failures.forEach((error, count) -> failures.merge(error, count, Long::sum));
+        if (other.firstFailure != -1)
+            firstFailure = firstFailure == -1 ? other.firstFailure : Math.min(firstFailure, other.firstFailure);
+        return this;
+    }
+
+    /**
+     * @return the games played
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @param seat a seat.
+     * @return the games won by the player in the seat
+     */
+    public long getWins(int seat) {
+        return wins[seat];
+    }
+
+    /**
+     * @return the games which were still going on after the most moves a game can last
+     */
+    public long getUnfinished() {
+        return unfinished;
+    }
+
+    /**
+     * @return the games which finished without errors
+     */
+    public long getFinished() {
+        long finished = 0;
+        for (long won : wins)
+            finished += won;
+        return finished;
+    }
+
+    /**
+     * @return the average rounds ended in a finished game, 0 if none finished
+     */
+    public double getAverageRounds() {
+        return getFinished() == 0 ? 0 : (double) rounds / getFinished();
+    }
+
+    /**
+     * @return the fewest rounds a finished game lasted, 0 if none finished
+     */
+    public int getMinRounds() {
+        return getFinished() == 0 ? 0 : minRounds;
+    }
+
+    /**
+     * @return the most rounds a finished game lasted
+     */
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    /**
+     * @return the average moves of a game, 0 if none was played
+     */
+    public double getAverageMoves() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    /**
+     * @param effect the effect of a character.
+     * @return the times the character was played
+     */
+    public long getCharacterUses(Effect effect) {
+        return characterUses[effect.ordinal()];
+    }
+
+    /**
+     * @param invariant an invariant.
+     * @return the games in which the invariant was broken
+     */
+    public long getViolations(Invariant invariant) {
+        return violations.getOrDefault(invariant, 0L);
+    }
+
+    /**
+     * @param invariant an invariant.
+     * @return the first game in which the invariant was broken, -1 if it never was
+     */
+    public long getFirstViolation(Invariant invariant) {
+        return firstViolations.getOrDefault(invariant, -1L);
+    }
+
+    /**
+     * @return the games ended by a move the model refused, by error
+     */
+    public Map<String, Long> getFailures() {
+        return new TreeMap<>(failures);
+    }
+
+    /**
+     * @return the first game ended by a move the model refused, -1 if none was
+     */
+    public long getFirstFailure() {
+        return firstFailure;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append("Games: ").append(games)
+                .append(", finished: ").append(getFinished())
+                .append(", unfinished: ").append(unfinished)
+                .append(", refused moves: ").append(games - getFinished() - unfinished)
+                .append('\n');
+        for (int seat = 0; seat < playersNumber; seat++)
+            report.append(String.format("Seat %d wins: %d (%.1f%%)%n", seat, wins[seat],
+                    getFinished() == 0 ? 0.0 : 100.0 * wins[seat] / getFinished()));
+        report.append(String.format("Rounds: average %.2f, min %d, max %d%n", getAverageRounds(), getMinRounds(),
+                maxRounds));
+        report.append(String.format("Moves per game: %.1f%n", getAverageMoves()));
+        for (Effect effect : Effect.values())
+            if (characterUses[effect.ordinal()] > 0)
+                report.append("Played ").append(effect).append(": ").append(characterUses[effect.ordinal()])
+                        .append('\n');
+        for (Invariant invariant : Invariant.values())
+            if (getViolations(invariant) > 0)
+                report.append("Broken ").append(invariant).append(" (").append(invariant.getDescription())
+                        .append(") in ").append(getViolations(invariant)).append(" games, first in game ")
+                        .append(getFirstViolation(invariant)).append('\n');
+        failures.forEach((error, count) -> report.append("Refused ").append(count).append(" times: ").append(error)
+                .append('\n'));
+        if (firstFailure != -1) report.append("First refused move in game ").append(firstFailure).append('\n');
+        return report.toString();
+    }
+}
@@ -0,0 +1,651 @@
+package it.polimi.ingsw.am37.bot;
+
+import it.polimi.ingsw.am37.client.ClientStatus;
+import it.polimi.ingsw.am37.message.*;
+import it.polimi.ingsw.am37.model.*;
+import it.polimi.ingsw.am37.model.character.Character;
+import it.polimi.ingsw.am37.model.character.Effect;
+import it.polimi.ingsw.am37.model.character.Option;
+import it.polimi.ingsw.am37.model.character.OptionBuilder;
+import it.polimi.ingsw.am37.model.exceptions.AssistantImpossibleToPlay;
+import it.polimi.ingsw.am37.model.exceptions.WinningException;
+import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A copy of a game which the bots play on their own, following the same steps the {@link
+ * it.polimi.ingsw.am37.controller.Lobby} follows: the clouds are refilled before the first assistant of a round, the
+ * order of the players changes once all of them have played an assistant and the game ends when mother nature leaves
+ * fewer than four islands or at the end of the last round.
+ */
+public class Simulation {
+
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    private static final FactionColor[] COLORS = FactionColor.values();
+
+    /**
+     * The students of a color a dining room can hold
+     */
+    private static final int MAX_TABLE_SIZE = 10;
+
+    /**
+     * The additional steps of mother nature given by the Magic Postman and the additional influence given by the
+     * Knight, as the clients play them
+     */
+    private static final int CHARACTER_BONUS = 2;
+
+    /**
+     * The model of the copy
+     */
+    private final GameManager manager;
+
+    /**
+     * The nicknames of the players, by seat
+     */
+    private final String[] nicknames;
+
+    /**
+     * What the current player is doing
+     */
+    private ClientStatus status;
+
+    /**
+     * The students moved by the current player in this turn
+     */
+    private int studentsMoved;
+
+    /**
+     * The last student moved in this turn, the students are moved in order so that the same moves in another order
+     * aren't tried again
+     */
+    private Move lastStudent;
+
+    /**
+     * True once the current player has decided whether to play a character in this turn
+     */
+    private boolean characterDecided;
+
+    /**
+     * The steps of mother nature added to the assistant of the current player by the Magic Postman, which the packed
+     * state doesn't keep
+     */
+    private int extraSteps;
+
+    /**
+     * The rounds ended since the copy was made
+     */
+    private int rounds;
+
+    /**
+     * True once the game is over
+     */
+    private boolean over;
+
+    /**
+     * The error with which the model refused a move, which ended the game; null if none did
+     */
+    private RuntimeException failure;
+
+    /**
+     * The state of the game, kept until the copy is changed
+     */
+    private PackedGameState packed;
+
+    /**
+     * Constructor of a copy of the given state
+     *
+     * @param state         the state of the game.
+     * @param seed          the seed of the random choices of the copy.
+     * @param nicknames     the nicknames of the players, by seat.
+     * @param status        what the current player is doing.
+     * @param studentsMoved the students moved by the current player in this turn.
+     */
+    private Simulation(PackedGameState state, long seed, String[] nicknames, ClientStatus status, int studentsMoved) {
+        this.manager = state.toGameManager(seed);
+        this.packed = state;
+        this.nicknames = nicknames;
+        this.status = status;
+        this.studentsMoved = studentsMoved;
+    }
+
+    /**
+     * Copies a game
+     *
+     * @param manager       the game, which is only read.
+     * @param status        what the current player is doing.
+     * @param studentsMoved the students moved by the current player in this turn.
+     * @return a copy of the game
+     */
+    public static Simulation of(GameManager manager, ClientStatus status, int studentsMoved) {
+        String[] nicknames = manager.getTurnManager()
+                .getPlayers()
+                .stream()
+                .map(Player::getPlayerId)
+                .toArray(String[]::new);
+        Simulation simulation = new Simulation(PackedGameState.of(manager), manager.getSeed(), nicknames, status,
+                studentsMoved);
+        simulation.characterDecided = studentsMoved > 0;
+        return simulation;
+    }
+
+    /**
+     * Starts a new game, the players are called player0, player1 and so on
+     *
+     * @param playersNumber the number of players.
+     * @param advancedMode  true for the advanced rules.
+     * @param seed          the seed of the random choices of the game.
+     * @return the game, at the first planning phase
+     */
+    public static Simulation newGame(int playersNumber, boolean advancedMode, long seed) {
+        GameManager manager = new GameManager(playersNumber, advancedMode, seed);
+        manager.prepareGame();
+        for (int i = 0; i < playersNumber; i++)
+            manager.getTurnManager().getPlayers().get(i).setPlayerId("player" + i);
+        return of(manager, ClientStatus.PLAYINGASSISTANT, 0);
+    }
+
+    /**
+     * Copies this game, whose future random choices are drawn from the given seed
+     *
+     * @param seed the seed of the random choices of the copy.
+     * @return a copy of this game
+     */
+    public Simulation copy(long seed) {
+        if (packed == null) packed = PackedGameState.of(manager);
+        Simulation copy = new Simulation(packed, seed, nicknames, status, studentsMoved);
+        copy.lastStudent = lastStudent;
+        copy.characterDecided = characterDecided;
+        copy.extraSteps = extraSteps;
+        copy.over = over;
+        copy.failure = failure;
+        if (extraSteps > 0) copy.currentPlayer().getLastAssistantPlayed().increaseMNMovement(extraSteps);
+        return copy;
+    }
+
+    /**
+     * @return the players of the game, by seat
+     */
+    private List<Player> players() {
+        return manager.getTurnManager().getPlayers();
+    }
+
+    /**
+     * @return the player who has to move
+     */
+    private Player currentPlayer() {
+        return manager.getTurnManager().getCurrentPlayer();
+    }
+
+    /**
+     * @return the seat of the player who has to move
+     */
+    public int getCurrentSeat() {
+        Player current = currentPlayer();
+        for (int i = 0; i < players().size(); i++)
+            if (players().get(i) == current) return i;
+        throw new IllegalStateException("The current player has no seat");
+    }
+
+    /**
+     * @param nickname the nickname of a player
+     * @return the seat of the player, -1 if it doesn't play this game
+     */
+    public int getSeat(String nickname) {
+        for (int i = 0; i < nicknames.length; i++)
+            if (nicknames[i].equals(nickname)) return i;
+        return -1;
+    }
+
+    /**
+     * @return the number of players
+     */
+    public int getPlayersNumber() {
+        return nicknames.length;
+    }
+
+    /**
+     * @return what the current player is doing
+     */
+    public ClientStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if the game is over
+     */
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * @return the rounds ended since the game was copied
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return the error with which the model refused a move, which ended the game; null if none did
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return the model of the game, which must only be read
+     */
+    GameManager getManager() {
+        return manager;
+    }
+
+    /**
+     * @return the seat of the player the model declares winner
+     */
+    public int getWinnerSeat() {
+        Player winner = manager.calculateWinningPlayer();
+        for (int i = 0; i < players().size(); i++)
+            if (players().get(i) == winner) return i;
+        throw new IllegalStateException("The winner has no seat");
+    }
+
+    /**
+     * @return the moves the current player can make, none if the game is over
+     */
+    public List<Move> legalMoves() {
+        List<Move> moves = new ArrayList<>();
+        if (over) return moves;
+        switch (status) {
+            case PLAYINGASSISTANT -> assistantMoves(moves);
+            case MOVINGSTUDENTS -> {
+                if (!characterDecided) characterMoves(moves);
+                if (moves.size() <= 1) {
+                    moves.clear();
+                    studentMoves(moves);
+                }
+            }
+            case MOVINGMOTHERNATURE -> {
+                for (int steps = 1; steps <= Math.min(maxSteps(), islands().size()); steps++)
+                    moves.add(new Move(Move.Type.MOTHER_NATURE, steps, 0));
+            }
+            case CHOOSINGCLOUD -> {
+                List<Cloud> clouds = manager.getClouds();
+                for (int i = 0; i < clouds.size(); i++)
+                    if (clouds.get(i).size() > 0) moves.add(new Move(Move.Type.CLOUD, i, 0));
+                if (moves.isEmpty()) moves.add(new Move(Move.Type.CLOUD, Move.NONE, 0));
+            }
+            default -> throw new IllegalStateException("No moves while " + status);
+        }
+        return moves;
+    }
+
+    /**
+     * Adds the assistants the current player can play: the ones not played by the others in this round, unless it has
+     * only those.
+     *
+     * @param moves where the moves are added.
+     */
+    private void assistantMoves(List<Move> moves) {
+        Player current = currentPlayer();
+        for (int value : current.getAssistantsDeck().keySet()) {
+            boolean taken = false;
+            for (Player player : players())
+                if (player != current && player.getLastAssistantPlayed() != null
+                        && player.getLastAssistantPlayed().getCardValue() == value)
+                    taken = true;
+            if (!taken) moves.add(new Move(Move.Type.ASSISTANT, value, 0));
+        }
+        if (moves.isEmpty())
+            for (int value : current.getAssistantsDeck().keySet())
+                moves.add(new Move(Move.Type.ASSISTANT, value, 0));
+    }
+
+    /**
+     * Adds the characters the current player can afford, after the move which plays none. The characters which need
+     * students of the player or of the card aren't played by the bots.
+     *
+     * @param moves where the moves are added.
+     */
+    private void characterMoves(List<Move> moves) {
+        moves.add(new Move(Move.Type.CHARACTER, Move.NONE, 0));
+        if (!manager.isAdvancedMode()) return;
+        for (Character character : manager.getCharacters()) {
+            if (character.isPlayedInThisTurn() || character.getCurrentPrice() > currentPlayer().getNumberOfCoins())
+                continue;
+            int effect = character.getEffectType().ordinal();
+            switch (character.getEffectType()) {
+                case FARMER, CENTAUR, KNIGHT, MAGIC_POSTMAN -> moves.add(new Move(Move.Type.CHARACTER, effect, 0));
+                case MUSHROOM_MAN -> {
+                    for (FactionColor color : COLORS)
+                        moves.add(new Move(Move.Type.CHARACTER, effect, color.getIndex()));
+                }
+                case GRANDMA -> {
+                    if (character.getState().getNoEntryTiles() > 0)
+                        for (int i = 0; i < islands().size(); i++)
+                            if (islands().get(i).getNoEntryTile() == 0)
+                                moves.add(new Move(Move.Type.CHARACTER, effect, i));
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the students the current player can move: to its dining room, if there's room, or to an island mother
+     * nature can reach in this turn. The students are moved in order of color and destination, and only if the
+     * students left in the entrance allow to complete the turn in that order.
+     *
+     * @param moves where the moves are added.
+     */
+    private void studentMoves(List<Move> moves) {
+        Board board = currentPlayer().getBoard();
+        int left = GameManager.MAX_FOR_MOVEMENTS[nicknames.length % 2] - studentsMoved;
+        List<Integer> reachable = reachableIslands();
+        for (FactionColor color : COLORS) {
+            int inEntrance = board.getEntrance().getByColor(color);
+            if (inEntrance == 0) continue;
+            int following = 0;
+            for (int c = color.getIndex(); c < COLORS.length; c++)
+                following += board.getEntrance().getByColor(COLORS[c]);
+            if (following < left) continue;
+            if (board.getDiningRoom().getByColor(color) < MAX_TABLE_SIZE)
+                addStudent(moves, new Move(Move.Type.STUDENT, color.getIndex(), Move.DINING));
+            for (int island : reachable)
+                addStudent(moves, new Move(Move.Type.STUDENT, color.getIndex(), island));
+        }
+    }
+
+    /**
+     * @param moves where the move is added.
+     * @param move  a student move, added if it doesn't come before the last one of the turn.
+     */
+    private void addStudent(List<Move> moves, Move move) {
+        if (lastStudent == null || move.compareTo(lastStudent) >= 0) moves.add(move);
+    }
+
+    /**
+     * @return the indexes of the islands mother nature can reach in this turn, in order
+     */
+    private List<Integer> reachableIslands() {
+        int count = islands().size();
+        int position = motherNatureIndex();
+        List<Integer> reachable = new ArrayList<>();
+        for (int steps = 1; steps <= Math.min(maxSteps(), count); steps++)
+            reachable.add((position + steps) % count);
+        reachable.sort(null);
+        return reachable;
+    }
+
+    /**
+     * @return the steps mother nature can make in this turn
+     */
+    private int maxSteps() {
+        Assistant assistant = currentPlayer().getLastAssistantPlayed();
+        return (assistant == null ? 1 : assistant.getMNMovement()) + manager.getIslandsManager().getAdditionalMNFlag();
+    }
+
+    /**
+     * @return the islands of the game
+     */
+    private List<Island> islands() {
+        return manager.getIslandsManager().getIslands();
+    }
+
+    /**
+     * @return the index of the island where mother nature is
+     */
+    private int motherNatureIndex() {
+        return manager.getIslandsManager().getMotherNatureIndex();
+    }
+
+    /**
+     * Makes a move of the current player
+     *
+     * @param move one of the legal moves.
+     * @throws IllegalStateException if the model refuses the move.
+     */
+    public void apply(Move move) {
+        packed = null;
+        switch (move.type()) {
+            case ASSISTANT -> playAssistant(move.value());
+            case CHARACTER -> playCharacter(move);
+            case STUDENT -> moveStudent(move);
+            case MOTHER_NATURE -> moveMotherNature(move.value());
+            case CLOUD -> chooseCloud(move.value());
+        }
+    }
+
+    /**
+     * Plays an assistant, the clouds are refilled before the first one of the round
+     *
+     * @param value the value of the assistant.
+     */
+    private void playAssistant(int value) {
+        TurnManager turnManager = manager.getTurnManager();
+        Player current = currentPlayer();
+        List<Player> order = turnManager.getOrderPlayed();
+        boolean last = order.get(order.size() - 1) == current;
+        if (order.get(0) == current) {
+            for (Cloud cloud : manager.getClouds()) {
+                if (!manager.getBag().isEmpty())
+                    cloud.addStudents(manager.getBag()
+                            .extractStudents(cloud.getIsFor2()
+                                    ? cloud.getStudentsPerCloud2Players()
+                                    : cloud.getStudentsPerCloud3Players()));
+                if (manager.getBag().isEmpty()) turnManager.setLastRound(true);
+            }
+        }
+        try {
+            manager.playAssistant(current.getAssistantsDeck().get(value));
+        } catch (AssistantImpossibleToPlay e) {
+            throw new IllegalStateException(e);
+        }
+        if (current.getAssistantsDeck().isEmpty()) turnManager.setLastRound(true);
+        if (last) {
+            manager.nextTurn();
+            startTurn();
+        }
+    }
+
+    /**
+     * Plays a character, or none
+     *
+     * @param move the character move.
+     */
+    private void playCharacter(Move move) {
+        characterDecided = true;
+        if (move.value() == Move.NONE) return;
+        Character character = character(move);
+        try {
+            manager.playCharacter(character, option(move, currentPlayer()));
+        } catch (WinningException e) {
+            over = true;
+        }
+        character.setPlayedInThisTurn(true);
+        if (character.getEffectType() == Effect.MAGIC_POSTMAN) extraSteps += CHARACTER_BONUS;
+    }
+
+    /**
+     * @param move a character move.
+     * @return the character of the move
+     */
+    private Character character(Move move) {
+        for (Character character : manager.getCharacters())
+            if (character.getEffectType().ordinal() == move.value()) return character;
+        throw new IllegalStateException("No character " + Effect.values()[move.value()] + " in the game");
+    }
+
+    /**
+     * @param move   a character move.
+     * @param player the player who plays the character.
+     * @return the option the character is played with
+     */
+    private Option option(Move move, Player player) {
+        OptionBuilder builder = OptionBuilder.newBuilder(manager, player);
+        switch (Effect.values()[move.value()]) {
+            case KNIGHT, MAGIC_POSTMAN -> builder.intPar(CHARACTER_BONUS);
+            case MUSHROOM_MAN -> builder.color(COLORS[move.target()]);
+            case GRANDMA -> builder.island(islands().get(move.target()));
+            default -> {
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Moves a student out of the entrance of the current player
+     *
+     * @param move the student move.
+     */
+    private void moveStudent(Move move) {
+        LimitedStudentsContainer student = new LimitedStudentsContainer(1);
+        student.addStudents(1, COLORS[move.value()]);
+        if (move.target() == Move.DINING)
+            manager.moveStudentsToDining(student);
+        else
+            manager.moveStudentsToIsland(student, move.target());
+        characterDecided = true;
+        lastStudent = move;
+        studentsMoved++;
+        if (studentsMoved == GameManager.MAX_FOR_MOVEMENTS[nicknames.length % 2])
+            status = ClientStatus.MOVINGMOTHERNATURE;
+    }
+
+    /**
+     * Moves mother nature, the game is over if it leaves fewer than four islands or a player runs out of towers; a move
+     * the model refuses ends the game as well.
+     *
+     * @param steps the steps of mother nature.
+     */
+    private void moveMotherNature(int steps) {
+        try {
+            manager.moveMotherNature((motherNatureIndex() + steps) % islands().size());
+        } catch (WinningException e) {
+            over = true;
+        } catch (IllegalStateException e) {
+            failure = e;
+            over = true;
+        }
+        status = ClientStatus.CHOOSINGCLOUD;
+    }
+
+    /**
+     * Takes the students of a cloud and passes the turn, the round ends after the last player in order
+     *
+     * @param cloud the index of the cloud, {@link Move#NONE} if all of them are empty.
+     */
+    private void chooseCloud(int cloud) {
+        TurnManager turnManager = manager.getTurnManager();
+        if (cloud == Move.NONE)
+            turnManager.setLastRound(true);
+        else
+            manager.chooseCloud(manager.getClouds().get(cloud).getCloudId());
+        List<Player> order = turnManager.getOrderPlayed();
+        if (order.get(order.size() - 1) == currentPlayer()) {
+            manager.nextTurn();
+            for (Player player : players())
+                player.setLastAssistantPlayed(null);
+            if (manager.isAdvancedMode())
+                for (Character character : manager.getCharacters())
+                    character.setPlayedInThisTurn(false);
+            rounds++;
+            if (turnManager.isLastRound()) over = true;
+            turnManager.getAssistantPlayed().clear();
+            startTurn();
+            status = ClientStatus.PLAYINGASSISTANT;
+        } else {
+            turnManager.nextPlayer();
+            startTurn();
+        }
+    }
+
+    /**
+     * Starts the turn of the action phase of the current player
+     */
+    private void startTurn() {
+        status = ClientStatus.MOVINGSTUDENTS;
+        studentsMoved = 0;
+        lastStudent = null;
+        characterDecided = false;
+        extraSteps = 0;
+    }
+
+    /**
+     * Plays the game with random moves, no characters are played
+     *
+     * @param random  the source of the moves.
+     * @param horizon the rounds played at most, the game is judged as it is after them.
+     */
+    public void playout(RandomGenerator random, int horizon) {
+        int end = rounds + horizon;
+        while (!over && rounds < end) {
+            List<Move> moves = legalMoves();
+            if (moves.isEmpty()) {
+                over = true;
+                break;
+            }
+            Move move = moves.get(0).type() == Move.Type.CHARACTER ? moves.get(0) : moves.get(random.nextInt(moves.size()));
+            apply(move);
+        }
+    }
+
+    /**
+     * Judges the game as it is: the leaders are the players with fewer towers left, then the ones with more
+     * professors.
+     *
+     * @return the share of the victory of each player, by seat; the leaders share the victory equally
+     */
+    public double[] rewards() {
+        int seats = nicknames.length;
+        int[] score = new int[seats];
+        int best = Integer.MIN_VALUE;
+        for (int i = 0; i < seats; i++) {
+            Board board = players().get(i).getBoard();
+            score[i] = -board.getTowers().getCurrentSize() * COLORS.length + board.getPossessedProf();
+            best = Math.max(best, score[i]);
+        }
+        int leaders = 0;
+        for (int i = 0; i < seats; i++)
+            if (score[i] == best) leaders++;
+        double[] rewards = new double[seats];
+        for (int i = 0; i < seats; i++)
+            if (score[i] == best) rewards[i] = 1.0 / leaders;
+        return rewards;
+    }
+
+    /**
+     * Writes a move as the message a client sends for it, it must be called before the move is made
+     *
+     * @param move the move.
+     * @param UUID the UUID of the player who makes the move.
+     * @return the message of the move, null if the move isn't sent to the lobby
+     */
+    public Message toMessage(Move move, String UUID) {
+        return switch (move.type()) {
+            case ASSISTANT -> new PlayAssistantMessage(UUID, move.value());
+            case CHARACTER -> {
+                if (move.value() == Move.NONE) yield null;
+                Player sender = new Player();
+                sender.setPlayerId(nicknames[getCurrentSeat()]);
+                yield new PlayCharacterMessage(UUID, Effect.values()[move.value()], option(move, sender));
+            }
+            case STUDENT -> {
+                LimitedStudentsContainer student = new LimitedStudentsContainer(1);
+                student.addStudents(1, COLORS[move.value()]);
+                yield move.target() == Move.DINING
+                        ? new StudentsToDiningMessage(UUID, student)
+                        : new StudentsToIslandMessage(UUID, student, move.target());
+            }
+            case MOTHER_NATURE ->
+                    new MoveMotherNatureMessage(UUID, (motherNatureIndex() + move.value()) % islands().size());
+            case CLOUD -> new ChooseCloudMessage(UUID, move.value() == Move.NONE
+                    ? null
+                    : manager.getClouds().get(move.value()).getCloudId());
+        };
+    }
+}
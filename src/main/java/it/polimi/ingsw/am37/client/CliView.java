@@ -822,11 +822,7 @@ public class CliView extends AbstractView {
      */
     @Override
     public void updateView(UpdateMessage updateMessage, Client client) {
-        reducedModel.update(updateMessage.getUpdatedObjects()
-                .values()
-                .stream()
-                .flatMap(List::stream)
-                .toList());
+        // the reduced model has already been updated, the CLI shows it only when asked
     }
 
     /**
@@ -556,7 +556,7 @@ public class Client {
      * @param nickname chosen nickname
      */
     private void sendLoginMessage(String UUID, String nickname) {
-        Message message = new LoginMessage(UUID, nickname);
+        Message message = new LoginMessage(UUID, nickname, BinaryCodec.getInstance().getId(), true);
         socket.sendMessage(message);
     }
 
@@ -460,7 +460,6 @@ public class GuiView extends AbstractView {
      */
     @Override
     public void updateView(UpdateMessage updateMessage, Client client) {
-        reducedModel.update(updateMessage.getUpdatedObjects().values().stream().flatMap(List::stream).toList());
         if (updateMessage.getUpdatedObjects(UpdatableObject.UpdatableType.ISLAND) != null &&
                 updateMessage.getUpdatedObjects(UpdatableObject.UpdatableType.ISLAND).size() != 0) {
             Platform.runLater(() -> ((GameSceneController) SceneController.getActiveController()).drawIslands(reducedModel.getIslands()));
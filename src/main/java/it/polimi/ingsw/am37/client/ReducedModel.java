@@ -1,5 +1,9 @@
 package it.polimi.ingsw.am37.client;
 
+import com.google.gson.JsonObject;
+import it.polimi.ingsw.am37.message.MessageCodec;
+import it.polimi.ingsw.am37.message.PropertyDelta;
+import it.polimi.ingsw.am37.message.UpdateMessage;
 import it.polimi.ingsw.am37.model.*;
 import it.polimi.ingsw.am37.model.character.Character;
 
@@ -10,6 +14,9 @@ import java.util.*;
  * the client. The information to populate and keeps updated with the server complete model are provided after each
  * action with the {@link it.polimi.ingsw.am37.message.UpdateMessage#getUpdatedObjects()} field. Most of the fields are
  * stored hash hashmap to improve and speed find them to update.
+ * <p>
+ * The updates are applied by {@link ReducedModel#apply(UpdateMessage)}: the model keeps the JSON representation of
+ * each object, patches it with the received {@link PropertyDelta} and decodes the object again.
  */
 public class ReducedModel {
 
@@ -38,6 +45,21 @@ public class ReducedModel {
      */
     private final HashMap<String, Cloud> clouds;
 
+    /**
+     * The JSON representation of every object, by type and by {@link PropertyDelta#idOf(UpdatableObject)}
+     */
+    private final EnumMap<UpdatableObject.UpdatableType, HashMap<String, JsonObject>> trees;
+
+    /**
+     * The version of the state of this model
+     */
+    private long stateVersion;
+
+    /**
+     * True if an update has been missed and the updates are ignored until a snapshot is received
+     */
+    private boolean awaitingSnapshot;
+
     /**
      * Default constructor of the reduced model. All fields are created empty, use {@link ReducedModel#update(List)}
      * with a list of object create to fill them
@@ -48,6 +70,82 @@ public class ReducedModel {
         players = new HashMap<>();
         boards = new HashMap<>();
         clouds = new HashMap<>();
+        trees = new EnumMap<>(UpdatableObject.UpdatableType.class);
+        for (UpdatableObject.UpdatableType type : UpdatableObject.UpdatableType.values())
+            trees.put(type, new HashMap<>());
+        stateVersion = 0;
+        awaitingSnapshot = false;
+    }
+
+    /**
+     * Applies an update received from the server. A snapshot replaces the whole model, any other update applies only if
+     * it follows the current state version; when it doesn't an update has been missed, so this one and the following are
+     * ignored until a snapshot arrives. The objects rebuilt from the deltas are added to the updated objects of the
+     * message, for the views.
+     *
+     * @param updateMessage the received update
+     * @return true if the update has been applied, false if the model needs a snapshot
+     */
+    public synchronized boolean apply(UpdateMessage updateMessage) {
+        if (updateMessage.isSnapshot()) {
+            islands.clear();
+            characters.clear();
+            players.clear();
+            boards.clear();
+            clouds.clear();
+            trees.values().forEach(HashMap::clear);
+        } else if (awaitingSnapshot) {
+            return false;
+        } else if (updateMessage.getBaseVersion() != stateVersion) {
+            awaitingSnapshot = true;
+            return false;
+        } else if (updateMessage.getUpdatedObjects(UpdatableObject.UpdatableType.ISLAND) != null) {
+            // the islands are sent as a whole when some of them are united, the old ids are no longer valid
+            islands.clear();
+            trees.get(UpdatableObject.UpdatableType.ISLAND).clear();
+        }
+        List<UpdatableObject> replacedObjects = updateMessage.getUpdatedObjects()
+                .values()
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+        MessageCodec codec = MessageCodec.getInstance();
+        for (UpdatableObject object : replacedObjects)
+            trees.get(object.type).put(PropertyDelta.idOf(object), codec.toJsonTree(object));
+        update(replacedObjects);
+
+        Set<JsonObject> changedTrees = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PropertyDelta delta : updateMessage.getDeltas()) {
+            JsonObject tree = trees.get(delta.getObjectType()).get(delta.getObjectId());
+            if (tree == null) {
+                awaitingSnapshot = true;
+                return false;
+            }
+            delta.applyTo(tree);
+            changedTrees.add(tree);
+        }
+        List<UpdatableObject> rebuiltObjects = changedTrees.stream()
+                .map(tree -> codec.fromJsonTree(tree, UpdatableObject.class))
+                .toList();
+        update(rebuiltObjects);
+        rebuiltObjects.forEach(updateMessage::addUpdatedObject);
+        stateVersion = updateMessage.getStateVersion();
+        awaitingSnapshot = false;
+        return true;
+    }
+
+    /**
+     * @return true if an update has been missed and the model waits for a snapshot
+     */
+    public synchronized boolean isAwaitingSnapshot() {
+        return awaitingSnapshot;
+    }
+
+    /**
+     * @return the version of the state of this model
+     */
+    public synchronized long getStateVersion() {
+        return stateVersion;
     }
 
 
@@ -58,7 +156,6 @@ public class ReducedModel {
      * @param updatedObjects the list of updatedObjects
      */
     public void update(List<? extends UpdatableObject> updatedObjects) {
-        islands.clear();
         for (UpdatableObject obj : updatedObjects) {
             switch (obj.type) {
                 case ISLAND -> {
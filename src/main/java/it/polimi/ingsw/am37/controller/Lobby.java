@@ -1,28 +1,44 @@
 package it.polimi.ingsw.am37.controller;
 
+import it.polimi.ingsw.am37.bot.BotClientHandler;
+import it.polimi.ingsw.am37.bot.Difficulty;
+import it.polimi.ingsw.am37.bot.MonteCarloTreeSearch;
+import it.polimi.ingsw.am37.bot.Simulation;
 import it.polimi.ingsw.am37.client.ClientStatus;
+import it.polimi.ingsw.am37.controller.journal.*;
 import it.polimi.ingsw.am37.message.*;
 import it.polimi.ingsw.am37.model.*;
 import it.polimi.ingsw.am37.model.character.Character;
 import it.polimi.ingsw.am37.model.character.Option;
 import it.polimi.ingsw.am37.model.exceptions.*;
+import it.polimi.ingsw.am37.network.HashedWheelTimer;
 import it.polimi.ingsw.am37.network.MessageReceiver;
 import it.polimi.ingsw.am37.network.exceptions.InternetException;
+import it.polimi.ingsw.am37.network.server.BroadcastFrame;
 import it.polimi.ingsw.am37.network.server.ClientHandler;
 import it.polimi.ingsw.am37.network.server.Server;
+import it.polimi.ingsw.am37.network.server.TrafficCounter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
- * It represents the in game Lobby
+ * It represents the in game Lobby. The lobby has no thread of its own: the messages of its players, their
+ * disconnections and its timers are queued in its {@link Mailbox} and handled one at a time by a pool of workers shared
+ * with the other lobbies, so the lobby and its model are only touched by one task at a time. What changes the game is
+ * recorded in its {@link GameJournal}, from which the lobby can be rebuilt after a restart of the server.
  */
 @SuppressWarnings("OptionalGetWithoutIsPresent")
-public class Lobby implements Runnable, MessageReceiver {
+public class Lobby implements MessageReceiver {
     /**
      * A Logger.
      */
@@ -59,9 +75,25 @@ public class Lobby implements Runnable, MessageReceiver {
     private final boolean advancedMode;
 
     /**
-     * If the lobby is full the game is ready.
+     * If the lobby is full the game is ready; it's set when the last seat is taken, before the player is added by the
+     * mailbox.
      */
-    private boolean isGameReady;
+    private volatile boolean isGameReady;
+
+    /**
+     * Number of seats taken in the lobby
+     */
+    private final AtomicInteger seatsTaken;
+
+    /**
+     * True once the game has been started
+     */
+    private boolean gameStarted;
+
+    /**
+     * True once the lobby has been started by the server, the game can start when it's full
+     */
+    private boolean lobbyStarted;
 
     /**
      * It represents the client connected in the lobby and therefore the Players.
@@ -69,9 +101,9 @@ public class Lobby implements Runnable, MessageReceiver {
     private final HashMap<String, ClientHandler> players;
 
     /**
-     * Keeps track of the disconnected clients
+     * Keeps track of the disconnected clients, it's also read by the server
      */
-    private final HashMap<String, ClientHandler> disconnectedPlayers;
+    private final Set<String> disconnectedPlayers;
 
     /**
      * exposed model
@@ -94,32 +126,125 @@ public class Lobby implements Runnable, MessageReceiver {
     private int numberOfStudentsMoved;
 
     /**
-     * It represents the timer that starts when there's only one Player in the Lobby.
+     * It represents the timer that starts when there's only one Player in the Lobby, null if it isn't running.
      */
-    private final Timer endGameTimer;
+    private HashedWheelTimer.Timeout endGameTimer;
 
     /**
-     * Keeps track if the lobby is closing or not
+     * Queues the tasks of the lobby
      */
-    private boolean isClosing;
+    private final Mailbox mailbox;
 
+    /**
+     * Time the players have to read the results before the lobby is drained, in milliseconds
+     */
+    private static final long CLOSING_GRACE_MILLIS = 30000;
 
     /**
-     * Default constructor.
+     * The stage of the life of the lobby, changed only by the mailbox and read by the server
+     */
+    private volatile LobbyState state;
+
+    /**
+     * Counts the lobbies of the server in each state
+     */
+    private final LobbyStateCounter states;
+
+    /**
+     * Counts the bytes sent to the players, before and after the compression
+     */
+    private final TrafficCounter traffic;
+
+    /**
+     * The seed of the model of the game
+     */
+    private final long seed;
+
+    /**
+     * Records what changes the game
+     */
+    private final GameJournal journal;
+
+    /**
+     * True while the game is being replayed from its journal
+     */
+    private boolean replaying;
+
+    /**
+     * True if the game replayed from the journal was already over
+     */
+    private boolean gameOverDuringReplay;
+
+    /**
+     * How hard the bots which take the seats of the players who don't come back play, null if the seats stay empty
+     */
+    private volatile Difficulty botDifficulty;
+
+    /**
+     * The players whose seats have been taken by a bot
+     */
+    private final Set<String> botSeats;
+
+    /**
+     * The time a player who lost the connection has to come back before a bot takes its seat, in milliseconds
+     */
+    private static final long BOT_TAKEOVER_MILLIS = 60000;
+
+    /**
+     * Constructor of a lobby whose tasks are run by the thread that queues them.
      */
     public Lobby(int lobbySize, boolean advancedMode, int matchID) {
+        this(lobbySize, advancedMode, matchID, LobbyScheduler.direct(), GameJournal.disabled(), new LobbyStateCounter());
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param scheduler the scheduler which runs the tasks of the lobby.
+     * @param journal   the journal of the game.
+     * @param states    counts the lobbies of the server in each state.
+     */
+    public Lobby(int lobbySize, boolean advancedMode, int matchID, LobbyScheduler scheduler, GameJournal journal,
+                 LobbyStateCounter states) {
+        this(lobbySize, advancedMode, matchID, scheduler, journal, states,
+                new GameManager(lobbySize, advancedMode, ThreadLocalRandom.current().nextLong()));
+    }
+
+    /**
+     * Constructor of a lobby playing the given game.
+     *
+     * @param scheduler   the scheduler which runs the tasks of the lobby.
+     * @param journal     the journal of the game.
+     * @param states      counts the lobbies of the server in each state.
+     * @param gameManager the model of the game, prepared only if rebuilt from a checkpoint.
+     */
+    private Lobby(int lobbySize, boolean advancedMode, int matchID, LobbyScheduler scheduler, GameJournal journal,
+                  LobbyStateCounter states, GameManager gameManager) {
         LOGGER = LogManager.getLogger(Lobby.class);
         this.lobbySize = lobbySize;
         this.advancedMode = advancedMode;
         this.players = new HashMap<>();
         this.playerNicknames = new HashMap<>();
         this.isGameReady = false;
-        this.gameManager = new GameManager(lobbySize, advancedMode);
+        this.seatsTaken = new AtomicInteger();
+        this.gameStarted = false;
+        this.lobbyStarted = false;
+        this.seed = gameManager.getSeed();
+        this.journal = journal;
+        this.replaying = false;
+        this.gameOverDuringReplay = false;
+        this.gameManager = gameManager;
         this.matchID = matchID;
         this.updateController = new UpdateController();
-        this.disconnectedPlayers = new HashMap<>();
-        this.endGameTimer = new Timer();
-        this.isClosing = false;
+        this.disconnectedPlayers = ConcurrentHashMap.newKeySet();
+        this.botSeats = ConcurrentHashMap.newKeySet();
+        this.botDifficulty = null;
+        this.endGameTimer = null;
+        this.mailbox = scheduler.newMailbox(Mailbox.DEFAULT_CAPACITY);
+        this.states = states;
+        this.state = LobbyState.OPEN;
+        states.move(null, LobbyState.OPEN);
+        this.traffic = new TrafficCounter();
         numberOfStudentsMoved = 0;
     }
 
@@ -127,14 +252,29 @@ public class Lobby implements Runnable, MessageReceiver {
      * @return true if the player is found, otherwise false.
      */
     public boolean isPlayerInLobby(String UUID) {
-        return players.containsKey(UUID) || disconnectedPlayers.containsKey(UUID);
+        return players.containsKey(UUID) || disconnectedPlayers.contains(UUID);
     }
 
     /**
-     * @return True if the Lobby is full otherwise False
+     * @return true if the player is in the lobby but has lost the connection, even if a bot has taken its seat.
      */
-    private boolean isFull() {
-        return players.size() == lobbySize;
+    public boolean isPlayerDisconnected(String UUID) {
+        return disconnectedPlayers.contains(UUID) || botSeats.contains(UUID);
+    }
+
+    /**
+     * @param botDifficulty how hard the bots which take the seats of the players who don't come back play, null if the
+     *                      seats stay empty.
+     */
+    public void setBotDifficulty(Difficulty botDifficulty) {
+        this.botDifficulty = botDifficulty;
+    }
+
+    /**
+     * @return the counter of the bytes sent to the players
+     */
+    public TrafficCounter getTraffic() {
+        return traffic;
     }
 
     /**
@@ -204,68 +344,123 @@ public class Lobby implements Runnable, MessageReceiver {
     }
 
     /**
-     * Runs the thread.
+     * @return the model of the game
      */
-    @Override
-    public synchronized void run() {
-        while (true) {
-            if (isGameReady()) {
-                startGame();
-                break;
-            } else {
-                try {
-                    wait();
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+    public GameManager getGameManager() {
+        return gameManager;
+    }
+
+    /**
+     * @return the stage of the life of the lobby
+     */
+    public LobbyState getState() {
+        return state;
+    }
+
+    /**
+     * @return the statistics of the mailbox of the lobby
+     */
+    public Mailbox.Stats getMailboxStats() {
+        return mailbox.getStats();
+    }
+
+    /**
+     * Starts the lobby, the game will start as soon as the lobby is full.
+     */
+    public void start() {
+        mailbox.post(() -> {
+            lobbyStarted = true;
+            startGameIfReady();
+        });
+    }
+
+    /**
+     * Runs a task on a copy of the game once the tasks queued before it have been run, so that the game isn't in the
+     * middle of an action; used by the bots to look at the game. Nothing is run before the game starts or once it's
+     * over.
+     *
+     * @param task the task, run by the mailbox.
+     */
+    public void inspectGame(Consumer<Simulation> task) {
+        mailbox.post(() -> {
+            if (gameStarted && state == LobbyState.OPEN && !replaying)
+                task.accept(Simulation.of(gameManager, clientStatus, numberOfStudentsMoved));
+        });
+    }
+
+    /**
+     * Runs a task of the lobby after the given delay.
+     *
+     * @param task        the task to run.
+     * @param delayMillis the delay in milliseconds.
+     * @return the pending task, which can be used to cancel it, null while the game is replayed.
+     */
+    private HashedWheelTimer.Timeout schedule(Runnable task, long delayMillis) {
+        if (replaying) return null;
+        return HashedWheelTimer.getInstance().schedule(() -> mailbox.post(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts the game if the lobby has been started and every player has joined
+     */
+    private void startGameIfReady() {
+        if (lobbyStarted && !gameStarted && playerNicknames.size() == lobbySize) {
+            gameStarted = true;
+            startGame(new ArrayList<>(playerNicknames.keySet()));
         }
     }
 
     /**
      * Starts the game and notifies the client
+     *
+     * @param seating the UUIDs of the players, in the order they take their seats.
      */
-    private void startGame() {
+    private void startGame(List<String> seating) {
         LOGGER.info("[Lobby " + matchID + "] Everything is ready, game is about to start");
-        Timer timer = new Timer();
+        LinkedHashMap<String, String> seats = new LinkedHashMap<>();
+        for (String UUID : seating)
+            seats.put(UUID, playerNicknames.get(UUID));
+        journal.recordStart(new GameSetup(lobbySize, advancedMode, seed, seats));
         gameManager.prepareGame();
         reset(true);
         gameManager.registerListener(updateController);
         int i = 0;
-        for (String nickname : playerNicknames.values()) {
+        for (String nickname : seats.values()) {
             gameManager.getTurnManager().getPlayers().get(i).setPlayerId(nickname);
             i++;
         }
         sendMessage(new StartGameMessage());
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                sendMessage(new UpdateMessage(updateController.getUpdatedObjects(), MessageType.START_GAME,
-                        "StartGame"));
-            }
-        }, 100);
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                sendMessage(new PlanningPhaseMessage(findUUIDByUsername(gameManager.getTurnManager()
-                        .getCurrentPlayer()
-                        .getPlayerId())));
-            }
-        }, 300);
+        schedule(() -> sendMessage(updateController.createSnapshot(MessageType.START_GAME, "StartGame")), 100);
+        schedule(() -> sendMessage(new PlanningPhaseMessage(findUUIDByUsername(gameManager.getTurnManager()
+                .getCurrentPlayer()
+                .getPlayerId()))), 300);
 
     }
 
     /**
-     * adds the player in the Lobby and checks if the Lobby is full
+     * Takes a seat for the player and adds it in the Lobby; the lobby is ready as soon as the last seat is taken. The
+     * player is refused if the lobby has started closing by the time the mailbox adds it.
      *
      * @param ch the Client to be added.
+     * @return completed by the mailbox, with true if the player has been added and false if it has been refused
      */
-    public synchronized void addPlayerInLobby(String UUID, ClientHandler ch, String nickname) {
-        players.put(UUID, ch);
-        isGameReady = isFull();
-        playerNicknames.put(UUID, nickname);
-        LOGGER.info("[Lobby " + matchID + "] " + nickname + " joined the lobby");
-        notifyAll();
+    public CompletableFuture<Boolean> addPlayerInLobby(String UUID, ClientHandler ch, String nickname) {
+        if (seatsTaken.incrementAndGet() == lobbySize) isGameReady = true;
+        CompletableFuture<Boolean> added = new CompletableFuture<>();
+        mailbox.post(() -> {
+            if (state != LobbyState.OPEN) {
+                LOGGER.info("[Lobby " + matchID + "] " + nickname + " refused, the lobby is closing");
+                added.complete(false);
+                return;
+            }
+            ch.setTrafficCounter(traffic);
+            players.put(UUID, ch);
+            playerNicknames.put(UUID, nickname);
+            LOGGER.info("[Lobby " + matchID + "] " + nickname + " joined the lobby");
+            added.complete(true);
+            startGameIfReady();
+        });
+        return added;
     }
 
     /**
@@ -294,7 +489,7 @@ public class Lobby implements Runnable, MessageReceiver {
         HashMap<Integer, Assistant> deck = gameManager.getTurnManager().getCurrentPlayer().getAssistantsDeck();
         try {
             gameManager.playAssistant(deck.get(((PlayAssistantMessage) message).getCardValue()));
-            response = new UpdateMessage(updateController.getUpdatedObjects(), message.getMessageType(), message.getMessageType().getClassName());
+            response = updateController.createUpdate(message.getMessageType(), message.getMessageType().getClassName());
             sendMessage(response);
             if (gameManager.getTurnManager().getCurrentPlayer().getAssistantsDeck().size() == 0) {
                 gameManager.getTurnManager().setLastRound(true);
@@ -341,7 +536,7 @@ public class Lobby implements Runnable, MessageReceiver {
         if (exists) {
             try {
                 gameManager.moveMotherNature(((MoveMotherNatureMessage) message).getIslandId());
-                response = new UpdateMessage(updateController.getUpdatedObjects(), message.getMessageType(), message.getMessageType().getClassName());
+                response = updateController.createUpdate(message.getMessageType(), message.getMessageType().getClassName());
                 sendMessage(response);
                 clientStatus = ClientStatus.CHOOSINGCLOUD;
             } catch (MNmovementWrongException e) {
@@ -394,9 +589,7 @@ public class Lobby implements Runnable, MessageReceiver {
                 LOGGER.error("Bad data loading while trying to play character of " + playerNicknames.get(message.getUUID()));
                 ch.disconnect();
             }
-            response = new UpdateMessage(updateController.getUpdatedObjects(), message.getMessageType(),
-                    message.getMessageType()
-                            .getClassName());
+            response = updateController.createUpdate(message.getMessageType(), message.getMessageType().getClassName());
             sendMessage(response);
             gameManager.getCharacters()[characterIndex].setPlayedInThisTurn(true);
         } else {
@@ -429,9 +622,7 @@ public class Lobby implements Runnable, MessageReceiver {
             numberOfStudentsMoved += students;
             if (numberOfStudentsMoved == movableStudents)
                 clientStatus = ClientStatus.MOVINGMOTHERNATURE;
-            response = new UpdateMessage(updateController.getUpdatedObjects(), message.getMessageType(),
-                    message.getMessageType()
-                    .getClassName());
+            response = updateController.createUpdate(message.getMessageType(), message.getMessageType().getClassName());
             sendMessage(response);
         } else {
             LOGGER.error("Forbidden students movements of " + playerNicknames.get(message.getUUID()));
@@ -463,9 +654,7 @@ public class Lobby implements Runnable, MessageReceiver {
             numberOfStudentsMoved += students;
             if (numberOfStudentsMoved == movableStudents)
                 clientStatus = ClientStatus.MOVINGMOTHERNATURE;
-            response = new UpdateMessage(updateController.getUpdatedObjects(), message.getMessageType(),
-                    message.getMessageType()
-                    .getClassName());
+            response = updateController.createUpdate(message.getMessageType(), message.getMessageType().getClassName());
             sendMessage(response);
         } else {
             LOGGER.error("Forbidden students movements of " + playerNicknames.get(message.getUUID()));
@@ -477,9 +666,8 @@ public class Lobby implements Runnable, MessageReceiver {
      * When a message is received perform a specific action based on the Message type.
      *
      * @param message the Message received.
-     * @param ch      the ClientHandler that called the method.
      */
-    private void chooseCloudCase(Message message, ClientHandler ch) {
+    private void chooseCloudCase(Message message) {
         Message response;
         try {
             if (((ChooseCloudMessage) message).getCloudId() != null)
@@ -491,7 +679,7 @@ public class Lobby implements Runnable, MessageReceiver {
                 gameManager.nextTurn();
                 //Resets the last assistant played when a turn ends and the characters played.
                 reset(true);
-                response = new UpdateMessage(updateController.getUpdatedObjects(), message.getMessageType(), message.getMessageType().getClassName());
+                response = updateController.createUpdate(message.getMessageType(), message.getMessageType().getClassName());
                 if (gameManager.getTurnManager().isLastRound()) {
                     response = new EndGameMessage(findUUIDByUsername(gameManager.calculateWinningPlayer().getPlayerId()),
                             gameManager.calculateWinningPlayer().getPlayerId());
@@ -499,7 +687,7 @@ public class Lobby implements Runnable, MessageReceiver {
                 }
             } else {
                 gameManager.getTurnManager().nextPlayer();
-                response = new UpdateMessage(updateController.getUpdatedObjects(), message.getMessageType(), message.getMessageType().getClassName());
+                response = updateController.createUpdate(message.getMessageType(), message.getMessageType().getClassName());
             }
             sendMessage(response);
             chosenClouds = chosenClouds + 1;
@@ -514,22 +702,20 @@ public class Lobby implements Runnable, MessageReceiver {
             sendMessage(response);
         }
 
-        if (!ch.isConnectedToClient()) {
-            ClientHandler newCh;
+        // the turns passed depend on the disconnections the lobby has handled, which are journaled before the message,
+        // and not on the state of the connections, so that the replay of the journal passes the same turns
+        if (disconnectedPlayers.contains(message.getUUID())) {
+            String current;
             do {
-                onDisconnect(message.getUUID());
                 gameManager.nextTurn();
-                newCh = players.get(findUUIDByUsername(gameManager.getTurnManager().getCurrentPlayer().getPlayerId()));
-            } while (!newCh.isConnectedToClient());
-            ch = newCh;
+                current = findUUIDByUsername(gameManager.getTurnManager().getCurrentPlayer().getPlayerId());
+            } while (disconnectedPlayers.contains(current));
         }
-        if (ch.isConnectedToClient()) {
-            if (!isLastPlayerInOrder(message.getUUID())) {
-                response = new NextTurnMessage(findUUIDByUsername(gameManager.getTurnManager().getCurrentPlayer().getPlayerId()), gameManager.getTurnManager().getCurrentPlayer().getPlayerId());
-            } else {
-                response = new PlanningPhaseMessage(findUUIDByUsername(gameManager.getTurnManager().getCurrentPlayer().getPlayerId()));
-                gameManager.getTurnManager().getAssistantPlayed().clear();
-            }
+        if (!isLastPlayerInOrder(message.getUUID())) {
+            response = new NextTurnMessage(findUUIDByUsername(gameManager.getTurnManager().getCurrentPlayer().getPlayerId()), gameManager.getTurnManager().getCurrentPlayer().getPlayerId());
+        } else {
+            response = new PlanningPhaseMessage(findUUIDByUsername(gameManager.getTurnManager().getCurrentPlayer().getPlayerId()));
+            gameManager.getTurnManager().getAssistantPlayed().clear();
         }
         sendMessage(response);
     }
@@ -546,8 +732,23 @@ public class Lobby implements Runnable, MessageReceiver {
      * Reconnects the client in the lobby if it exists
      *
      * @param clientUUID the Client that wants to reconnect.
+     * @param ch         the ClientHandler of the new connection of the Client.
      */
-    public void onReconnect(String clientUUID) {
+    public void onReconnect(String clientUUID, ClientHandler ch) {
+        mailbox.post(() -> reconnect(clientUUID, ch));
+    }
+
+    /**
+     * Reconnects the client in the lobby, run by the mailbox
+     *
+     * @param clientUUID the Client that wants to reconnect.
+     * @param ch         the ClientHandler of the new connection of the Client.
+     */
+    private void reconnect(String clientUUID, ClientHandler ch) {
+        if (state != LobbyState.OPEN) {
+            ch.disconnect();
+            return;
+        }
         //Forces the addition of the player who has reconnected to the list orderPlayed in GM
         Message message;
         Player playerToAdd;
@@ -562,22 +763,32 @@ public class Lobby implements Runnable, MessageReceiver {
             LOGGER.error("[Lobby " + matchID + "] " + "Player not found in the list of players");
             return;
         }
-        gameManager.getTurnManager().getOrderPlayed().add(playerToAdd);
+        journal.recordReconnect(clientUUID);
+        if (botSeats.remove(clientUUID)) {
+            // the bot kept the player in the game, so it keeps its place in the order
+            if (players.get(clientUUID) instanceof BotClientHandler bot) bot.retire();
+            LOGGER.info("[Lobby " + matchID + "] " + playerNicknames.get(clientUUID) + " took back its seat from the bot");
+        } else
+            gameManager.getTurnManager().getOrderPlayed().add(playerToAdd);
 
-        ClientHandler clientToReconnect = disconnectedPlayers.get(clientUUID);
-        players.put(clientUUID, clientToReconnect);
+        ch.setTrafficCounter(traffic);
+        players.put(clientUUID, ch);
         disconnectedPlayers.remove(clientUUID);
-        endGameTimer.cancel();
+        if (endGameTimer != null) endGameTimer.cancel();
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss z");
-        LocalDateTime date = LocalDateTime.now().plusMinutes(5);
+        ZonedDateTime date = ZonedDateTime.now().plusMinutes(5);
         String expiring = date.format(formatter);
         message = new ResilienceMessage(false, playerNicknames.get(clientUUID), expiring);
         sendMessage(message);
+        sendSnapshot(clientUUID, MessageType.RESILIENCE);
 
         LOGGER.info("[Lobby " + matchID + "] " + playerNicknames.get(clientUUID) + " reconnected in the lobby");
         LOGGER.debug("[Lobby " + matchID + "] The Players in the lobby now are: " + players.values());
         LOGGER.debug("[Lobby " + matchID + "] Timer canceled");
+        // after a restart the bots wait for someone to play with
+        for (ClientHandler player : players.values())
+            if (player instanceof BotClientHandler bot) bot.takeTurnIfDue();
     }
 
     /**
@@ -588,7 +799,38 @@ public class Lobby implements Runnable, MessageReceiver {
      */
     @Override
     public void onMessageReceived(Message message, ClientHandler ch) throws InternetException {
+        if (!mailbox.offer(() -> runMessage(message, ch))) {
+            LOGGER.error("[Lobby " + matchID + "] Too many messages from " + message.getUUID() + ", disconnecting it");
+            ch.disconnect();
+        }
+    }
+
+    /**
+     * Handles a message of a player, a failure disconnects it. Run by the mailbox
+     *
+     * @param message the Message received.
+     * @param ch      the ClientHandler that received the message.
+     */
+    private void runMessage(Message message, ClientHandler ch) {
+        try {
+            handleMessage(message, ch);
+        } catch (InternetException ignored) {
+            // the connection has already been closed by whoever raised it
+        } catch (RuntimeException e) {
+            LOGGER.error("[Lobby " + matchID + "] Error while handling " + message.getMessageType() + ": " + e);
+            ch.disconnect();
+        }
+    }
+
+    /**
+     * Handles a message of a player
+     *
+     * @param message the Message received.
+     * @param ch      the ClientHandler that received the message.
+     */
+    private void handleMessage(Message message, ClientHandler ch) {
         if (ch != null && ch.isConnectedToClient()) {
+            if (message.getMessageType() != MessageType.RESYNC) journal.recordMessage(message);
             switch (message.getMessageType()) {
                 case PLAY_ASSISTANT -> {
                     if (clientStatus == ClientStatus.PLAYINGASSISTANT) {
@@ -625,16 +867,46 @@ public class Lobby implements Runnable, MessageReceiver {
                 case CHOOSE_CLOUD -> {
                     if (clientStatus == ClientStatus.CHOOSINGCLOUD) {
                         LOGGER.info("[Lobby " + matchID + "] ChooseCloud Message received from: " + playerNicknames.get(message.getUUID()));
-                        chooseCloudCase(message, ch);
+                        chooseCloudCase(message);
                     } else
                         ch.disconnect();
                 }
+                case RESYNC -> {
+                    LOGGER.info("[Lobby " + matchID + "] Resync Message received from: " + playerNicknames.get(message.getUUID()));
+                    sendSnapshot(message.getUUID(), MessageType.RESYNC);
+                }
                 default -> {
                     LOGGER.error("[Lobby " + matchID + "] Unexpected value: " + message.getMessageType());
                     ch.disconnect();
                     throw new IllegalStateException("Unexpected value: " + message.getMessageType());
                 }
             }
+            journal.actionDone(this::checkpoint);
+        }
+    }
+
+    /**
+     * @return the snapshot of the game between two actions
+     */
+    private GameCheckpoint checkpoint() {
+        return new GameCheckpoint(updateController.getStateVersion(), clientStatus, playedAssistantInRound,
+                chosenClouds, numberOfStudentsMoved, gameManager.getBagRandomState(), Set.copyOf(disconnectedPlayers),
+                Set.copyOf(botSeats), PackedGameState.of(gameManager));
+    }
+
+    /**
+     * Sends the whole model to a single player, whose copy isn't up-to-date
+     *
+     * @param UUID       the UUID of the player
+     * @param lastAction the type of the action that requires the snapshot
+     */
+    private void sendSnapshot(String UUID, MessageType lastAction) {
+        ClientHandler ch = players.get(UUID);
+        if (ch != null && ch.isConnectedToClient()) {
+            UpdateMessage snapshot = updateController.createSnapshot(lastAction, lastAction.getClassName());
+            snapshot.setUUID(UUID);
+            ch.sendMessageToClient(snapshot);
+            LOGGER.info("[Lobby " + matchID + "] Sent snapshot at version " + snapshot.getStateVersion() + " to " + playerNicknames.get(UUID));
         }
     }
 
@@ -645,9 +917,10 @@ public class Lobby implements Runnable, MessageReceiver {
     public void sendMessage(Message message) throws InternetException {
         switch (message.getMessageType()) {
             case NEXT_TURN, START_GAME, RESILIENCE, UPDATE -> {
+                BroadcastFrame frame = new BroadcastFrame(message);
                 for (ClientHandler ch : players.values()) {
                     if (ch != null && ch.isConnectedToClient()) {
-                        ch.sendMessageToClient(message);
+                        ch.sendFrameToClient(frame);
                         if (message.getMessageType() == MessageType.NEXT_TURN)
                             LOGGER.info("[Lobby " + matchID + "] Sent " + message.getMessageType().getClassName() + "[nextPlayer: " + ((NextTurnMessage) message).getNextPlayerNickname() + "] to " + playerNicknames.get(ch.getUUID()));
                         else
@@ -656,20 +929,14 @@ public class Lobby implements Runnable, MessageReceiver {
                 }
             }
             case END_GAME -> {
+                BroadcastFrame frame = new BroadcastFrame(message);
                 for (ClientHandler ch : players.values()) {
                     if (ch != null && ch.isConnectedToClient()) {
-                        ch.sendMessageToClient(message);
+                        ch.sendFrameToClient(frame);
                         LOGGER.info("[Lobby " + matchID + "] Sent " + message.getMessageType().getClassName() + " to " + playerNicknames.get(ch.getUUID()));
                     }
                 }
-                LOGGER.info("[Lobby " + matchID + "] closing in 30 seconds...");
-                isClosing = true;
-                try {
-                    Thread.sleep(30000);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-                Server.server.closeLobby(this);
+                close(CLOSING_GRACE_MILLIS);
             }
             case ERROR, PLANNING_PHASE -> {
                 ClientHandler ch = players.get(message.getUUID());
@@ -683,6 +950,64 @@ public class Lobby implements Runnable, MessageReceiver {
         }
     }
 
+    /**
+     * Starts closing the lobby, it's drained after the given time; a lobby which is already closing isn't affected.
+     * Run by the mailbox.
+     *
+     * @param graceMillis the time the players have before their connections are closed, in milliseconds.
+     */
+    private void close(long graceMillis) {
+        if (replaying) {
+            gameOverDuringReplay = true;
+            return;
+        }
+        if (state != LobbyState.OPEN) return;
+        moveTo(LobbyState.CLOSING);
+        // no player can join the lobby from now on
+        Server.server.retireLobby(this);
+        if (endGameTimer != null) endGameTimer.cancel();
+        if (graceMillis == 0) {
+            drain();
+        } else {
+            LOGGER.info("[Lobby " + matchID + "] closing in " + graceMillis / 1000 + " seconds...");
+            schedule(this::drain, graceMillis);
+        }
+    }
+
+    /**
+     * Closes the connections of the players, the lobby is closed once the tasks they cause have been run. Run by the
+     * mailbox.
+     */
+    private void drain() {
+        if (state != LobbyState.CLOSING) return;
+        moveTo(LobbyState.DRAINING);
+        for (ClientHandler ch : new ArrayList<>(players.values()))
+            ch.disconnect();
+        mailbox.post(() -> {
+            moveTo(LobbyState.CLOSED);
+            journal.delete();
+            Server.server.closeLobby(this);
+        });
+    }
+
+    /**
+     * Moves the lobby to the next stage of its life
+     *
+     * @param next the new state
+     */
+    private void moveTo(LobbyState next) {
+        states.move(state, next);
+        state = next;
+        LOGGER.debug("[Lobby " + matchID + "] " + next);
+    }
+
+    /**
+     * Closes the lobby now, without waiting for the players to read the results.
+     */
+    public void shutdown() {
+        mailbox.post(() -> close(0));
+    }
+
     /**
      * Perform actions when client wants to disconnect
      *
@@ -690,19 +1015,32 @@ public class Lobby implements Runnable, MessageReceiver {
      */
     @Override
     public void onDisconnect(String clientUUID) {
-        ClientHandler clientToDisconnect = players.get(clientUUID);
-        Lobby lobby = this;
-        disconnectedPlayers.put(clientUUID, clientToDisconnect);
-        players.remove(clientUUID);
+        mailbox.post(() -> disconnect(clientUUID));
+    }
+
+    /**
+     * Removes a client which has lost the connection, run by the mailbox
+     *
+     * @param clientUUID the UUID of the client to disconnect.
+     */
+    private void disconnect(String clientUUID) {
+        if (players.remove(clientUUID) == null) return;
+        boolean bot = botSeats.remove(clientUUID);
+        journal.recordDisconnect(clientUUID);
+        disconnectedPlayers.add(clientUUID);
         LOGGER.info("[Lobby " + matchID + "] Disconnected " + playerNicknames.get(clientUUID) + " from the lobby");
-        LOGGER.debug("[Lobby " + matchID + "] Remaining players in the lobby are: " + playerNicknames.keySet().stream().filter(el -> !disconnectedPlayers.containsKey(el)).map(playerNicknames::get).toList());
-        if (isClosing)
+        LOGGER.debug("[Lobby " + matchID + "] Remaining players in the lobby are: " + playerNicknames.keySet().stream().filter(el -> !disconnectedPlayers.contains(el)).map(playerNicknames::get).toList());
+        // the replay only rebuilds the game, the server and the timers aren't involved
+        if (state != LobbyState.OPEN || replaying)
             return;
-        Server.server.onDisconnect(clientUUID);
-        if (players.size() == 0) {
-            Server.server.closeLobby(lobby);
+        if (!bot) Server.server.onDisconnect(clientUUID);
+        if (players.size() == botSeats.size()) {
             LOGGER.debug("[Lobby " + matchID + "] The game is over because there aren't any players in the lobby");
+            close(0);
+            return;
         }
+        if (botDifficulty != null && gameStarted)
+            schedule(() -> seatBot(clientUUID), BOT_TAKEOVER_MILLIS);
         if (players.size() == 1) {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss z");
             ZonedDateTime date = ZonedDateTime.now().plusMinutes(5);
@@ -710,27 +1048,212 @@ public class Lobby implements Runnable, MessageReceiver {
             Message message = new ResilienceMessage(false, playerNicknames.get(clientUUID), expiring);
             sendMessage(message);
 
-            try {
-                Thread.sleep(200);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+            startEndGameTimer();
+        }
+    }
+
+    /**
+     * Gives the seat of a player who hasn't come back to a bot, as long as someone else is still playing. Run by the
+     * mailbox.
+     *
+     * @param clientUUID the UUID of the player.
+     */
+    private void seatBot(String clientUUID) {
+        Difficulty difficulty = botDifficulty;
+        if (state != LobbyState.OPEN || difficulty == null || !disconnectedPlayers.contains(clientUUID)
+                || players.size() == botSeats.size())
+            return;
+        journal.recordBot(clientUUID);
+        BotClientHandler bot = new BotClientHandler(clientUUID, playerNicknames.get(clientUUID), this, difficulty,
+                MonteCarloTreeSearch.getInstance());
+        takeSeat(clientUUID, bot);
+        bot.takeTurnIfDue();
+    }
+
+    /**
+     * Gives the seat of a player to a bot, or to the handler which stands for it while the game is replayed. Run by
+     * the mailbox.
+     *
+     * @param clientUUID the UUID of the player.
+     * @param bot        the handler of the bot.
+     */
+    private void takeSeat(String clientUUID, ClientHandler bot) {
+        players.put(clientUUID, bot);
+        disconnectedPlayers.remove(clientUUID);
+        botSeats.add(clientUUID);
+        if (endGameTimer != null) endGameTimer.cancel();
+        LOGGER.info("[Lobby " + matchID + "] A bot took the seat of " + playerNicknames.get(clientUUID));
+    }
+
+    /**
+     * Starts the 10-minutes timer, when it expires the remaining player wins the game
+     */
+    private void startEndGameTimer() {
+        LOGGER.debug("[Lobby " + matchID + "] The 10-minutes timer has started");
+        endGameTimer = schedule(() -> {
+            if (players.size() == botSeats.size()) {
+                LOGGER.debug("[Lobby " + matchID + "] The game is over because there aren't any players in the lobby");
+                close(0);
+            } else {
+                LOGGER.debug("[Lobby " + matchID + "] The game is over because the timer has expired");
+                // the end of the game closes the lobby
+                Message endGameMessage = new EndGameMessage(players.keySet().stream().toList().get(0), playerNicknames.get(players.keySet().stream().toList().get(0)));
+                sendMessage(endGameMessage);
             }
+        }, 600000);
+    }
 
-            LOGGER.debug("[Lobby " + matchID + "] The 10-minutes timer has started");
-            endGameTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    if (players.size() == 0) {
-                        Server.server.closeLobby(lobby);
-                        LOGGER.debug("[Lobby " + matchID + "] The game is over because there aren't any players in the lobby");
-                    } else {
-                        Message message = new EndGameMessage(players.keySet().stream().toList().get(0), playerNicknames.get(players.keySet().stream().toList().get(0)));
-                        sendMessage(message);
-                        Server.server.closeLobby(lobby);
-                        LOGGER.debug("[Lobby " + matchID + "] The game is over because the timer has expired");
-                    }
+    /**
+     * Rebuilds a lobby from its journal, replaying its game on the calling thread. The players of the rebuilt lobby are
+     * all disconnected, they have 10 minutes to come back before the game ends.
+     *
+     * @param matchID   the match of the journal.
+     * @param records   the records of the journal, read one at a time.
+     * @param scheduler the scheduler which runs the tasks of the lobby.
+     * @param journal   the journal of the lobby, the new records follow the replayed ones.
+     * @return the rebuilt lobby, null if its game was already over.
+     * @throws IllegalArgumentException if the journal doesn't start with the start of a game.
+     * @throws IllegalStateException    if the last checkpoint of the journal can't be read.
+     */
+    public static Lobby recover(int matchID, Iterator<JournalRecord> records, LobbyScheduler scheduler,
+                                GameJournal journal) {
+        return recover(matchID, records, scheduler, journal, null, new LobbyStateCounter());
+    }
+
+    /**
+     * Rebuilds a lobby from its journal, on the calling thread: the game is restored from the snapshot of the last
+     * checkpoint and the records following it are replayed. The players of the rebuilt lobby are all disconnected, they
+     * have 10 minutes to come back before the game ends; the seats taken by bots are given to new bots.
+     *
+     * @param matchID       the match of the journal.
+     * @param records       the records of the journal, read one at a time.
+     * @param scheduler     the scheduler which runs the tasks of the lobby.
+     * @param journal       the journal of the lobby, the new records follow the replayed ones.
+     * @param botDifficulty how hard the bots of the lobby play, null if the seats of the bots are left empty.
+     * @param states        counts the lobbies of the server in each state.
+     * @return the rebuilt lobby, null if its game was already over.
+     * @throws IllegalArgumentException if the journal doesn't start with the start of a game.
+     * @throws IllegalStateException    if the last checkpoint of the journal can't be read.
+     */
+    public static Lobby recover(int matchID, Iterator<JournalRecord> records, LobbyScheduler scheduler,
+                                GameJournal journal, Difficulty botDifficulty, LobbyStateCounter states) {
+        JournalRecord start = records.hasNext() ? records.next() : null;
+        if (start == null || start.type() != JournalRecord.Type.START)
+            throw new IllegalArgumentException("The journal of match " + matchID + " doesn't start with a game");
+        GameSetup setup = GameSetup.decode(start.payload());
+        // the records before the last checkpoint are in its snapshot, only the ones after it are kept
+        JournalRecord last = null;
+        List<JournalRecord> following = new ArrayList<>();
+        long lastSequence = start.sequence();
+        while (records.hasNext()) {
+            JournalRecord record = records.next();
+            lastSequence = record.sequence();
+            if (record.type() == JournalRecord.Type.CHECKPOINT) {
+                last = record;
+                following.clear();
+            } else
+                following.add(record);
+        }
+        GameCheckpoint checkpoint = last == null ? null : GameCheckpoint.decode(last.payload());
+        GameManager gameManager;
+        if (checkpoint == null)
+            gameManager = new GameManager(setup.lobbySize(), setup.advancedMode(), setup.seed());
+        else {
+            gameManager = checkpoint.state().toGameManager(setup.seed(), new ArrayList<>(setup.seating().values()));
+            gameManager.restoreBagRandomState(checkpoint.bagRandomState());
+        }
+        Lobby lobby = new Lobby(setup.lobbySize(), setup.advancedMode(), matchID, scheduler, journal, states,
+                gameManager);
+        lobby.setBotDifficulty(botDifficulty);
+        try {
+            lobby.replay(setup, checkpoint, following, lastSequence);
+        } catch (RuntimeException e) {
+            states.move(LobbyState.OPEN, LobbyState.CLOSED);
+            throw e;
+        }
+        if (!lobby.gameOverDuringReplay) return lobby;
+        states.move(LobbyState.OPEN, LobbyState.CLOSED);
+        return null;
+    }
+
+    /**
+     * Replays the game of the journal, the players are replaced by handlers which drop what they're sent
+     *
+     * @param setup        how the game was started.
+     * @param checkpoint   the last checkpoint of the journal, null if the game is replayed from its start.
+     * @param records      the records of the journal following the checkpoint.
+     * @param lastSequence the sequence number of the last record of the journal.
+     */
+    private void replay(GameSetup setup, GameCheckpoint checkpoint, List<JournalRecord> records, long lastSequence) {
+        replaying = true;
+        journal.pause();
+        Map<String, ClientHandler> handlers = new HashMap<>();
+        for (Map.Entry<String, String> seat : setup.seating().entrySet()) {
+            ClientHandler ch = new ReplayClientHandler(seat.getKey());
+            handlers.put(seat.getKey(), ch);
+            players.put(seat.getKey(), ch);
+            playerNicknames.put(seat.getKey(), seat.getValue());
+        }
+        seatsTaken.set(lobbySize);
+        isGameReady = true;
+        lobbyStarted = true;
+        gameStarted = true;
+        if (checkpoint == null)
+            startGame(new ArrayList<>(setup.seating().keySet()));
+        else
+            restore(checkpoint, handlers);
+        for (JournalRecord record : records) {
+            switch (record.type()) {
+                case MESSAGE -> runMessage(MessageCodec.getInstance().decode(record.payload()), handlers.get(record.UUID()));
+                case DISCONNECT -> {
+                    handlers.get(record.UUID()).disconnect();
+                    disconnect(record.UUID());
+                }
+                case RECONNECT -> {
+                    ClientHandler ch = new ReplayClientHandler(record.UUID());
+                    handlers.put(record.UUID(), ch);
+                    reconnect(record.UUID(), ch);
                 }
-            }, 600000);
+                case BOT -> {
+                    ClientHandler ch = new ReplayClientHandler(record.UUID());
+                    handlers.put(record.UUID(), ch);
+                    takeSeat(record.UUID(), ch);
+                }
+                case START -> throw new IllegalStateException("The journal of match " + matchID + " starts twice");
+            }
+        }
+        // nobody is connected after a restart, the bots are given their seats back if there are bots
+        if (botDifficulty == null) botSeats.clear();
+        players.keySet().stream().filter(UUID -> !botSeats.contains(UUID)).forEach(disconnectedPlayers::add);
+        players.clear();
+        replaying = false;
+        journal.resume(lastSequence);
+        for (String UUID : botSeats)
+            players.put(UUID, new BotClientHandler(UUID, playerNicknames.get(UUID), this, botDifficulty,
+                    MonteCarloTreeSearch.getInstance()));
+        LOGGER.info("[Lobby " + matchID + "] Rebuilt from " + (checkpoint == null ? "the start" : "a checkpoint")
+                + " and " + records.size() + " records at version " + updateController.getStateVersion());
+        startEndGameTimer();
+    }
+
+    /**
+     * Brings the lobby to the snapshot of a checkpoint, its model has already been rebuilt from it
+     *
+     * @param checkpoint the checkpoint.
+     * @param handlers   the handlers which stand for the players, by UUID.
+     */
+    private void restore(GameCheckpoint checkpoint, Map<String, ClientHandler> handlers) {
+        gameManager.registerListener(updateController);
+        updateController.setStateVersion(checkpoint.stateVersion());
+        clientStatus = checkpoint.status();
+        playedAssistantInRound = checkpoint.assistantsPlayed();
+        chosenClouds = checkpoint.cloudsChosen();
+        numberOfStudentsMoved = checkpoint.studentsMoved();
+        for (String UUID : checkpoint.disconnectedPlayers()) {
+            handlers.get(UUID).disconnect();
+            players.remove(UUID);
+            disconnectedPlayers.add(UUID);
         }
+        botSeats.addAll(checkpoint.botSeats());
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package it.polimi.ingsw.am37.controller;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs the mailboxes of the lobbies. All the lobbies of a server share the same scheduler, which decides the threads
+ * their tasks run on; each {@link Mailbox} keeps the tasks of its lobby in order whatever the scheduler is.
+ */
+public class LobbyScheduler {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(LobbyScheduler.class);
+
+    /**
+     * Name of the scheduler, for the logs
+     */
+    private final String name;
+
+    /**
+     * The workers which run the mailboxes
+     */
+    private final Executor workers;
+
+    /**
+     * Default constructor
+     *
+     * @param name    name of the scheduler, for the logs
+     * @param workers the workers which run the mailboxes
+     */
+    public LobbyScheduler(String name, Executor workers) {
+        this.name = name;
+        this.workers = workers;
+    }
+
+    /**
+     * Creates a scheduler on a work-stealing pool. The pool works in FIFO mode, since the tasks of the lobbies are
+     * events rather than recursive work, and a mailbox rescheduled by a busy worker can be stolen by an idle one.
+     *
+     * @param parallelism number of workers of the pool, usually the number of cores
+     * @return the scheduler
+     */
+    public static LobbyScheduler workStealing(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                (thread, e) -> LOGGER.error("Uncaught error in " + thread.getName() + ": " + e), true);
+        return new LobbyScheduler("work-stealing(" + parallelism + ")", pool);
+    }
+
+    /**
+     * Creates a scheduler which starts a virtual thread for each turn of a mailbox; the virtual threads are themselves
+     * run by the work-stealing scheduler of the JVM, and can block on a slow client without holding a worker.
+     *
+     * @return the scheduler
+     */
+    public static LobbyScheduler virtualThreads() {
+        return new LobbyScheduler("virtual-threads", Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("lobby-", 0)
+                .factory()));
+    }
+
+    /**
+     * Creates a scheduler which runs the tasks on the thread that queues them, used when the lobby isn't run by a
+     * server.
+     *
+     * @return the scheduler
+     */
+    public static LobbyScheduler direct() {
+        return new LobbyScheduler("direct", Runnable::run);
+    }
+
+    /**
+     * @param capacity maximum number of messages of the clients waiting in the mailbox
+     * @return a new mailbox run by this scheduler
+     */
+    public Mailbox newMailbox(int capacity) {
+        return new Mailbox(workers, capacity);
+    }
+
+    /**
+     * @return name of the scheduler
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,23 @@
+package it.polimi.ingsw.am37.controller;
+
+/**
+ * The stages of the life of a {@link Lobby}, the lobbies in each one are counted by a {@link LobbyStateCounter}.
+ */
+public enum LobbyState {
+    /**
+     * The lobby is waiting for its players or playing
+     */
+    OPEN,
+    /**
+     * The game is over and the players are reading the results, the lobby will be drained
+     */
+    CLOSING,
+    /**
+     * The connections of the players are being closed, the tasks left in the mailbox are run
+     */
+    DRAINING,
+    /**
+     * The lobby has released its resources on the server
+     */
+    CLOSED
+}
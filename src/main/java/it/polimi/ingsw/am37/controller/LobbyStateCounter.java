@@ -0,0 +1,52 @@
+package it.polimi.ingsw.am37.controller;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Counts the lobbies of a server in each {@link LobbyState}; the closed ones are counted since the counter has been
+ * created.
+ */
+public class LobbyStateCounter {
+
+    /**
+     * Number of lobbies in each state, by ordinal
+     */
+    private final AtomicIntegerArray lobbies;
+
+    /**
+     * Default constructor
+     */
+    public LobbyStateCounter() {
+        this.lobbies = new AtomicIntegerArray(LobbyState.values().length);
+    }
+
+    /**
+     * Moves a lobby from a state to another one
+     *
+     * @param from the state the lobby leaves, null for a new lobby
+     * @param to   the state the lobby enters
+     */
+    void move(LobbyState from, LobbyState to) {
+        if (from != null) lobbies.decrementAndGet(from.ordinal());
+        lobbies.incrementAndGet(to.ordinal());
+    }
+
+    /**
+     * @param state a state of the lobbies
+     * @return the number of lobbies in the state
+     */
+    public int getLobbies(LobbyState state) {
+        return lobbies.get(state.ordinal());
+    }
+
+    /**
+     * @return the number of lobbies in each state
+     */
+    public EnumMap<LobbyState, Integer> countLobbies() {
+        EnumMap<LobbyState, Integer> count = new EnumMap<>(LobbyState.class);
+        for (LobbyState state : LobbyState.values())
+            count.put(state, getLobbies(state));
+        return count;
+    }
+}
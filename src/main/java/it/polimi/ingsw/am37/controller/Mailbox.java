@@ -0,0 +1,204 @@
+package it.polimi.ingsw.am37.controller;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The queue of the tasks of a {@link Lobby}, run one at a time and in order of arrival on a pool of workers shared by
+ * all the lobbies, so everything done by the tasks is confined to a single logical thread and needs no locking. A
+ * worker runs a limited number of tasks before leaving the lobby to the others. The messages of the clients are
+ * bounded, so a client can't make the mailbox grow without limits, while the events of the lobby itself are always
+ * accepted. The mailbox measures how many tasks are waiting and how long they take from their arrival to their end.
+ */
+public class Mailbox {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(Mailbox.class);
+
+    /**
+     * Default maximum number of messages of the clients waiting in a mailbox
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Maximum number of tasks run by a worker before the mailbox is rescheduled
+     */
+    private static final int TASKS_PER_TURN = 32;
+
+    /**
+     * The workers which run the tasks
+     */
+    private final Executor workers;
+
+    /**
+     * Maximum number of messages of the clients waiting in the mailbox
+     */
+    private final int capacity;
+
+    /**
+     * The tasks waiting to be run, in order of arrival
+     */
+    private final ConcurrentLinkedQueue<Runnable> tasks;
+
+    /**
+     * Number of messages of the clients waiting in the mailbox
+     */
+    private final AtomicInteger pendingMessages;
+
+    /**
+     * True when a worker is running the tasks of the mailbox or is about to
+     */
+    private final AtomicBoolean scheduled;
+
+    /**
+     * Number of tasks waiting in the mailbox
+     */
+    private final AtomicInteger queueDepth;
+
+    /**
+     * Number of tasks run
+     */
+    private final AtomicLong tasksRun;
+
+    /**
+     * Sum of the latencies of the tasks run, from their arrival to their end, in nanoseconds
+     */
+    private final AtomicLong totalLatency;
+
+    /**
+     * Highest latency of a task run, in nanoseconds
+     */
+    private final AtomicLong maxLatency;
+
+    /**
+     * Default constructor
+     *
+     * @param workers  the workers which run the tasks
+     * @param capacity maximum number of messages of the clients waiting in the mailbox
+     */
+    public Mailbox(Executor workers, int capacity) {
+        this.workers = workers;
+        this.capacity = capacity;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.pendingMessages = new AtomicInteger();
+        this.scheduled = new AtomicBoolean(false);
+        this.queueDepth = new AtomicInteger();
+        this.tasksRun = new AtomicLong();
+        this.totalLatency = new AtomicLong();
+        this.maxLatency = new AtomicLong();
+    }
+
+    /**
+     * Queues the handling of a message received from a client
+     *
+     * @param task handles the message
+     * @return false if the mailbox is full and the message has been rejected
+     */
+    public boolean offer(Runnable task) {
+        if (pendingMessages.incrementAndGet() > capacity) {
+            pendingMessages.decrementAndGet();
+            return false;
+        }
+        enqueue(() -> {
+            pendingMessages.decrementAndGet();
+            task.run();
+        });
+        return true;
+    }
+
+    /**
+     * Queues an event of the lobby, it's always accepted
+     *
+     * @param task handles the event
+     */
+    public void post(Runnable task) {
+        enqueue(task);
+    }
+
+    /**
+     * Queues a task and makes sure a worker will run it
+     *
+     * @param task the task to run
+     */
+    private void enqueue(Runnable task) {
+        long arrival = System.nanoTime();
+        queueDepth.incrementAndGet();
+        tasks.add(() -> {
+            try {
+                task.run();
+            } finally {
+                long latency = System.nanoTime() - arrival;
+                tasksRun.incrementAndGet();
+                totalLatency.addAndGet(latency);
+                maxLatency.accumulateAndGet(latency, Math::max);
+            }
+        });
+        if (scheduled.compareAndSet(false, true))
+            workers.execute(this::drain);
+    }
+
+    /**
+     * Runs the queued tasks, one at a time, and reschedules the mailbox if some are left. Whatever a task throws, the
+     * mailbox is released, otherwise the lobby would never run a task again
+     */
+    private void drain() {
+        try {
+            Runnable task;
+            int run = 0;
+            while (run < TASKS_PER_TURN && (task = tasks.poll()) != null) {
+                run++;
+                queueDepth.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    LOGGER.error("Error while running a task of a lobby", e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true))
+                workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * @return the number of tasks waiting in the mailbox
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the current statistics of the mailbox
+     */
+    public Stats getStats() {
+        long run = tasksRun.get();
+        return new Stats(queueDepth.get(), run, run == 0 ? 0 : totalLatency.get() / run / 1000,
+                maxLatency.get() / 1000);
+    }
+
+    /**
+     * Statistics of a mailbox
+     *
+     * @param queueDepth           the number of tasks waiting
+     * @param tasksRun             the number of tasks run
+     * @param averageLatencyMicros the average time from the arrival of a task to its end, in microseconds
+     * @param maxLatencyMicros     the highest time from the arrival of a task to its end, in microseconds
+     */
+    public record Stats(int queueDepth, long tasksRun, long averageLatencyMicros, long maxLatencyMicros) {
+
+        @Override
+        public String toString() {
+            return tasksRun + " tasks, " + queueDepth + " waiting, latency avg " + averageLatencyMicros + " us, max " +
+                    maxLatencyMicros + " us";
+        }
+    }
+}
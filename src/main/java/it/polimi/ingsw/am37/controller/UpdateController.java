@@ -1,46 +1,80 @@
 package it.polimi.ingsw.am37.controller;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import it.polimi.ingsw.am37.message.MessageCodec;
+import it.polimi.ingsw.am37.message.MessageType;
+import it.polimi.ingsw.am37.message.PropertyDelta;
+import it.polimi.ingsw.am37.message.UpdateMessage;
 import it.polimi.ingsw.am37.model.*;
 import it.polimi.ingsw.am37.model.character.Character;
 import it.polimi.ingsw.am37.model.student_container.StudentsContainer;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 /**
- * Class used to check what is changed and needed to be updated
+ * Class used to check what is changed and needed to be updated. Besides the description of the changes, it records
+ * which properties of which objects changed since the last update, so {@link UpdateController#createUpdate} sends only
+ * those, read from the objects when the update is created. Every change sent increases the state version, which lets
+ * the clients notice a missed update and ask for a snapshot made by {@link UpdateController#createSnapshot}.
  */
 public class UpdateController implements PropertyChangeListener {
 
     private List<String> updateList = new ArrayList<>();
     private HashSet<UpdatableObject> updatedObjects = new HashSet<>();
 
+    /**
+     * Every object registered to this controller, used to create the snapshots
+     */
+    private final Set<UpdatableObject> trackedObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * The properties changed since the last update, by object. Identity is used because the ids of the islands change
+     * when they are united
+     */
+    private final Map<UpdatableObject, EnumSet<Properties>> changedProperties = new IdentityHashMap<>();
+
+    /**
+     * True if some islands have been united since the last update, which changes the ids of the others
+     */
+    private boolean islandsUnited = false;
+
+    /**
+     * The version of the state sent with the last update
+     */
+    private long stateVersion = 0;
+
     public enum Properties {
         P_CREATION("creation"),
-        P_CLOUD("cloud"),
-        P_ISLAND_STUDENTS("island-students"),
-        P_ISLAND_TOWER("island-tower"),
-        P_ISLAND_NOENTRYTILE("island-noEntryTiles"),
-        P_ISLAND_DIMENSION("island-dimension"),
-        P_PLAYER_LASTASSISTANT("player-lastAssistant"),
-        P_PLAYER_CHARACTERUSED("player-characterUsed"),
-        P_PLAYER_COINS("player-coins"),
-        P_BOARD_ENTRANCE("board-entrance"),
-        P_BOARD_DINING("board-dining"),
-        P_BOARD_TOWER("board-tower"),
-        P_BOARD_PROF("board-professor"),
-        P_CHARACTER_PLAYED("character-played");
-
-        Properties(String label) {
+        P_CLOUD("cloud", "studentsOnCloud"),
+        P_ISLAND_STUDENTS("island-students", "studentsOnIsland"),
+        P_ISLAND_TOWER("island-tower", "tower", "currentConqueror"),
+        P_ISLAND_NOENTRYTILE("island-noEntryTiles", "NoEntryTile"),
+        P_ISLAND_DIMENSION("island-dimension", "numIslandsUnited"),
+        P_ISLAND_MOTHERNATURE("island-motherNature", "motherNatureHere"),
+        P_PLAYER_LASTASSISTANT("player-lastAssistant", "lastAssistantPlayed", "assistantsDeck"),
+        P_PLAYER_CHARACTERUSED("player-characterUsed", "numberOfCoins"),
+        P_PLAYER_COINS("player-coins", "numberOfCoins"),
+        P_BOARD_ENTRANCE("board-entrance", "board.entranceArea"),
+        P_BOARD_DINING("board-dining", "board.diningRoom", "board.coinsArray"),
+        P_BOARD_TOWER("board-tower", "board.towerArea"),
+        P_BOARD_PROF("board-professor", "board.profTable"),
+        P_CHARACTER_PLAYED("character-played", "currentPrice", "effectHandler", "playedInThisTurn");
+
+        Properties(String label, String... fields) {
             this.label = label;
+            this.fields = fields;
         }
 
         final String label;
 
+        /**
+         * The paths of the serialized fields changed by the property
+         */
+        final String[] fields;
+
         @Override
         public String toString() {
             return label;
@@ -55,10 +89,15 @@ public class UpdateController implements PropertyChangeListener {
     }
 
     @Override
-    public void propertyChange(PropertyChangeEvent evt) {
+    public synchronized void propertyChange(PropertyChangeEvent evt) {
         UpdatableObject updatedObject = (UpdatableObject) evt.getSource();
         updatedObjects.add(updatedObject);
-        switch (Properties.findByLabel(evt.getPropertyName())) {
+        Properties property = Properties.findByLabel(evt.getPropertyName());
+        trackedObjects.add(updatedObject);
+        if (property == Properties.P_ISLAND_DIMENSION) islandsUnited = true;
+        else if (property != Properties.P_CREATION)
+            changedProperties.computeIfAbsent(updatedObject, k -> EnumSet.noneOf(Properties.class)).add(property);
+        switch (property) {
             case P_CLOUD -> {
                 Cloud cloud = (Cloud) updatedObject;
                 updateList.add("Cloud " + cloud.getCloudId() + " update students from " +
@@ -92,7 +131,8 @@ public class UpdateController implements PropertyChangeListener {
             }
             case P_PLAYER_LASTASSISTANT -> {
                 Player player = (Player) updatedObject;
-                updateList.add("Player " + player.getPlayerId() + ": played assistant " + evt.getNewValue());
+                if (evt.getNewValue() != null)
+                    updateList.add("Player " + player.getPlayerId() + ": played assistant " + evt.getNewValue());
             }
             case P_PLAYER_CHARACTERUSED -> {
                 Player player = (Player) updatedObject;
@@ -119,12 +159,110 @@ public class UpdateController implements PropertyChangeListener {
                 else string.append(" lost prof of color ").append(((FactionColor) evt.getOldValue()).name());
                 updateList.add(string.toString());
             }
-            case P_PLAYER_COINS, P_BOARD_TOWER, P_CHARACTER_PLAYED, P_CREATION -> {
+            case P_PLAYER_COINS, P_BOARD_TOWER, P_CHARACTER_PLAYED, P_ISLAND_MOTHERNATURE, P_CREATION -> {
             }
             default -> System.err.println("Property change unexpected: " + evt.getPropertyName());
         }
     }
 
+    /**
+     * Creates the update with the properties changed since the last one, each one tagged with a new state version. The
+     * values are read from the objects now, so a property changed many times is sent once. When some islands have been
+     * united all the islands are sent as a whole, because their ids have changed
+     *
+     * @param lastAction            the type of last action performed
+     * @param lastActionDescription a text description of last performed action
+     * @return the update to send to every client
+     */
+    public synchronized UpdateMessage createUpdate(MessageType lastAction, String lastActionDescription) {
+        MessageCodec codec = MessageCodec.getInstance();
+        long baseVersion = stateVersion;
+        List<UpdatableObject> replacedObjects = new ArrayList<>();
+        List<PropertyDelta> deltas = new ArrayList<>();
+        if (islandsUnited) {
+            replacedObjects.addAll(getIslands());
+            stateVersion++;
+        }
+        for (Map.Entry<UpdatableObject, EnumSet<Properties>> entry : changedProperties.entrySet()) {
+            UpdatableObject object = entry.getKey();
+            if (islandsUnited && object.type == UpdatableObject.UpdatableType.ISLAND) continue;
+            JsonObject tree = codec.toJsonTree(object);
+            for (Properties property : entry.getValue()) {
+                JsonObject fields = new JsonObject();
+                List<String> clearedFields = new ArrayList<>();
+                for (String path : property.fields) {
+                    JsonElement value = find(tree, path);
+                    if (value == null) clearedFields.add(path);
+                    else fields.add(path, value);
+                }
+                deltas.add(new PropertyDelta(++stateVersion, object, property.label, fields, clearedFields));
+            }
+        }
+        changedProperties.clear();
+        islandsUnited = false;
+        clear();
+        return new UpdateMessage(replacedObjects, deltas, baseVersion, stateVersion, false, lastAction,
+                lastActionDescription);
+    }
+
+    /**
+     * Creates an update with the whole model, for a client which has just joined or has missed an update. The changes
+     * not yet sent are kept, applying them again to the snapshot doesn't change it
+     *
+     * @param lastAction            the type of last action performed
+     * @param lastActionDescription a text description of last performed action
+     * @return the snapshot of the model
+     */
+    public synchronized UpdateMessage createSnapshot(MessageType lastAction, String lastActionDescription) {
+        List<UpdatableObject> objects = new ArrayList<>(trackedObjects.stream()
+                .filter(object -> object.type != UpdatableObject.UpdatableType.ISLAND)
+                .toList());
+        objects.addAll(getIslands());
+        return new UpdateMessage(objects, new ArrayList<>(), stateVersion, stateVersion, true, lastAction,
+                lastActionDescription);
+    }
+
+    /**
+     * @return the islands not united to another one
+     */
+    private List<Island> getIslands() {
+        return trackedObjects.stream()
+                .filter(object -> object.type == UpdatableObject.UpdatableType.ISLAND)
+                .map(object -> (Island) object)
+                .filter(island -> island.getNumIslands() != 0)
+                .toList();
+    }
+
+    /**
+     * @param tree the JSON tree of an object
+     * @param path the path of one of its fields
+     * @return the value of the field, null if missing
+     */
+    private static JsonElement find(JsonObject tree, String path) {
+        JsonElement element = tree;
+        for (String name : path.split("\\.")) {
+            if (element == null || !element.isJsonObject()) return null;
+            element = element.getAsJsonObject().get(name);
+        }
+        return element == null || element.isJsonNull() ? null : element;
+    }
+
+    /**
+     * @return the version of the state sent with the last update
+     */
+    public synchronized long getStateVersion() {
+        return stateVersion;
+    }
+
+    /**
+     * Continues the versions of a game rebuilt from a checkpoint, the next updates follow the given version
+     *
+     * @param stateVersion the version of the state reached by the game
+     */
+    public synchronized void setStateVersion(long stateVersion) {
+        this.stateVersion = stateVersion;
+    }
+
     public List<String> getUpdateList() {
         return updateList;
     }
@@ -0,0 +1,118 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A store keeping each journal in its own file of a directory, written through a {@link FileChannel} kept open until
+ * the journal is deleted.
+ */
+public class FileJournalStore implements JournalStore {
+
+    /**
+     * Extension of the files of the journals
+     */
+    static final String EXTENSION = ".journal";
+
+    /**
+     * The directory of the journals
+     */
+    private final Path directory;
+
+    /**
+     * The open journals, keyed by match ID
+     */
+    private final ConcurrentHashMap<Integer, FileChannel> channels;
+
+    /**
+     * Default constructor, the directory is created if missing
+     *
+     * @param directory the directory of the journals
+     * @throws IOException if the directory can't be created
+     */
+    public FileJournalStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.channels = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param matchID a match ID
+     * @return the file of the journal of the match
+     */
+    private Path pathOf(int matchID) {
+        return directory.resolve("match-" + matchID + EXTENSION);
+    }
+
+    /**
+     * @param matchID a match ID
+     * @return the open journal of the match, opened if needed
+     * @throws IOException if the journal can't be opened
+     */
+    private FileChannel channelOf(int matchID) throws IOException {
+        FileChannel channel = channels.get(matchID);
+        if (channel == null) {
+            channel = FileChannel.open(pathOf(matchID), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            channels.put(matchID, channel);
+        }
+        return channel;
+    }
+
+    @Override
+    public void append(int matchID, ByteBuffer records) throws IOException {
+        FileChannel channel = channelOf(matchID);
+        while (records.hasRemaining())
+            channel.write(records);
+    }
+
+    @Override
+    public void sync(int matchID) throws IOException {
+        FileChannel channel = channels.get(matchID);
+        if (channel != null) channel.force(false);
+    }
+
+    @Override
+    public ByteBuffer read(int matchID) throws IOException {
+        Path path = pathOf(matchID);
+        return ByteBuffer.wrap(Files.exists(path) ? Files.readAllBytes(path) : new byte[0]);
+    }
+
+    @Override
+    public List<Integer> matchIDs() throws IOException {
+        List<Integer> matchIDs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "match-*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    matchIDs.add(Integer.parseInt(name.substring("match-".length(), name.length() - EXTENSION.length())));
+                } catch (NumberFormatException ignored) {
+                    // not a journal
+                }
+            }
+        }
+        matchIDs.sort(null);
+        return matchIDs;
+    }
+
+    @Override
+    public void delete(int matchID) throws IOException {
+        FileChannel channel = channels.remove(matchID);
+        if (channel != null) channel.close();
+        Files.deleteIfExists(pathOf(matchID));
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : channels.values())
+            channel.close();
+        channels.clear();
+    }
+}
@@ -0,0 +1,88 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import it.polimi.ingsw.am37.client.ClientStatus;
+import it.polimi.ingsw.am37.model.PackedGameState;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A snapshot of a game between two actions, from which the game is rebuilt without replaying the records before it:
+ * the packed model, the position of its random extractions, the progress of the turn as the lobby follows it and the
+ * players who are away or replaced by a bot.
+ *
+ * @param stateVersion        the state version reached by the game
+ * @param status              what the current player is doing
+ * @param assistantsPlayed    the assistants played in the round
+ * @param cloudsChosen        the clouds chosen in the round
+ * @param studentsMoved       the students moved by the current player in this turn
+ * @param bagRandomState      the state of the random extractions from the bag
+ * @param disconnectedPlayers the UUIDs of the players who lost the connection
+ * @param botSeats            the UUIDs of the players whose seats have been taken by a bot
+ * @param state               the model of the game
+ */
+public record GameCheckpoint(long stateVersion, ClientStatus status, int assistantsPlayed, int cloudsChosen,
+                             int studentsMoved, long bagRandomState, Set<String> disconnectedPlayers,
+                             Set<String> botSeats, PackedGameState state) {
+
+    /**
+     * @return the checkpoint as JSON
+     */
+    public String encode() {
+        JsonObject json = new JsonObject();
+        json.addProperty("stateVersion", stateVersion);
+        json.addProperty("status", status.name());
+        json.addProperty("assistantsPlayed", assistantsPlayed);
+        json.addProperty("cloudsChosen", cloudsChosen);
+        json.addProperty("studentsMoved", studentsMoved);
+        json.addProperty("bagRandomState", bagRandomState);
+        json.add("disconnectedPlayers", toJson(disconnectedPlayers));
+        json.add("botSeats", toJson(botSeats));
+        json.addProperty("state", state.encode());
+        return json.toString();
+    }
+
+    /**
+     * @param json a checkpoint as JSON
+     * @return the checkpoint
+     * @throws IllegalStateException if the JSON isn't a checkpoint
+     */
+    public static GameCheckpoint decode(String json) {
+        try {
+            JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+            return new GameCheckpoint(object.get("stateVersion").getAsLong(),
+                    ClientStatus.valueOf(object.get("status").getAsString()),
+                    object.get("assistantsPlayed").getAsInt(), object.get("cloudsChosen").getAsInt(),
+                    object.get("studentsMoved").getAsInt(), object.get("bagRandomState").getAsLong(),
+                    fromJson(object.getAsJsonArray("disconnectedPlayers")), fromJson(object.getAsJsonArray("botSeats")),
+                    PackedGameState.decode(object.get("state").getAsString()));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("The checkpoint can't be read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param UUIDs some players
+     * @return the players as JSON
+     */
+    private static JsonArray toJson(Set<String> UUIDs) {
+        JsonArray array = new JsonArray();
+        UUIDs.forEach(array::add);
+        return array;
+    }
+
+    /**
+     * @param array some players as JSON
+     * @return the players
+     */
+    private static Set<String> fromJson(JsonArray array) {
+        Set<String> UUIDs = new LinkedHashSet<>();
+        for (JsonElement UUID : array)
+            UUIDs.add(UUID.getAsString());
+        return UUIDs;
+    }
+}
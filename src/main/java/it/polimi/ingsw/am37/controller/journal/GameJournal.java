@@ -0,0 +1,149 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.MessageCodec;
+
+import java.util.function.Supplier;
+
+/**
+ * The write-ahead journal of a lobby: the start of its game, every message handled, the players leaving and coming
+ * back, and a snapshot of the game every few actions. The model is deterministic once its seed is known, so the game
+ * is rebuilt from the last snapshot by replaying the records which follow it. The records are queued to a {@link JournalWriter} shared by all the
+ * lobbies and the lobby never waits for them. A journal is only used by the mailbox of its lobby.
+ */
+public class GameJournal {
+
+    /**
+     * Number of actions between two checkpoints
+     */
+    static final int CHECKPOINT_INTERVAL = 32;
+
+    /**
+     * The match of the journal
+     */
+    private final int matchID;
+
+    /**
+     * Writes the records, null if the journal is disabled
+     */
+    private final JournalWriter writer;
+
+    /**
+     * Sequence number of the last record
+     */
+    private long sequence;
+
+    /**
+     * Number of actions since the last checkpoint
+     */
+    private int actionsSinceCheckpoint;
+
+    /**
+     * False while the game is being replayed from the journal, so the replay isn't recorded again
+     */
+    private boolean recording;
+
+    /**
+     * Default constructor
+     *
+     * @param matchID the match of the journal
+     * @param writer  writes the records, null to disable the journal
+     */
+    public GameJournal(int matchID, JournalWriter writer) {
+        this.matchID = matchID;
+        this.writer = writer;
+        this.sequence = 0;
+        this.actionsSinceCheckpoint = 0;
+        this.recording = writer != null;
+    }
+
+    /**
+     * @return a journal which doesn't record anything
+     */
+    public static GameJournal disabled() {
+        return new GameJournal(0, null);
+    }
+
+    /**
+     * Queues a record
+     *
+     * @param type    the kind of the record
+     * @param UUID    the player the record is about, null if none
+     * @param payload the content of the record, null if none
+     */
+    private void record(JournalRecord.Type type, String UUID, String payload) {
+        if (!recording) return;
+        writer.append(matchID, new JournalRecord(type, ++sequence, UUID, payload));
+    }
+
+    /**
+     * @param setup how the game has been started
+     */
+    public void recordStart(GameSetup setup) {
+        record(JournalRecord.Type.START, null, setup.encode());
+    }
+
+    /**
+     * @param message a message of a player about to be handled
+     */
+    public void recordMessage(Message message) {
+        if (recording) record(JournalRecord.Type.MESSAGE, message.getUUID(), MessageCodec.getInstance().encode(message));
+    }
+
+    /**
+     * @param UUID the player who lost the connection
+     */
+    public void recordDisconnect(String UUID) {
+        record(JournalRecord.Type.DISCONNECT, UUID, null);
+    }
+
+    /**
+     * @param UUID the player who came back
+     */
+    public void recordReconnect(String UUID) {
+        record(JournalRecord.Type.RECONNECT, UUID, null);
+    }
+
+    /**
+     * @param UUID the player whose seat has been taken by a bot
+     */
+    public void recordBot(String UUID) {
+        record(JournalRecord.Type.BOT, UUID, null);
+    }
+
+    /**
+     * Counts a handled action, a checkpoint is recorded every {@link GameJournal#CHECKPOINT_INTERVAL} actions
+     *
+     * @param checkpoint takes the snapshot of the game, only called when a checkpoint is due
+     */
+    public void actionDone(Supplier<GameCheckpoint> checkpoint) {
+        if (!recording || ++actionsSinceCheckpoint < CHECKPOINT_INTERVAL) return;
+        actionsSinceCheckpoint = 0;
+        record(JournalRecord.Type.CHECKPOINT, null, checkpoint.get().encode());
+    }
+
+    /**
+     * Stops recording while the journal is replayed
+     */
+    public void pause() {
+        recording = false;
+    }
+
+    /**
+     * Records again after a replay, the following records continue the journal
+     *
+     * @param lastSequence the sequence number of the last record replayed
+     */
+    public void resume(long lastSequence) {
+        sequence = lastSequence;
+        recording = writer != null;
+    }
+
+    /**
+     * Deletes the journal, the game is over and won't need to be rebuilt
+     */
+    public void delete() {
+        recording = false;
+        if (writer != null) writer.delete(matchID);
+    }
+}
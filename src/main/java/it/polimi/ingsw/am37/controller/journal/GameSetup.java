@@ -0,0 +1,54 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What is needed to start a game again exactly as it was started: the rules, the seed of the model and the players in
+ * the order they were seated.
+ *
+ * @param lobbySize    the number of players
+ * @param advancedMode true if the game uses the advanced rules
+ * @param seed         the seed of the model
+ * @param seating      the nicknames of the players, keyed by UUID, in the order they were seated
+ */
+public record GameSetup(int lobbySize, boolean advancedMode, long seed, LinkedHashMap<String, String> seating) {
+
+    /**
+     * @return the setup as JSON
+     */
+    public String encode() {
+        JsonObject json = new JsonObject();
+        json.addProperty("lobbySize", lobbySize);
+        json.addProperty("advancedMode", advancedMode);
+        json.addProperty("seed", seed);
+        JsonArray players = new JsonArray();
+        for (Map.Entry<String, String> player : seating.entrySet()) {
+            JsonObject seat = new JsonObject();
+            seat.addProperty("UUID", player.getKey());
+            seat.addProperty("nickname", player.getValue());
+            players.add(seat);
+        }
+        json.add("seating", players);
+        return json.toString();
+    }
+
+    /**
+     * @param json a setup as JSON
+     * @return the setup
+     */
+    public static GameSetup decode(String json) {
+        JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        LinkedHashMap<String, String> seating = new LinkedHashMap<>();
+        for (JsonElement seat : object.getAsJsonArray("seating"))
+            seating.put(seat.getAsJsonObject().get("UUID").getAsString(),
+                    seat.getAsJsonObject().get("nickname").getAsString());
+        return new GameSetup(object.get("lobbySize").getAsInt(), object.get("advancedMode").getAsBoolean(),
+                object.get("seed").getAsLong(), seating);
+    }
+}
@@ -0,0 +1,130 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An entry of the journal of a game. Every record is written as its length, the CRC32 of its content and the content:
+ * the type, the sequence number, the UUID of the player and a payload, both in UTF-8. A record cut by a crash or
+ * damaged on the disk doesn't match its CRC, so the journal is read up to the last whole record.
+ *
+ * @param type     the kind of the record
+ * @param sequence the position of the record in the journal, starting from 1
+ * @param UUID     the player the record is about, null if none
+ * @param payload  the content of the record, depending on its type, null if none
+ */
+public record JournalRecord(Type type, long sequence, String UUID, String payload) {
+
+    /**
+     * Size of the length and of the CRC in front of each record
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The kinds of records
+     */
+    public enum Type {
+        /**
+         * The start of the game, the payload is its {@link GameSetup}
+         */
+        START,
+        /**
+         * A message of a player handled by the lobby, the payload is the message in JSON
+         */
+        MESSAGE,
+        /**
+         * A player lost the connection
+         */
+        DISCONNECT,
+        /**
+         * A player came back to the game
+         */
+        RECONNECT,
+        /**
+         * A snapshot of the game, the payload is its {@link GameCheckpoint}; the game is rebuilt from the last one
+         */
+        CHECKPOINT,
+        /**
+         * A bot took the seat of a player who didn't come back, the following messages of the player are its moves
+         */
+        BOT
+    }
+
+    /**
+     * @return the record as written in the journal
+     */
+    public byte[] encode() {
+        byte[] UUIDBytes = UUID == null ? new byte[0] : UUID.getBytes(StandardCharsets.UTF_8);
+        byte[] payloadBytes = payload == null ? new byte[0] : payload.getBytes(StandardCharsets.UTF_8);
+        int contentLength = 1 + Long.BYTES + 2 * Integer.BYTES + UUIDBytes.length + payloadBytes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + contentLength);
+        buffer.putInt(contentLength);
+        buffer.putInt(0);
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(sequence);
+        buffer.putInt(UUID == null ? -1 : UUIDBytes.length);
+        buffer.put(UUIDBytes);
+        buffer.putInt(payload == null ? -1 : payloadBytes.length);
+        buffer.put(payloadBytes);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, contentLength);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Reads the records of a journal, up to the first one which isn't whole or is damaged
+     *
+     * @param journal the content of the journal
+     * @return the records read, in order
+     */
+    public static List<JournalRecord> decodeAll(ByteBuffer journal) {
+        List<JournalRecord> records = new ArrayList<>();
+        while (journal.remaining() >= HEADER_SIZE) {
+            int start = journal.position();
+            int contentLength = journal.getInt();
+            int expectedCrc = journal.getInt();
+            if (contentLength <= 0 || contentLength > journal.remaining()) break;
+            CRC32 crc = new CRC32();
+            ByteBuffer content = journal.slice(journal.position(), contentLength);
+            crc.update(content.duplicate());
+            if ((int) crc.getValue() != expectedCrc) break;
+            try {
+                records.add(decode(content));
+            } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                journal.position(start);
+                break;
+            }
+            journal.position(journal.position() + contentLength);
+        }
+        return records;
+    }
+
+    /**
+     * @param content the content of a record, without its header
+     * @return the record
+     */
+    private static JournalRecord decode(ByteBuffer content) {
+        Type type = Type.values()[content.get()];
+        long sequence = content.getLong();
+        String UUID = readString(content);
+        String payload = readString(content);
+        return new JournalRecord(type, sequence, UUID, payload);
+    }
+
+    /**
+     * @param content the content of a record
+     * @return the next string of the record, null if missing
+     */
+    private static String readString(ByteBuffer content) {
+        int length = content.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        content.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
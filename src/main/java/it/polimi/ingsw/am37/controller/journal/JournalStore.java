@@ -0,0 +1,63 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Where the journals of the games are kept, one for each match ID. The store is only used by the
+ * {@link JournalWriter}, and while the server is starting to read the journals back.
+ */
+public interface JournalStore extends Closeable {
+
+    /**
+     * Adds records at the end of a journal, creating it if missing; they aren't durable until the journal is synced
+     *
+     * @param matchID the match of the journal
+     * @param records the encoded records
+     * @throws IOException if the records can't be written
+     */
+    void append(int matchID, ByteBuffer records) throws IOException;
+
+    /**
+     * Makes the records written in a journal durable
+     *
+     * @param matchID the match of the journal
+     * @throws IOException if the journal can't be synced
+     */
+    void sync(int matchID) throws IOException;
+
+    /**
+     * @param matchID the match of the journal
+     * @return the whole content of the journal, empty if missing
+     * @throws IOException if the journal can't be read
+     */
+    ByteBuffer read(int matchID) throws IOException;
+
+    /**
+     * Reads the records of a journal one after the other; the default implementation reads the whole journal first
+     *
+     * @param matchID the match of the journal
+     * @return the records of the journal, in order
+     * @throws IOException if the journal can't be read
+     */
+    default Iterator<JournalRecord> records(int matchID) throws IOException {
+        return JournalRecord.decodeAll(read(matchID)).iterator();
+    }
+
+    /**
+     * @return the match IDs of the journals in the store
+     * @throws IOException if the store can't be listed
+     */
+    List<Integer> matchIDs() throws IOException;
+
+    /**
+     * Deletes a journal, it's not an error if it's missing
+     *
+     * @param matchID the match of the journal
+     * @throws IOException if the journal can't be deleted
+     */
+    void delete(int matchID) throws IOException;
+}
@@ -0,0 +1,205 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the journals of all the lobbies with group commit. The lobbies only queue their records and go on; a single
+ * thread takes everything queued since its last round, writes the records of each journal with one call and syncs each
+ * journal once, so many records, from one or many games, share the cost of a sync. A record is durable at most one
+ * round after it has been queued.
+ */
+public class JournalWriter implements Closeable {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(JournalWriter.class);
+
+    /**
+     * Maximum number of operations handled in a round
+     */
+    private static final int MAX_BATCH = 1024;
+
+    /**
+     * Where the journals are written
+     */
+    private final JournalStore store;
+
+    /**
+     * The operations waiting for the writer thread
+     */
+    private final LinkedBlockingQueue<Operation> queue;
+
+    /**
+     * The thread writing the journals
+     */
+    private final Thread thread;
+
+    /**
+     * Number of records written
+     */
+    private final AtomicLong recordsWritten;
+
+    /**
+     * Number of rounds that wrote some records
+     */
+    private final AtomicLong commits;
+
+    /**
+     * True once the writer has been closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * An operation on a journal
+     *
+     * @param matchID the match of the journal
+     * @param record  the encoded record to append, null to delete the journal
+     */
+    private record Operation(int matchID, byte[] record) {
+    }
+
+    /**
+     * Marks the end of the operations, queued by {@link JournalWriter#close()}
+     */
+    private static final Operation END = new Operation(-1, null);
+
+    /**
+     * Default constructor, the writer thread is started
+     *
+     * @param store where the journals are written
+     */
+    public JournalWriter(JournalStore store) {
+        this.store = store;
+        this.queue = new LinkedBlockingQueue<>();
+        this.recordsWritten = new AtomicLong();
+        this.commits = new AtomicLong();
+        // the thread spends its time in writes and syncs, which would pin a virtual thread's carrier anyway
+        this.thread = Thread.ofPlatform().name("journal-writer").daemon().start(this::run);
+    }
+
+    /**
+     * @return where the journals are written
+     */
+    public JournalStore getStore() {
+        return store;
+    }
+
+    /**
+     * Queues a record to be appended to a journal
+     *
+     * @param matchID the match of the journal
+     * @param record  the record
+     */
+    public void append(int matchID, JournalRecord record) {
+        if (!closed) queue.add(new Operation(matchID, record.encode()));
+    }
+
+    /**
+     * Queues the deletion of a journal, after the records already queued
+     *
+     * @param matchID the match of the journal
+     */
+    public void delete(int matchID) {
+        if (!closed) queue.add(new Operation(matchID, null));
+    }
+
+    /**
+     * Handles the queued operations, one round after the other, until the writer is closed
+     */
+    private void run() {
+        List<Operation> batch = new ArrayList<>();
+        boolean ended = false;
+        while (!ended) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            ended = commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a round of operations: the records of each journal are written together and each journal is synced once
+     *
+     * @param batch the operations, in order of arrival
+     * @return true if the end of the operations has been reached
+     */
+    private boolean commit(List<Operation> batch) {
+        Map<Integer, ByteArrayOutputStream> pending = new LinkedHashMap<>();
+        boolean ended = false;
+        int records = 0;
+        for (Operation operation : batch) {
+            if (operation == END) {
+                ended = true;
+            } else if (operation.record() == null) {
+                // the records of the journal still in the batch don't need to be written anymore
+                pending.remove(operation.matchID());
+                try {
+                    store.delete(operation.matchID());
+                } catch (IOException e) {
+                    LOGGER.error("Unable to delete the journal of match " + operation.matchID() + ": " + e.getMessage());
+                }
+            } else {
+                pending.computeIfAbsent(operation.matchID(), id -> new ByteArrayOutputStream())
+                        .writeBytes(operation.record());
+                records++;
+            }
+        }
+        for (Map.Entry<Integer, ByteArrayOutputStream> journal : pending.entrySet()) {
+            try {
+                store.append(journal.getKey(), ByteBuffer.wrap(journal.getValue().toByteArray()));
+                store.sync(journal.getKey());
+            } catch (IOException e) {
+                LOGGER.error("Unable to write the journal of match " + journal.getKey() + ": " + e.getMessage());
+            }
+        }
+        if (records > 0) {
+            recordsWritten.addAndGet(records);
+            commits.incrementAndGet();
+        }
+        return ended;
+    }
+
+    /**
+     * @return a summary of the work done by the writer
+     */
+    public String getStats() {
+        long rounds = commits.get();
+        long records = recordsWritten.get();
+        return records + " records in " + rounds + " commits" + (rounds == 0 ? "" : String.format(", %.1f records per commit", (double) records / rounds));
+    }
+
+    /**
+     * Writes the operations already queued, then stops the writer thread and closes the store
+     *
+     * @throws IOException if the store can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        queue.add(END);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
+    }
+}
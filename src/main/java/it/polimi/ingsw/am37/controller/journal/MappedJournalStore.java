@@ -0,0 +1,504 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * A store keeping the journals of all the matches in a single append-only log, split in memory-mapped segments of a
+ * fixed size, so the number of open files doesn't grow with the number of matches. Each write of a journal becomes a
+ * frame of the log: its length, its CRC32, its kind, the match ID, a sequence number and the records. Deleting a
+ * journal appends a tombstone. The frames of each journal are indexed in memory, and the index is rebuilt by scanning
+ * the segments when the store is opened, up to the first frame which isn't whole. A compactor removes the oldest
+ * segment once most of it belongs to deleted journals, copying the frames still needed to the end of the log.
+ */
+public class MappedJournalStore implements JournalStore {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(MappedJournalStore.class);
+
+    /**
+     * Default size of a segment
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Size of the length and of the CRC in front of each frame
+     */
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    /**
+     * Size of the kind, the match ID and the sequence number of a frame
+     */
+    private static final int FRAME_FIELDS_SIZE = 1 + Integer.BYTES + Long.BYTES;
+
+    /**
+     * Kind of the frames holding records
+     */
+    private static final byte APPEND = 1;
+
+    /**
+     * Kind of the frames deleting a journal
+     */
+    private static final byte DELETE = 2;
+
+    /**
+     * The oldest segment is compacted when less than this share of it is still needed
+     */
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    /**
+     * Extension of the segments
+     */
+    private static final String EXTENSION = ".log";
+
+    /**
+     * The directory of the segments
+     */
+    private final Path directory;
+
+    /**
+     * Size of a new segment
+     */
+    private final int segmentSize;
+
+    /**
+     * The segments, from the oldest; the last one is written
+     */
+    private final ArrayDeque<Segment> segments;
+
+    /**
+     * The frames of each journal, in order
+     */
+    private final HashMap<Integer, List<Frame>> index;
+
+    /**
+     * Guards the segments and the index; a lock is used instead of the monitor because the store may be used by
+     * virtual threads.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Sequence number of the next frame
+     */
+    private long nextSequence;
+
+    /**
+     * True if the last segment has been written since it was last synced
+     */
+    private boolean dirty;
+
+    /**
+     * The thread of the compactor, null if it isn't running
+     */
+    private Thread compactor;
+
+    /**
+     * A segment of the log
+     */
+    private static final class Segment {
+
+        /**
+         * Number of the segment, segments are numbered in order of creation
+         */
+        private final long number;
+
+        /**
+         * The file of the segment
+         */
+        private final Path path;
+
+        /**
+         * The content of the segment, mapped in memory
+         */
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Position of the end of the frames written
+         */
+        private int end;
+
+        /**
+         * Number of bytes of the frames still needed
+         */
+        private long liveBytes;
+
+        /**
+         * @param number the number of the segment
+         * @param path   the file of the segment
+         * @param buffer the content of the segment
+         */
+        private Segment(long number, Path path, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * A frame of a journal
+     *
+     * @param segment  the segment holding the frame
+     * @param offset   the position of the frame in the segment
+     * @param size     the size of the whole frame
+     * @param sequence the sequence number of the frame
+     */
+    private record Frame(Segment segment, int offset, int size, long sequence) {
+
+        /**
+         * @return a view of the records of the frame
+         */
+        ByteBuffer records() {
+            int start = offset + FRAME_HEADER_SIZE + FRAME_FIELDS_SIZE;
+            return segment.buffer.slice(start, offset + size - start);
+        }
+    }
+
+    /**
+     * Default constructor, the directory is created if missing and the existing segments are scanned
+     *
+     * @param directory   the directory of the segments
+     * @param segmentSize the size of a new segment
+     * @throws IOException if the segments can't be opened
+     */
+    public MappedJournalStore(Path directory, int segmentSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.segments = new ArrayDeque<>();
+        this.index = new HashMap<>();
+        this.lock = new ReentrantLock();
+        this.nextSequence = 1;
+        this.dirty = false;
+        load();
+    }
+
+    /**
+     * Maps the existing segments and rebuilds the index
+     *
+     * @throws IOException if the segments can't be opened
+     */
+    private void load() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring("segment-".length(), name.length() - EXTENSION.length())));
+                } catch (NumberFormatException ignored) {
+                    // not a segment
+                }
+            }
+        }
+        numbers.sort(null);
+        HashMap<Integer, Long> deletedUpTo = new HashMap<>();
+        for (long number : numbers) {
+            Segment segment = map(number, 0);
+            segments.add(segment);
+            ByteBuffer buffer = segment.buffer;
+            int position = 0;
+            while (position + FRAME_HEADER_SIZE + FRAME_FIELDS_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length < FRAME_FIELDS_SIZE || position + FRAME_HEADER_SIZE + length > buffer.capacity()) break;
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice(position + FRAME_HEADER_SIZE, length));
+                if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) break;
+                byte kind = buffer.get(position + FRAME_HEADER_SIZE);
+                int matchID = buffer.getInt(position + FRAME_HEADER_SIZE + 1);
+                long sequence = buffer.getLong(position + FRAME_HEADER_SIZE + 1 + Integer.BYTES);
+                Frame frame = new Frame(segment, position, FRAME_HEADER_SIZE + length, sequence);
+                if (kind == DELETE)
+                    deletedUpTo.merge(matchID, sequence, Math::max);
+                else
+                    index.computeIfAbsent(matchID, id -> new ArrayList<>()).add(frame);
+                nextSequence = Math.max(nextSequence, sequence + 1);
+                position += frame.size();
+            }
+            segment.end = position;
+        }
+        // frames copied by the compactor aren't in order, and a journal may have been deleted after some of its frames
+        for (Iterator<Map.Entry<Integer, List<Frame>>> journals = index.entrySet().iterator(); journals.hasNext(); ) {
+            Map.Entry<Integer, List<Frame>> journal = journals.next();
+            long deleted = deletedUpTo.getOrDefault(journal.getKey(), 0L);
+            journal.getValue().removeIf(frame -> frame.sequence() <= deleted);
+            journal.getValue().sort(Comparator.comparingLong(Frame::sequence));
+            if (journal.getValue().isEmpty()) journals.remove();
+            else for (Frame frame : journal.getValue())
+                frame.segment().liveBytes += frame.size();
+        }
+        if (segments.isEmpty()) segments.add(map(0, segmentSize));
+    }
+
+    /**
+     * Maps a segment, creating its file if missing
+     *
+     * @param number the number of the segment
+     * @param size   the size of a new segment, 0 to map an existing one as it is
+     * @return the segment
+     * @throws IOException if the segment can't be mapped
+     */
+    private Segment map(long number, int size) throws IOException {
+        Path path = directory.resolve(String.format("segment-%012d", number) + EXTENSION);
+        // the mapping stays valid after the channel is closed, so no file is kept open
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long length = size == 0 ? channel.size() : size;
+            return new Segment(number, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+    }
+
+    /**
+     * Writes a frame at the end of the log, a new segment is started if the last one is full
+     *
+     * @param kind    the kind of the frame
+     * @param matchID  the match of the frame
+     * @param sequence the sequence number of the frame
+     * @param records  the records of the frame
+     * @return the written frame
+     * @throws IOException if a new segment can't be created
+     */
+    private Frame write(byte kind, int matchID, long sequence, ByteBuffer records) throws IOException {
+        int length = FRAME_FIELDS_SIZE + records.remaining();
+        int size = FRAME_HEADER_SIZE + length;
+        Segment segment = segments.getLast();
+        if (segment.end + size > segment.buffer.capacity()) {
+            if (dirty) segment.buffer.force();
+            dirty = false;
+            segment = map(segment.number + 1, Math.max(segmentSize, size));
+            segments.add(segment);
+        }
+        ByteBuffer buffer = segment.buffer;
+        int offset = segment.end;
+        int body = offset + FRAME_HEADER_SIZE;
+        buffer.put(body, kind);
+        buffer.putInt(body + 1, matchID);
+        buffer.putLong(body + 1 + Integer.BYTES, sequence);
+        buffer.put(body + FRAME_FIELDS_SIZE, records, records.position(), records.remaining());
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(body, length));
+        buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        // the length is written last, a frame is never seen before it's whole
+        buffer.putInt(offset, length);
+        segment.end += size;
+        dirty = true;
+        return new Frame(segment, offset, size, sequence);
+    }
+
+    @Override
+    public void append(int matchID, ByteBuffer records) throws IOException {
+        lock.lock();
+        try {
+            Frame frame = write(APPEND, matchID, nextSequence++, records);
+            frame.segment().liveBytes += frame.size();
+            index.computeIfAbsent(matchID, id -> new ArrayList<>()).add(frame);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sync(int matchID) throws IOException {
+        lock.lock();
+        try {
+            // all the journals share the last segment, so a round of the writer syncs it once
+            if (dirty) segments.getLast().buffer.force();
+            dirty = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ByteBuffer read(int matchID) throws IOException {
+        List<Frame> frames = framesOf(matchID);
+        ByteBuffer journal = ByteBuffer.allocate(frames.stream().mapToInt(frame -> frame.records().remaining()).sum());
+        for (Frame frame : frames)
+            journal.put(frame.records());
+        return journal.flip();
+    }
+
+    /**
+     * Reads the records of a journal one frame at a time, straight from the mapped segments; the reader isn't affected
+     * by the following writes and compactions
+     *
+     * @param matchID the match of the journal
+     * @return the records of the journal, in order
+     */
+    @Override
+    public Iterator<JournalRecord> records(int matchID) {
+        Iterator<Frame> frames = framesOf(matchID).iterator();
+        return new Iterator<>() {
+            private Iterator<JournalRecord> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && frames.hasNext())
+                    current = JournalRecord.decodeAll(frames.next().records()).iterator();
+                return current.hasNext();
+            }
+
+            @Override
+            public JournalRecord next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * @param matchID the match of a journal
+     * @return a copy of the list of the frames of the journal
+     */
+    private List<Frame> framesOf(int matchID) {
+        lock.lock();
+        try {
+            return new ArrayList<>(index.getOrDefault(matchID, List.of()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> matchIDs() {
+        lock.lock();
+        try {
+            List<Integer> matchIDs = new ArrayList<>(index.keySet());
+            matchIDs.sort(null);
+            return matchIDs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(int matchID) throws IOException {
+        lock.lock();
+        try {
+            List<Frame> frames = index.remove(matchID);
+            if (frames == null) return;
+            for (Frame frame : frames)
+                frame.segment().liveBytes -= frame.size();
+            write(DELETE, matchID, nextSequence++, ByteBuffer.allocate(0));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest segments while most of their frames aren't needed anymore; the frames still needed are copied
+     * to the end of the log with their sequence numbers, and the tombstones are dropped since no older segment is left
+     *
+     * @return the number of segments removed
+     * @throws IOException if the log can't be written
+     */
+    public int compact() throws IOException {
+        int removed = 0;
+        lock.lock();
+        try {
+            while (segments.size() > 1) {
+                Segment oldest = segments.getFirst();
+                if (oldest.liveBytes >= oldest.end * COMPACTION_THRESHOLD) break;
+                for (List<Frame> frames : index.values())
+                    for (ListIterator<Frame> iterator = frames.listIterator(); iterator.hasNext(); ) {
+                        Frame frame = iterator.next();
+                        if (frame.segment() != oldest) continue;
+                        int matchID = oldest.buffer.getInt(frame.offset() + FRAME_HEADER_SIZE + 1);
+                        Frame copy = write(APPEND, matchID, frame.sequence(), frame.records());
+                        copy.segment().liveBytes += copy.size();
+                        iterator.set(copy);
+                    }
+                // the copies must be durable before the segment is gone
+                segments.getLast().buffer.force();
+                dirty = false;
+                segments.removeFirst();
+                Files.deleteIfExists(oldest.path);
+                removed++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return removed;
+    }
+
+    /**
+     * Starts a background thread compacting the log at the given interval
+     *
+     * @param interval the time between two compactions
+     * @param unit     the unit of the interval
+     */
+    public void startCompactor(long interval, TimeUnit unit) {
+        compactor = Thread.ofPlatform().name("journal-compactor").daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(unit.toMillis(interval));
+                    int removed = compact();
+                    if (removed > 0) LOGGER.debug("Compacted " + removed + " journal segments, " + this);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    LOGGER.error("Unable to compact the journals: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the number of segments of the log
+     */
+    public int getSegmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            long live = 0;
+            long used = 0;
+            for (Segment segment : segments) {
+                live += segment.liveBytes;
+                used += segment.end;
+            }
+            return index.size() + " journals in " + segments.size() + " segments, " + live + " of " + used + " bytes needed";
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (compactor != null) {
+            compactor.interrupt();
+            try {
+                compactor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if (dirty) segments.getLast().buffer.force();
+            dirty = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.network.exceptions.InternetException;
+import it.polimi.ingsw.am37.network.server.BroadcastFrame;
+import it.polimi.ingsw.am37.network.server.ClientHandler;
+
+/**
+ * Stands for a player while its game is replayed from the journal: it has no connection, drops what the lobby sends
+ * and is connected until the replay disconnects it, as the real one was.
+ */
+public final class ReplayClientHandler extends ClientHandler {
+
+    /**
+     * True until the handler is disconnected
+     */
+    private boolean connected;
+
+    /**
+     * Default constructor
+     *
+     * @param UUID the player the handler stands for
+     */
+    public ReplayClientHandler(String UUID) {
+        setUUID(UUID);
+        this.connected = true;
+    }
+
+    @Override
+    public boolean isConnectedToClient() {
+        return connected;
+    }
+
+    @Override
+    public void sendMessageToClient(Message message) throws InternetException {
+        if (!connected) throw new InternetException();
+        message.setUUID(getUUID());
+    }
+
+    @Override
+    public void sendFrameToClient(BroadcastFrame frame) throws InternetException {
+        if (!connected) throw new InternetException();
+    }
+
+    @Override
+    protected void queueFrame(byte[] envelope, byte[] payload) {
+    }
+
+    @Override
+    public void disconnect() {
+        connected = false;
+    }
+}
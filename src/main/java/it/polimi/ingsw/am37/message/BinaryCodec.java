@@ -0,0 +1,454 @@
+package it.polimi.ingsw.am37.message;
+
+import com.google.gson.*;
+import it.polimi.ingsw.am37.model.UpdatableObject;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary representation of the messages, an alternative to the JSON of {@link MessageCodec}. A message is
+ * first converted to the same JSON tree, so every adapter of {@link MessageGsonBuilder} keeps working, then the tree is
+ * written as tagged values: the field names and the enum constants are replaced by their index in a dictionary, the
+ * integers are written as variable length integers and the arrays of integers, like the students of a container, are
+ * packed without a tag for each element.
+ * <p>
+ * The dictionary holds the names of the fields of every message and updatable object, with the constants of their
+ * enums, sorted; two codecs understand each other only if their dictionaries are the same, so the identifier of the
+ * codec, exchanged when the client logs in, contains the version of the format and a checksum of the dictionary.
+ */
+public class BinaryCodec {
+
+    /**
+     * Version of the format, written as the first byte of each payload
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Package whose classes contribute to the dictionary
+     */
+    private static final String PROJECT_PACKAGE = "it.polimi.ingsw.am37.";
+
+    /**
+     * Tags of the values
+     */
+    private static final byte NULL = 0, FALSE = 1, TRUE = 2, INT = 3, DOUBLE = 4, STRING = 5, SYMBOL = 6, ARRAY = 7,
+            INT_ARRAY = 8, OBJECT = 9;
+
+    /**
+     * The shared instance
+     */
+    private static final BinaryCodec instance = new BinaryCodec();
+
+    /**
+     * The dictionary, sorted
+     */
+    private final List<String> symbols;
+
+    /**
+     * The index of each word of the dictionary
+     */
+    private final Map<String, Integer> symbolIndexes;
+
+    /**
+     * The identifier of this codec
+     */
+    private final String id;
+
+    /**
+     * Default constructor
+     */
+    private BinaryCodec() {
+        this.symbols = List.copyOf(collectSymbols());
+        this.symbolIndexes = new HashMap<>();
+        for (int i = 0; i < symbols.size(); i++)
+            symbolIndexes.put(symbols.get(i), i);
+        CRC32 checksum = new CRC32();
+        checksum.update(String.join("\n", symbols).getBytes(StandardCharsets.UTF_8));
+        this.id = "binary-" + VERSION + "-" + Long.toHexString(checksum.getValue());
+    }
+
+    /**
+     * @return the codec shared by the whole process
+     */
+    public static BinaryCodec getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return the identifier of this codec, the same for the codecs which understand each other
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @param id the identifier of another codec, may be null
+     * @return true if this codec understands the other one
+     */
+    public boolean isCompatible(String id) {
+        return this.id.equals(id);
+    }
+
+    /**
+     * @param message the message to encode
+     * @return the binary representation of the message
+     */
+    public byte[] encode(Message message) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        writeValue(out, MessageCodec.getInstance().toJsonTree(message));
+        return out.toByteArray();
+    }
+
+    /**
+     * @param payload the binary representation of a message
+     * @return the decoded message
+     * @throws JsonParseException if the payload isn't a valid message
+     */
+    public Message decode(byte[] payload) throws JsonParseException {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        JsonElement tree;
+        try {
+            int version = in.get();
+            if (version != VERSION) throw new JsonParseException("Unsupported binary format version " + version);
+            tree = readValue(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new JsonParseException("Malformed binary message", e);
+        }
+        if (in.hasRemaining()) throw new JsonParseException("Unexpected bytes after the binary message");
+        return MessageCodec.getInstance().fromJsonTree(tree, Message.class);
+    }
+
+    /**
+     * Encodes the fields of a message, but its UUID, so they can be shared among many recipients; each recipient gets
+     * the head written by {@link BinaryCodec#encodeHead(String, int)} before them
+     *
+     * @param tree the JSON tree of the message, as given by {@link MessageCodec#toJsonTree(Object)}
+     * @return the encoded fields
+     */
+    public EncodedFields encodeFields(JsonObject tree) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int count = 0;
+        for (Map.Entry<String, JsonElement> field : tree.entrySet()) {
+            if (field.getKey().equals("UUID")) continue;
+            count++;
+            writeKey(out, field.getKey());
+            writeValue(out, field.getValue());
+        }
+        return new EncodedFields(count, out.toByteArray());
+    }
+
+    /**
+     * @param UUID       the UUID of the recipient, null if it has none
+     * @param fieldCount the number of fields encoded by {@link BinaryCodec#encodeFields(JsonObject)}
+     * @return the beginning of the message for the recipient, followed by the encoded fields
+     */
+    public byte[] encodeHead(String UUID, int fieldCount) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        out.write(OBJECT);
+        writeVarint(out, UUID == null ? fieldCount : fieldCount + 1);
+        if (UUID != null) {
+            writeKey(out, "UUID");
+            writeValue(out, new JsonPrimitive(UUID));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param out   the destination
+     * @param value the value to write
+     */
+    private void writeValue(ByteArrayOutputStream out, JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            out.write(NULL);
+        } else if (value.isJsonObject()) {
+            JsonObject object = value.getAsJsonObject();
+            out.write(OBJECT);
+            writeVarint(out, object.size());
+            for (Map.Entry<String, JsonElement> field : object.entrySet()) {
+                writeKey(out, field.getKey());
+                writeValue(out, field.getValue());
+            }
+        } else if (value.isJsonArray()) {
+            JsonArray array = value.getAsJsonArray();
+            boolean integers = array.size() > 0;
+            for (JsonElement element : array)
+                if (!isInteger(element)) {
+                    integers = false;
+                    break;
+                }
+            out.write(integers ? INT_ARRAY : ARRAY);
+            writeVarint(out, array.size());
+            for (JsonElement element : array) {
+                if (integers) writeVarint(out, zigZag(element.getAsLong()));
+                else writeValue(out, element);
+            }
+        } else {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                out.write(primitive.getAsBoolean() ? TRUE : FALSE);
+            } else if (isInteger(primitive)) {
+                out.write(INT);
+                writeVarint(out, zigZag(primitive.getAsLong()));
+            } else if (primitive.isNumber()) {
+                out.write(DOUBLE);
+                long bits = Double.doubleToLongBits(primitive.getAsDouble());
+                for (int shift = 56; shift >= 0; shift -= 8)
+                    out.write((int) (bits >>> shift));
+            } else {
+                Integer index = symbolIndexes.get(primitive.getAsString());
+                if (index != null) {
+                    out.write(SYMBOL);
+                    writeVarint(out, index);
+                } else {
+                    out.write(STRING);
+                    writeString(out, primitive.getAsString());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param in the source
+     * @return the value read
+     */
+    private JsonElement readValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return JsonNull.INSTANCE;
+            case FALSE:
+                return new JsonPrimitive(false);
+            case TRUE:
+                return new JsonPrimitive(true);
+            case INT:
+                return new JsonPrimitive(unZigZag(readVarint(in)));
+            case DOUBLE:
+                return new JsonPrimitive(Double.longBitsToDouble(in.getLong()));
+            case STRING:
+                return new JsonPrimitive(readString(in));
+            case SYMBOL:
+                return new JsonPrimitive(symbols.get(readLength(in)));
+            case ARRAY: {
+                int size = readLength(in);
+                JsonArray array = new JsonArray(size);
+                for (int i = 0; i < size; i++)
+                    array.add(readValue(in));
+                return array;
+            }
+            case INT_ARRAY: {
+                int size = readLength(in);
+                JsonArray array = new JsonArray(size);
+                for (int i = 0; i < size; i++)
+                    array.add(unZigZag(readVarint(in)));
+                return array;
+            }
+            case OBJECT: {
+                int size = readLength(in);
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    String key = readKey(in);
+                    object.add(key, readValue(in));
+                }
+                return object;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown tag " + tag);
+        }
+    }
+
+    /**
+     * Writes the name of a field: a varint with the index in the dictionary shifted left, or with the length of the
+     * name shifted left and the lowest bit set, followed by the name
+     *
+     * @param out the destination
+     * @param key the name of the field
+     */
+    private void writeKey(ByteArrayOutputStream out, String key) {
+        Integer index = symbolIndexes.get(key);
+        if (index != null) {
+            writeVarint(out, (long) index << 1);
+        } else {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, ((long) bytes.length << 1) | 1);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * @param in the source
+     * @return the name of a field
+     */
+    private String readKey(ByteBuffer in) {
+        long header = readVarint(in);
+        if ((header & 1) == 0) return symbols.get(Math.toIntExact(header >>> 1));
+        return readBytes(in, Math.toIntExact(header >>> 1));
+    }
+
+    /**
+     * @param out    the destination
+     * @param string the string to write, preceded by its length
+     */
+    private static void writeString(ByteArrayOutputStream out, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param in the source
+     * @return the string read
+     */
+    private static String readString(ByteBuffer in) {
+        return readBytes(in, readLength(in));
+    }
+
+    /**
+     * @param in     the source
+     * @param length the number of bytes to read
+     * @return the bytes read as a UTF-8 string
+     */
+    private static String readBytes(ByteBuffer in, int length) {
+        if (length > in.remaining()) throw new BufferUnderflowException();
+        String string = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return string;
+    }
+
+    /**
+     * Writes an unsigned integer in groups of seven bits, the lowest first, the highest bit of each byte tells whether
+     * another byte follows
+     *
+     * @param out   the destination
+     * @param value the value to write
+     */
+    public static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * @param in the source
+     * @return the unsigned integer read
+     */
+    public static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    /**
+     * @param in the source
+     * @return a length or an index, which must fit in the remaining bytes
+     */
+    private static int readLength(ByteBuffer in) {
+        long length = readVarint(in);
+        if (length < 0 || length > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid length " + length);
+        return (int) length;
+    }
+
+    /**
+     * @param value a signed integer
+     * @return the integer mapped so the small negative values are small too
+     */
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * @param value an integer mapped by {@link BinaryCodec#zigZag(long)}
+     * @return the original integer
+     */
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @param element a JSON value
+     * @return true if the value is a number without fractional part which fits in a long
+     */
+    private static boolean isInteger(JsonElement element) {
+        if (!element.isJsonPrimitive() || !element.getAsJsonPrimitive().isNumber()) return false;
+        Number number = element.getAsNumber();
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte)
+            return true;
+        double value = number.doubleValue();
+        return value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 0x1p62 &&
+                !(value == 0 && Double.doubleToRawLongBits(value) != 0);
+    }
+
+    /**
+     * @return the names of the fields of every message and updatable object, with the constants of their enums
+     */
+    private static SortedSet<String> collectSymbols() {
+        SortedSet<String> symbols = new TreeSet<>();
+        Set<Class<?>> visited = new HashSet<>();
+        try {
+            for (MessageType type : MessageType.values())
+                collectSymbols(Class.forName(Message.class.getPackageName() + "." + type.getClassName()), symbols,
+                        visited);
+            for (UpdatableObject.UpdatableType type : UpdatableObject.UpdatableType.values())
+                collectSymbols(Class.forName(UpdatableObject.class.getPackageName() + "." + type.getClassName()),
+                        symbols, visited);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Missing class of a message or updatable object", e);
+        }
+        return symbols;
+    }
+
+    /**
+     * Adds the names of the fields of a type and of the types of its fields
+     *
+     * @param type    the type to visit
+     * @param symbols the names found
+     * @param visited the classes already visited
+     */
+    private static void collectSymbols(Type type, Set<String> symbols, Set<Class<?>> visited) {
+        if (type instanceof ParameterizedType parameterized) {
+            collectSymbols(parameterized.getRawType(), symbols, visited);
+            for (Type argument : parameterized.getActualTypeArguments())
+                collectSymbols(argument, symbols, visited);
+        } else if (type instanceof GenericArrayType array) {
+            collectSymbols(array.getGenericComponentType(), symbols, visited);
+        } else if (type instanceof Class<?> clazz) {
+            if (clazz.isArray()) {
+                collectSymbols(clazz.getComponentType(), symbols, visited);
+                return;
+            }
+            if (!clazz.getName().startsWith(PROJECT_PACKAGE) || !visited.add(clazz)) return;
+            if (clazz.isEnum())
+                for (Object constant : clazz.getEnumConstants())
+                    symbols.add(((Enum<?>) constant).name());
+            for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass())
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()))
+                        continue;
+                    symbols.add(field.getName());
+                    collectSymbols(field.getGenericType(), symbols, visited);
+                }
+        }
+    }
+
+    /**
+     * The fields of a message encoded without its UUID
+     *
+     * @param count the number of fields
+     * @param bytes the encoded fields
+     */
+    public record EncodedFields(int count, byte[] bytes) {
+    }
+}
@@ -15,6 +15,17 @@ public class ConfirmMessage extends Message {
      */
     private final int lobbyId;
 
+    /**
+     * The identifier of the binary codec the server uses for the following messages, in case this message confirms a
+     * login; null if the messages stay in JSON
+     */
+    private final String binaryCodec;
+
+    /**
+     * True if the following messages may be compressed, in case this message confirms a login
+     */
+    private final boolean compression;
+
     /**
      * The fromJSON receiver side constructor where all data are accessible
      *
@@ -24,6 +35,8 @@ public class ConfirmMessage extends Message {
     public ConfirmMessage(String UUID, int lobbyId) {
         super(UUID, MessageType.CONFIRM);
         this.lobbyId = lobbyId;
+        this.binaryCodec = null;
+        this.compression = false;
     }
 
     /**
@@ -32,8 +45,21 @@ public class ConfirmMessage extends Message {
      * @param UUID the sender identifier
      */
     public ConfirmMessage(String UUID) {
+        this(UUID, null, false);
+    }
+
+    /**
+     * The constructor of the confirmation of a login
+     *
+     * @param UUID        the receiver identifier
+     * @param binaryCodec the identifier of the binary codec used for the following messages, null to keep JSON
+     * @param compression true if the following messages may be compressed
+     */
+    public ConfirmMessage(String UUID, String binaryCodec, boolean compression) {
         super(UUID, MessageType.CONFIRM);
         this.lobbyId = LOBBY_ID_NOT_SET;
+        this.binaryCodec = binaryCodec;
+        this.compression = compression;
     }
 
     /**
@@ -45,6 +71,8 @@ public class ConfirmMessage extends Message {
     public ConfirmMessage(int lobbyId) {
         super(MessageType.CONFIRM);
         this.lobbyId = lobbyId;
+        this.binaryCodec = null;
+        this.compression = false;
     }
 
     /**
@@ -54,6 +82,8 @@ public class ConfirmMessage extends Message {
     public ConfirmMessage() {
         super(MessageType.CONFIRM);
         this.lobbyId = LOBBY_ID_NOT_SET;
+        this.binaryCodec = null;
+        this.compression = false;
     }
 
     /**
@@ -62,4 +92,18 @@ public class ConfirmMessage extends Message {
     public int getLobbyId() {
         return lobbyId;
     }
-}
+
+    /**
+     * @return the identifier of the binary codec used for the following messages, null if they stay in JSON
+     */
+    public String getBinaryCodec() {
+        return binaryCodec;
+    }
+
+    /**
+     * @return true if the following messages may be compressed
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+}
\ No newline at end of file
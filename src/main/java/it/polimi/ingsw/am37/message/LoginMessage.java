@@ -3,7 +3,8 @@ package it.polimi.ingsw.am37.message;
 /**
  * This is a message sent by the client when try to log in to the server. This message carry the user desired nickname.
  * The server must reply with a {@link ErrorMessage} when the nickname is already taken or with {@link ConfirmMessage}
- * when authorize login.
+ * when authorize login. The client can also offer the {@link BinaryCodec} it supports, which the server accepts in the
+ * confirmation when it's compatible with its own, and ask for the compression of the messages it receives.
  */
 public class LoginMessage extends Message {
 
@@ -13,14 +14,38 @@ public class LoginMessage extends Message {
      */
     private final String nickname;
 
+    /**
+     * The identifier of the binary codec supported by the client, null if it only uses JSON
+     */
+    private final String binaryCodec;
+
+    /**
+     * True if the client can receive compressed messages
+     */
+    private final boolean compression;
+
     /**
      * The fromJSON receiver side constructor where all data are accessible
      *
      * @param UUID the client identifier
      */
     public LoginMessage(String UUID, String nickname) {
+        this(UUID, nickname, null, false);
+    }
+
+    /**
+     * The constructor of a client which supports a binary codec or the compression
+     *
+     * @param UUID        the client identifier
+     * @param nickname    the desired nickname
+     * @param binaryCodec the identifier of the binary codec supported by the client, null if it only uses JSON
+     * @param compression true if the client can receive compressed messages
+     */
+    public LoginMessage(String UUID, String nickname, String binaryCodec, boolean compression) {
         super(UUID, MessageType.LOGIN);
         this.nickname = nickname;
+        this.binaryCodec = binaryCodec;
+        this.compression = compression;
     }
 
     /**
@@ -32,6 +57,8 @@ public class LoginMessage extends Message {
     public LoginMessage(MessageType messageType, String nickname) {
         super(messageType);
         this.nickname = nickname;
+        this.binaryCodec = null;
+        this.compression = false;
     }
 
     /**
@@ -41,4 +68,18 @@ public class LoginMessage extends Message {
         return nickname;
     }
 
+    /**
+     * @return the identifier of the binary codec supported by the client, null if it only uses JSON
+     */
+    public String getBinaryCodec() {
+        return binaryCodec;
+    }
+
+    /**
+     * @return true if the client can receive compressed messages
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package it.polimi.ingsw.am37.message;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import it.polimi.ingsw.am37.model.UpdatableObject;
+
+/**
+ * Converts the messages from and to their JSON representation. The underlying {@link Gson} is built once with every
+ * adapter of {@link MessageGsonBuilder} and, being immutable and thread-safe, it is shared by the whole process: the
+ * subtypes of {@link Message} and {@link UpdatableObject} are looked up by reflection only when the codec is created.
+ */
+public class MessageCodec {
+
+    /**
+     * Number of messages encoded and decoded by {@link MessageCodec#warmUp()}
+     */
+    private static final int WARM_UP_ROUNDS = 1000;
+
+    /**
+     * The shared instance
+     */
+    private static final MessageCodec instance = new MessageCodec();
+
+    /**
+     * The serializer
+     */
+    private final Gson gson;
+
+    /**
+     * Default constructor
+     */
+    private MessageCodec() {
+        this.gson = new MessageGsonBuilder().registerMessageAdapter()
+                .registerStudentContainerAdapter()
+                .registerUpdatableObjectAdapter()
+                .getGsonBuilder()
+                .create();
+    }
+
+    /**
+     * @return the codec shared by the whole process
+     */
+    public static MessageCodec getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param message the message to encode
+     * @return the JSON representation of the message
+     */
+    public String encode(Message message) {
+        return gson.toJson(message);
+    }
+
+    /**
+     * @param tree the JSON tree of a message
+     * @return the JSON representation of the message
+     */
+    public String encode(JsonElement tree) {
+        return gson.toJson(tree);
+    }
+
+    /**
+     * @param json the JSON representation of a message
+     * @return the decoded message
+     * @throws JsonParseException if the JSON isn't a valid message
+     */
+    public Message decode(String json) throws JsonParseException {
+        return gson.fromJson(json, Message.class);
+    }
+
+    /**
+     * @param object the object to encode
+     * @return the JSON tree of the object, as it is written inside the messages
+     */
+    public JsonObject toJsonTree(Object object) {
+        return gson.toJsonTree(object).getAsJsonObject();
+    }
+
+    /**
+     * @param tree  the JSON tree of an object
+     * @param clazz the class of the object
+     * @param <T>   the type of the object
+     * @return the decoded object
+     * @throws JsonParseException if the tree isn't a valid object of the class
+     */
+    public <T> T fromJsonTree(JsonElement tree, Class<T> clazz) throws JsonParseException {
+        return gson.fromJson(tree, clazz);
+    }
+
+    /**
+     * Creates the type adapters of every message and updatable object, which Gson otherwise builds on first use, and
+     * runs a few encodings so the first messages of the game don't pay for it. Meant to be called once when the
+     * application starts.
+     */
+    public void warmUp() {
+        gson.getAdapter(Message.class);
+        gson.getAdapter(UpdatableObject.class);
+        for (int i = 0; i < WARM_UP_ROUNDS; i++)
+            decode(encode(new PingMessage("warm-up")));
+    }
+}
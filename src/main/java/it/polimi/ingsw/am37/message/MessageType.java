@@ -22,6 +22,7 @@ public enum MessageType {
     PLANNING_PHASE("PlanningPhaseMessage"),
     RESILIENCE("ResilienceMessage"),
     START_GAME("StartGameMessage"),
+    RESYNC("ResyncMessage"),
     END_GAME("EndGameMessage");
 
     private final String className;
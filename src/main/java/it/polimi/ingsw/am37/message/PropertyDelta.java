@@ -0,0 +1,147 @@
+package it.polimi.ingsw.am37.message;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import it.polimi.ingsw.am37.model.Cloud;
+import it.polimi.ingsw.am37.model.Island;
+import it.polimi.ingsw.am37.model.Player;
+import it.polimi.ingsw.am37.model.UpdatableObject;
+import it.polimi.ingsw.am37.model.character.Character;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A change of a single property of an {@link UpdatableObject}, sent inside an {@link UpdateMessage}. The delta carries
+ * the new value of every field the property covers, as it is serialized in the object, so the receiver can patch its
+ * JSON copy of the object and deserialize it again. Fields of nested objects are named by their path, like
+ * {@code board.diningRoom}
+ */
+public class PropertyDelta {
+
+    /**
+     * The state version this change leads to
+     */
+    private final long version;
+
+    /**
+     * The type of the changed object
+     */
+    private final UpdatableObject.UpdatableType objectType;
+
+    /**
+     * The identifier of the changed object, as given by {@link PropertyDelta#idOf(UpdatableObject)}
+     */
+    private final String objectId;
+
+    /**
+     * The label of the changed property
+     */
+    private final String property;
+
+    /**
+     * The new values of the fields, keyed by their path
+     */
+    private final JsonObject fields;
+
+    /**
+     * The paths of the fields which are now null, null if there aren't any
+     */
+    private final List<String> clearedFields;
+
+    /**
+     * Default constructor
+     *
+     * @param version       the state version this change leads to
+     * @param object        the changed object
+     * @param property      the label of the changed property
+     * @param fields        the new values of the fields, keyed by their path
+     * @param clearedFields the paths of the fields which are now null
+     */
+    public PropertyDelta(long version, UpdatableObject object, String property, JsonObject fields,
+                         List<String> clearedFields) {
+        this.version = version;
+        this.objectType = object.type;
+        this.objectId = idOf(object);
+        this.property = property;
+        this.fields = fields;
+        this.clearedFields = clearedFields.isEmpty() ? null : clearedFields;
+    }
+
+    /**
+     * @param object an updatable object
+     * @return the identifier of the object among the ones of its type
+     */
+    public static String idOf(UpdatableObject object) {
+        return switch (object.type) {
+            case ISLAND -> String.valueOf(((Island) object).getIslandId());
+            case CLOUD -> ((Cloud) object).getCloudId();
+            case PLAYER -> ((Player) object).getPlayerId();
+            case CHARACTER -> ((Character) object).getEffectType().name();
+        };
+    }
+
+    /**
+     * Writes the changed fields into the JSON representation of the object
+     *
+     * @param object the JSON representation of the changed object
+     */
+    public void applyTo(JsonObject object) {
+        for (Map.Entry<String, JsonElement> field : fields.entrySet())
+            parentOf(object, field.getKey()).add(nameOf(field.getKey()), field.getValue());
+        if (clearedFields != null)
+            for (String path : clearedFields)
+                parentOf(object, path).remove(nameOf(path));
+    }
+
+    /**
+     * @param object the JSON representation of an object
+     * @param path   the path of a field of the object
+     * @return the object holding the field, created if missing
+     */
+    private static JsonObject parentOf(JsonObject object, String path) {
+        String[] names = path.split("\\.");
+        JsonObject parent = object;
+        for (int i = 0; i < names.length - 1; i++) {
+            if (!parent.has(names[i]) || !parent.get(names[i]).isJsonObject()) parent.add(names[i], new JsonObject());
+            parent = parent.getAsJsonObject(names[i]);
+        }
+        return parent;
+    }
+
+    /**
+     * @param path the path of a field
+     * @return the name of the field
+     */
+    private static String nameOf(String path) {
+        return path.substring(path.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @return the state version this change leads to
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the type of the changed object
+     */
+    public UpdatableObject.UpdatableType getObjectType() {
+        return objectType;
+    }
+
+    /**
+     * @return the identifier of the changed object
+     */
+    public String getObjectId() {
+        return objectId;
+    }
+
+    /**
+     * @return the label of the changed property
+     */
+    public String getProperty() {
+        return property;
+    }
+}
@@ -0,0 +1,25 @@
+package it.polimi.ingsw.am37.message;
+
+/**
+ * This message is sent by a client which missed some {@link UpdateMessage}, found by a gap in their state versions. The
+ * lobby answers with an {@link UpdateMessage} holding a full snapshot of the model
+ */
+public class ResyncMessage extends Message {
+
+    /**
+     * The fromJSON receiver side constructor where all data are accessible
+     *
+     * @param UUID the client identifier
+     */
+    public ResyncMessage(String UUID) {
+        super(UUID, MessageType.RESYNC);
+    }
+
+    /**
+     * The default sender side constructor for message preparing. UUID must be set using {@link Message#setUUID(String)}
+     * before sending it
+     */
+    public ResyncMessage() {
+        super(MessageType.RESYNC);
+    }
+}
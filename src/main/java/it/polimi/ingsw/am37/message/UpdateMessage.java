@@ -11,6 +11,10 @@ import java.util.List;
  * confirmation that previous action have been successful. Only the updated objects are provided by this message. This
  * message provides also useful information about the last action performed like is type
  * {@link UpdateMessage#lastAction} and a shor descriptive message {@link UpdateMessage#lastActionDescription}
+ * <p>
+ * The model is versioned: a snapshot carries every object and the version of the state it describes, any other update
+ * carries the {@link PropertyDelta} of the changed properties, which apply only to the state with version
+ * {@link UpdateMessage#baseVersion}, and the objects which must be replaced as a whole.
  */
 public class UpdateMessage extends Message {
 
@@ -29,6 +33,22 @@ public class UpdateMessage extends Message {
      * to retrieve object
      */
     private final HashMap<String, List<UpdatableObject>> updatedObjects;
+    /**
+     * The changed properties, in the order they must be applied
+     */
+    private final List<PropertyDelta> deltas;
+    /**
+     * The version of the state the deltas apply to
+     */
+    private final long baseVersion;
+    /**
+     * The version of the state after this update
+     */
+    private final long stateVersion;
+    /**
+     * True if the message carries the whole model instead of its changes
+     */
+    private final boolean snapshot;
 
     /**
      * The fromJSON receiver side constructor where all data are accessible
@@ -44,6 +64,10 @@ public class UpdateMessage extends Message {
         this.updatedObjects = createUpdatedObjectMap(updatedObjects);
         this.lastAction = lastAction;
         this.lastActionDescription = lastActionDescription;
+        this.deltas = new ArrayList<>();
+        this.baseVersion = 0;
+        this.stateVersion = 0;
+        this.snapshot = true;
     }
 
     /**
@@ -55,8 +79,29 @@ public class UpdateMessage extends Message {
      * @param lastActionDescription a text description of last performed action
      */
     public UpdateMessage(List<UpdatableObject> updatedObjects, MessageType lastAction, String lastActionDescription) {
+        this(updatedObjects, new ArrayList<>(), 0, 0, true, lastAction, lastActionDescription);
+    }
+
+    /**
+     * The sender side constructor of a versioned update. UUID must be set using {@link Message#setUUID(String)} before
+     * sending it
+     *
+     * @param updatedObjects        the objects sent as a whole
+     * @param deltas                the changed properties
+     * @param baseVersion           the version of the state the deltas apply to
+     * @param stateVersion          the version of the state after this update
+     * @param snapshot              true if the objects are the whole model
+     * @param lastAction            the type of last action performed
+     * @param lastActionDescription a text description of last performed action
+     */
+    public UpdateMessage(List<UpdatableObject> updatedObjects, List<PropertyDelta> deltas, long baseVersion,
+                         long stateVersion, boolean snapshot, MessageType lastAction, String lastActionDescription) {
         super(MessageType.UPDATE);
         this.updatedObjects = createUpdatedObjectMap(updatedObjects);
+        this.deltas = deltas;
+        this.baseVersion = baseVersion;
+        this.stateVersion = stateVersion;
+        this.snapshot = snapshot;
         this.lastAction = lastAction;
         this.lastActionDescription = lastActionDescription;
     }
@@ -97,6 +142,44 @@ public class UpdateMessage extends Message {
         return updatedObjects.get(type.getLabel());
     }
 
+    /**
+     * Adds an object to the updated ones. Used by the receiver to list the objects rebuilt from the deltas, so the
+     * views find every changed object in {@link UpdateMessage#getUpdatedObjects()}
+     *
+     * @param object the object to add
+     */
+    public void addUpdatedObject(UpdatableObject object) {
+        updatedObjects.computeIfAbsent(object.type.getLabel(), k -> new ArrayList<>()).add(object);
+    }
+
+    /**
+     * @return the changed properties, in the order they must be applied
+     */
+    public List<PropertyDelta> getDeltas() {
+        return deltas == null ? List.of() : deltas;
+    }
+
+    /**
+     * @return the version of the state the deltas apply to
+     */
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * @return the version of the state after this update
+     */
+    public long getStateVersion() {
+        return stateVersion;
+    }
+
+    /**
+     * @return true if the message carries the whole model
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
     /**
      * @return The type of the triggering event.
      */
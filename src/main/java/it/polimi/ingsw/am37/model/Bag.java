@@ -2,12 +2,14 @@ package it.polimi.ingsw.am37.model;
 
 import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
 import it.polimi.ingsw.am37.model.student_container.StudentsContainer;
-import it.polimi.ingsw.am37.model.student_container.UnlimitedStudentsContainer;
 
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
- * This class represents the Bag which contains the students that are not assigned to an Island, Cloud or Board.
+ * This class represents the Bag which contains the students that are not assigned to an Island, Cloud or Board. Each
+ * student in the bag is equally likely to be extracted, so a color is extracted with a probability proportional to
+ * the students of that color still in the bag.
  */
 public class Bag {
 
@@ -16,56 +18,154 @@ public class Bag {
      */
     private final static int startingStudentsPerColor = 24;
 
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    private static final FactionColor[] COLORS = FactionColor.values();
+
     /**
      * Keeps track if the bag is empty or not.
      */
     private boolean isEmpty;
 
+    /**
+     * Source of the random extractions
+     */
+    private final RandomGenerator random;
+
+    /**
+     * It represents the students in the Bag, by color index.
+     */
+    private final int[] studentsAvailable;
+
+    /**
+     * The number of the students in the Bag
+     */
+    private int total;
+
     /**
      * Default constructor, it fills the Bag with 2 students from each Faction.
      */
     public Bag() {
-        studentsAvailable = new UnlimitedStudentsContainer();
+        this(new Random());
+    }
+
+    /**
+     * Constructor of a Bag whose extractions are drawn from the given source, it fills the Bag with 2 students from
+     * each Faction.
+     *
+     * @param random the source of the random extractions.
+     */
+    public Bag(RandomGenerator random) {
+        this.random = random;
+        studentsAvailable = new int[COLORS.length];
         isEmpty = false;
-        for (FactionColor color : FactionColor.values())
-            studentsAvailable.addStudents(startingStudentsPerColor, color);
+        for (FactionColor color : COLORS)
+            studentsAvailable[color.getIndex()] = startingStudentsPerColor;
+        total = startingStudentsPerColor * COLORS.length;
     }
 
     /**
-     * It represents the students in the Bag.
+     * Extracts a single student from the Bag, looking at each color at most once.
+     *
+     * @return the color of the extracted student.
+     * @throws IllegalStateException if the Bag has no students.
      */
-    private final UnlimitedStudentsContainer studentsAvailable;
+    public FactionColor extractStudent() {
+        if (total == 0) throw new IllegalStateException("The bag has no students");
+        int target = random.nextInt(total);
+        for (FactionColor color : COLORS) {
+            target -= studentsAvailable[color.getIndex()];
+            if (target < 0) {
+                studentsAvailable[color.getIndex()]--;
+                total--;
+                return color;
+            }
+        }
+        throw new AssertionError("The count of the students in the bag is wrong");
+    }
 
     /**
-     * It extracts students from the Bag.
+     * It extracts students from the Bag. Instead of extracting them one at a time, the number of students of each
+     * color is drawn at once from its hypergeometric distribution, given the students of the colors not drawn yet:
+     * the result is distributed as if the students were extracted one by one.
      *
      * @param num The number of students to extracts.
-     * @return A LimitedStudentContainer that contains the students extracted by FactionColor.
-     * @throws IllegalArgumentException If there are not enough students to extract.
+     * @return A LimitedStudentContainer that contains the students extracted by FactionColor; if the bag has fewer
+     * students, all of them are extracted and the bag is marked as empty.
      */
     public LimitedStudentsContainer extractStudents(int num) {
-        if (studentsAvailable.size() < num) {
-            num = studentsAvailable.size();
+        if (total < num) {
+            num = total;
             isEmpty = true;
         }
-        LimitedStudentsContainer studentsExtracted;
-        int[] colorBound = new int[]{0, 0, 0, 0, 0};
-        Random colorGenerator = new Random();
-        FactionColor colorExtracted;
-        for (int i = 0; i < num; i++) {
-            colorExtracted = FactionColor.values()[colorGenerator.nextInt(FactionColor.values().length)];
-            if (studentsAvailable.getByColor(colorExtracted) > colorBound[colorExtracted.getIndex()])
-                colorBound[colorExtracted.getIndex()]++;
-            else i--;
+        if (num == 0) return new LimitedStudentsContainer(0);
+        int[] extracted = new int[COLORS.length];
+        int population = total;
+        for (int i = 0; i < COLORS.length && num > 0; i++) {
+            int available = studentsAvailable[i];
+            int drawn = i == COLORS.length - 1 ? num : hypergeometric(population, available, num);
+            extracted[i] = drawn;
+            studentsAvailable[i] -= drawn;
+            population -= available;
+            num -= drawn;
         }
-        studentsExtracted = new LimitedStudentsContainer(colorBound);
-        for (FactionColor color : FactionColor.values()) {
-            studentsExtracted.addStudents(colorBound[color.getIndex()], color);
-            studentsAvailable.removeStudents(colorBound[color.getIndex()], color);
+        LimitedStudentsContainer studentsExtracted = new LimitedStudentsContainer(extracted);
+        for (FactionColor color : COLORS) {
+            studentsExtracted.addStudents(extracted[color.getIndex()], color);
+            total -= extracted[color.getIndex()];
         }
         return studentsExtracted;
     }
 
+    /**
+     * Draws how many students of a color are extracted, inverting the cumulative distribution with a single random
+     * number.
+     *
+     * @param population the students in the bag.
+     * @param successes  the students of the color.
+     * @param draws      the students extracted.
+     * @return the number of students of the color among the extracted ones.
+     */
+    private int hypergeometric(int population, int successes, int draws) {
+        int failures = population - successes;
+        int low = Math.max(0, draws - failures);
+        int high = Math.min(draws, successes);
+        if (low == high) return low;
+        double probability;
+        if (low == 0) {
+            // the usual case: the chance of extracting no student of the color, with a single division
+            double favourable = 1;
+            double possible = 1;
+            for (int j = 0; j < draws; j++) {
+                favourable *= failures - j;
+                possible *= population - j;
+            }
+            probability = favourable / possible;
+        } else
+            probability = choose(successes, low) * choose(failures, draws - low) / choose(population, draws);
+        double target = random.nextDouble();
+        int k = low;
+        while (k < high && target >= probability) {
+            target -= probability;
+            probability *= (double) (successes - k) * (draws - k) / ((k + 1) * (double) (failures - draws + k + 1));
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * @param n the size of a set.
+     * @param k the size of the subsets.
+     * @return the number of subsets, as a double since it overflows a long for a full bag.
+     */
+    private static double choose(int n, int k) {
+        double result = 1;
+        for (int j = 1; j <= k; j++)
+            result = result * (n - k + j) / j;
+        return result;
+    }
+
     /**
      * It returns if the bag is empty or not.
      *
@@ -79,7 +179,30 @@ public class Bag {
      * @return the number of the students in the Bag.
      */
     public int size() {
-        return studentsAvailable.size();
+        return total;
+    }
+
+    /**
+     * @param color a color.
+     * @return the number of the students of the color in the Bag.
+     */
+    public int getByColor(FactionColor color) {
+        return studentsAvailable[color.getIndex()];
+    }
+
+    /**
+     * Replaces the students in the Bag, used when a game is rebuilt from a {@link PackedGameState}.
+     *
+     * @param counts  the students of each color, by color index.
+     * @param isEmpty true if the bag has already run out of students.
+     */
+    void restore(int[] counts, boolean isEmpty) {
+        total = 0;
+        for (FactionColor color : COLORS) {
+            studentsAvailable[color.getIndex()] = counts[color.getIndex()];
+            total += counts[color.getIndex()];
+        }
+        this.isEmpty = isEmpty;
     }
 
     /**
@@ -88,6 +211,9 @@ public class Bag {
      * @param container the student to add to bag
      */
     public void addStudents(StudentsContainer container) {
-        studentsAvailable.uniteContainers(container);
+        for (FactionColor color : COLORS) {
+            studentsAvailable[color.getIndex()] += container.getByColor(color);
+            total += container.getByColor(color);
+        }
     }
-}
\ No newline at end of file
+}
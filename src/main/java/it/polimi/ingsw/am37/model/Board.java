@@ -15,6 +15,11 @@ import static it.polimi.ingsw.am37.controller.UpdateController.Properties.*;
  */
 public class Board {
 
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    private static final FactionColor[] COLORS = FactionColor.values();
+
     /**
      * Container for the towers
      */
@@ -119,12 +124,15 @@ public class Board {
     }
 
     /**
+     * Removes the towers placed on the islands, a player who places the last of them wins even if the islands would
+     * take more
+     *
      * @param num the number of towers to remove
      */
     public void removeTowers(int num) throws WinningException, IllegalStateException {
         int oldValue = towerArea.getCurrentSize();
         try {
-            towerArea.removeTowers(num);
+            towerArea.removeTowers(Math.min(num, oldValue));
             if (towerArea.getCurrentSize() == 0) throw new WinningException(this.player);
         } catch (IllegalStateException e) {
             throw new IllegalStateException(e.getMessage());
@@ -183,18 +191,18 @@ public class Board {
      * @param container the input container
      */
     public void addStudentsToEntrance(StudentsContainer container) {
-        StudentsContainer oldValue = entranceArea.copy();
+        StudentsContainer oldValue = player.isObserved(P_BOARD_ENTRANCE) ? entranceArea.copy() : null;
         entranceArea.uniteContainers(container);
-        player.support.firePropertyChange(P_BOARD_ENTRANCE.toString(), oldValue, entranceArea);
+        if (oldValue != null) player.support.firePropertyChange(P_BOARD_ENTRANCE.toString(), oldValue, entranceArea);
     }
 
     /**
      * @param container the students who want to remove
      */
     public void removeStudentsFromEntrance(StudentsContainer container) {
-        StudentsContainer oldValue = entranceArea.copy();
+        StudentsContainer oldValue = player.isObserved(P_BOARD_ENTRANCE) ? entranceArea.copy() : null;
         entranceArea.removeContainer(container);
-        player.support.firePropertyChange(P_BOARD_ENTRANCE.toString(), oldValue, entranceArea);
+        if (oldValue != null) player.support.firePropertyChange(P_BOARD_ENTRANCE.toString(), oldValue, entranceArea);
     }
 
     /**
@@ -205,8 +213,7 @@ public class Board {
      */
     public int calculateCoin(LimitedStudentsContainer current) {
         int coins = 0;
-        for (FactionColor color :
-                FactionColor.values()) {
+        for (FactionColor color : COLORS) {
             int lastTakenCoinIndex = current.getByColor(color) / spaceBetweenCoins - 1;
             if (lastTakenCoinIndex >= 0 && coinsArray[color.getIndex()][lastTakenCoinIndex]) {
                 coinsArray[color.getIndex()][lastTakenCoinIndex] = false;
@@ -222,8 +229,7 @@ public class Board {
      * @param current the state of the dining room after the removal
      */
     public void checkCoins(LimitedStudentsContainer current) {
-        for (FactionColor color :
-                FactionColor.values()) {
+        for (FactionColor color : COLORS) {
             int firstNotTakenCoinIndex = current.getByColor(color) / spaceBetweenCoins;
             for (int i = firstNotTakenCoinIndex; i < coinsArray[color.getIndex()].length; i++) {
                 coinsArray[color.getIndex()][i] = true;
@@ -231,6 +237,13 @@ public class Board {
         }
     }
 
+    /**
+     * @return the coins still on the tables, null if coins aren't enabled
+     */
+    boolean[][] getCoinsArray() {
+        return coinsArray;
+    }
+
     /**
      * @return the player who owns this board
      */
@@ -53,9 +53,9 @@ public class Cloud extends UpdatableObject {
      * @param students Students used to fill the Cloud.
      */
     public void addStudents(StudentsContainer students) {
-        StudentsContainer oldContainer = studentsOnCloud.copy();
+        StudentsContainer oldContainer = isObserved(P_CLOUD) ? studentsOnCloud.copy() : null;
         studentsOnCloud.uniteContainers(students);
-        support.firePropertyChange(P_CLOUD.toString(), oldContainer, studentsOnCloud);
+        if (oldContainer != null) support.firePropertyChange(P_CLOUD.toString(), oldContainer, studentsOnCloud);
     }
 
     /**
@@ -11,13 +11,10 @@ import java.beans.PropertyChangeListener;
 import java.util.*;
 
 /**
- * External class of model used to control everything and make every possible action
+ * External class of model used to control everything and make every possible action. It isn't thread safe: the lobby
+ * owning it only touches it from the tasks of its mailbox, which run one at a time.
  */
 public class GameManager {
-    /**
-     * A lock to ensure synchronized methods.
-     */
-    private final Object lock;
 
     /**
      * Number of characters available
@@ -67,6 +64,37 @@ public class GameManager {
      */
     private final TurnManager turnManager;
 
+    /**
+     * Stream of the random extractions from the bag
+     */
+    private static final long BAG_STREAM = 1;
+
+    /**
+     * Stream of the random placement of the islands
+     */
+    private static final long ISLANDS_STREAM = 2;
+
+    /**
+     * Stream of the random choice of the first player
+     */
+    private static final long TURN_STREAM = 3;
+
+    /**
+     * Stream of the random choice of the characters
+     */
+    private static final long CHARACTERS_STREAM = 4;
+
+    /**
+     * Source of every random choice of the game, a game created with the same seed and receiving the same actions
+     * always reaches the same state
+     */
+    private final MatchRandom random;
+
+    /**
+     * Source of the random extractions from the bag, the only choices drawn once the game has been prepared
+     */
+    private final MatchRandom bagRandom;
+
     /**
      * Default constructor of Game Manager class. It's the main access point of the game model.
      *
@@ -74,6 +102,18 @@ public class GameManager {
      * @param advancedMode  Enable advanced mode or disable it
      */
     public GameManager(int playersNumber, boolean advancedMode) {
+        this(playersNumber, advancedMode, new Random().nextLong());
+    }
+
+    /**
+     * Constructor of a Game Manager whose random choices are drawn from the given seed.
+     *
+     * @param playersNumber Number of player of this instance of game
+     * @param advancedMode  Enable advanced mode or disable it
+     * @param seed          the seed of the random choices of the game
+     */
+    public GameManager(int playersNumber, boolean advancedMode, long seed) {
+        this.random = new MatchRandom(seed);
         this.playersNumber = playersNumber;
         this.advancedMode = advancedMode;
         this.clouds = new ArrayList<>();
@@ -81,62 +121,88 @@ public class GameManager {
         this.islandsManager = new IslandsManager();
         this.characters = new Character[NUMBER_OF_CHARACTERS];
         this.notUsedTeachers = new boolean[FactionColor.values().length];
-        this.bag = new Bag();
-        this.lock = new Object();
+        this.bagRandom = random.fork(BAG_STREAM);
+        this.bag = new Bag(bagRandom);
+    }
+
+    /**
+     * @return the number of players of the game
+     */
+    public int getPlayersNumber() {
+        return playersNumber;
+    }
+
+    /**
+     * @return true if the characters are used in the game
+     */
+    public boolean isAdvancedMode() {
+        return advancedMode;
+    }
+
+    /**
+     * @return the seed of the random choices of the game
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * @return the state of the random extractions from the bag
+     */
+    public long getBagRandomState() {
+        return bagRandom.getState();
+    }
+
+    /**
+     * Brings the random extractions from the bag to a state of another game with the same seed, so that a game
+     * rebuilt from the state of that one draws the same students
+     *
+     * @param state a state returned by {@link #getBagRandomState()}
+     */
+    public void restoreBagRandomState(long state) {
+        bagRandom.setState(state);
     }
 
     /**
      * @return Array of unused Teachers
      */
     public boolean[] getNotUsedTeachers() {
-        synchronized (lock) {
-            return notUsedTeachers;
-        }
+        return notUsedTeachers;
     }
 
     /**
      * @return The bag
      */
     public Bag getBag() {
-        synchronized (lock) {
-            return bag;
-        }
+        return bag;
     }
 
     /**
      * @return List of Clouds of this game.
      */
     public ArrayList<Cloud> getClouds() {
-        synchronized (lock) {
-            return clouds;
-        }
+        return clouds;
     }
 
     /**
      * @return The Island Manager
      */
     public IslandsManager getIslandsManager() {
-        synchronized (lock) {
-            return islandsManager;
-        }
+        return islandsManager;
     }
 
     /**
      * @return The Turn Manager
      */
     public TurnManager getTurnManager() {
-        synchronized (lock) {
-            return turnManager;
-        }
+        return turnManager;
     }
 
     /**
      * @return the Characters that can be played.
      */
     public Character[] getCharacters() {
-        synchronized (lock) {
-            return characters;
-        }
+        return characters;
     }
 
     /**
@@ -145,42 +211,41 @@ public class GameManager {
      * characters.
      */
     public void prepareGame() {
-        synchronized (lock) {
-            //constants for set up of the game
-            final Map<Integer, Integer> numberCloudsForPlayers = Map.of(2, 2, 3, 3, 4, 4);
-            //follow the order of the manual of the game
-            islandsManager.setUp();
-            for (int i = 0; i < numberCloudsForPlayers.get(playersNumber); i++) {
-                clouds.add(new Cloud(playersNumber == 2, i));
-            }
-            Arrays.fill(notUsedTeachers, true);
-            turnManager.setUp(bag);
-
-            // advanced logic only
-            if (this.advancedMode) {
-                EffectDatabase.setUp();
-                List<Effect> temp = new ArrayList<>(Arrays.stream(Effect.values()).toList());
-                Collections.shuffle(temp);
-                /*                           Character Testing
-                 * -----CHARACTER--------------TEST DIFFICULTY---------------HINT------------------
-                 * -    Monk:                      EASY                      DONE        //No hints
-                 * -    Magic Postman:             EASY                      DONE        //In order to function correctly it must be played before moving mother nature
-                 * -    Knight:                    EASY                      DONE        //No hints
-                 * -    Mushroom Man:              EASY                      DONE        //In order to function correctly it must be played before moving mother nature
-                 * -    Princess:                  EASY                      DONE        //No hints
-                 * -    Farmer:                    MEDIUM                    DONE        //In order to function correctly it must be played before moving students in the dining
-                 * -    Centaur:                   MEDIUM                    DONE        //In order to function correctly it must be played before moving mother nature
-                 * -    Jester:                    MEDIUM                    DONE        //No hints
-                 * -    Minstrel:                  MEDIUM                    DONE        //In order to function correctly you must have at least two students in the dining
-                 * -    Herald:                    MEDIUM                    DONE
-                 * -    Grandma:                   MEDIUM                    DONE        //In order to function correctly it must be played before moving mother nature
-                 * -    Thief:                     HARD                      DONE        //No hints
-                 */
-                for (int i = 0; i < NUMBER_OF_CHARACTERS; i++) {
-                    Effect effect = temp.get(i);
-                    characters[i] = new Character(effect.getInitialPrice(), effect, bag);
-                    if (effect == Effect.GRANDMA) islandsManager.setStateCharacterNoEntryTile(characters[i].getState());
-                }
+        //constants for set up of the game
+        final Map<Integer, Integer> numberCloudsForPlayers = Map.of(2, 2, 3, 3, 4, 4);
+        //follow the order of the manual of the game
+        islandsManager.setUp(random.fork(ISLANDS_STREAM));
+        for (int i = 0; i < numberCloudsForPlayers.get(playersNumber); i++) {
+            clouds.add(new Cloud(playersNumber == 2, i));
+        }
+        Arrays.fill(notUsedTeachers, true);
+        turnManager.setUp(bag, random.fork(TURN_STREAM));
+        islandsManager.trackInfluence(turnManager.getPlayers());
+
+        // advanced logic only
+        if (this.advancedMode) {
+            EffectDatabase.setUp();
+            List<Effect> temp = new ArrayList<>(Arrays.stream(Effect.values()).toList());
+            Collections.shuffle(temp, random.fork(CHARACTERS_STREAM));
+            /*                           Character Testing
+             * -----CHARACTER--------------TEST DIFFICULTY---------------HINT------------------
+             * -    Monk:                      EASY                      DONE        //No hints
+             * -    Magic Postman:             EASY                      DONE        //In order to function correctly it must be played before moving mother nature
+             * -    Knight:                    EASY                      DONE        //No hints
+             * -    Mushroom Man:              EASY                      DONE        //In order to function correctly it must be played before moving mother nature
+             * -    Princess:                  EASY                      DONE        //No hints
+             * -    Farmer:                    MEDIUM                    DONE        //In order to function correctly it must be played before moving students in the dining
+             * -    Centaur:                   MEDIUM                    DONE        //In order to function correctly it must be played before moving mother nature
+             * -    Jester:                    MEDIUM                    DONE        //No hints
+             * -    Minstrel:                  MEDIUM                    DONE        //In order to function correctly you must have at least two students in the dining
+             * -    Herald:                    MEDIUM                    DONE
+             * -    Grandma:                   MEDIUM                    DONE        //In order to function correctly it must be played before moving mother nature
+             * -    Thief:                     HARD                      DONE        //No hints
+             */
+            for (int i = 0; i < NUMBER_OF_CHARACTERS; i++) {
+                Effect effect = temp.get(i);
+                characters[i] = new Character(effect.getInitialPrice(), effect, bag);
+                if (effect == Effect.GRANDMA) islandsManager.setStateCharacterNoEntryTile(characters[i].getState());
             }
         }
     }
@@ -192,14 +257,12 @@ public class GameManager {
      * @throws IllegalArgumentException When the container is null
      */
     public void moveStudentsToDining(StudentsContainer container) throws IllegalArgumentException {
-        synchronized (lock) {
-            if (container == null) {
-                throw new IllegalArgumentException("container of moveStudentsToDining can't be null");
-            }
-            if (container.size() > MAX_FOR_MOVEMENTS[playersNumber % 2]) throw new RuntimeException();
-            turnManager.getCurrentPlayer().getBoard().getEntrance().removeContainer(container);
-            turnManager.addStudentsToDining(container);
+        if (container == null) {
+            throw new IllegalArgumentException("container of moveStudentsToDining can't be null");
         }
+        if (container.size() > MAX_FOR_MOVEMENTS[playersNumber % 2]) throw new RuntimeException();
+        turnManager.getCurrentPlayer().getBoard().getEntrance().removeContainer(container);
+        turnManager.addStudentsToDining(container);
     }
 
     /**
@@ -210,19 +273,17 @@ public class GameManager {
      * @throws IllegalArgumentException When the container is null
      */
     public void moveStudentsToIsland(StudentsContainer container, int islandId) throws IllegalArgumentException {
-        synchronized (lock) {
-            if (container == null) {
-                throw new IllegalArgumentException("container of moveStudentsToIsland can't be null");
-            }
-            if (container.size() > MAX_FOR_MOVEMENTS[playersNumber % 2]) throw new RuntimeException();
-            Island island = islandsManager.getIslands()
-                    .stream()
-                    .filter(island1 -> island1.getIslandId() == islandId)
-                    .findFirst()
-                    .orElseThrow();
-            turnManager.getCurrentPlayer().getBoard().getEntrance().removeContainer(container);
-            island.addStudents(container);
+        if (container == null) {
+            throw new IllegalArgumentException("container of moveStudentsToIsland can't be null");
         }
+        if (container.size() > MAX_FOR_MOVEMENTS[playersNumber % 2]) throw new RuntimeException();
+        Island island = islandsManager.getIslands()
+                .stream()
+                .filter(island1 -> island1.getIslandId() == islandId)
+                .findFirst()
+                .orElseThrow();
+        turnManager.getCurrentPlayer().getBoard().getEntrance().removeContainer(container);
+        island.addStudents(container);
     }
 
     /**
@@ -234,15 +295,13 @@ public class GameManager {
      * @throws IllegalArgumentException  When the assistant is null
      */
     public void playAssistant(Assistant assistant) throws AssistantImpossibleToPlay, IllegalArgumentException {
-        synchronized (lock) {
-            if (assistant == null) {
-                throw new IllegalArgumentException("Assistant must not be null");
-            }
-            try {
-                turnManager.playAssistant(assistant);
-            } catch (AssistantImpossibleToPlay exception) {
-                throw new AssistantImpossibleToPlay(exception);
-            }
+        if (assistant == null) {
+            throw new IllegalArgumentException("Assistant must not be null");
+        }
+        try {
+            turnManager.playAssistant(assistant);
+        } catch (AssistantImpossibleToPlay exception) {
+            throw new AssistantImpossibleToPlay(exception);
         }
     }
 
@@ -253,24 +312,24 @@ public class GameManager {
      * @param islandId The num of forward island movement of mother nature
      */
     public void moveMotherNature(int islandId) throws MNmovementWrongException, WinningException {
-        synchronized (lock) {
-            islandsManager.setCurrentPlayer(turnManager.getCurrentPlayer());
-            islandsManager.motherNatureActionMovement(islandId, turnManager.getPlayers());
-            if (islandsManager.getIslands().size() <= 3) {
-                throw new WinningException(calculateWinningPlayer());
-            }
+        islandsManager.setCurrentPlayer(turnManager.getCurrentPlayer());
+        islandsManager.motherNatureActionMovement(islandId, turnManager.getPlayers());
+        if (islandsManager.getIslands().size() <= 3) {
+            throw new WinningException(calculateWinningPlayer());
         }
     }
 
     /**
-     * returns the player which has fewer towers in the board
+     * returns the player which has fewer towers in the board, in case of a tie the one with more professors
      */
     public Player calculateWinningPlayer() {
         Player winnerPlayer = turnManager.getCurrentPlayer();
         for (Player player : turnManager.getPlayers()) {
-            if (player.getBoard().getTowers().getCurrentSize() < winnerPlayer.getBoard().getTowers().getCurrentSize())
-                if (player.getBoard().getPossessedProf() > player.getBoard().getPossessedProf())
-                    winnerPlayer = player;
+            int towers = player.getBoard().getTowers().getCurrentSize();
+            int winnerTowers = winnerPlayer.getBoard().getTowers().getCurrentSize();
+            if (towers < winnerTowers || towers == winnerTowers
+                    && player.getBoard().getPossessedProf() > winnerPlayer.getBoard().getPossessedProf())
+                winnerPlayer = player;
         }
         return winnerPlayer;
     }
@@ -281,42 +340,36 @@ public class GameManager {
      * @param character Character played
      */
     public void playCharacter(Character character, Option option) throws CharacterImpossibleToPlay {
-        synchronized (lock) {
-            if (turnManager.getCurrentPlayer().getNumberOfCoins() >= character.getCurrentPrice()) {
-                if (character.getEffectType() == Effect.MONK || character.getEffectType() == Effect.PRINCESS)
-                    if (bag.isEmpty()) {
-                        turnManager.setLastRound(true);
-                        throw new CharacterImpossibleToPlay("Bag is empty, you can't play this character");
-                    }
-                turnManager.getCurrentPlayer().useCharacter(character, option);
-            } else throw new CharacterImpossibleToPlay("You can't play Character, not enough coins");
-        }
+        if (turnManager.getCurrentPlayer().getNumberOfCoins() >= character.getCurrentPrice()) {
+            if (character.getEffectType() == Effect.MONK || character.getEffectType() == Effect.PRINCESS)
+                if (bag.isEmpty()) {
+                    turnManager.setLastRound(true);
+                    throw new CharacterImpossibleToPlay("Bag is empty, you can't play this character");
+                }
+            turnManager.getCurrentPlayer().useCharacter(character, option);
+        } else throw new CharacterImpossibleToPlay("You can't play Character, not enough coins");
     }
 
     /**
      * Choose a cloud.
      */
     public void chooseCloud(String cloudId) throws IllegalArgumentException, StudentSpaceException {
-        synchronized (lock) {
-            Cloud currentCloud = clouds.stream()
-                    .filter(cloud -> cloud.getCloudId().equals(cloudId))
-                    .findFirst()
-                    .orElseThrow();
-            turnManager.getCurrentPlayer().getBoard().getEntrance().uniteContainers(currentCloud.removeStudents());
-        }
+        Cloud currentCloud = clouds.stream()
+                .filter(cloud -> cloud.getCloudId().equals(cloudId))
+                .findFirst()
+                .orElseThrow();
+        turnManager.getCurrentPlayer().getBoard().getEntrance().uniteContainers(currentCloud.removeStudents());
     }
 
     /**
      * Next turn method.
      */
     public void nextTurn() {
-        synchronized (lock) {
-            islandsManager.resetFlags();
-            turnManager.resetFlags();
-            turnManager.nextTurn();
-            turnManager.setCurrentPlayer(turnManager.getOrderPlayed().get(0));
-            islandsManager.setCurrentPlayer(turnManager.getCurrentPlayer());
-        }
+        islandsManager.resetFlags();
+        turnManager.resetFlags();
+        turnManager.nextTurn();
+        turnManager.setCurrentPlayer(turnManager.getOrderPlayed().get(0));
+        islandsManager.setCurrentPlayer(turnManager.getCurrentPlayer());
     }
 
     /**
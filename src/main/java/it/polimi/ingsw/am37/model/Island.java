@@ -14,6 +14,10 @@ import static it.polimi.ingsw.am37.controller.UpdateController.Properties.*;
  */
 public class Island extends UpdatableObject {
 
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    private static final FactionColor[] COLORS = FactionColor.values();
 
     /**
      * If there is Mother Nature
@@ -48,6 +52,17 @@ public class Island extends UpdatableObject {
      */
     private int numIslandsUnited;
 
+    /**
+     * The professors of the players by seat and color, shared by all the islands of a game; null until the influence
+     * is tracked
+     */
+    private transient boolean[][] professors;
+
+    /**
+     * The influence of the players by seat, the students on the island of the colors whose professor they have
+     */
+    private transient int[] influence;
+
     /**
      * Default constructor
      */
@@ -108,9 +123,79 @@ public class Island extends UpdatableObject {
      * @param cont It's the array of students which will be added to the island's one
      */
     public void addStudents(StudentsContainer cont) {
-        FixedUnlimitedStudentsContainer oldContainer = (FixedUnlimitedStudentsContainer) this.studentsOnIsland.copy();
+        StudentsContainer oldContainer = isObserved(P_ISLAND_STUDENTS) ? this.studentsOnIsland.copy() : null;
         this.studentsOnIsland.uniteContainers(cont);
-        this.support.firePropertyChange(P_ISLAND_STUDENTS.toString(), oldContainer, this.studentsOnIsland);
+        if (influence != null)
+            for (FactionColor color : COLORS) {
+                int students = cont.getByColor(color);
+                if (students > 0) addInfluence(color, students);
+            }
+        if (oldContainer != null)
+            this.support.firePropertyChange(P_ISLAND_STUDENTS.toString(), oldContainer, this.studentsOnIsland);
+    }
+
+    /**
+     * Starts keeping the influence of the players on the island up to date, from the students already on it
+     *
+     * @param professors the professors of the players by seat and color, kept up to date by the {@link
+     *                   IslandsManager}.
+     */
+    void trackInfluence(boolean[][] professors) {
+        this.professors = professors;
+        this.influence = new int[professors.length];
+        for (FactionColor color : COLORS)
+            addInfluence(color, getByColor(color));
+    }
+
+    /**
+     * @return true if the influence of the players on the island is kept up to date
+     */
+    boolean isInfluenceTracked() {
+        return influence != null;
+    }
+
+    /**
+     * @param seat the seat of a player.
+     * @return the students on the island of the colors whose professor the player has, without the effects of the
+     * characters
+     * @throws IllegalStateException if the influence isn't tracked.
+     */
+    public int getInfluence(int seat) {
+        if (influence == null) throw new IllegalStateException("The influence on the island isn't tracked");
+        return influence[seat];
+    }
+
+    /**
+     * Adds students of a color to the influence of the players who have its professor
+     *
+     * @param color    the color of the students.
+     * @param students the students added.
+     */
+    private void addInfluence(FactionColor color, int students) {
+        for (int seat = 0; seat < professors.length; seat++)
+            if (professors[seat][color.getIndex()]) influence[seat] += students;
+    }
+
+    /**
+     * Updates the influence of a player who has gained or lost a professor
+     *
+     * @param seat   the seat of the player.
+     * @param color  the color of the professor.
+     * @param gained true if the player has gained the professor.
+     */
+    void professorChanged(int seat, FactionColor color, boolean gained) {
+        influence[seat] += gained ? getByColor(color) : -getByColor(color);
+    }
+
+    /**
+     * Adds the influence on an island united to this one, whose students have been moved here
+     *
+     * @param other the island united to this one.
+     */
+    void uniteInfluence(Island other) {
+        if (influence == null || other.influence == null) return;
+        for (int seat = 0; seat < influence.length; seat++)
+            influence[seat] += other.influence[seat];
     }
 
     /**
@@ -176,7 +261,9 @@ public class Island extends UpdatableObject {
      * @param bool used to set Mother Nature
      */
     public void setMotherNatureHere(boolean bool) {
+        boolean oldValue = motherNatureHere;
         motherNatureHere = bool;
+        support.firePropertyChange(P_ISLAND_MOTHERNATURE.toString(), oldValue, motherNatureHere);
     }
 
     /**
@@ -5,10 +5,13 @@ import it.polimi.ingsw.am37.model.exceptions.MNmovementWrongException;
 import it.polimi.ingsw.am37.model.exceptions.WinningException;
 import it.polimi.ingsw.am37.model.student_container.FixedUnlimitedStudentsContainer;
 
+import java.beans.PropertyChangeEvent;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Random;
+import java.util.random.RandomGenerator;
+
+import static it.polimi.ingsw.am37.controller.UpdateController.Properties.P_BOARD_PROF;
 
 @SuppressWarnings("ConstantConditions")
 /**
@@ -16,6 +19,11 @@ import java.util.Random;
  */
 public class IslandsManager {
 
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    private static final FactionColor[] COLORS = FactionColor.values();
+
     /**
      * Who is playing
      */
@@ -56,6 +64,22 @@ public class IslandsManager {
      */
     private State stateCharacterNoEntryTile = null;
 
+    /**
+     * The players whose influence the islands keep up to date, by seat; null until {@link
+     * #trackInfluence(ArrayList)} is called
+     */
+    private ArrayList<Player> trackedPlayers;
+
+    /**
+     * The professors of the tracked players, by seat and color
+     */
+    private boolean[][] professors;
+
+    /**
+     * The power of the players on the island being checked, by seat, reused by every check
+     */
+    private int[] playerPower = new int[0];
+
     /**
      * Default constructor
      */
@@ -80,15 +104,24 @@ public class IslandsManager {
      * island, excluding the one with Mother Nature and the opposite one
      */
     public void setUp() {
+        setUp(new Random());
+    }
+
+    /**
+     * This is a one-time method, it creates islands, set Mother Nature on a random one and put a student on each
+     * island, excluding the one with Mother Nature and the opposite one
+     *
+     * @param random the source of the random choices.
+     */
+    public void setUp(RandomGenerator random) {
         final int numOfInitialIslands = 12;
 
-        Random random = new Random();
         int motherNatureHere = random.nextInt(0, 12);
 
         ArrayList<FactionColor> initialFalseBag = new ArrayList<>();
         Collections.addAll(initialFalseBag, FactionColor.values());
         Collections.addAll(initialFalseBag, FactionColor.values());
-        Collections.shuffle(initialFalseBag);
+        Collections.shuffle(initialFalseBag, random);
 
         for (int i = 0; i < numOfInitialIslands; i++) {
             islands.add(i, new Island(new FixedUnlimitedStudentsContainer(), i));
@@ -128,71 +161,71 @@ public class IslandsManager {
 
     /**
      * The method checks if an island has next to it another island (or islands) with the same color of tower, if yes
-     * then they will be merged in Island with index islandId and others are eliminated
+     * then they will be merged in the given island and the others are eliminated. The islands are a ring, so the
+     * neighbours are found with modular arithmetic, and the ones after them are renumbered in a single pass so that
+     * the id of each island stays its position.
      *
      * @param island It's needed to point to the island where there is MotherNature
-     * @throws IllegalArgumentException When islandId doesn't identify an island
      */
     public void uniteIfPossible(Island island) {
+        if (island.getCurrentTower() == TowerColor.NONE || islands.size() < 2) return;
+        int position = positionOf(island);
+        Island next = islands.get(neighbour(position, 1));
+        Island previous = islands.get(neighbour(position, -1));
+        boolean unitedNext = absorb(island, next);
+        boolean unitedPrevious = previous != next && absorb(island, previous);
+        if (!unitedNext && !unitedPrevious) return;
+
+        int first = islands.size();
+        if (unitedNext) first = Math.min(first, positionOf(next));
+        if (unitedPrevious) first = Math.min(first, positionOf(previous));
+        int kept = first;
+        for (int i = first; i < islands.size(); i++) {
+            Island current = islands.get(i);
+            if ((unitedNext && current == next) || (unitedPrevious && current == previous)) continue;
+            current.setIslandId(kept);
+            islands.set(kept++, current);
+        }
+        islands.subList(kept, islands.size()).clear();
+    }
 
-        int islandId = islands.indexOf(island);
-        boolean UnitedDx = false;
-
-        if (island.getCurrentTower() != TowerColor.NONE) {
-
-            if (islandId == 0 && islands.size() > 1) {
-                if (island.getCurrentTower() == islands.get(islands.size() - 1).getCurrentTower()) {
-                    island.setNumIslands(island.getNumIslands() + islands.get(islands.size() - 1).getNumIslands());
-                    island.getStudentsOnIsland().uniteContainers(islands.get(islands.size() - 1).getStudentsOnIsland());
-                    int temp = islands.get(islands.size() - 1).getNoEntryTile();
-                    islands.get(islands.size() - 1).setNumIslands(0);
-                    islands.remove(islands.size() - 1);
-                    island.addNoEntryTile(temp);
-                }
-            }
-
-            if (islandId + 1 < islands.size() && islands.size() > 1) {
-                if (island.getCurrentTower() == islands.get(islandId + 1).getCurrentTower()) {
-                    island.setNumIslands(island.getNumIslands() + islands.get(islandId + 1).getNumIslands());
-                    island.getStudentsOnIsland().uniteContainers(islands.get(islandId + 1).getStudentsOnIsland());
-
-                    UnitedDx = true;
-                    int temp = islands.get(islandId + 1).getNoEntryTile();
-                    islands.get(islandId + 1).setNumIslands(0);
-                    islands.remove(islandId + 1);
-                    island.addNoEntryTile(temp);
-                    for (int i = islandId + 1; i < islands.size(); i++)
-                        islands.get(i).setIslandId(islands.get(i).getIslandId() - 1);
-                }
-            }
-
-            if (islandId - 1 >= 0 && islands.size() > 1) {
-                if (island.getCurrentTower() == islands.get(islandId - 1).getCurrentTower()) {
-                    island.setNumIslands(island.getNumIslands() + islands.get(islandId - 1).getNumIslands());
-                    island.getStudentsOnIsland().uniteContainers(islands.get(islandId - 1).getStudentsOnIsland());
-                    int temp = islands.get(islandId - 1).getNoEntryTile();
-                    islands.get(islandId - 1).setNumIslands(0);
-                    islands.remove(islandId - 1);
-                    island.addNoEntryTile(temp);
-                    for (int i = islandId - 1; i < islands.size(); i++)
-                        islands.get(i).setIslandId(islands.get(i).getIslandId() - 1);
-                    islandId--;
-                }
-            }
+    /**
+     * Unites an island to another one if they have the same towers, leaving the absorbed island empty
+     *
+     * @param island the island which grows.
+     * @param other  the island next to it.
+     * @return true if the islands have been united
+     */
+    private boolean absorb(Island island, Island other) {
+        if (other == island || other.getCurrentTower() != island.getCurrentTower()) return false;
+        island.setNumIslands(island.getNumIslands() + other.getNumIslands());
+        island.getStudentsOnIsland().uniteContainers(other.getStudentsOnIsland());
+        island.uniteInfluence(other);
+        int noEntryTiles = other.getNoEntryTile();
+        other.setNumIslands(0);
+        island.addNoEntryTile(noEntryTiles);
+        return true;
+    }
 
-            if (islandId == islands.size() - 1 && !UnitedDx && islands.size() > 1) {
-                if (island.getCurrentTower() == islands.get(0).getCurrentTower()) {
-                    island.setNumIslands(island.getNumIslands() + islands.get(0).getNumIslands());
-                    island.getStudentsOnIsland().uniteContainers(islands.get(0).getStudentsOnIsland());
-                    int temp = islands.get(0).getNoEntryTile();
-                    islands.get(0).setNumIslands(0);
-                    islands.remove(0);
-                    island.addNoEntryTile(temp);
-                    for (Island value : islands) value.setIslandId(value.getIslandId() - 1);
+    /**
+     * Finds the position of an island in constant time, since the id of an island is its position
+     *
+     * @param island an island of the game.
+     * @return the position of the island, -1 if it isn't in the game
+     */
+    private int positionOf(Island island) {
+        int id = island.getIslandId();
+        if (id >= 0 && id < islands.size() && islands.get(id) == island) return id;
+        return islands.indexOf(island);
+    }
 
-                }
-            }
-        }
+    /**
+     * @param position the position of an island.
+     * @param steps    how many islands to move, backwards if negative.
+     * @return the position of the island reached going around the ring
+     */
+    private int neighbour(int position, int steps) {
+        return Math.floorMod(position + steps, islands.size());
     }
 
     /**
@@ -204,17 +237,13 @@ public class IslandsManager {
      * @param players It's the ArrayList of all players, it gives the access to all boards
      */
     public void checkConqueror(Island island, ArrayList<Player> players) throws WinningException {
-        HashMap<Player, Integer> playerPower = new HashMap<>();
-        boolean[] controlledProf;
         Player exConqueror = null;
-        int boolToInt;
-        int tmp;
         boolean switchConqueror = false;
         int numStudentsControlling = 0;
         int max1 = 0;
         int max2 = 0;
-        Player playerMax1 = null;
-        Player playerMax2 = null;
+        int playerMax1 = -1;
+        int playerMax2 = -1;
 
         if (island.getNoEntryTile() > 0) {
             island.removeNoEntryTile();
@@ -222,60 +251,49 @@ public class IslandsManager {
             return;
         }
 
-        for (Player player : players) {
-            controlledProf = player.getBoard().getProfTable();
-            tmp = 0;
-            for (FactionColor color : FactionColor.values()) {
-                if (color != this.disabledColorFlag) {
-                    boolToInt = controlledProf[color.getIndex()] ? island.getStudentsOnIsland().getByColor(color) : 0;
-                    tmp = tmp + boolToInt;
-                }
-            }
-            playerPower.put(player, tmp);
-        }
-
-        playerPower.put(currentPlayer, powerBonusFlag + playerPower.get(currentPlayer));
+        int[] playerPower = calculatePower(island, players);
 
         if (island.getCurrentTower() == TowerColor.NONE) {
-            for (Player player : players) {
-                if (playerPower.get(player) > max1) {
+            for (int i = 0; i < players.size(); i++) {
+                if (playerPower[i] > max1) {
                     max2 = max1;
-                    max1 = playerPower.get(player);
-                } else if (playerPower.get(player) > max2)
-                    max2 = playerPower.get(player);
+                    max1 = playerPower[i];
+                } else if (playerPower[i] > max2)
+                    max2 = playerPower[i];
             }
             if (max1 == max2)
                 return;
 
-            for (Player player : players)
-                if (playerPower.get(player) > numStudentsControlling) {
-                    island.setCurrentConqueror(player);
-                    numStudentsControlling = playerPower.get(player);
+            for (int i = 0; i < players.size(); i++)
+                if (playerPower[i] > numStudentsControlling) {
+                    island.setCurrentConqueror(players.get(i));
+                    numStudentsControlling = playerPower[i];
                 }
             island.getCurrentConqueror().getBoard().removeTowers(island.getNumIslands());
         } else {
-            for (Player player : players) {
-                if (playerPower.get(player) > max1) {
+            for (int i = 0; i < players.size(); i++) {
+                if (playerPower[i] > max1) {
                     max2 = max1;
                     playerMax2 = playerMax1;
-                    max1 = playerPower.get(player);
-                    playerMax1 = player;
-                } else if (playerPower.get(player) > max2) {
-                    max2 = playerPower.get(player);
-                    playerMax2 = player;
+                    max1 = playerPower[i];
+                    playerMax1 = i;
+                } else if (playerPower[i] > max2) {
+                    max2 = playerPower[i];
+                    playerMax2 = i;
                 }
             }
-            if (max1 == max2 && max1 > playerPower.get(island.getCurrentConqueror()) + (this.noTowerFlag ? 0 :
-                    island.getNumIslands()) && playerMax1.getBoard().getTowers().getCurrentTower() != island.getCurrentTower() && playerMax2.getBoard().getTowers().getCurrentTower() != island.getCurrentTower())
+            int conquerorPower = playerPower[players.indexOf(island.getCurrentConqueror())];
+            if (max1 == max2 && max1 > conquerorPower + (this.noTowerFlag ? 0 :
+                    island.getNumIslands()) && players.get(playerMax1).getBoard().getTowers().getCurrentTower() != island.getCurrentTower() && players.get(playerMax2).getBoard().getTowers().getCurrentTower() != island.getCurrentTower())
                 return;
 
-            numStudentsControlling = playerPower.get(island.getCurrentConqueror());
+            numStudentsControlling = conquerorPower;
             exConqueror = island.getCurrentConqueror();
-            for (Player player : players)
-                if (playerPower.get(player) > numStudentsControlling + ((switchConqueror || this.noTowerFlag) ? 0 :
-                        island.getNumIslands()) && player.getBoard().getTowers().getCurrentTower() != island.getCurrentTower()) {
-                    island.setCurrentConqueror(player);
-                    numStudentsControlling = playerPower.get(player);
+            for (int i = 0; i < players.size(); i++)
+                if (playerPower[i] > numStudentsControlling + ((switchConqueror || this.noTowerFlag) ? 0 :
+                        island.getNumIslands()) && players.get(i).getBoard().getTowers().getCurrentTower() != island.getCurrentTower()) {
+                    island.setCurrentConqueror(players.get(i));
+                    numStudentsControlling = playerPower[i];
                     switchConqueror = true;
                 }
         }
@@ -287,6 +305,71 @@ public class IslandsManager {
         island.setTower(island.getCurrentConqueror().getBoard().getTowers().getCurrentTower());
     }
 
+    /**
+     * Calculates the power of each player on an island: the students of the colors whose professor the player has,
+     * except the disabled color, plus the bonus of the current player. When the islands track the influence of the
+     * given players it's read from the island, otherwise the professors tables are scanned.
+     *
+     * @param island  the island.
+     * @param players the players in the game.
+     * @return the power of the players by position in the list, in an array reused by the next calculation
+     */
+    private int[] calculatePower(Island island, ArrayList<Player> players) {
+        if (playerPower.length != players.size()) playerPower = new int[players.size()];
+        boolean tracked = players == trackedPlayers && island.isInfluenceTracked();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            boolean[] controlledProf = tracked ? professors[i] : player.getBoard().getProfTable();
+            int power = 0;
+            if (tracked) {
+                power = island.getInfluence(i);
+                if (disabledColorFlag != null && controlledProf[disabledColorFlag.getIndex()])
+                    power -= island.getByColor(disabledColorFlag);
+            } else
+                for (FactionColor color : COLORS)
+                    if (color != this.disabledColorFlag && controlledProf[color.getIndex()])
+                        power += island.getStudentsOnIsland().getByColor(color);
+            if (player.equals(currentPlayer)) power += powerBonusFlag;
+            playerPower[i] = power;
+        }
+        return playerPower;
+    }
+
+    /**
+     * Starts keeping the influence of the players on each island up to date, so that a conquest doesn't have to count
+     * the students again: the islands update it when students are added or united, and this manager when a player
+     * gains or loses a professor.
+     *
+     * @param players the players in the game, by seat; the same list must be passed to the checks.
+     */
+    public void trackInfluence(ArrayList<Player> players) {
+        this.trackedPlayers = players;
+        this.professors = new boolean[players.size()][];
+        for (int i = 0; i < players.size(); i++)
+            professors[i] = players.get(i).getBoard().getProfTable().clone();
+        for (Island island : islands)
+            island.trackInfluence(professors);
+        for (Player player : players)
+            player.getSupport().addPropertyChangeListener(P_BOARD_PROF.toString(), this::professorChanged);
+    }
+
+    /**
+     * Updates the influence on the islands of a player who has gained or lost a professor
+     *
+     * @param event the change of the professors of a player.
+     */
+    private void professorChanged(PropertyChangeEvent event) {
+        int seat = -1;
+        for (int i = 0; i < trackedPlayers.size(); i++)
+            if (trackedPlayers.get(i) == event.getSource()) seat = i;
+        boolean gained = event.getNewValue() != null;
+        FactionColor color = (FactionColor) (gained ? event.getNewValue() : event.getOldValue());
+        if (seat < 0 || professors[seat][color.getIndex()] == gained) return;
+        professors[seat][color.getIndex()] = gained;
+        for (Island island : islands)
+            island.professorChanged(seat, color, gained);
+    }
+
     /**
      * It's a method that call checkConqueror and uniteIfPossible on a certain island (where there isn't Mother Nature)
      *
@@ -306,45 +389,36 @@ public class IslandsManager {
      * @throws MNmovementWrongException If the movement can't be performed.
      */
     public void motherNatureActionMovement(int destinationIslandId, ArrayList<Player> players) throws MNmovementWrongException, WinningException {
-        int stepsForward = islands.indexOf(getIslands().get(destinationIslandId)) - islands.indexOf(getMotherNaturePosition());
-
-        int temp = islands.indexOf(getMotherNaturePosition()) + stepsForward;
-        Island island = islands.get(temp > islands.size() ? temp - islands.size() : temp);
+        Island island = islands.get(destinationIslandId);
         moveMotherNature(island);
         motherNatureActionNoMovement(island, players);
     }
 
     /**
-     * This method is used for moving Mother Nature
+     * This method is used for moving Mother Nature, the steps are counted going around the ring of islands
      *
      * @param island It's the island where you want to move Mother Nature
      * @throws MNmovementWrongException If the movement can't be performed.
      */
     public void moveMotherNature(Island island) throws MNmovementWrongException {
-        int moveForward;
-
-        if (islands.indexOf(island) == islands.indexOf(getMotherNaturePosition()))
+        int moveForward = Math.floorMod(positionOf(island) - getMotherNatureIndex(), islands.size());
+        if (moveForward == 0)
             moveForward = islands.size();
 
-        else if (islands.indexOf(island) > islands.indexOf(getMotherNaturePosition()))
-            moveForward = islands.indexOf(island) - islands.indexOf(getMotherNaturePosition());
-        else
-            moveForward = islands.size() - islands.indexOf(getMotherNaturePosition()) + islands.indexOf(island);
-
-        int destinationMotherNature = islands.indexOf(this.motherNaturePosition);
-
-        if (moveForward > currentPlayer.getLastAssistantPlayed().getMNMovement() + this.additionalMNFlag || moveForward == 0)
+        if (moveForward > currentPlayer.getLastAssistantPlayed().getMNMovement() + this.additionalMNFlag)
             throw new MNmovementWrongException("You can't move Mother Nature here");
 
-        for (int contMovement = 0; contMovement < moveForward; contMovement++) {
-            destinationMotherNature = destinationMotherNature + 1;
-            if (destinationMotherNature == islands.size())
-                destinationMotherNature = 0;
-        }
+        Island destination = islands.get(neighbour(getMotherNatureIndex(), moveForward));
+        motherNaturePosition.setMotherNatureHere(false);
+        this.motherNaturePosition = destination;
+        destination.setMotherNatureHere(true);
+    }
 
-        islands.get(islands.indexOf(motherNaturePosition)).setMotherNatureHere(false);
-        this.motherNaturePosition = this.islands.get(destinationMotherNature);
-        islands.get(destinationMotherNature).setMotherNatureHere(true);
+    /**
+     * @return the position of the island where Mother Nature is, which is also its id
+     */
+    public int getMotherNatureIndex() {
+        return positionOf(motherNaturePosition);
     }
 
     /**
@@ -385,6 +459,41 @@ public class IslandsManager {
         this.additionalMNFlag = num;
     }
 
+    /**
+     * @param island the island where Mother Nature is, used when a game is rebuilt from a {@link PackedGameState}
+     */
+    void setMotherNaturePosition(Island island) {
+        this.motherNaturePosition = island;
+    }
+
+    /**
+     * @return if towers aren't used in affinity check
+     */
+    boolean getNoTowerFlag() {
+        return noTowerFlag;
+    }
+
+    /**
+     * @return the color disabled in affinity check, null if none
+     */
+    FactionColor getDisabledColorFlag() {
+        return disabledColorFlag;
+    }
+
+    /**
+     * @return the bonus of the current player in affinity check
+     */
+    int getPowerBonusFlag() {
+        return powerBonusFlag;
+    }
+
+    /**
+     * @return the additional movement of Mother Nature
+     */
+    public int getAdditionalMNFlag() {
+        return additionalMNFlag;
+    }
+
     /**
      * @param state A character's state linked to all islands
      */
@@ -0,0 +1,89 @@
+package it.polimi.ingsw.am37.model;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The random source of a match, a SplitMix64 generator. Its whole state is a single long, so it's cheap to create and
+ * the same seed always gives the same numbers on every JVM. Each part of the model draws from its own stream, forked
+ * from the seed of the match with {@link #fork(long)}, so the choices of a part don't depend on how many numbers the
+ * others have drawn.
+ */
+public final class MatchRandom implements RandomGenerator {
+
+    /**
+     * Increment of the state, the odd number closest to 2^64 divided by the golden ratio
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The seed the generator was created with
+     */
+    private final long seed;
+
+    /**
+     * The state of the generator
+     */
+    private long state;
+
+    /**
+     * Default constructor
+     *
+     * @param seed the seed of the generator
+     */
+    public MatchRandom(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    /**
+     * @return the seed the generator was created with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the state of the generator, the numbers drawn after it depend only on it
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Brings the generator back to a state it had, the numbers drawn after it are drawn again
+     *
+     * @param state a state returned by {@link #getState()}
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Creates an independent generator for a part of the model, it depends only on the seed of this generator and on
+     * the given stream, not on the numbers already drawn
+     *
+     * @param stream the identifier of the stream
+     * @return the generator of the stream
+     */
+    public MatchRandom fork(long stream) {
+        return new MatchRandom(mix(seed ^ mix(stream + GOLDEN_GAMMA)));
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * The finalizer of SplitMix64
+     *
+     * @param z the value to mix
+     * @return the mixed value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
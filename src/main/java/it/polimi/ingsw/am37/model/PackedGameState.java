@@ -0,0 +1,628 @@
+package it.polimi.ingsw.am37.model;
+
+import it.polimi.ingsw.am37.model.character.Character;
+import it.polimi.ingsw.am37.model.character.Effect;
+import it.polimi.ingsw.am37.model.character.EffectDatabase;
+import it.polimi.ingsw.am37.model.character.EffectHandler;
+import it.polimi.ingsw.am37.model.character.State;
+import it.polimi.ingsw.am37.model.student_container.FixedUnlimitedStudentsContainer;
+import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
+import it.polimi.ingsw.am37.model.student_container.StudentsContainer;
+import it.polimi.ingsw.am37.model.student_container.UnlimitedStudentsContainer;
+
+import javax.management.InstanceAlreadyExistsException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * The whole state of a game packed in an array of 29 longs, so that copying or comparing a state costs as much as
+ * copying or comparing the array. A group of students takes a single long, a byte for each color; the professors, the
+ * deck and the coins left on a board are bitmasks; the towers and every other small value are fields of a few bits.
+ * The words are, in order: a header with the turn and the effects of the characters lasting until the end of the
+ * turn, the bag, the twelve islands, the clouds, three words for each player (status, entrance and dining room) and
+ * the characters. The players are identified by their seat, which also gives the color of their towers and their
+ * wizard team.
+ */
+public final class PackedGameState {
+
+    /**
+     * A field of a word
+     *
+     * @param shift the position of the lowest bit of the field
+     * @param bits  the width of the field
+     */
+    private record Field(int shift, int bits) {
+
+        /**
+         * @param word a word
+         * @return the value of the field in the word
+         */
+        int get(long word) {
+            return (int) ((word >>> shift) & ((1L << bits) - 1));
+        }
+
+        /**
+         * @param word  a word
+         * @param value the new value of the field
+         * @return the word with the field set to the value
+         */
+        long set(long word, long value) {
+            long mask = ((1L << bits) - 1) << shift;
+            return (word & ~mask) | ((value << shift) & mask);
+        }
+    }
+
+    /**
+     * Bits of the students of a color in a group of students
+     */
+    private static final int BITS_PER_COLOR = 8;
+
+    /**
+     * Mask of the students in a word
+     */
+    private static final long STUDENTS_MASK = (1L << (BITS_PER_COLOR * 5)) - 1;
+
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    private static final FactionColor[] COLORS = FactionColor.values();
+
+    /**
+     * Maximum number of islands and of players
+     */
+    private static final int MAX_ISLANDS = 12, MAX_PLAYERS = 3;
+
+    /**
+     * Position of the words of each part of the state
+     */
+    private static final int HEADER = 0, BAG = 1, ISLANDS = 2, CLOUDS = ISLANDS + MAX_ISLANDS,
+            PLAYERS = CLOUDS + MAX_PLAYERS, CHARACTERS = PLAYERS + 3 * MAX_PLAYERS,
+            SIZE = CHARACTERS + GameManager.NUMBER_OF_CHARACTERS;
+
+    /**
+     * Position of the words of a player, from the first one
+     */
+    private static final int STATUS = 0, ENTRANCE = 1, DINING = 2;
+
+    /**
+     * Fields of the header
+     */
+    private static final Field PLAYERS_NUMBER = new Field(0, 2), ADVANCED = new Field(2, 1),
+            ISLAND_COUNT = new Field(3, 4), MOTHER_NATURE = new Field(7, 4), CURRENT_PLAYER = new Field(11, 2),
+            LAST_ROUND = new Field(13, 1), BAG_EMPTY = new Field(14, 1), FREE_PROFESSORS = new Field(15, 5),
+            ORDER = new Field(20, 6), ORDER_SIZE = new Field(26, 2), NO_TOWER = new Field(28, 1),
+            DISABLED_COLOR = new Field(29, 3), POWER_BONUS = new Field(32, 4), ADDITIONAL_MN = new Field(36, 4),
+            PROF_WITH_DRAW = new Field(40, 1), STOLEN_PROF = new Field(41, 10);
+
+    /**
+     * Fields of an island, after its students
+     */
+    private static final Field TOWER = new Field(40, 2), ISLAND_SIZE = new Field(42, 4),
+            ISLAND_NO_ENTRY = new Field(46, 3);
+
+    /**
+     * Fields of the status of a player
+     */
+    private static final Field PROFESSORS = new Field(0, 5), TOWERS = new Field(5, 4), COINS = new Field(9, 6),
+            DECK = new Field(15, 10), LAST_ASSISTANT = new Field(25, 4), ASSISTANT_PLAYED = new Field(29, 4),
+            BOARD_COINS = new Field(33, 15);
+
+    /**
+     * Fields of a character, after the students on it; the no entry tiles are stored increased by one, since the
+     * characters without them have -1
+     */
+    private static final Field EFFECT = new Field(40, 4), PRICE_INCREASED = new Field(44, 1),
+            PLAYED = new Field(45, 1), CHARACTER_NO_ENTRY = new Field(46, 3), HAS_CONTAINER = new Field(49, 1);
+
+    /**
+     * The packed state
+     */
+    private final long[] words;
+
+    /**
+     * @param words the packed state
+     */
+    private PackedGameState(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Packs the state of a game
+     *
+     * @param manager a prepared game
+     * @return the packed state of the game
+     */
+    public static PackedGameState of(GameManager manager) {
+        long[] words = new long[SIZE];
+        TurnManager turnManager = manager.getTurnManager();
+        IslandsManager islandsManager = manager.getIslandsManager();
+        List<Player> players = turnManager.getPlayers();
+        List<Island> islands = islandsManager.getIslands();
+        boolean advanced = manager.isAdvancedMode();
+
+        long header = PLAYERS_NUMBER.set(0, players.size());
+        header = ADVANCED.set(header, advanced ? 1 : 0);
+        header = ISLAND_COUNT.set(header, islands.size());
+        header = MOTHER_NATURE.set(header, islandsManager.getMotherNatureIndex());
+        header = CURRENT_PLAYER.set(header, players.indexOf(turnManager.getCurrentPlayer()));
+        header = LAST_ROUND.set(header, turnManager.isLastRound() ? 1 : 0);
+        header = BAG_EMPTY.set(header, manager.getBag().isEmpty() ? 1 : 0);
+        header = FREE_PROFESSORS.set(header, mask(manager.getNotUsedTeachers()));
+        long order = 0;
+        List<Player> orderPlayed = turnManager.getOrderPlayed();
+        for (int i = 0; i < orderPlayed.size(); i++)
+            order |= (long) players.indexOf(orderPlayed.get(i)) << (2 * i);
+        header = ORDER.set(header, order);
+        header = ORDER_SIZE.set(header, orderPlayed.size());
+        header = NO_TOWER.set(header, islandsManager.getNoTowerFlag() ? 1 : 0);
+        FactionColor disabled = islandsManager.getDisabledColorFlag();
+        header = DISABLED_COLOR.set(header, disabled == null ? 0 : disabled.getIndex() + 1);
+        header = POWER_BONUS.set(header, islandsManager.getPowerBonusFlag());
+        header = ADDITIONAL_MN.set(header, islandsManager.getAdditionalMNFlag());
+        header = PROF_WITH_DRAW.set(header, turnManager.isProfWithDraw() ? 1 : 0);
+        long stolen = 0;
+        for (Map.Entry<FactionColor, Player> entry : turnManager.getStolenProf().entrySet())
+            stolen |= (long) (players.indexOf(entry.getValue()) + 1) << (2 * entry.getKey().getIndex());
+        header = STOLEN_PROF.set(header, stolen);
+        words[HEADER] = header;
+
+        for (FactionColor color : COLORS)
+            words[BAG] |= (long) manager.getBag().getByColor(color) << (BITS_PER_COLOR * color.getIndex());
+
+        for (int i = 0; i < islands.size(); i++) {
+            Island island = islands.get(i);
+            long word = pack(island.getStudentsOnIsland());
+            word = TOWER.set(word, island.getCurrentTower().ordinal());
+            word = ISLAND_SIZE.set(word, island.getNumIslands());
+            word = ISLAND_NO_ENTRY.set(word, island.getNoEntryTile());
+            words[ISLANDS + i] = word;
+        }
+
+        List<Cloud> clouds = manager.getClouds();
+        for (int i = 0; i < clouds.size(); i++)
+            for (FactionColor color : COLORS)
+                words[CLOUDS + i] |= (long) clouds.get(i).getByColor(color) << (BITS_PER_COLOR * color.getIndex());
+
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            Board board = player.getBoard();
+            long status = PROFESSORS.set(0, mask(board.getProfTable()));
+            status = TOWERS.set(status, board.getTowers().getCurrentSize());
+            status = COINS.set(status, player.getNumberOfCoins());
+            long deck = 0;
+            for (int value : player.getAssistantsDeck().keySet())
+                deck |= 1L << (value - 1);
+            status = DECK.set(status, deck);
+            Assistant last = player.getLastAssistantPlayed();
+            status = LAST_ASSISTANT.set(status, last == null ? 0 : last.getCardValue());
+            Assistant played = turnManager.getAssistantPlayed().get(player);
+            status = ASSISTANT_PLAYED.set(status, played == null ? 0 : played.getCardValue());
+            boolean[][] coins = board.getCoinsArray();
+            if (coins != null) {
+                long boardCoins = 0;
+                for (int c = 0; c < coins.length; c++)
+                    for (int k = 0; k < coins[c].length; k++)
+                        if (coins[c][k]) boardCoins |= 1L << (c * coins[c].length + k);
+                status = BOARD_COINS.set(status, boardCoins);
+            }
+            words[PLAYERS + 3 * i + STATUS] = status;
+            words[PLAYERS + 3 * i + ENTRANCE] = pack(board.getEntrance());
+            words[PLAYERS + 3 * i + DINING] = pack(board.getDiningRoom());
+        }
+
+        if (advanced)
+            for (int i = 0; i < GameManager.NUMBER_OF_CHARACTERS; i++) {
+                Character character = manager.getCharacters()[i];
+                State state = character.getState();
+                long word = state.getContainer() == null ? 0 : HAS_CONTAINER.set(pack(state.getContainer()), 1);
+                word = EFFECT.set(word, character.getEffectType().ordinal());
+                word = PRICE_INCREASED.set(word,
+                        character.getCurrentPrice() > character.getEffectType().getInitialPrice() ? 1 : 0);
+                word = PLAYED.set(word, character.isPlayedInThisTurn() ? 1 : 0);
+                word = CHARACTER_NO_ENTRY.set(word, state.getNoEntryTiles() + 1);
+                words[CHARACTERS + i] = word;
+            }
+        return new PackedGameState(words);
+    }
+
+    /**
+     * Rebuilds the game of this state. The players get their seats as IDs, and the random choices the game will make
+     * are drawn from the given seed.
+     *
+     * @param seed the seed of the random choices of the rebuilt game
+     * @return a game in this state
+     */
+    public GameManager toGameManager(long seed) {
+        List<String> playerIds = new ArrayList<>();
+        for (int i = 0; i < getPlayersNumber(); i++)
+            playerIds.add(String.valueOf(i));
+        return toGameManager(seed, playerIds);
+    }
+
+    /**
+     * Rebuilds the game of this state with the given players. The IDs are given here since the players are kept in
+     * maps hashed by their ID.
+     *
+     * @param seed      the seed of the random choices of the rebuilt game
+     * @param playerIds the IDs of the players, by seat
+     * @return a game in this state
+     */
+    public GameManager toGameManager(long seed, List<String> playerIds) {
+        int playersNumber = getPlayersNumber();
+        boolean advanced = isAdvancedMode();
+        GameManager manager = new GameManager(playersNumber, advanced, seed);
+        TurnManager turnManager = manager.getTurnManager();
+        IslandsManager islandsManager = manager.getIslandsManager();
+        long header = words[HEADER];
+
+        List<Player> players = turnManager.getPlayers();
+        Map<Player, Assistant> assistantPlayed = new HashMap<>();
+        for (int i = 0; i < playersNumber; i++) {
+            Player player = new Player();
+            player.setPlayerId(playerIds.get(i));
+            Board board = new Board(playersNumber, TowerColor.values()[i], advanced, player);
+            player.setBoard(board);
+            try {
+                player.createDeck(WizardTeam.values()[i]);
+            } catch (InstanceAlreadyExistsException e) {
+                throw new IllegalStateException(e);
+            }
+            long status = words[PLAYERS + 3 * i + STATUS];
+            int deck = DECK.get(status);
+            player.getAssistantsDeck().keySet().removeIf(value -> (deck & (1 << (value - 1))) == 0);
+            player.setNumberOfCoins(COINS.get(status));
+            if (LAST_ASSISTANT.get(status) != 0)
+                player.setLastAssistantPlayed(assistant(player, LAST_ASSISTANT.get(status)));
+            if (ASSISTANT_PLAYED.get(status) != 0)
+                assistantPlayed.put(player, assistant(player, ASSISTANT_PLAYED.get(status)));
+            int towersTaken = board.getTowers().getCurrentSize() - TOWERS.get(status);
+            if (towersTaken > 0) board.getTowers().removeTowers(towersTaken);
+            for (FactionColor color : COLORS) {
+                board.getProfTable()[color.getIndex()] = (PROFESSORS.get(status) & (1 << color.getIndex())) != 0;
+                board.getEntrance().addStudents(getEntrance(i, color), color);
+                board.getDiningRoom().addStudents(getDiningRoom(i, color), color);
+            }
+            boolean[][] coins = board.getCoinsArray();
+            if (coins != null)
+                for (int c = 0; c < coins.length; c++)
+                    for (int k = 0; k < coins[c].length; k++)
+                        coins[c][k] = (BOARD_COINS.get(status) & (1 << (c * coins[c].length + k))) != 0;
+            players.add(player);
+        }
+        List<Player> orderPlayed = new ArrayList<>();
+        for (int i = 0; i < ORDER_SIZE.get(header); i++)
+            orderPlayed.add(players.get((ORDER.get(header) >>> (2 * i)) & 3));
+        Player currentPlayer = players.get(getCurrentPlayer());
+        turnManager.restore(currentPlayer, orderPlayed, assistantPlayed);
+        turnManager.setLastRound(isLastRound());
+        if (PROF_WITH_DRAW.get(header) != 0) turnManager.setProfWithDraw();
+        for (FactionColor color : COLORS) {
+            int owner = (STOLEN_PROF.get(header) >>> (2 * color.getIndex())) & 3;
+            if (owner != 0) turnManager.getStolenProf().put(color, players.get(owner - 1));
+        }
+
+        List<Island> islands = islandsManager.getIslands();
+        for (int i = 0; i < getIslandCount(); i++) {
+            Island island = new Island(new FixedUnlimitedStudentsContainer(), i);
+            for (FactionColor color : COLORS)
+                island.getStudentsOnIsland().addStudents(getIslandStudents(i, color), color);
+            island.setNumIslands(getIslandSize(i));
+            if (getNoEntryTiles(i) > 0) island.addNoEntryTile(getNoEntryTiles(i));
+            TowerColor tower = getTower(i);
+            island.setTower(tower);
+            if (tower != TowerColor.NONE) island.setCurrentConqueror(players.get(tower.ordinal()));
+            islands.add(island);
+        }
+        Island motherNature = islands.get(getMotherNaturePosition());
+        motherNature.setMotherNatureHere(true);
+        islandsManager.setMotherNaturePosition(motherNature);
+        islandsManager.setCurrentPlayer(currentPlayer);
+        if (NO_TOWER.get(header) != 0) islandsManager.setNoTowerFlag();
+        int disabled = DISABLED_COLOR.get(header);
+        islandsManager.setDisabledColorFlag(disabled == 0 ? null : COLORS[disabled - 1]);
+        islandsManager.setPowerBonusFlag(POWER_BONUS.get(header));
+        islandsManager.setAdditionalMNFlag(ADDITIONAL_MN.get(header));
+        islandsManager.trackInfluence(turnManager.getPlayers());
+
+        for (int i = 0; i < playersNumber; i++) {
+            Cloud cloud = new Cloud(playersNumber == 2, i);
+            UnlimitedStudentsContainer students = new UnlimitedStudentsContainer();
+            for (FactionColor color : COLORS)
+                students.addStudents(getCloudStudents(i, color), color);
+            cloud.addStudents(students);
+            manager.getClouds().add(cloud);
+        }
+
+        for (FactionColor color : COLORS)
+            manager.getNotUsedTeachers()[color.getIndex()] =
+                    (FREE_PROFESSORS.get(header) & (1 << color.getIndex())) != 0;
+
+        if (advanced) {
+            EffectDatabase.setUp();
+            for (int i = 0; i < GameManager.NUMBER_OF_CHARACTERS; i++) {
+                long word = words[CHARACTERS + i];
+                Effect effect = Effect.values()[EFFECT.get(word)];
+                Character character = new Character(effect.getInitialPrice(), effect, manager.getBag());
+                character.setCurrentPrice(effect.getInitialPrice() + PRICE_INCREASED.get(word));
+                character.setPlayedInThisTurn(PLAYED.get(word) != 0);
+                State state = character.getState();
+                state.setNoEntryTiles(CHARACTER_NO_ENTRY.get(word) - 1);
+                if (HAS_CONTAINER.get(word) != 0) {
+                    LimitedStudentsContainer container = new LimitedStudentsContainer(effect == Effect.JESTER ?
+                            EffectHandler.JESTER_CONTAINERD_DIM : EffectHandler.MONK_PRINCESS_CONTAINER_DIM);
+                    for (FactionColor color : COLORS)
+                        container.addStudents(count(word, color), color);
+                    state.setContainer(container);
+                }
+                if (effect == Effect.GRANDMA) islandsManager.setStateCharacterNoEntryTile(state);
+                manager.getCharacters()[i] = character;
+            }
+        }
+
+        // the characters take their students from the bag, so it's filled last
+        int[] bag = new int[COLORS.length];
+        for (FactionColor color : COLORS)
+            bag[color.getIndex()] = getBag(color);
+        manager.getBag().restore(bag, BAG_EMPTY.get(header) != 0);
+        return manager;
+    }
+
+    /**
+     * @param player a player
+     * @param value  the value of an Assistant of the player
+     * @return the Assistant
+     */
+    private static Assistant assistant(Player player, int value) {
+        return new Assistant(player.getTeam(), value, (value + 1) / 2);
+    }
+
+    /**
+     * @param flags some flags, by color index
+     * @return the flags as a bitmask
+     */
+    private static int mask(boolean[] flags) {
+        int mask = 0;
+        for (int i = 0; i < flags.length; i++)
+            if (flags[i]) mask |= 1 << i;
+        return mask;
+    }
+
+    /**
+     * @param container some students
+     * @return the students packed in a long, a byte for each color
+     */
+    public static long pack(StudentsContainer container) {
+        long students = 0;
+        for (FactionColor color : COLORS)
+            students |= (long) container.getByColor(color) << (BITS_PER_COLOR * color.getIndex());
+        return students;
+    }
+
+    /**
+     * @param students students packed by {@link #pack(StudentsContainer)}, possibly followed by other fields
+     * @param color    a color
+     * @return the students of the color
+     */
+    public static int count(long students, FactionColor color) {
+        return (int) (students >>> (BITS_PER_COLOR * color.getIndex())) & 0xFF;
+    }
+
+    /**
+     * Adds the counts of all the colors at once: the multiplication sums the five bytes into the fifth one, and no
+     * partial sum carries over since a game has fewer than 256 students
+     *
+     * @param students students packed by {@link #pack(StudentsContainer)}, possibly followed by other fields
+     * @return the number of the students
+     */
+    public static int total(long students) {
+        return (int) (((students & STUDENTS_MASK) * 0x0101010101L) >>> 32) & 0xFF;
+    }
+
+    /**
+     * @return the words of the state in Base64, read back by {@link #decode(String)}
+     */
+    public String encode() {
+        ByteBuffer bytes = ByteBuffer.allocate(SIZE * Long.BYTES);
+        bytes.asLongBuffer().put(words);
+        return Base64.getEncoder().encodeToString(bytes.array());
+    }
+
+    /**
+     * @param encoded a state written by {@link #encode()}
+     * @return the state
+     * @throws IllegalArgumentException if the text isn't a packed state
+     */
+    public static PackedGameState decode(String encoded) {
+        ByteBuffer bytes = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+        if (bytes.remaining() != SIZE * Long.BYTES)
+            throw new IllegalArgumentException("A packed state has " + SIZE + " words");
+        long[] words = new long[SIZE];
+        bytes.asLongBuffer().get(words);
+        return new PackedGameState(words);
+    }
+
+    /**
+     * @return a copy of this state
+     */
+    public PackedGameState copy() {
+        return new PackedGameState(words.clone());
+    }
+
+    /**
+     * @return the number of players
+     */
+    public int getPlayersNumber() {
+        return PLAYERS_NUMBER.get(words[HEADER]);
+    }
+
+    /**
+     * @return true if the characters are used
+     */
+    public boolean isAdvancedMode() {
+        return ADVANCED.get(words[HEADER]) != 0;
+    }
+
+    /**
+     * @return the seat of the current player
+     */
+    public int getCurrentPlayer() {
+        return CURRENT_PLAYER.get(words[HEADER]);
+    }
+
+    /**
+     * @return true if the game is in its last round
+     */
+    public boolean isLastRound() {
+        return LAST_ROUND.get(words[HEADER]) != 0;
+    }
+
+    /**
+     * @return the number of islands, united islands counting as one
+     */
+    public int getIslandCount() {
+        return ISLAND_COUNT.get(words[HEADER]);
+    }
+
+    /**
+     * @return the index of the island with Mother Nature
+     */
+    public int getMotherNaturePosition() {
+        return MOTHER_NATURE.get(words[HEADER]);
+    }
+
+    /**
+     * @param color a color
+     * @return the students of the color in the bag
+     */
+    public int getBag(FactionColor color) {
+        return count(words[BAG], color);
+    }
+
+    /**
+     * @param island the index of an island
+     * @return the students on the island, packed
+     */
+    public long getIslandStudents(int island) {
+        return words[ISLANDS + island] & STUDENTS_MASK;
+    }
+
+    /**
+     * @param island the index of an island
+     * @param color  a color
+     * @return the students of the color on the island
+     */
+    public int getIslandStudents(int island, FactionColor color) {
+        return count(words[ISLANDS + island], color);
+    }
+
+    /**
+     * @param island the index of an island
+     * @return the color of the towers on the island
+     */
+    public TowerColor getTower(int island) {
+        return TowerColor.values()[TOWER.get(words[ISLANDS + island])];
+    }
+
+    /**
+     * @param island the index of an island
+     * @return the number of islands united in the island
+     */
+    public int getIslandSize(int island) {
+        return ISLAND_SIZE.get(words[ISLANDS + island]);
+    }
+
+    /**
+     * @param island the index of an island
+     * @return the no entry tiles on the island
+     */
+    public int getNoEntryTiles(int island) {
+        return ISLAND_NO_ENTRY.get(words[ISLANDS + island]);
+    }
+
+    /**
+     * @param cloud the index of a cloud
+     * @param color a color
+     * @return the students of the color on the cloud
+     */
+    public int getCloudStudents(int cloud, FactionColor color) {
+        return count(words[CLOUDS + cloud], color);
+    }
+
+    /**
+     * @param player the seat of a player
+     * @param color  a color
+     * @return the students of the color in the entrance of the player
+     */
+    public int getEntrance(int player, FactionColor color) {
+        return count(words[PLAYERS + 3 * player + ENTRANCE], color);
+    }
+
+    /**
+     * @param player the seat of a player
+     * @param color  a color
+     * @return the students of the color in the dining room of the player
+     */
+    public int getDiningRoom(int player, FactionColor color) {
+        return count(words[PLAYERS + 3 * player + DINING], color);
+    }
+
+    /**
+     * @param player the seat of a player
+     * @return the professors of the player, a bit for each color index
+     */
+    public int getProfessors(int player) {
+        return PROFESSORS.get(words[PLAYERS + 3 * player + STATUS]);
+    }
+
+    /**
+     * @param player the seat of a player
+     * @return the towers left on the board of the player
+     */
+    public int getTowers(int player) {
+        return TOWERS.get(words[PLAYERS + 3 * player + STATUS]);
+    }
+
+    /**
+     * @param player the seat of a player
+     * @return the coins of the player
+     */
+    public int getCoins(int player) {
+        return COINS.get(words[PLAYERS + 3 * player + STATUS]);
+    }
+
+    /**
+     * @param player the seat of a player
+     * @return the Assistants left to the player, bit i for the card of value i + 1
+     */
+    public int getDeck(int player) {
+        return DECK.get(words[PLAYERS + 3 * player + STATUS]);
+    }
+
+    /**
+     * @param player the seat of a player
+     * @return the value of the last Assistant played by the player, 0 if none
+     */
+    public int getLastAssistant(int player) {
+        return LAST_ASSISTANT.get(words[PLAYERS + 3 * player + STATUS]);
+    }
+
+    /**
+     * @param character the index of a character
+     * @return the effect of the character, null if the characters aren't used
+     */
+    public Effect getCharacter(int character) {
+        return isAdvancedMode() ? Effect.values()[EFFECT.get(words[CHARACTERS + character])] : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PackedGameState state)) return false;
+        return Arrays.equals(words, state.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
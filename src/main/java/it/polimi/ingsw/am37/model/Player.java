@@ -155,7 +155,9 @@ public class Player extends UpdatableObject {
      * reset the last assistant as null
      */
     public void setLastAssistantPlayed(Assistant assistant) {
+        Assistant oldValue = this.lastAssistantPlayed;
         this.lastAssistantPlayed = assistant;
+        this.support.firePropertyChange(P_PLAYER_LASTASSISTANT.toString(), oldValue, this.lastAssistantPlayed);
     }
 
     /**
@@ -172,6 +174,13 @@ public class Player extends UpdatableObject {
         return numberOfCoins;
     }
 
+    /**
+     * @param numberOfCoins the coins of the Player, used when a game is rebuilt from a {@link PackedGameState}.
+     */
+    void setNumberOfCoins(int numberOfCoins) {
+        this.numberOfCoins = numberOfCoins;
+    }
+
     /**
      * @return the team associated to this player deck
      */
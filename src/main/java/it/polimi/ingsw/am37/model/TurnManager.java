@@ -8,9 +8,13 @@ import it.polimi.ingsw.am37.model.student_container.StudentsContainer;
 
 import javax.management.InstanceAlreadyExistsException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 import static it.polimi.ingsw.am37.controller.UpdateController.Properties.P_BOARD_DINING;
 
@@ -20,6 +24,11 @@ import static it.polimi.ingsw.am37.controller.UpdateController.Properties.P_BOAR
  */
 public class TurnManager {
 
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    private static final FactionColor[] COLORS = FactionColor.values();
+
     /**
      * If you can take a professor even if there is a draw
      */
@@ -55,6 +64,12 @@ public class TurnManager {
      */
     private HashMap<FactionColor, Player> stolenProf;
 
+    /**
+     * The last known owner of each professor, as a position in the players list by color; -1 if unknown. It's checked
+     * against the professors tables before use, so it's only a hint
+     */
+    private final int[] professorOwners;
+
     /**
      * Players in the order of when they choose their assistant
      */
@@ -75,6 +90,8 @@ public class TurnManager {
         this.numOfPlayers = numOfPlayers;
         this.getProfWithDraw = false;
         this.lastRound = false;
+        this.professorOwners = new int[FactionColor.values().length];
+        Arrays.fill(professorOwners, -1);
     }
 
     /**
@@ -83,7 +100,8 @@ public class TurnManager {
      * @param container The students added to current player's dining room
      */
     public void addStudentsToDining(StudentsContainer container) {
-        StudentsContainer oldValue = currentPlayer.getBoard().getDiningRoom().copy();
+        StudentsContainer oldValue = currentPlayer.isObserved(P_BOARD_DINING) ?
+                currentPlayer.getBoard().getDiningRoom().copy() : null;
         currentPlayer.getBoard().getDiningRoom().uniteContainers(container);
 
         if (coinsEnabled) {
@@ -91,13 +109,14 @@ public class TurnManager {
                 currentPlayer.receiveCoin();
             }
         }
-        for (FactionColor color : FactionColor.values()) {
+        for (FactionColor color : COLORS) {
             if (container.getByColor(color) > 0) {
                 checkProfessors(color);
             }
         }
-        currentPlayer.support.firePropertyChange(P_BOARD_DINING.toString(), oldValue, currentPlayer.getBoard()
-                .getDiningRoom());
+        if (oldValue != null)
+            currentPlayer.support.firePropertyChange(P_BOARD_DINING.toString(), oldValue, currentPlayer.getBoard()
+                    .getDiningRoom());
     }
 
     /**
@@ -107,76 +126,56 @@ public class TurnManager {
      * @throws NoProfChangeException When there is a draw situation
      */
     public void removeStudentsFromDining(StudentsContainer container) throws NoProfChangeException {
-        StudentsContainer oldValue = currentPlayer.getBoard().getDiningRoom().copy();
-        HashMap<Player, Integer> playerPower;
-        boolean[] controlledProf;
-        Player exProfOwner;
-        int boolToInt;
-        boolean switchProf;
+        StudentsContainer oldValue = currentPlayer.isObserved(P_BOARD_DINING) ?
+                currentPlayer.getBoard().getDiningRoom().copy() : null;
+        int owner;
         int numStudentsControlling;
         int max1;
         int max2;
-        Player playerMax1;
-        Player playerMax2;
-        Player currentProfOwner;
+        int playerMax1;
+        int playerMax2;
+        int newOwner;
 
         currentPlayer.getBoard().getDiningRoom().removeContainer(container);
         if (coinsEnabled) currentPlayer.getBoard().checkCoins(currentPlayer.getBoard().getDiningRoom());
 
-        for (FactionColor color : FactionColor.values()) {
-            if (container.getByColor(color) > 0) {
-                playerPower = new HashMap<>();
-                switchProf = false;
+        for (FactionColor color : COLORS) {
+            owner = container.getByColor(color) > 0 ? findProfessorOwner(color) : -1;
+            if (owner >= 0) {
                 max1 = 0;
                 max2 = 0;
-                playerMax1 = null;
-                playerMax2 = null;
-                currentProfOwner = null;
-                for (Player player : players) {
-                    controlledProf = player.getBoard().getProfTable();
-                    boolToInt = player.getBoard().getDiningRoom().getByColor(color);
-                    if (controlledProf[color.getIndex()]) currentProfOwner = player;
-                    playerPower.put(player, boolToInt);
-                }
-
-                for (Player player : players) {
-                    if (playerPower.get(player) > max1) {
+                playerMax1 = -1;
+                playerMax2 = -1;
+                for (int i = 0; i < players.size(); i++) {
+                    int students = studentsInDining(i, color);
+                    if (students > max1) {
                         max2 = max1;
                         playerMax2 = playerMax1;
-                        max1 = playerPower.get(player);
-                        playerMax1 = player;
-                    } else if (playerPower.get(player) > max2) {
-                        max2 = playerPower.get(player);
-                        playerMax2 = player;
+                        max1 = students;
+                        playerMax1 = i;
+                    } else if (students > max2) {
+                        max2 = students;
+                        playerMax2 = i;
                     }
                 }
-                if (max1 == max2 && max1 > playerPower.get(currentProfOwner) &&
-                        playerMax1.getBoard().getTowers().getCurrentTower() !=
-                                currentProfOwner.getBoard().getTowers().getCurrentTower() &&
-                        playerMax2.getBoard().getTowers().getCurrentTower() !=
-                                currentProfOwner.getBoard().getTowers().getCurrentTower())
+                numStudentsControlling = studentsInDining(owner, color);
+                if (max1 == max2 && max1 > numStudentsControlling && !sameTeam(playerMax1, owner)
+                        && !sameTeam(playerMax2, owner))
                     throw new NoProfChangeException();
 
-                numStudentsControlling = playerPower.get(currentProfOwner);
-                exProfOwner = currentProfOwner;
-
-                for (Player player : players)
-                    if (playerPower.get(player) > numStudentsControlling &&
-                            player.getBoard().getTowers().getCurrentTower() !=
-                                    currentProfOwner.getBoard().getTowers().getCurrentTower()) {
-                        currentProfOwner = player;
-                        numStudentsControlling = playerPower.get(player);
-                        switchProf = true;
+                newOwner = owner;
+                for (int i = 0; i < players.size(); i++)
+                    if (studentsInDining(i, color) > numStudentsControlling && !sameTeam(i, newOwner)) {
+                        newOwner = i;
+                        numStudentsControlling = studentsInDining(i, color);
                     }
 
-                if (switchProf) {
-                    exProfOwner.getBoard().removeProf(color);
-                    currentProfOwner.getBoard().addProf(color);
-                }
+                if (newOwner != owner) moveProfessor(color, owner, newOwner);
             }
         }
-        currentPlayer.support.firePropertyChange(P_BOARD_DINING.toString(), oldValue, currentPlayer.getBoard()
-                .getDiningRoom());
+        if (oldValue != null)
+            currentPlayer.support.firePropertyChange(P_BOARD_DINING.toString(), oldValue, currentPlayer.getBoard()
+                    .getDiningRoom());
     }
 
     /**
@@ -192,7 +191,16 @@ public class TurnManager {
      * @param bag Bag containing total students of the game
      */
     public void setUp(Bag bag) {
-        Random random = new Random();
+        setUp(bag, new Random());
+    }
+
+    /**
+     * This method prepare players, boards, currentPlayer and initialize other objects
+     *
+     * @param bag    Bag containing total students of the game
+     * @param random the source of the random choice of the first player
+     */
+    public void setUp(Bag bag, RandomGenerator random) {
         final int studentEntranceThreePlayers = 9;
         final int studentEntranceTwoPlayers = 7;
         this.orderPlayed = new ArrayList<>();
@@ -242,7 +250,7 @@ public class TurnManager {
     public void studentsEntranceToIsland(Island island, LimitedStudentsContainer container) {
         currentPlayer.getBoard().removeStudentsFromEntrance(container);
         FixedUnlimitedStudentsContainer temp = new FixedUnlimitedStudentsContainer();
-        for (FactionColor color : FactionColor.values())
+        for (FactionColor color : COLORS)
             temp.addStudents(container.getByColor(color), color);
         island.addStudents(temp);
     }
@@ -294,14 +302,43 @@ public class TurnManager {
      */
     public void resetFlags() {
         this.getProfWithDraw = false;
-        for (FactionColor color : FactionColor.values())
+        for (FactionColor color : COLORS)
             if (stolenProf.containsKey(color)) {
-                stolenProf.get(color).getBoard().addProf(color);
-                currentPlayer.getBoard().removeProf(color);
-                stolenProf.remove(color);
+                int previousOwner = positionOf(stolenProf.remove(color));
+                int owner = findProfessorOwner(color);
+                if (owner != previousOwner) moveProfessor(color, owner, previousOwner);
             }
     }
 
+    /**
+     * @return if professors can be taken with a draw in this turn
+     */
+    boolean isProfWithDraw() {
+        return getProfWithDraw;
+    }
+
+    /**
+     * @return the owners of the professors taken with a draw in this turn, by color
+     */
+    HashMap<FactionColor, Player> getStolenProf() {
+        return stolenProf;
+    }
+
+    /**
+     * Sets the turn of players already created, instead of {@link #setUp(Bag, RandomGenerator)}; used when a game is
+     * rebuilt from a {@link PackedGameState}
+     *
+     * @param currentPlayer   who is playing
+     * @param orderPlayed     the order of the players in this round
+     * @param assistantPlayed the Assistants played in this round
+     */
+    void restore(Player currentPlayer, List<Player> orderPlayed, Map<Player, Assistant> assistantPlayed) {
+        this.currentPlayer = currentPlayer;
+        this.orderPlayed = new ArrayList<>(orderPlayed);
+        this.stolenProf = new HashMap<>();
+        this.assistantPlayed = new HashMap<>(assistantPlayed);
+    }
+
     /**
      * @return The currentPlayer
      */
@@ -323,47 +360,80 @@ public class TurnManager {
      * @param color Faction of students you want to check professors
      */
     public void checkProfessors(FactionColor color) {
-        boolean switchProf = false;
-        boolean profNotAssigned = true;
-        Player exControllingStudents = null;
-
-        for (Player player : players)
-            if (player.getBoard().getProfTable()[color.getIndex()]) profNotAssigned = false;
-
-        if (profNotAssigned) {
-            currentPlayer.getBoard().addProf(color);
-        } else {
-            if (!currentPlayer.getBoard().getProfTable()[color.getIndex()]) {
-                for (Player player : players) {
-                    if (getProfWithDraw) {
-                        if (currentPlayer.getBoard().getDiningRoom().getByColor(color) >=
-                                player.getBoard().getDiningRoom().getByColor(color) &&
-                                player.getBoard().getProfTable()[color.getIndex()] &&
-                                currentPlayer.getBoard().getTowers().getCurrentTower() !=
-                                        player.getBoard().getTowers().getCurrentTower()) {
-                            exControllingStudents = player;
-                            stolenProf.put(color, player);
-                            switchProf = true;
-                        }
-                    } else {
-                        if (currentPlayer.getBoard().getDiningRoom().getByColor(color) >
-                                player.getBoard().getDiningRoom().getByColor(color) &&
-                                player.getBoard().getProfTable()[color.getIndex()] &&
-                                currentPlayer.getBoard().getTowers().getCurrentTower() !=
-                                        player.getBoard().getTowers().getCurrentTower()) {
-                            exControllingStudents = player;
-                            switchProf = true;
-                        }
-                    }
-                }
-            }
-            if (switchProf) {
-                exControllingStudents.getBoard().removeProf(color);
-                currentPlayer.getBoard().addProf(color);
+        int owner = findProfessorOwner(color);
+        int current = positionOf(currentPlayer);
+
+        if (owner < 0) {
+            moveProfessor(color, -1, current);
+        } else if (owner != current && !sameTeam(current, owner)) {
+            int students = studentsInDining(current, color);
+            int ownerStudents = studentsInDining(owner, color);
+            if (getProfWithDraw ? students >= ownerStudents : students > ownerStudents) {
+                if (getProfWithDraw) stolenProf.put(color, players.get(owner));
+                moveProfessor(color, owner, current);
             }
         }
     }
 
+    /**
+     * Finds who has a professor, looking at the last known owner first
+     *
+     * @param color the color of the professor.
+     * @return the position of the owner in the players list, -1 if nobody has the professor
+     */
+    private int findProfessorOwner(FactionColor color) {
+        int owner = professorOwners[color.getIndex()];
+        if (owner >= 0 && owner < players.size() && players.get(owner).getBoard().getProfTable()[color.getIndex()])
+            return owner;
+        owner = -1;
+        for (int i = 0; i < players.size(); i++)
+            if (players.get(i).getBoard().getProfTable()[color.getIndex()]) owner = i;
+        professorOwners[color.getIndex()] = owner;
+        return owner;
+    }
+
+    /**
+     * Gives a professor to a player, taking it from its owner
+     *
+     * @param color the color of the professor.
+     * @param from  the position of the owner in the players list, -1 if nobody has the professor.
+     * @param to    the position of the new owner in the players list.
+     */
+    private void moveProfessor(FactionColor color, int from, int to) {
+        if (from >= 0) players.get(from).getBoard().removeProf(color);
+        players.get(to).getBoard().addProf(color);
+        professorOwners[color.getIndex()] = to;
+    }
+
+    /**
+     * @param player a player in the game.
+     * @return the position of the player in the players list
+     */
+    private int positionOf(Player player) {
+        for (int i = 0; i < players.size(); i++)
+            if (players.get(i) == player) return i;
+        throw new IllegalArgumentException("The player isn't in the game");
+    }
+
+    /**
+     * @param player the position of a player in the players list.
+     * @param color  a color.
+     * @return the students of the color in the dining room of the player
+     */
+    private int studentsInDining(int player, FactionColor color) {
+        return players.get(player).getBoard().getDiningRoom().getByColor(color);
+    }
+
+    /**
+     * @param player a position in the players list.
+     * @param other  another position in the players list.
+     * @return true if the players have towers of the same color, so they can't take professors from each other
+     */
+    private boolean sameTeam(int player, int other) {
+        return players.get(player).getBoard().getTowers().getCurrentTower() ==
+                players.get(other).getBoard().getTowers().getCurrentTower();
+    }
+
     /**
      * Creates the deck of the Player.
      */
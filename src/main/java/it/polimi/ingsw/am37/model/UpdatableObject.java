@@ -1,5 +1,6 @@
 package it.polimi.ingsw.am37.model;
 
+import it.polimi.ingsw.am37.controller.UpdateController.Properties;
 import it.polimi.ingsw.am37.message.UpdateMessage;
 
 import java.beans.PropertyChangeListener;
@@ -64,6 +65,15 @@ public class UpdatableObject {
         return support;
     }
 
+    /**
+     * @param property a property of this object.
+     * @return true if a listener is told of the changes of the property; if none is, a change needs neither a copy of
+     * the old value nor an event
+     */
+    protected boolean isObserved(Properties property) {
+        return support.hasListeners(property.toString());
+    }
+
     /**
      * This function mainly wrap {@link PropertyChangeSupport#addPropertyChangeListener(PropertyChangeListener)} to
      * register a listener but also firing a property type of P_CREATION to signal the creation of the object.
@@ -64,6 +64,13 @@ public class Character extends UpdatableObject {
         return currentPrice;
     }
 
+    /**
+     * @param currentPrice the price of the character, used when a game is rebuilt from a saved state.
+     */
+    public void setCurrentPrice(int currentPrice) {
+        this.currentPrice = currentPrice;
+    }
+
     /**
      * @param option The option parameters used to use the Effect.
      */
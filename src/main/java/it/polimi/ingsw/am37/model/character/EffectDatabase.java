@@ -27,7 +27,11 @@ public final class EffectDatabase {
     private EffectDatabase() {
     }
 
-    public static void setUp() {
+    /**
+     * Fills up the base effects, once: every game calls it, also from different threads
+     */
+    public static synchronized void setUp() {
+        if (!baseEffects.isEmpty()) return;
 
         //0 - remove from card
         baseEffects.add(0,
@@ -41,14 +41,33 @@ public class LimitedStudentsContainer extends StudentsContainer {
     public LimitedStudentsContainer(int[] maxByColor) throws IllegalArgumentException {
         maxSizeForColor = new int[5];
         maxSize = -1;
-        if (Arrays.stream(maxByColor).parallel().allMatch(c -> c >= 0) && Arrays.stream(maxByColor)
-                .anyMatch(c -> c > 0))
+        boolean positive = true;
+        boolean nonEmpty = false;
+        // five colors don't need a parallel stream, which would hand the check to the common pool
+        for (int c : maxByColor) {
+            positive &= c >= 0;
+            nonEmpty |= c > 0;
+        }
+        if (positive && nonEmpty)
             maxSizeForColor = Arrays.copyOf(maxByColor, maxByColor.length);
         else
             throw new IllegalArgumentException("Parameter array" + Arrays.toString(maxByColor) + " is badly " +
                     "formatted: all elements must be positive and at least one bigger than 0");
     }
 
+    /**
+     * Checks the students against the maximum number set, in total or for their color
+     *
+     * @param num   the number of students to add.
+     * @param color the color of the students to add.
+     * @return true if the students fit in this
+     */
+    @Override
+    protected boolean hasRoomFor(int num, FactionColor color) {
+        if (maxSize == -1) return num + student[color.getIndex()] <= maxSizeForColor[color.getIndex()];
+        return size() + num <= maxSize;
+    }
+
     /**
      * Add students checking with the maximum number set
      *
@@ -60,14 +79,11 @@ public class LimitedStudentsContainer extends StudentsContainer {
     public void addStudents(int num, FactionColor color) throws IllegalArgumentException, StudentSpaceException {
         if (num < 0) throw new IllegalArgumentException("Num must be an int >= 0 but is " + num);
         if (color == null) throw new IllegalArgumentException("color is null");
-        if (maxSize == -1 && num + student[color.getIndex()] > maxSizeForColor[color.getIndex()]) {
+        if (hasRoomFor(num, color)) student[color.getIndex()] += num;
+        else if (maxSize == -1)
             throw new StudentSpaceException("Space error for color " + color + " (curr, num, limit): (" + student[color.getIndex()] + "," + num + "," + maxSizeForColor[color.getIndex()] + ");", true);
-        } else if (maxSize != -1 && Arrays.stream(student).sum() + num > maxSize) {
-            throw new StudentSpaceException("General space error (curr, num, limit): (" + Arrays.stream(student)
-                    .sum() + "," + num + "," + maxSize + ");", true);
-        } else {
-            student[color.getIndex()] += num;
-        }
+        else
+            throw new StudentSpaceException("General space error (curr, num, limit): (" + size() + "," + num + "," + maxSize + ");", true);
     }
 
     /**
@@ -81,17 +97,20 @@ public class LimitedStudentsContainer extends StudentsContainer {
         if (color == null) throw new IllegalArgumentException("Colors can't be null");
         if (student[color.getIndex()] >= num) student[color.getIndex()] -= num;
         else {
-            throw new StudentSpaceException("General space error (curr, num, limit): (" + Arrays.stream(student)
-                    .sum() + "," + num + "," + student[color.getIndex()] + ");", false);
+            throw new StudentSpaceException("General space error (curr, num, limit): (" + size() + "," + num + "," + student[color.getIndex()] + ");", false);
         }
     }
 
+    /**
+     * Remove all the students of the provided container from this, nothing is removed if this doesn't contain them
+     *
+     * @param container the students to remove
+     * @throws StudentSpaceException if this doesn't contain the students
+     */
     public void removeContainer(StudentsContainer container) throws StudentSpaceException {
-        for (FactionColor color :
-                FactionColor.values()) {
-            if (this.getByColor(color) < container.getByColor(color)) throw new StudentSpaceException(false);
-            this.removeStudents(container.getByColor(color), color);
-        }
+        if (!contains(container)) throw new StudentSpaceException(false);
+        for (FactionColor color : COLORS)
+            student[color.getIndex()] -= container.student[color.getIndex()];
     }
 
     /**
@@ -2,12 +2,24 @@ package it.polimi.ingsw.am37.model.student_container;
 
 import it.polimi.ingsw.am37.model.FactionColor;
 import it.polimi.ingsw.am37.model.exceptions.StudentSpaceException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * Abstract class to manage students tile in the model.
  */
 public abstract class StudentsContainer {
 
+    /**
+     * The colors, cached since {@link FactionColor#values()} copies them on every call
+     */
+    protected static final FactionColor[] COLORS = FactionColor.values();
+
+    /**
+     * Logger of the students that don't fit when containers are united
+     */
+    private static final Logger LOGGER = LogManager.getLogger(StudentsContainer.class);
+
     /**
      * General array of 5 integers, for the index of each student colors is used ad enumeration
      *
@@ -36,19 +48,28 @@ public abstract class StudentsContainer {
     }
 
     /**
-     * Add all the students of the provided container to this
+     * Checks if some students can be added to this
+     *
+     * @param num   the number of students to add.
+     * @param color the color of the students to add.
+     * @return true if the students fit in this, always true unless the container is limited
+     */
+    protected boolean hasRoomFor(int num, FactionColor color) {
+        return true;
+    }
+
+    /**
+     * Add all the students of the provided container to this; the colors whose students don't fit are left out
      *
      * @param other the source container to merge in this
      */
-    public void uniteContainers(StudentsContainer other) throws IllegalArgumentException, StudentSpaceException {
+    public void uniteContainers(StudentsContainer other) throws IllegalArgumentException {
         if (other == null) throw new IllegalArgumentException("other container must not be null");
-        for (FactionColor color :
-                FactionColor.values()) {
-            try {
-                addStudents(other.getByColor(color), color);
-            } catch (StudentSpaceException e) {
-                e.printStackTrace();
-            }
+        for (FactionColor color : COLORS) {
+            int num = other.student[color.getIndex()];
+            if (num == 0) continue;
+            if (hasRoomFor(num, color)) student[color.getIndex()] += num;
+            else LOGGER.warn("No room for {} {} students in {}", num, color, this.getClass().getSimpleName());
         }
     }
 
@@ -59,10 +80,8 @@ public abstract class StudentsContainer {
      */
     public int size() {
         int sum = 0;
-        for (FactionColor color :
-                FactionColor.values()) {
-            sum += getByColor(color);
-        }
+        for (int students : student)
+            sum += students;
         return sum;
 
     }
@@ -84,10 +103,8 @@ public abstract class StudentsContainer {
      */
     public boolean contains(StudentsContainer container) {
         if (this.size() < container.size()) return false;
-        for (FactionColor color :
-                FactionColor.values()) {
+        for (FactionColor color : COLORS)
             if (this.student[color.getIndex()] < container.student[color.getIndex()]) return false;
-        }
         return true;
     }
 
@@ -99,9 +116,8 @@ public abstract class StudentsContainer {
      */
     public String getStudentsAsString() {
         StringBuilder stringBuilder = new StringBuilder("[");
-        String[] studentsString = new String[FactionColor.values().length];
-        for (FactionColor color :
-                FactionColor.values()) {
+        String[] studentsString = new String[COLORS.length];
+        for (FactionColor color : COLORS) {
             studentsString[color.getIndex()] =
                     "@|" + color.color + " " + student[color.getIndex()] + color.name().charAt(0) + "|@";
         }
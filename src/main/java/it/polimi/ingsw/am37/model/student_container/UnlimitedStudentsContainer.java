@@ -42,16 +42,20 @@ public class UnlimitedStudentsContainer extends StudentsContainer {
         if (color == null) throw new IllegalArgumentException("Colors couldn't be null");
         if (student[color.getIndex()] >= num) student[color.getIndex()] -= num;
         else {
-            throw new StudentSpaceException("General space error (curr, num, limit): (" + Arrays.stream(student).sum() + "," + num + "," + student[color.getIndex()] + ");", false);
+            throw new StudentSpaceException("General space error (curr, num, limit): (" + size() + "," + num + "," + student[color.getIndex()] + ");", false);
         }
     }
 
+    /**
+     * Remove all the students of the provided container from this, nothing is removed if this doesn't contain them
+     *
+     * @param container the students to remove
+     * @throws StudentSpaceException if this doesn't contain the students
+     */
     public void removeContainer(StudentsContainer container) throws StudentSpaceException {
-        for (FactionColor color :
-                FactionColor.values()) {
-            if (this.getByColor(color) < container.getByColor(color)) throw new StudentSpaceException(false);
-            this.removeStudents(container.getByColor(color), color);
-        }
+        if (!contains(container)) throw new StudentSpaceException(false);
+        for (FactionColor color : COLORS)
+            student[color.getIndex()] -= container.student[color.getIndex()];
     }
 
     /**
@@ -1,17 +1,17 @@
 package it.polimi.ingsw.am37.network;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import it.polimi.ingsw.am37.client.Client;
 import it.polimi.ingsw.am37.client.ClientStatus;
+import it.polimi.ingsw.am37.client.ReducedModel;
 import it.polimi.ingsw.am37.message.*;
 
 import java.io.*;
 import java.net.Socket;
 import java.util.Objects;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class connect the client with its clientHandler
@@ -21,11 +21,16 @@ public class ClientSocket implements Runnable {
      * Flag to disable disconnection for debug purpose
      */
     final static boolean debug_disableTimers = false;
-    private final static Gson defaultMessageSerializer = new MessageGsonBuilder().registerMessageAdapter()
-            .registerUpdatableObjectAdapter()
-            .registerStudentContainerAdapter()
-            .getGsonBuilder()
-            .create();
+
+    /**
+     * Interval between two pings, in milliseconds
+     */
+    private final static long PING_INTERVAL_MILLIS = 300;
+
+    /**
+     * Maximum time, in milliseconds, a read or a write can take before the connection is considered lost
+     */
+    private final static long TIMEOUT_MILLIS = 5000;
 
     /**
      * Socket used to connect
@@ -58,6 +63,18 @@ public class ClientSocket implements Runnable {
      * DataInput stream used for reading messages
      */
     private DataInputStream dataInputStream;
+    /**
+     * Timer used for pings and timeouts
+     */
+    private final HashedWheelTimer timer;
+    /**
+     * True if the messages are sent in the binary format, after the server accepted it at login
+     */
+    private volatile boolean binaryFrames;
+    /**
+     * Decompressor of the messages received, used when the server accepted the compression at login
+     */
+    private final FrameInflater inflater;
 
     /**
      * Construct a socket to comunicate with the server using provided parameters, then try to communicate with it
@@ -71,6 +88,8 @@ public class ClientSocket implements Runnable {
         connectedToServer = true;
         this.client = client;
         this.responseBuffer = new LinkedBlockingQueue<>();
+        this.timer = HashedWheelTimer.getInstance();
+        this.inflater = new FrameInflater();
         setInputAndOutput();
     }
 
@@ -80,13 +99,7 @@ public class ClientSocket implements Runnable {
     public void closeGame() {
         if (connectedToServer) {
             connectedToServer = false;
-            Timer timer = new Timer();
-            timer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    killGame();
-                }
-            }, 2000);
+            timer.schedule(this::killGame, 2000, TimeUnit.MILLISECONDS);
             try {
                 dataInputStream.close();
                 dataOutputStream.close();
@@ -117,31 +130,22 @@ public class ClientSocket implements Runnable {
      * close the game
      */
     private void killGame() {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                Runtime.getRuntime().halt(0);
-            }
-        }, 3000);
+        HashedWheelTimer.Timeout halt = timer.schedule(() -> Runtime.getRuntime().halt(0), 3000, TimeUnit.MILLISECONDS);
         System.exit(0);
-        timer.cancel();
+        halt.cancel();
     }
 
     /**
-     * Method used for sending ping
+     * Method used for sending ping, each ping schedules the next one while the client is connected
      */
     private void messagePing() {
-        Timer timer = new Timer();
-
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                Message message;
-                message = new PingMessage(client.getUUID());
-                sendMessage(message);
-            }
-        }, 300, 300);
+        timer.schedule(() -> {
+            if (!connectedToServer) return;
+            Message message;
+            message = new PingMessage(client.getUUID());
+            sendMessage(message);
+            messagePing();
+        }, PING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -150,13 +154,7 @@ public class ClientSocket implements Runnable {
     private void onDisconnect() {
         connectedToServer = false;
         client.getView().notifyInternetCrash();
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                killGame();
-            }
-        }, 3000);
+        timer.schedule(this::killGame, 3000, TimeUnit.MILLISECONDS);
         try {
             dataInputStream.close();
             dataOutputStream.close();
@@ -172,22 +170,12 @@ public class ClientSocket implements Runnable {
      * Message received from server and executed
      */
     private void readMessage() {
-        String json;
         Message message;
-        Timer timer = new Timer();
-        if (!debug_disableTimers) {
-            timer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    onDisconnect();
-                }
-            }, 5000);
-        }
+        HashedWheelTimer.Timeout timeout = null;
+        if (!debug_disableTimers) timeout = timer.schedule(this::onDisconnect, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
         try {
-            json = dataInputStream.readUTF();
-            message = defaultMessageSerializer
-                    .fromJson(json, Message.class);
-            timer.cancel();
+            message = FrameCodec.read(dataInputStream, inflater);
+            if (timeout != null) timeout.cancel();
             if (message.getMessageType() != MessageType.PING) {
                 switch (message.getMessageType()) {
                     case START_GAME -> {
@@ -200,10 +188,14 @@ public class ClientSocket implements Runnable {
                         client.getView().yourTurn();
                     }
                     case UPDATE -> {
-                        responseBuffer.add(message);
                         UpdateMessage updateMessage = (UpdateMessage) message;
-                        client.getView()
-                                .updateView(updateMessage, client);
+                        ReducedModel reducedModel = client.getView().getReducedModel();
+                        boolean awaitingSnapshot = reducedModel.isAwaitingSnapshot();
+                        boolean applied = reducedModel.apply(updateMessage);
+                        // asks for a snapshot once, the following updates are ignored until it arrives
+                        if (!applied && !awaitingSnapshot) sendMessage(new ResyncMessage(client.getUUID()));
+                        responseBuffer.add(message);
+                        if (applied) client.getView().updateView(updateMessage, client);
                     }
                     case NEXT_TURN -> {
                         NextTurnMessage nextTurnMessage = (NextTurnMessage) message;
@@ -217,10 +209,16 @@ public class ClientSocket implements Runnable {
                         }
                     }
                     case END_GAME -> client.getView().printWinner(((EndGameMessage) message).getWinnerNickname());
-                    case CONFIRM, ERROR, ACTIVE_LOBBIES -> responseBuffer.add(message);
+                    case CONFIRM -> {
+                        String binaryCodec = ((ConfirmMessage) message).getBinaryCodec();
+                        if (binaryCodec != null) binaryFrames = BinaryCodec.getInstance().isCompatible(binaryCodec);
+                        responseBuffer.add(message);
+                    }
+                    case ERROR, ACTIVE_LOBBIES -> responseBuffer.add(message);
                 }
             }
-        } catch (IOException e) {
+        } catch (IOException | JsonParseException e) {
+            if (timeout != null) timeout.cancel();
             onDisconnect();
         }
 
@@ -243,19 +241,16 @@ public class ClientSocket implements Runnable {
     public void sendMessage(Message message) {
         responseBuffer.clear();
         if (connectedToServer) {
-            String json = defaultMessageSerializer.toJson(message);
-            Timer timer = new Timer();
-            if (!debug_disableTimers) timer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    onDisconnect();
-                }
-            }, 5000);
+            byte[] frame = FrameCodec.encode(message, binaryFrames);
+            HashedWheelTimer.Timeout timeout = null;
+            if (!debug_disableTimers)
+                timeout = timer.schedule(this::onDisconnect, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
             try {
-                dataOutputStream.writeUTF(json);
+                dataOutputStream.write(frame);
                 dataOutputStream.flush();
-                timer.cancel();
+                if (timeout != null) timeout.cancel();
             } catch (IOException e) {
+                if (timeout != null) timeout.cancel();
                 onDisconnect();
             }
         }
@@ -265,17 +260,9 @@ public class ClientSocket implements Runnable {
      * Create socket's InputStream
      */
     private void setInput() {
-        Timer timer = new Timer();
-        if (!debug_disableTimers) timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                onDisconnect();
-            }
-        }, 5000);
         try {
             inputStream = socket.getInputStream();
             dataInputStream = new DataInputStream(inputStream);
-            timer.cancel();
         } catch (IOException e) {
             onDisconnect();
         }
@@ -293,17 +280,9 @@ public class ClientSocket implements Runnable {
      * Create socket's OutputStream
      */
     private void setOutput() {
-        Timer timer = new Timer();
-        if (!debug_disableTimers) timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                onDisconnect();
-            }
-        }, 5000);
         try {
             outputStream = socket.getOutputStream();
             dataOutputStream = new DataOutputStream(outputStream);
-            timer.cancel();
         } catch (IOException e) {
             onDisconnect();
         }
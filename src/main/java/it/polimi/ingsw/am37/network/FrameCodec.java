@@ -0,0 +1,245 @@
+package it.polimi.ingsw.am37.network;
+
+import com.google.gson.JsonParseException;
+import it.polimi.ingsw.am37.message.BinaryCodec;
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.MessageCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+
+/**
+ * Frames of the messages exchanged by clients and server. A classic frame is a JSON string as written by
+ * {@link DataOutputStream#writeUTF(String)}: a two bytes length followed by the string. Since no message is an empty
+ * string, a zero length introduces an extended frame: a byte of flags, the length of the payload as a varint and the
+ * payload, which is either UTF-8 JSON or the output of {@link BinaryCodec}, possibly compressed by a
+ * {@link FrameDeflater}. Extended frames have no 64 KB limit, and every reader accepts both kinds, so each side can
+ * choose its format without waiting for the other one.
+ */
+public class FrameCodec {
+
+    /**
+     * Flag of the extended frames whose payload is binary
+     */
+    public static final int FLAG_BINARY = 1;
+
+    /**
+     * Flag of the extended frames whose payload is compressed in the deflate stream of the connection
+     */
+    public static final int FLAG_COMPRESSED = 2;
+
+    /**
+     * Maximum length of the payload of a frame, larger frames are rejected
+     */
+    public static final int MAX_PAYLOAD_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Maximum length of a classic frame, as allowed by {@link DataOutputStream#writeUTF(String)}
+     */
+    private static final int MAX_CLASSIC_LENGTH = 65535;
+
+    /**
+     * Size of the header of a classic frame, and of the marker of an extended one
+     */
+    private static final int SHORT_HEADER_SIZE = 2;
+
+    /**
+     * Default constructor, not used
+     */
+    private FrameCodec() {
+    }
+
+    /**
+     * @param message the message to encode
+     * @param binary  true to use the binary format
+     * @return the whole frame of the message
+     */
+    public static byte[] encode(Message message, boolean binary) {
+        if (binary) return frame(FLAG_BINARY, BinaryCodec.getInstance().encode(message));
+        return jsonFrame(MessageCodec.getInstance().encode(message));
+    }
+
+    /**
+     * @param json a message as JSON
+     * @return the frame of the message, classic when possible
+     */
+    public static byte[] jsonFrame(String json) {
+        byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+        if (!isClassic(json, payload.length)) return frame(0, payload);
+        byte[] frame = new byte[SHORT_HEADER_SIZE + payload.length];
+        frame[0] = (byte) (payload.length >>> 8);
+        frame[1] = (byte) payload.length;
+        System.arraycopy(payload, 0, frame, SHORT_HEADER_SIZE, payload.length);
+        return frame;
+    }
+
+    /**
+     * @param string a string
+     * @param length the length of the string in UTF-8
+     * @return true if the string can be sent in a classic frame: it's short enough and UTF-8 and the modified UTF-8 of
+     * {@link DataOutputStream#writeUTF(String)} encode it the same way
+     */
+    public static boolean isClassic(String string, int length) {
+        if (length == 0 || length > MAX_CLASSIC_LENGTH) return false;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == 0 || Character.isSurrogate(c)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param flags   the flags of the frame
+     * @param payload the payload
+     * @return the extended frame with the payload
+     */
+    private static byte[] frame(int flags, byte[] payload) {
+        byte[] header = header(flags, payload.length);
+        byte[] frame = new byte[header.length + payload.length];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        System.arraycopy(payload, 0, frame, header.length, payload.length);
+        return frame;
+    }
+
+    /**
+     * @param flags  the flags of the frame
+     * @param length the length of the payload
+     * @return the header of an extended frame
+     */
+    public static byte[] header(int flags, int length) {
+        if (length > MAX_PAYLOAD_LENGTH) throw new IllegalArgumentException("Message too long to be sent: " + length);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(8);
+        header.write(0);
+        header.write(0);
+        header.write(flags);
+        BinaryCodec.writeVarint(header, length);
+        return header.toByteArray();
+    }
+
+    /**
+     * Reads a whole frame and decodes its message, compressed frames aren't accepted
+     *
+     * @param in the source
+     * @return the decoded message
+     * @throws IOException        if the frame can't be read
+     * @throws JsonParseException if the frame doesn't contain a valid message
+     */
+    public static Message read(DataInputStream in) throws IOException, JsonParseException {
+        return read(in, null);
+    }
+
+    /**
+     * Reads a whole frame and decodes its message
+     *
+     * @param in       the source
+     * @param inflater the decompressor of the connection, null if compressed frames aren't expected
+     * @return the decoded message
+     * @throws IOException        if the frame can't be read
+     * @throws JsonParseException if the frame doesn't contain a valid message
+     */
+    public static Message read(DataInputStream in, FrameInflater inflater) throws IOException, JsonParseException {
+        int length = in.readUnsignedShort();
+        if (length != 0) {
+            byte[] frame = new byte[SHORT_HEADER_SIZE + length];
+            frame[0] = (byte) (length >>> 8);
+            frame[1] = (byte) length;
+            in.readFully(frame, SHORT_HEADER_SIZE, length);
+            return decodeClassic(frame);
+        }
+        int flags = in.readUnsignedByte();
+        long payloadLength = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) throw new IOException("Invalid frame length");
+            int b = in.readUnsignedByte();
+            payloadLength |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        if (payloadLength > MAX_PAYLOAD_LENGTH) throw new IOException("Frame too long: " + payloadLength);
+        byte[] payload = new byte[(int) payloadLength];
+        in.readFully(payload);
+        return decode(flags, payload, inflater);
+    }
+
+    /**
+     * Finds the length of the frame at the position of the buffer, without moving it
+     *
+     * @param buffer the bytes received
+     * @return the length of the whole frame, or -1 if its header isn't complete yet
+     * @throws IOException if the header isn't valid
+     */
+    public static int frameLength(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        if (buffer.remaining() < SHORT_HEADER_SIZE) return -1;
+        int length = buffer.getShort(start) & 0xFFFF;
+        if (length != 0) return SHORT_HEADER_SIZE + length;
+        if (buffer.remaining() < SHORT_HEADER_SIZE + 1) return -1;
+        ByteBuffer header = buffer.duplicate();
+        header.position(start + SHORT_HEADER_SIZE + 1);
+        long payloadLength;
+        try {
+            payloadLength = BinaryCodec.readVarint(header);
+        } catch (BufferUnderflowException e) {
+            return -1;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid frame length");
+        }
+        if (payloadLength > MAX_PAYLOAD_LENGTH) throw new IOException("Frame too long: " + payloadLength);
+        return header.position() - start + (int) payloadLength;
+    }
+
+    /**
+     * @param frame a whole frame, header included, compressed frames aren't accepted
+     * @return the decoded message
+     * @throws JsonParseException if the frame doesn't contain a valid message
+     */
+    public static Message decode(byte[] frame) throws JsonParseException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        if ((buffer.getShort() & 0xFFFF) != 0) return decodeClassic(frame);
+        int flags = buffer.get();
+        long length = BinaryCodec.readVarint(buffer);
+        if (length != buffer.remaining()) throw new JsonParseException("Frame length mismatch");
+        byte[] payload = new byte[(int) length];
+        buffer.get(payload);
+        return decode(flags, payload, null);
+    }
+
+    /**
+     * @param frame a whole classic frame, header included
+     * @return the decoded message
+     * @throws JsonParseException if the frame doesn't contain a valid message
+     */
+    private static Message decodeClassic(byte[] frame) throws JsonParseException {
+        try {
+            return MessageCodec.getInstance().decode(new DataInputStream(new ByteArrayInputStream(frame)).readUTF());
+        } catch (IOException e) {
+            throw new JsonParseException("Malformed frame", e);
+        }
+    }
+
+    /**
+     * @param flags    the flags of an extended frame
+     * @param payload  the payload of the frame
+     * @param inflater the decompressor of the connection, null if compressed frames aren't expected
+     * @return the decoded message
+     * @throws JsonParseException if the payload isn't a valid message
+     */
+    private static Message decode(int flags, byte[] payload, FrameInflater inflater) throws JsonParseException {
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            if (inflater == null) throw new JsonParseException("Unexpected compressed frame");
+            try {
+                payload = inflater.inflate(payload);
+            } catch (DataFormatException e) {
+                throw new JsonParseException("Malformed compressed frame", e);
+            }
+        }
+        if ((flags & FLAG_BINARY) != 0) return BinaryCodec.getInstance().decode(payload);
+        return MessageCodec.getInstance().decode(new String(payload, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,101 @@
+package it.polimi.ingsw.am37.network;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the frames sent on a single connection. The same deflate stream is used for all the frames, each one ends
+ * with a sync flush, so the receiver can decode it at once and the later frames are compressed against the text of the
+ * earlier ones: the repeated parts of the updates cost a few bytes. The frames must be compressed in the same order
+ * they are written, and decompressed by a single {@link FrameInflater} in that order. Frames shorter than the threshold
+ * are sent as they are and don't enter the stream.
+ */
+public class FrameDeflater {
+
+    /**
+     * Default minimum length of the frames to compress, shorter ones wouldn't get any smaller
+     */
+    public static final int DEFAULT_THRESHOLD = 256;
+
+    /**
+     * Size of the chunks the compressed bytes are written in
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * The compressor, keeps the history of the stream between frames
+     */
+    private final Deflater deflater;
+
+    /**
+     * Minimum length of the frames to compress
+     */
+    private final int threshold;
+
+    /**
+     * Buffer for the compressed bytes
+     */
+    private final byte[] chunk;
+
+    /**
+     * Default constructor
+     *
+     * @param threshold minimum length of the frames to compress
+     */
+    public FrameDeflater(int threshold) {
+        this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        this.threshold = threshold;
+        this.chunk = new byte[CHUNK_SIZE];
+    }
+
+    /**
+     * @param envelope the beginning of a frame, with its whole header
+     * @param payload  the rest of the frame
+     * @return the compressed frame, or null if the frame must be sent as it is
+     * @throws IllegalArgumentException if the compressed frame is too long
+     */
+    public byte[] deflate(byte[] envelope, byte[] payload) {
+        if (envelope.length + payload.length < threshold) return null;
+        int flags = 0;
+        int bodyStart = 2;
+        if (envelope[0] == 0 && envelope[1] == 0) {
+            flags = envelope[2];
+            bodyStart = 3;
+            while ((envelope[bodyStart++] & 0x80) != 0) ;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream((envelope.length + payload.length) / 4);
+        deflate(envelope, bodyStart, envelope.length - bodyStart, body);
+        deflate(payload, 0, payload.length, body);
+        int length;
+        do {
+            length = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+            body.write(chunk, 0, length);
+        } while (length == chunk.length);
+        byte[] header = FrameCodec.header(flags | FrameCodec.FLAG_COMPRESSED, body.size());
+        byte[] frame = new byte[header.length + body.size()];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        System.arraycopy(body.toByteArray(), 0, frame, header.length, body.size());
+        return frame;
+    }
+
+    /**
+     * Feeds bytes to the compressor without flushing it
+     *
+     * @param input  the bytes to compress
+     * @param offset the first byte to compress
+     * @param length the number of bytes to compress
+     * @param out    the destination of the compressed bytes
+     */
+    private void deflate(byte[] input, int offset, int length, ByteArrayOutputStream out) {
+        deflater.setInput(input, offset, length);
+        while (!deflater.needsInput())
+            out.write(chunk, 0, deflater.deflate(chunk, 0, chunk.length, Deflater.NO_FLUSH));
+    }
+
+    /**
+     * Releases the memory of the compressor, it can't be used anymore
+     */
+    public void end() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,60 @@
+package it.polimi.ingsw.am37.network;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses the frames received on a single connection, the counterpart of {@link FrameDeflater}: the frames must
+ * be passed in the order they have been received.
+ */
+public class FrameInflater {
+
+    /**
+     * Size of the chunks the decompressed bytes are read in
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * The decompressor, keeps the history of the stream between frames
+     */
+    private final Inflater inflater;
+
+    /**
+     * Buffer for the decompressed bytes
+     */
+    private final byte[] chunk;
+
+    /**
+     * Default constructor
+     */
+    public FrameInflater() {
+        this.inflater = new Inflater(true);
+        this.chunk = new byte[CHUNK_SIZE];
+    }
+
+    /**
+     * @param payload the compressed payload of a frame
+     * @return the decompressed payload
+     * @throws DataFormatException if the payload isn't valid or is too long once decompressed
+     */
+    public byte[] inflate(byte[] payload) throws DataFormatException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+        inflater.setInput(payload);
+        int length;
+        while ((length = inflater.inflate(chunk)) > 0 || !inflater.needsInput()) {
+            if (length == 0 && (inflater.finished() || inflater.needsDictionary()))
+                throw new DataFormatException("Unexpected end of the stream");
+            out.write(chunk, 0, length);
+            if (out.size() > FrameCodec.MAX_PAYLOAD_LENGTH) throw new DataFormatException("Frame too long");
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Releases the memory of the decompressor, it can't be used anymore
+     */
+    public void end() {
+        inflater.end();
+    }
+}
@@ -0,0 +1,332 @@
+package it.polimi.ingsw.am37.network;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timer that keeps its timeouts in a hashed timing wheel: a circular array of buckets, each one collecting the timeouts
+ * that expire in the same tick. A single thread advances the wheel and expires the timeouts of the current bucket, so
+ * scheduling and cancelling are O(1) and don't need a thread each, at the cost of a precision of one tick. The expired
+ * tasks are run on an {@link Executor}, which means a task blocked on a socket doesn't stop the wheel.
+ */
+public class HashedWheelTimer {
+
+    /**
+     * Duration of a tick of the shared instance, in milliseconds
+     */
+    private static final long DEFAULT_TICK_MILLIS = 20;
+
+    /**
+     * Number of buckets of the shared instance, a full round covers about 10 seconds
+     */
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /**
+     * Maximum number of new timeouts moved into the wheel at each tick, so a burst doesn't delay the expiration
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    /**
+     * The process-wide instance
+     */
+    private static HashedWheelTimer instance;
+
+    /**
+     * Duration of a tick, in nanoseconds
+     */
+    private final long tickDuration;
+
+    /**
+     * The buckets of the wheel
+     */
+    private final Bucket[] wheel;
+
+    /**
+     * Mask used to find the bucket of a tick, the number of buckets is a power of two
+     */
+    private final int mask;
+
+    /**
+     * Timeouts scheduled but not yet moved into the wheel by the worker
+     */
+    private final ConcurrentLinkedQueue<Timeout> newTimeouts;
+
+    /**
+     * Number of timeouts neither expired nor cancelled
+     */
+    private final AtomicLong pendingTimeouts;
+
+    /**
+     * Runs the expired tasks
+     */
+    private final Executor taskExecutor;
+
+    /**
+     * Time the worker started, as given by {@link System#nanoTime()}; deadlines are relative to it
+     */
+    private final long startTime;
+
+    /**
+     * Number of ticks done by the worker, accessed only by the worker
+     */
+    private long tick;
+
+    /**
+     * @param tickDuration  duration of a tick
+     * @param unit          unit of the tick duration
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     * @param taskExecutor  executor used to run the expired tasks
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel, Executor taskExecutor) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0)
+            throw new IllegalArgumentException("Tick duration and ticks per wheel must be positive");
+        this.tickDuration = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) size <<= 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++)
+            wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.newTimeouts = new ConcurrentLinkedQueue<>();
+        this.pendingTimeouts = new AtomicLong(0);
+        this.taskExecutor = taskExecutor;
+        this.startTime = System.nanoTime();
+        this.tick = 0;
+        Thread worker = new Thread(this::work, "wheel-timer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * @return the timer shared by the whole process, created on first use
+     */
+    public static synchronized HashedWheelTimer getInstance() {
+        if (instance == null) {
+            AtomicInteger threadCount = new AtomicInteger(0);
+            ExecutorService taskExecutor = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "wheel-timer-task-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            instance = new HashedWheelTimer(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL,
+                    taskExecutor);
+        }
+        return instance;
+    }
+
+    /**
+     * Schedules a task to be run once after the given delay
+     *
+     * @param task  the task to run
+     * @param delay the delay
+     * @param unit  the unit of the delay
+     * @return a handle to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0));
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of scheduled timeouts which are neither expired nor cancelled
+     */
+    public long getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * Body of the worker: waits for each tick and expires the timeouts of its bucket
+     */
+    private void work() {
+        while (true) {
+            long deadline = tickDuration * (tick + 1);
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            transferTimeouts();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    /**
+     * Moves the new timeouts in their buckets
+     */
+    private void transferTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = newTimeouts.poll();
+            if (timeout == null) return;
+            if (timeout.isCancelled()) continue;
+            long expirationTick = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (expirationTick - tick) / wheel.length;
+            // a timeout already expired goes in the current bucket
+            wheel[(int) (Math.max(expirationTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Runs the task of an expired timeout
+     *
+     * @param timeout the expired timeout
+     */
+    private void expire(Timeout timeout) {
+        if (!timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) return;
+        pendingTimeouts.decrementAndGet();
+        taskExecutor.execute(timeout.task);
+    }
+
+    /**
+     * Handle of a task scheduled on a {@link HashedWheelTimer}
+     */
+    public static class Timeout {
+
+        /**
+         * State of a timeout waiting for its deadline
+         */
+        private static final int PENDING = 0;
+
+        /**
+         * State of a cancelled timeout
+         */
+        private static final int CANCELLED = 1;
+
+        /**
+         * State of a timeout whose task has been run
+         */
+        private static final int EXPIRED = 2;
+
+        /**
+         * The timer of the timeout
+         */
+        private final HashedWheelTimer timer;
+
+        /**
+         * The task to run
+         */
+        private final Runnable task;
+
+        /**
+         * Deadline of the timeout, relative to the start of the timer, in nanoseconds
+         */
+        private final long deadline;
+
+        /**
+         * State of the timeout
+         */
+        private final AtomicInteger state;
+
+        /**
+         * Rounds of the wheel still to wait, accessed only by the worker
+         */
+        private long remainingRounds;
+
+        /**
+         * Neighbours in the bucket, accessed only by the worker
+         */
+        private Timeout next, prev;
+
+        /**
+         * Default constructor
+         */
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(PENDING);
+        }
+
+        /**
+         * Cancels the task, if it hasn't been run yet. The timeout is removed from its bucket when the worker visits
+         * it
+         *
+         * @return true if the task won't be run because of this call
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) return false;
+            timer.pendingTimeouts.decrementAndGet();
+            return true;
+        }
+
+        /**
+         * @return true if the timeout has been cancelled
+         */
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * @return true if the task has been run, or handed to the executor to be run
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * A slot of the wheel: a doubly linked list of timeouts, accessed only by the worker
+     */
+    private class Bucket {
+
+        /**
+         * First and last timeout of the bucket
+         */
+        private Timeout head, tail;
+
+        /**
+         * @param timeout the timeout to append
+         */
+        private void add(Timeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * Expires the timeouts of the current round and removes the cancelled ones
+         */
+        private void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    HashedWheelTimer.this.expire(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        /**
+         * @param timeout the timeout to unlink
+         */
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            else tail = timeout.prev;
+            timeout.next = timeout.prev = null;
+        }
+    }
+}
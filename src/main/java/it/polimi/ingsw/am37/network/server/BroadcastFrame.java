@@ -0,0 +1,112 @@
+package it.polimi.ingsw.am37.network.server;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import it.polimi.ingsw.am37.message.BinaryCodec;
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.MessageCodec;
+import it.polimi.ingsw.am37.message.MessageType;
+import it.polimi.ingsw.am37.network.FrameCodec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message encoded once to be sent to many clients. The only part of a message that changes between the recipients
+ * is its UUID, so the message is serialized without it and each recipient gets a small envelope, the frame header and
+ * the beginning of the message with its own UUID, followed by the shared payload. The result is a frame in the
+ * format {@link FrameCodec#encode(Message, boolean)} would choose for the message with the recipient's UUID. The binary
+ * payload is created only when the first recipient using the binary format is found.
+ */
+public class BroadcastFrame {
+
+    /**
+     * Type of the encoded message
+     */
+    private final MessageType messageType;
+
+    /**
+     * The JSON tree of the message, without its UUID
+     */
+    private final JsonObject tree;
+
+    /**
+     * The JSON of the message without its UUID, in UTF-8 and without the opening brace
+     */
+    private final byte[] payload;
+
+    /**
+     * True if the payload can be sent in a classic frame
+     */
+    private final boolean classicPayload;
+
+    /**
+     * The fields of the message in the binary format, null until a recipient needs them
+     */
+    private BinaryCodec.EncodedFields binaryFields;
+
+    /**
+     * Encodes the message, its UUID is cleared
+     *
+     * @param message the message to send
+     */
+    public BroadcastFrame(Message message) {
+        this.messageType = message.getMessageType();
+        message.setUUID(null);
+        this.tree = MessageCodec.getInstance().toJsonTree(message);
+        // the message type is always present, so the object is never empty
+        String json = MessageCodec.getInstance().encode(tree).substring(1);
+        this.payload = json.getBytes(StandardCharsets.UTF_8);
+        this.classicPayload = FrameCodec.isClassic(json, payload.length);
+    }
+
+    /**
+     * @return the type of the encoded message
+     */
+    public MessageType getMessageType() {
+        return messageType;
+    }
+
+    /**
+     * @param binary true for the recipients using the binary format
+     * @return the part of the frame shared by all the recipients, it must not be modified
+     */
+    byte[] getPayload(boolean binary) {
+        return binary ? getBinaryFields().bytes() : payload;
+    }
+
+    /**
+     * @param UUID   the UUID of the recipient
+     * @param binary true if the recipient uses the binary format
+     * @return the beginning of the frame for the recipient, to be written before the payload
+     * @throws IllegalArgumentException if the frame is too long
+     */
+    byte[] envelopeFor(String UUID, boolean binary) {
+        byte[] head;
+        byte[] header;
+        if (binary) {
+            BinaryCodec.EncodedFields fields = getBinaryFields();
+            head = BinaryCodec.getInstance().encodeHead(UUID, fields.count());
+            header = FrameCodec.header(FrameCodec.FLAG_BINARY, head.length + fields.bytes().length);
+        } else {
+            String opening = UUID == null ? "{" : "{\"UUID\":" + new JsonPrimitive(UUID) + ",";
+            head = opening.getBytes(StandardCharsets.UTF_8);
+            int length = head.length + payload.length;
+            if (classicPayload && FrameCodec.isClassic(opening, length))
+                header = new byte[]{(byte) (length >>> 8), (byte) length};
+            else
+                header = FrameCodec.header(0, length);
+        }
+        byte[] envelope = new byte[header.length + head.length];
+        System.arraycopy(header, 0, envelope, 0, header.length);
+        System.arraycopy(head, 0, envelope, header.length, head.length);
+        return envelope;
+    }
+
+    /**
+     * @return the fields of the message in the binary format
+     */
+    private synchronized BinaryCodec.EncodedFields getBinaryFields() {
+        if (binaryFields == null) binaryFields = BinaryCodec.getInstance().encodeFields(tree);
+        return binaryFields;
+    }
+}
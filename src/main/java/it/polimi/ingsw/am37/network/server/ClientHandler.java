@@ -1,66 +1,62 @@
 package it.polimi.ingsw.am37.network.server;
 
-import com.google.gson.JsonParseException;
 import it.polimi.ingsw.am37.message.Message;
-import it.polimi.ingsw.am37.message.MessageGsonBuilder;
-import it.polimi.ingsw.am37.message.MessageType;
+import it.polimi.ingsw.am37.network.FrameCodec;
+import it.polimi.ingsw.am37.network.FrameDeflater;
 import it.polimi.ingsw.am37.network.MessageReceiver;
 import it.polimi.ingsw.am37.network.exceptions.InternetException;
 
-import java.io.*;
-import java.net.Socket;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * This is the counterpart of client in server
+ * This is the counterpart of client in server: it sends the messages to the client and hands the ones received to its
+ * {@link MessageReceiver}. The messages are encoded and compressed here, how the frames reach the client is up to the
+ * transport.
  */
-public class ClientHandler implements Runnable {
-    /**
-     * Flag for disable disconnection when ping timeout fails on debug
-     */
-    private final static boolean debug_disableTimers = false;
+public abstract class ClientHandler {
 
     /**
-     * Input stream
+     * Payload of the frames entirely contained in their envelope
      */
-    private InputStream inputStream;
+    protected final static byte[] NO_PAYLOAD = new byte[0];
 
     /**
-     * Output stream
+     * It's the recipient of client's messages: it can be the "central" server or a lobby
      */
-    private OutputStream outputStream;
+    private MessageReceiver messageReceiver;
 
     /**
-     * DataInput stream used for reading messages
+     * True if the messages are sent to the client in the binary format, as negotiated at login
      */
-    private DataInputStream dataInputStream;
+    private volatile boolean binaryFrames = false;
 
     /**
-     * DataOutput stream used for sending messages
+     * Compressor of the frames sent to the client, null if the client doesn't support compression
      */
-    private DataOutputStream dataOutputStream;
+    private FrameDeflater deflater;
 
     /**
-     * It's the recipient of client's messages: it can be the "central" server or a lobby
+     * Keeps the frames in the same order in the compression stream and in the outbound queue; a lock is used instead
+     * of the monitor because a virtual thread waiting on a monitor would hold its carrier thread.
      */
-    private MessageReceiver messageReceiver;
+    private final ReentrantLock sendLock;
 
     /**
-     * It's the socket connected to the handler
+     * Counts the bytes sent to the client, null if they aren't counted
      */
-    private final Socket clientSocket;
+    private volatile TrafficCounter trafficCounter;
 
     /**
-     * A boolean value which represents the state of connection
+     * UUID of the client
      */
-    private boolean connectedToClient;
+    private String UUID = null;
 
     /**
-     * UUID of the client
+     * Default Constructor
      */
-    private String UUID = null;
+    protected ClientHandler() {
+        this.sendLock = new ReentrantLock();
+    }
 
     /**
      * @return client UUID
@@ -74,18 +70,39 @@ public class ClientHandler implements Runnable {
     }
 
     /**
-     * Default Constructor
+     * @return true if the messages are sent to the client in the binary format
      */
-    public ClientHandler(Socket clientSocket) {
-        this.clientSocket = clientSocket;
-        this.connectedToClient = true;
+    public boolean isBinaryFrames() {
+        return binaryFrames;
     }
 
     /**
-     * @return If the clientHandler is connected to its client
+     * @param binaryFrames true to send the following messages in the binary format, the client must support it
      */
-    public boolean isConnectedToClient() {
-        return this.connectedToClient;
+    public void setBinaryFrames(boolean binaryFrames) {
+        this.binaryFrames = binaryFrames;
+    }
+
+    /**
+     * @param compression true to compress the following frames longer than {@link FrameDeflater#DEFAULT_THRESHOLD},
+     *                    the client must support it
+     */
+    public void setCompression(boolean compression) {
+        sendLock.lock();
+        try {
+            if (compression && deflater == null && isConnectedToClient())
+                deflater = new FrameDeflater(FrameDeflater.DEFAULT_THRESHOLD);
+            else if (!compression) releaseCompression();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * @param trafficCounter counts the bytes sent to the client from now on, null to stop counting them
+     */
+    public void setTrafficCounter(TrafficCounter trafficCounter) {
+        this.trafficCounter = trafficCounter;
     }
 
     /**
@@ -96,162 +113,120 @@ public class ClientHandler implements Runnable {
     }
 
     /**
-     * @param message To be sent to its client
-     * @throws InternetException Thrown when connection is failed
+     * @return the current recipient of client's messages
      */
-    @SuppressWarnings({"Convert2Lambda", "unchecked", "rawtypes"})
-    public void sendMessageToClient(Message message) throws InternetException {
-        message.setUUID(UUID);
-        String json = new MessageGsonBuilder().registerMessageAdapter().registerStudentContainerAdapter().registerUpdatableObjectAdapter().getGsonBuilder().create().toJson(message);
-        ExecutorService service = Executors.newSingleThreadExecutor();
-        try {
-            Callable<Object> r = new Callable() {
-                @Override
-                public Object call() throws IOException {
-                    dataOutputStream.writeUTF(json);
-                    dataOutputStream.flush();
-                    return null;
-                }
-            };
-            Future<?> f = service.submit(r);
-            f.get(5, TimeUnit.SECONDS);
-        } catch (final InterruptedException | ExecutionException | TimeoutException e) {
-            disconnect();
-            throw new InternetException();
-        } finally {
-            service.shutdown();
-        }
+    protected MessageReceiver getMessageReceiver() {
+        return messageReceiver;
     }
 
     /**
-     * Additional thread used to listen messages from the client
+     * @return If the clientHandler is connected to its client
      */
-    @Override
-    public void run() {
-        Message message;
-        setInputAndOutput();
+    public abstract boolean isConnectedToClient();
 
-        while (connectedToClient) {
-            try {
-                message = readMessage();
-            } catch (InternetException e) {
-                return;
-            }
-            if (message.getMessageType() == MessageType.PING)
-                try {
-                    sendMessageToClient(message);
-                } catch (InternetException e) {
-                    return;
-                }
-            else {
-                try {
-                    messageReceiver.onMessageReceived(message, this);
-                } catch (InternetException e) {
-                    return;
-                }
-            }
-        }
-    }
+    /**
+     * Set there isn't connection with client and closes it; the message receiver is notified only by the first call
+     */
+    public abstract void disconnect();
 
     /**
-     * Set there isn't connection with client and tries to close the socket
+     * Encodes the message and queues it to be sent
+     *
+     * @param message To be sent to its client
+     * @throws InternetException Thrown when connection is failed or when a previous message hasn't been delivered in
+     *                           time
      */
-    public void disconnect() {
-        this.connectedToClient = false;
-        messageReceiver.onDisconnect(UUID);
+    public void sendMessageToClient(Message message) throws InternetException {
+        message.setUUID(UUID);
+        byte[] frame;
         try {
-            dataInputStream.close();
-            dataOutputStream.close();
-            inputStream.close();
-            outputStream.close();
-            clientSocket.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+            frame = FrameCodec.encode(message, binaryFrames);
+        } catch (IllegalArgumentException e) {
+            disconnect();
+            throw new InternetException();
         }
+        sendFrame(frame, NO_PAYLOAD);
     }
 
     /**
-     * Create clientHandler's OutputStream
+     * Sends a message encoded once for many clients, only the envelope with the UUID of this client is created
+     *
+     * @param frame the encoded message
+     * @throws InternetException Thrown when connection is failed or when a previous message hasn't been delivered in
+     *                           time
      */
-    private void setOutput() {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                disconnect();
-            }
-        }, 5000);
+    public void sendFrameToClient(BroadcastFrame frame) throws InternetException {
+        boolean binary = binaryFrames;
+        byte[] envelope;
         try {
-            outputStream = clientSocket.getOutputStream();
-            dataOutputStream = new DataOutputStream(outputStream);
-            timer.cancel();
-        } catch (IOException e) {
+            envelope = frame.envelopeFor(UUID, binary);
+        } catch (IllegalArgumentException e) {
             disconnect();
+            throw new InternetException();
         }
+        sendFrame(envelope, frame.getPayload(binary));
     }
 
     /**
-     * Create clientHandler's InputStream
+     * Compresses the frame if the client supports it, counts its bytes and queues it
+     *
+     * @param envelope the beginning of the frame
+     * @param payload  the rest of the frame, possibly shared with other clients
+     * @throws InternetException Thrown when connection is failed or when a previous message hasn't been delivered in
+     *                           time
      */
-    private void setInput() {
-        Timer timer = new Timer();
-
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                disconnect();
-            }
-        }, 5000);
-
+    private void sendFrame(byte[] envelope, byte[] payload) throws InternetException {
+        checkCanSend();
+        boolean failed = false;
+        sendLock.lock();
         try {
-            inputStream = clientSocket.getInputStream();
-            dataInputStream = new DataInputStream(inputStream);
-            timer.cancel();
-        } catch (IOException e) {
+            byte[] compressed = deflater == null ? null : deflater.deflate(envelope, payload);
+            TrafficCounter counter = trafficCounter;
+            if (counter != null)
+                counter.record(envelope.length + payload.length,
+                        compressed == null ? envelope.length + payload.length : compressed.length, compressed != null);
+            if (compressed == null)
+                queueFrame(envelope, payload);
+            else
+                queueFrame(compressed, NO_PAYLOAD);
+        } catch (IllegalArgumentException e) {
+            failed = true;
+        } finally {
+            sendLock.unlock();
+        }
+        if (failed) {
             disconnect();
+            throw new InternetException();
         }
     }
 
     /**
-     * Create streams for clientHandler
+     * Checks, before a frame is queued, that it can still be delivered
+     *
+     * @throws InternetException if the client has been disconnected
      */
-    private void setInputAndOutput() {
-        setInput();
-        setOutput();
+    protected void checkCanSend() throws InternetException {
+        if (!isConnectedToClient()) throw new InternetException();
     }
 
     /**
-     * @return Message received from client
-     * @throws InternetException If connection is failed
+     * Queues a frame, ready to be sent, to be written to the client
+     *
+     * @param envelope the beginning of the frame
+     * @param payload  the rest of the frame, possibly shared with other clients
+     */
+    protected abstract void queueFrame(byte[] envelope, byte[] payload);
+
+    /**
+     * Stops the compression and releases the memory of the compressor
      */
-    @SuppressWarnings({"Convert2Lambda", "unchecked", "rawtypes"})
-    private Message readMessage() throws InternetException {
-        ExecutorService service = Executors.newSingleThreadExecutor();
+    protected void releaseCompression() {
+        sendLock.lock();
         try {
-            Callable<Message> r = new Callable() {
-                @Override
-                public Message call() throws IOException {
-                    Message message = null;
-                    String json = dataInputStream.readUTF();
-                    try {
-                        message = new MessageGsonBuilder().registerMessageAdapter().registerStudentContainerAdapter().getGsonBuilder().create().fromJson(json, Message.class);
-                    } catch (JsonParseException e) {
-                        disconnect();
-                    }
-                    if (UUID == null)
-                        UUID = message.getUUID();
-                    return message;
-                }
-            };
-            Future<Message> messageFuture = service.submit(r);
-            messageFuture.get(5, TimeUnit.SECONDS);
-            return messageFuture.get();
-        } catch (final InterruptedException | ExecutionException | TimeoutException e) {
-            if (!debug_disableTimers) disconnect();
-            throw new InternetException();
+            if (deflater != null) deflater.end();
+            deflater = null;
         } finally {
-            service.shutdown();
+            sendLock.unlock();
         }
-
     }
 }
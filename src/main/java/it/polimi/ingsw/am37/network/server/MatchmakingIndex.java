@@ -0,0 +1,183 @@
+package it.polimi.ingsw.am37.network.server;
+
+import it.polimi.ingsw.am37.controller.Lobby;
+import it.polimi.ingsw.am37.controller.LobbyState;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of the lobbies of the server. The lobbies still waiting for players are indexed by their size and mode,
+ * so a player is assigned to a lobby without looking at the running games, and every player is mapped to its lobby,
+ * so a reconnecting client finds its game at once. The index is used by the threads of all the connections without
+ * a global lock: the assignments to lobbies of the same size and mode are serialized by the lock of their shard, while
+ * the other maps are concurrent. Locks are used instead of monitors because a virtual thread waiting on a monitor would
+ * hold its carrier thread.
+ */
+class MatchmakingIndex {
+
+    /**
+     * The lobbies waiting for players, by size and mode
+     */
+    private final ConcurrentHashMap<LobbyKind, Shard> joinableLobbies;
+
+    /**
+     * All the lobbies not closed yet, by match ID
+     */
+    private final ConcurrentSkipListMap<Integer, Lobby> activeLobbies;
+
+    /**
+     * The lobby of every player, connected or not, by UUID
+     */
+    private final ConcurrentHashMap<String, Lobby> lobbyByPlayer;
+
+    /**
+     * Default constructor
+     */
+    MatchmakingIndex() {
+        this.joinableLobbies = new ConcurrentHashMap<>();
+        this.activeLobbies = new ConcurrentSkipListMap<>();
+        this.lobbyByPlayer = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a lobby rebuilt from its journal, its game has already started so it isn't joinable; its players can come
+     * back to it
+     *
+     * @param lobby the rebuilt lobby
+     */
+    void restore(Lobby lobby) {
+        activeLobbies.put(lobby.getMatchID(), lobby);
+        for (String UUID : lobby.getPlayerNicknames().keySet())
+            lobbyByPlayer.put(UUID, lobby);
+    }
+
+    /**
+     * Adds the player to the oldest lobby waiting for players with the given size and mode, or to a new lobby if
+     * there isn't any. A lobby stops being joinable as soon as it's full or starts closing; a lobby which starts
+     * closing before it adds the player refuses it, and the player is assigned again. The seat is taken under the lock
+     * of the shard, while the lobby is waited for without it, since the closing lobby takes the lock to leave the shard
+     *
+     * @param UUID         the UUID of the player
+     * @param ch           the ClientHandler of the player
+     * @param nickname     the nickname of the player
+     * @param lobbySize    the desired size of the lobby
+     * @param advancedMode the desired mode of the lobby
+     * @param newLobby     creates a lobby with the given size and mode, when none is joinable
+     * @return the lobby joined by the player
+     */
+    Assignment join(String UUID, ClientHandler ch, String nickname, int lobbySize, boolean advancedMode,
+                    Supplier<Lobby> newLobby) {
+        Shard shard = joinableLobbies.computeIfAbsent(new LobbyKind(lobbySize, advancedMode), kind -> new Shard());
+        while (true) {
+            Lobby lobby;
+            boolean created;
+            CompletableFuture<Boolean> added;
+            shard.lock.lock();
+            try {
+                lobby = shard.lobbies.peekFirst();
+                while (lobby != null && lobby.getState() != LobbyState.OPEN) {
+                    shard.lobbies.pollFirst();
+                    lobby = shard.lobbies.peekFirst();
+                }
+                created = lobby == null;
+                if (created) {
+                    lobby = newLobby.get();
+                    activeLobbies.put(lobby.getMatchID(), lobby);
+                    shard.lobbies.addLast(lobby);
+                }
+                added = lobby.addPlayerInLobby(UUID, ch, nickname);
+                if (lobby.isGameReady()) shard.lobbies.remove(lobby);
+            } finally {
+                shard.lock.unlock();
+            }
+            if (added.join()) {
+                lobbyByPlayer.put(UUID, lobby);
+                return new Assignment(lobby, created);
+            }
+        }
+    }
+
+    /**
+     * Stops assigning players to a lobby which has started closing
+     *
+     * @param lobby the closing lobby
+     */
+    void retire(Lobby lobby) {
+        Shard shard = joinableLobbies.get(new LobbyKind(lobby.getLobbySize(), lobby.isAdvancedMode()));
+        if (shard == null) return;
+        shard.lock.lock();
+        try {
+            shard.lobbies.remove(lobby);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * @param UUID the UUID of a player, possibly null
+     * @return the lobby of the player, null if the player isn't in any lobby
+     */
+    Lobby lobbyOf(String UUID) {
+        return UUID == null ? null : lobbyByPlayer.get(UUID);
+    }
+
+    /**
+     * Removes a closed lobby and its players from the index
+     *
+     * @param lobby the closed lobby
+     */
+    void remove(Lobby lobby) {
+        if (activeLobbies.remove(lobby.getMatchID()) == null) return;
+        retire(lobby);
+        for (String UUID : lobby.getPlayerNicknames().keySet())
+            lobbyByPlayer.remove(UUID, lobby);
+    }
+
+    /**
+     * @return the match IDs of the lobbies not closed yet, in order of creation
+     */
+    List<Integer> getActiveMatchIDs() {
+        return new ArrayList<>(activeLobbies.keySet());
+    }
+
+    /**
+     * The lobbies waiting for players with the same size and mode, in order of creation
+     */
+    private static class Shard {
+
+        /**
+         * Serializes the assignments to these lobbies
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * The lobbies, the oldest first
+         */
+        private final ArrayDeque<Lobby> lobbies = new ArrayDeque<>();
+    }
+
+    /**
+     * The size and the mode shared by the lobbies a player can join
+     *
+     * @param lobbySize    the number of players of the lobby
+     * @param advancedMode true if the lobby is in advanced mode
+     */
+    private record LobbyKind(int lobbySize, boolean advancedMode) {
+    }
+
+    /**
+     * The result of {@link MatchmakingIndex#join}
+     *
+     * @param lobby   the lobby joined by the player
+     * @param created true if the lobby has been created for the player, it still has to be started
+     */
+    record Assignment(Lobby lobby, boolean created) {
+    }
+}
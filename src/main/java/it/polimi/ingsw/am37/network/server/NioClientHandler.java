@@ -0,0 +1,341 @@
+package it.polimi.ingsw.am37.network.server;
+
+import com.google.gson.JsonParseException;
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.MessageType;
+import it.polimi.ingsw.am37.network.FrameCodec;
+import it.polimi.ingsw.am37.network.MessageReceiver;
+import it.polimi.ingsw.am37.network.exceptions.InternetException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Counterpart of the client in the server when the {@link TransportMode#NIO} mode is used. Unlike
+ * {@link SocketClientHandler} it doesn't own any thread: the socket is polled by a {@link NioReactor}, which frames the incoming bytes, while the
+ * decoded messages are handed to the {@link MessageReceiver} on a shared, bounded dispatcher, one at a time and in the
+ * same order they have been read. The wire format is the same of {@link SocketClientHandler}, described by {@link FrameCodec}.
+ */
+public class NioClientHandler extends ClientHandler {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(NioClientHandler.class);
+
+    /**
+     * Maximum time, in milliseconds, the client can stay silent or a message can wait to be written before the
+     * connection is considered lost
+     */
+    static final long TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Initial capacity of the buffer used to accumulate the incoming frames, it grows when a bigger frame arrives
+     */
+    private static final int INITIAL_READ_BUFFER_SIZE = 512;
+
+    /**
+     * Maximum number of queued frames written to the socket with a single gathering write
+     */
+    private static final int MAX_GATHERED_FRAMES = 16;
+
+    /**
+     * The channel connected to the client
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The reactor that polls the channel
+     */
+    private final NioReactor reactor;
+
+    /**
+     * The executor that runs the tasks of the {@link NioClientHandler#inbox}
+     */
+    private final Executor dispatcher;
+
+    /**
+     * Messages and events waiting to be delivered to the message receiver, in order of arrival
+     */
+    private final ConcurrentLinkedQueue<Runnable> inbox;
+
+    /**
+     * True when a task that drains the inbox is scheduled or running on the dispatcher
+     */
+    private final AtomicBoolean draining;
+
+    /**
+     * Encoded frames waiting to be written to the channel
+     */
+    private final ConcurrentLinkedQueue<PendingFrame> outbound;
+
+    /**
+     * A boolean value which represents the state of connection
+     */
+    private final AtomicBoolean connected;
+
+    /**
+     * Buffer that accumulates the bytes read until a whole frame is available; accessed only by the reactor
+     */
+    private ByteBuffer readBuffer;
+
+    /**
+     * The registration of the channel in the reactor's selector
+     */
+    private SelectionKey key;
+
+    /**
+     * Time of the last read, as given by {@link System#nanoTime()}
+     */
+    private volatile long lastReadTime;
+
+    /**
+     * Default constructor
+     *
+     * @param channel    the channel connected to the client, already in non-blocking mode
+     * @param reactor    the reactor that will poll the channel
+     * @param dispatcher the executor used to deliver messages to the message receiver
+     */
+    public NioClientHandler(SocketChannel channel, NioReactor reactor, Executor dispatcher) {
+        this.channel = channel;
+        this.reactor = reactor;
+        this.dispatcher = dispatcher;
+        this.inbox = new ConcurrentLinkedQueue<>();
+        this.draining = new AtomicBoolean(false);
+        this.outbound = new ConcurrentLinkedQueue<>();
+        this.connected = new AtomicBoolean(true);
+        this.readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+        this.lastReadTime = System.nanoTime();
+    }
+
+    /**
+     * @return If the clientHandler is connected to its client
+     */
+    @Override
+    public boolean isConnectedToClient() {
+        return connected.get() && channel.isOpen();
+    }
+
+    /**
+     * Queues a frame, ready to be sent, to be written by the reactor
+     *
+     * @param envelope the beginning of the frame
+     * @param payload  the rest of the frame, possibly shared with other clients
+     */
+    @Override
+    protected void queueFrame(byte[] envelope, byte[] payload) {
+        outbound.add(new PendingFrame(ByteBuffer.wrap(envelope), ByteBuffer.wrap(payload), System.nanoTime()));
+        reactor.requestWrite(this);
+    }
+
+    /**
+     * Set there isn't connection with client and closes the channel; the message receiver is notified only once
+     */
+    @Override
+    public void disconnect() {
+        if (!connected.compareAndSet(true, false)) return;
+        MessageReceiver messageReceiver = getMessageReceiver();
+        if (messageReceiver != null) messageReceiver.onDisconnect(getUUID());
+        closeChannel();
+        releaseCompression();
+    }
+
+    /**
+     * @return the channel connected to the client
+     */
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * @param key the registration of the channel in the reactor's selector
+     */
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * @return the registration of the channel in the reactor's selector
+     */
+    SelectionKey getKey() {
+        return key;
+    }
+
+    /**
+     * Called by the reactor when the channel is readable: reads everything available and dispatches every complete
+     * frame
+     */
+    void onReadable() {
+        int read;
+        try {
+            do {
+                read = channel.read(readBuffer);
+                if (read > 0) lastReadTime = System.nanoTime();
+                extractFrames();
+            } while (read > 0);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) onConnectionLost();
+    }
+
+    /**
+     * Called by the reactor when the channel is writable: writes as many queued frames as possible with a single
+     * gathering write
+     *
+     * @return true if every queued frame has been written
+     */
+    boolean onWritable() {
+        try {
+            while (!outbound.isEmpty()) {
+                ByteBuffer[] buffers = new ByteBuffer[2 * MAX_GATHERED_FRAMES];
+                int count = 0;
+                for (PendingFrame frame : outbound) {
+                    buffers[count++] = frame.envelope();
+                    buffers[count++] = frame.payload();
+                    if (count == buffers.length) break;
+                }
+                if (count == 0) break;
+                channel.write(buffers, 0, count);
+                for (int i = 0; i < count && !buffers[i].hasRemaining() && !buffers[i + 1].hasRemaining(); i += 2)
+                    outbound.poll();
+                if (buffers[count - 2].hasRemaining() || buffers[count - 1].hasRemaining()) return false;
+            }
+        } catch (IOException e) {
+            onConnectionLost();
+        }
+        return true;
+    }
+
+    /**
+     * Called periodically by the reactor, it drops the connection when the client has been silent for too long or
+     * when a queued message can't be delivered in time
+     *
+     * @param now the current time, as given by {@link System#nanoTime()}
+     */
+    void checkTimeouts(long now) {
+        PendingFrame oldest = outbound.peek();
+        if (now - lastReadTime > TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS) ||
+                (oldest != null && now - oldest.enqueuedAt() > TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS)))
+            onConnectionLost();
+    }
+
+    /**
+     * Closes the channel immediately and notifies the message receiver after any message still in the inbox
+     */
+    void onConnectionLost() {
+        closeChannel();
+        dispatch(this::disconnect);
+    }
+
+    /**
+     * Closes the channel and removes it from the reactor
+     */
+    private void closeChannel() {
+        try {
+            if (key != null) key.cancel();
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.error("Error while closing the connection of " + getUUID() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes every complete frame in the read buffer and makes room for the next one
+     */
+    private void extractFrames() throws IOException {
+        readBuffer.flip();
+        int frameSize;
+        while ((frameSize = FrameCodec.frameLength(readBuffer)) >= 0 && readBuffer.remaining() >= frameSize) {
+            byte[] frame = new byte[frameSize];
+            readBuffer.get(frame);
+            onFrame(frame);
+        }
+        readBuffer.compact();
+        if (frameSize > readBuffer.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(frameSize);
+            readBuffer.flip();
+            bigger.put(readBuffer);
+            readBuffer = bigger;
+        }
+    }
+
+    /**
+     * Decodes a frame and queues the resulting message in the inbox
+     *
+     * @param frame the frame, header included
+     */
+    private void onFrame(byte[] frame) {
+        Message message;
+        try {
+            message = FrameCodec.decode(frame);
+        } catch (JsonParseException e) {
+            LOGGER.error("Received a malformed message from " + getUUID());
+            onConnectionLost();
+            return;
+        }
+        if (getUUID() == null) setUUID(message.getUUID());
+        dispatch(() -> onMessage(message));
+    }
+
+    /**
+     * Delivers a message to the message receiver, ping messages are sent back to the client
+     *
+     * @param message the received message
+     */
+    private void onMessage(Message message) {
+        if (!isConnectedToClient()) return;
+        try {
+            if (message.getMessageType() == MessageType.PING)
+                sendMessageToClient(message);
+            else
+                getMessageReceiver().onMessageReceived(message, this);
+        } catch (InternetException ignored) {
+            // the connection has already been closed by whoever raised it
+        } catch (RuntimeException e) {
+            LOGGER.error("Error while handling " + message.getMessageType() + " of " + getUUID() + ": " + e);
+            disconnect();
+        }
+    }
+
+    /**
+     * Queues a task in the inbox and makes sure a drain of the inbox is scheduled on the dispatcher
+     *
+     * @param task the task to run
+     */
+    private void dispatch(Runnable task) {
+        inbox.add(task);
+        if (draining.compareAndSet(false, true))
+            dispatcher.execute(this::drainInbox);
+    }
+
+    /**
+     * Runs all the tasks in the inbox, one at a time
+     */
+    private void drainInbox() {
+        Runnable task;
+        while ((task = inbox.poll()) != null)
+            task.run();
+        draining.set(false);
+        if (!inbox.isEmpty() && draining.compareAndSet(false, true))
+            dispatcher.execute(this::drainInbox);
+    }
+
+    /**
+     * A frame waiting to be written, the envelope followed by the payload
+     *
+     * @param envelope   the beginning of the frame
+     * @param payload    the rest of the frame, its array may be shared with other clients
+     * @param enqueuedAt the time the frame has been queued, as given by {@link System#nanoTime()}
+     */
+    private record PendingFrame(ByteBuffer envelope, ByteBuffer payload, long enqueuedAt) {
+    }
+}
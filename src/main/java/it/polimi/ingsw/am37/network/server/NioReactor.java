@@ -0,0 +1,159 @@
+package it.polimi.ingsw.am37.network.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An I/O thread of the {@link NioServer}. Each reactor owns a {@link Selector} and polls every channel registered to it,
+ * reading and writing frames on behalf of their {@link NioClientHandler}. Registrations and write requests coming from
+ * other threads are queued and applied by the reactor itself, so the selector is only touched by its thread.
+ */
+public class NioReactor implements Runnable {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(NioReactor.class);
+
+    /**
+     * Interval, in milliseconds, between two checks of the connections' timeouts
+     */
+    private static final long TIMEOUT_CHECK_INTERVAL = 1000;
+
+    /**
+     * The selector polled by this reactor
+     */
+    private final Selector selector;
+
+    /**
+     * Handlers waiting to be registered in the selector
+     */
+    private final ConcurrentLinkedQueue<NioClientHandler> registrations;
+
+    /**
+     * Handlers which have queued some frames to write
+     */
+    private final ConcurrentLinkedQueue<NioClientHandler> writeRequests;
+
+    /**
+     * Flag to keep the reactor running
+     */
+    private volatile boolean running;
+
+    /**
+     * Default constructor
+     *
+     * @throws IOException if the selector can't be opened
+     */
+    public NioReactor() throws IOException {
+        this.selector = Selector.open();
+        this.registrations = new ConcurrentLinkedQueue<>();
+        this.writeRequests = new ConcurrentLinkedQueue<>();
+        this.running = true;
+    }
+
+    /**
+     * Queues a handler to be registered in this reactor
+     *
+     * @param handler the handler of a new connection
+     */
+    public void register(NioClientHandler handler) {
+        registrations.add(handler);
+        selector.wakeup();
+    }
+
+    /**
+     * Signals that the handler has some frames to write
+     *
+     * @param handler the handler with queued frames
+     */
+    void requestWrite(NioClientHandler handler) {
+        writeRequests.add(handler);
+        selector.wakeup();
+    }
+
+    /**
+     * Stops the reactor and closes its selector
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Polls the registered channels until the reactor is shut down
+     */
+    @Override
+    public void run() {
+        long lastTimeoutCheck = System.nanoTime();
+        while (running) {
+            try {
+                selector.select(TIMEOUT_CHECK_INTERVAL);
+            } catch (IOException e) {
+                LOGGER.error("Selector failure: " + e.getMessage());
+                break;
+            }
+            processRegistrations();
+            processWriteRequests();
+            Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+            while (iterator.hasNext()) {
+                SelectionKey key = iterator.next();
+                iterator.remove();
+                NioClientHandler handler = (NioClientHandler) key.attachment();
+                if (key.isValid() && key.isReadable()) handler.onReadable();
+                if (key.isValid() && key.isWritable() && handler.onWritable())
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+            long now = System.nanoTime();
+            if (now - lastTimeoutCheck >= TimeUnit.MILLISECONDS.toNanos(TIMEOUT_CHECK_INTERVAL)) {
+                lastTimeoutCheck = now;
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid()) ((NioClientHandler) key.attachment()).checkTimeouts(now);
+                }
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.error("Error while closing the selector: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registers the queued handlers for reading
+     */
+    private void processRegistrations() {
+        NioClientHandler handler;
+        while ((handler = registrations.poll()) != null) {
+            try {
+                handler.setKey(handler.getChannel().register(selector, SelectionKey.OP_READ, handler));
+            } catch (ClosedChannelException e) {
+                handler.onConnectionLost();
+            }
+        }
+    }
+
+    /**
+     * Enables the write interest of the handlers with queued frames
+     */
+    private void processWriteRequests() {
+        NioClientHandler handler;
+        while ((handler = writeRequests.poll()) != null) {
+            SelectionKey key = handler.getKey();
+            if (key == null) {
+                // not registered yet, the request is retried on the next loop
+                if (handler.getChannel().isOpen()) writeRequests.add(handler);
+                break;
+            }
+            if (key.isValid()) key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+}
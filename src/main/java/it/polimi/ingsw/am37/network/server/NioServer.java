@@ -0,0 +1,110 @@
+package it.polimi.ingsw.am37.network.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Transport of the {@link Server} built on non-blocking channels. An acceptor thread accepts the connections and
+ * spreads them over a small fixed pool of {@link NioReactor}s, which do all the I/O. The decoded messages are delivered
+ * to the {@link it.polimi.ingsw.am37.network.MessageReceiver}s on a shared dispatcher with as many threads as the
+ * reactors, so the threads don't grow with the connections: a connection consumes one only while one of its messages is
+ * being handled.
+ */
+public class NioServer {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(NioServer.class);
+
+    /**
+     * The server that receives the new connections
+     */
+    private final Server server;
+
+    /**
+     * The I/O threads
+     */
+    private final NioReactor[] reactors;
+
+    /**
+     * The fixed pool that delivers the messages to their receivers
+     */
+    private final ExecutorService dispatcher;
+
+    /**
+     * Index of the reactor that will receive the next connection
+     */
+    private int nextReactor;
+
+    /**
+     * Default constructor
+     *
+     * @param server    the server that receives the new connections
+     * @param ioThreads the number of reactors to use, and of threads delivering the messages
+     * @throws IOException if the selectors can't be opened
+     */
+    public NioServer(Server server, int ioThreads) throws IOException {
+        this.server = server;
+        this.reactors = new NioReactor[ioThreads];
+        for (int i = 0; i < ioThreads; i++)
+            reactors[i] = new NioReactor();
+        this.dispatcher = Executors.newFixedThreadPool(ioThreads,
+                Thread.ofPlatform().name("nio-dispatcher-", 0).factory());
+        this.nextReactor = 0;
+    }
+
+    /**
+     * Starts the reactors and the acceptor thread on the given port
+     *
+     * @param serverPort the port to listen to
+     * @throws IOException if the port can't be bound
+     */
+    public void start(int serverPort) throws IOException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(serverPort));
+        for (int i = 0; i < reactors.length; i++)
+            new Thread(reactors[i], "nio-reactor-" + i).start();
+        new Thread(() -> accept(serverChannel), "nio-acceptor").start();
+        LOGGER.info("Awaiting connections on " + reactors.length + " I/O threads...");
+    }
+
+    /**
+     * Accepts the connections until the channel is closed
+     *
+     * @param serverChannel the channel bound to the server port
+     */
+    private void accept(ServerSocketChannel serverChannel) {
+        try (serverChannel) {
+            while (serverChannel.isOpen()) {
+                try {
+                    SocketChannel channel = serverChannel.accept();
+                    LOGGER.info("Connection from " + channel.getRemoteAddress() + "!");
+                    channel.configureBlocking(false);
+                    NioReactor reactor = reactors[nextReactor];
+                    nextReactor = (nextReactor + 1) % reactors.length;
+                    NioClientHandler ch = new NioClientHandler(channel, reactor, dispatcher);
+                    ch.setMessageReceiver(server);
+                    reactor.register(ch);
+                    server.onClientConnected(ch);
+                } catch (IOException e) {
+                    LOGGER.error("Error encountered while trying to connect");
+                    LOGGER.error(e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+        } finally {
+            for (NioReactor reactor : reactors)
+                reactor.shutdown();
+            dispatcher.shutdown();
+        }
+    }
+}
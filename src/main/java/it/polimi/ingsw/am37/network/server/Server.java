@@ -1,7 +1,14 @@
 package it.polimi.ingsw.am37.network.server;
 
+import it.polimi.ingsw.am37.bot.Difficulty;
 import it.polimi.ingsw.am37.controller.Lobby;
+import it.polimi.ingsw.am37.controller.LobbyScheduler;
+import it.polimi.ingsw.am37.controller.LobbyStateCounter;
+import it.polimi.ingsw.am37.controller.journal.GameJournal;
+import it.polimi.ingsw.am37.controller.journal.JournalWriter;
+import it.polimi.ingsw.am37.controller.journal.MappedJournalStore;
 import it.polimi.ingsw.am37.message.*;
+import it.polimi.ingsw.am37.network.HashedWheelTimer;
 import it.polimi.ingsw.am37.network.MessageReceiver;
 import it.polimi.ingsw.am37.network.exceptions.InternetException;
 import org.apache.logging.log4j.Level;
@@ -11,10 +18,10 @@ import org.apache.logging.log4j.Logger;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * It represents the Server that manage Players login and game Lobbies.
@@ -26,58 +33,134 @@ public class Server implements MessageReceiver {
      */
     public static Server server;
 
+    /**
+     * The directory of the journals of the games
+     */
+    private static final Path JOURNAL_DIRECTORY = Path.of("journal");
+
     /**
      * A Logger.
      */
     private static Logger LOGGER;
 
     /**
-     * Associates the UUID of the Client with the ClientHandler.
+     * Keeps the nickname and the ClientHandler of every Client logged in.
      */
-    private static HashMap<String, ClientHandler> clientHandlerMap;
+    private static SessionRegistry sessions;
 
     /**
-     * List to keep track of active Lobbies.
+     * Keeps track of the active Lobbies, of the ones waiting for players and of the Lobby of each player.
      */
-    private static ArrayList<Lobby> activeLobbies;
+    private static MatchmakingIndex matchmaking;
 
     /**
-     * Map to keep track of the players' nicknames via UUID.
+     * Keeps track of the matchIDs.
      */
-    private static HashMap<String, String> nicknames;
+    private static AtomicInteger matchIdCounter;
 
     /**
-     * Keeps track of the disconnected clients
+     * Creates the threads of the connections and of the lobbies, platform or virtual ones depending on the transport.
      */
-    private static HashMap<String, ClientHandler> disconnectedClients;
+    private ThreadFactory threadFactory;
 
     /**
-     * Keeps track of the matchIDs.
+     * Runs the tasks of the lobbies, shared by all of them.
+     */
+    private LobbyScheduler lobbyScheduler;
+
+    /**
+     * Writes the journals of the games, null if they can't be written.
+     */
+    private JournalWriter journalWriter;
+
+    /**
+     * Waits for the delayed tasks of the server and of its lobbies to expire.
+     */
+    private final HashedWheelTimer timer;
+
+    /**
+     * Counts the lobbies of the server in each state.
      */
-    private static int matchIdCounter;
+    private final LobbyStateCounter lobbyStates;
+
+    /**
+     * How hard the bots which take the seats of the players who don't come back play, null if the seats stay empty.
+     */
+    private Difficulty botDifficulty;
 
     /**
      * Default Constructor
      */
     public Server() {
         server = this;
-        nicknames = new HashMap<>();
-        activeLobbies = new ArrayList<>();
-        clientHandlerMap = new HashMap<>();
-        disconnectedClients = new HashMap<>();
+        matchmaking = new MatchmakingIndex();
+        sessions = new SessionRegistry();
         LOGGER = LogManager.getLogger(Server.class);
-        matchIdCounter = 0;
+        matchIdCounter = new AtomicInteger();
+        timer = HashedWheelTimer.getInstance();
+        botDifficulty = Difficulty.MEDIUM;
+        lobbyStates = new LobbyStateCounter();
     }
 
     /**
-     * Loads the server with the given port.
+     * @return the counter of the lobbies of the server in each state
+     */
+    public LobbyStateCounter getLobbyStates() {
+        return lobbyStates;
+    }
+
+    /**
+     * @param botDifficulty how hard the bots which take the seats of the players who don't come back play, null if the
+     *                      seats stay empty; it must be set before the server is loaded.
+     */
+    public void setBotDifficulty(Difficulty botDifficulty) {
+        this.botDifficulty = botDifficulty;
+    }
+
+    /**
+     * Loads the server with the given port, using the blocking transport.
      *
      * @param serverPort the given port.
      */
     public void loadServer(int serverPort) {
+        loadServer(serverPort, TransportMode.BLOCKING);
+    }
+
+    /**
+     * Loads the server with the given port and transport.
+     *
+     * @param serverPort    the given port.
+     * @param transportMode the way the connections are handled.
+     */
+    public void loadServer(int serverPort, TransportMode transportMode) {
         LOGGER.printf(Level.OFF, "=====================================================Server Started=====================================================");
-        new Thread(() -> {
-            Timer timer = new Timer();
+        LOGGER.info("Transport mode: " + transportMode.getLabel());
+        MessageCodec.getInstance().warmUp();
+        LOGGER.info("Binary codec offered to the clients: " + BinaryCodec.getInstance().getId());
+        threadFactory = transportMode == TransportMode.VIRTUAL ? Thread.ofVirtual().factory() : Thread.ofPlatform()
+                .factory();
+        // a lobby runs one task at a time, so a worker per core is enough for many of them
+        lobbyScheduler = transportMode == TransportMode.VIRTUAL ? LobbyScheduler.virtualThreads() :
+                LobbyScheduler.workStealing(Runtime.getRuntime().availableProcessors());
+        LOGGER.info("Lobby scheduler: " + lobbyScheduler.getName());
+        LOGGER.info("Bots: " + (botDifficulty == null ? "off" : botDifficulty.getLabel()));
+        try {
+            MappedJournalStore store = new MappedJournalStore(JOURNAL_DIRECTORY, MappedJournalStore.DEFAULT_SEGMENT_SIZE);
+            store.startCompactor(1, TimeUnit.MINUTES);
+            journalWriter = new JournalWriter(store);
+            recoverLobbies();
+        } catch (IOException e) {
+            LOGGER.error("Unable to open the journals, the games won't survive a restart: " + e.getMessage());
+        }
+        if (transportMode == TransportMode.NIO) {
+            try {
+                new NioServer(this, Runtime.getRuntime().availableProcessors()).start(serverPort);
+            } catch (IOException e) {
+                LOGGER.error("Unable to start the server: " + e.getMessage());
+            }
+            return;
+        }
+        threadFactory.newThread(() -> {
             Socket socket = null;
             try (ServerSocket serverSocket = new ServerSocket(serverPort)) {
                 LOGGER.info("Awaiting connections...");
@@ -89,17 +172,10 @@ public class Server implements MessageReceiver {
                         LOGGER.error("Error encountered while trying to connect");
                         LOGGER.error(e.getMessage());
                     }
-                    ClientHandler ch = new ClientHandler(socket);
+                    SocketClientHandler ch = new SocketClientHandler(socket, threadFactory);
                     ch.setMessageReceiver(this);
-                    new Thread(ch).start();
-                    timer.schedule(new TimerTask() {
-                        @Override
-                        public void run() {
-                            Message response = new ActiveLobbiesMessage(activeLobbies.stream().map(Lobby::getMatchID).toList());
-                            ch.sendMessageToClient(response);
-                        }
-                    }, 500);
-
+                    threadFactory.newThread(ch).start();
+                    onClientConnected(ch);
                 } while (!serverSocket.isClosed());
             } catch (IOException e) {
                 e.printStackTrace();
@@ -107,6 +183,58 @@ public class Server implements MessageReceiver {
         }).start();
     }
 
+    /**
+     * Sends the list of the active lobbies to a newly connected client.
+     *
+     * @param ch the ClientHandler of the new connection.
+     */
+    void onClientConnected(ClientHandler ch) {
+        schedule(() -> {
+            Message response = new ActiveLobbiesMessage(matchmaking.getActiveMatchIDs());
+            try {
+                ch.sendMessageToClient(response);
+            } catch (InternetException e) {
+                LOGGER.error("Unable to send the active lobbies to a new client");
+            }
+        }, 500);
+    }
+
+    /**
+     * Runs a task after the given delay, on the pool of the timer, so a task that blocks doesn't delay the wheel.
+     *
+     * @param task        the task to run.
+     * @param delayMillis the delay in milliseconds.
+     * @return the pending task, which can be used to cancel it.
+     */
+    public HashedWheelTimer.Timeout schedule(Runnable task, long delayMillis) {
+        return timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rebuilds the lobbies whose journals have been left by a previous run of the server. The journals of the games
+     * that can't be rebuilt are deleted.
+     *
+     * @throws IOException if the journals can't be read.
+     */
+    private void recoverLobbies() throws IOException {
+        for (int matchID : journalWriter.getStore().matchIDs()) {
+            matchIdCounter.accumulateAndGet(matchID, Math::max);
+            Lobby lobby = null;
+            try {
+                lobby = Lobby.recover(matchID, journalWriter.getStore().records(matchID), lobbyScheduler, new GameJournal(matchID, journalWriter), botDifficulty, lobbyStates);
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to rebuild lobby " + matchID + ": " + e.getMessage());
+            }
+            if (lobby == null) {
+                journalWriter.delete(matchID);
+            } else {
+                matchmaking.restore(lobby);
+                LOGGER.info("Rebuilt lobby " + matchID + " from its journal, waiting for " + lobby.getPlayerNicknames()
+                        .values());
+            }
+        }
+    }
+
     /**
      * Creates the Lobby.
      *
@@ -114,8 +242,12 @@ public class Server implements MessageReceiver {
      * @param advancedMode flag to turn on advanced mode
      */
     private Lobby createLobby(int lobbySize, boolean advancedMode) {
-        LOGGER.info("Created a Lobby with matchID: " + ++matchIdCounter);
-        return new Lobby(lobbySize, advancedMode, matchIdCounter);
+        int matchID = matchIdCounter.incrementAndGet();
+        LOGGER.info("Created a Lobby with matchID: " + matchID);
+        Lobby lobby = new Lobby(lobbySize, advancedMode, matchID, lobbyScheduler, new GameJournal(matchID, journalWriter),
+                lobbyStates);
+        lobby.setBotDifficulty(botDifficulty);
+        return lobby;
     }
 
     /**
@@ -130,12 +262,17 @@ public class Server implements MessageReceiver {
             case LOGIN -> {
                 LOGGER.info("Received LoginMessage");
                 ch.setUUID(message.getUUID());
-                if (!nicknames.containsValue(((LoginMessage) message).getNickname())) {
-                    clientHandlerMap.put(message.getUUID(), ch);
-                    nicknames.put(message.getUUID(), ((LoginMessage) message).getNickname());
-                    response = new ConfirmMessage(message.getUUID());
+                // a client coming back to its game logs in again with the nickname it's still holding
+                if (sessions.login(message.getUUID(), ((LoginMessage) message).getNickname(), ch)) {
+                    boolean binary = BinaryCodec.getInstance().isCompatible(((LoginMessage) message).getBinaryCodec());
+                    boolean compression = ((LoginMessage) message).isCompression();
+                    response = new ConfirmMessage(message.getUUID(), binary ? BinaryCodec.getInstance().getId() : null,
+                            compression);
                     LOGGER.info("LoginMessage Response: Confirm Message");
                     sendMessage(response);
+                    // the confirmation is already encoded, the client reads both formats anyway
+                    ch.setBinaryFrames(binary);
+                    ch.setCompression(compression);
                 } else {
                     response = new ErrorMessage(message.getUUID(), "Nickname already used");
                     LOGGER.error("LoginMessage Response: Nickname already used");
@@ -144,37 +281,32 @@ public class Server implements MessageReceiver {
             }
             case LOBBY_REQUEST -> {
                 LOGGER.info("Received LobbyRequestMessage");
-                Lobby lobbyFound = null;
-                boolean lobbyFoundFlag = false;
-                if (((LobbyRequestMessage) message).getDesiredSize() > 3) {
+                LobbyRequestMessage request = (LobbyRequestMessage) message;
+                if (request.getDesiredSize() > 3) {
                     ch.disconnect();
+                    return;
                 }
-                for (Lobby lobby : activeLobbies) {
-                    //TODO: THIS METHOD IS INVOLVED IN RESILIANCE, MUST BE TESTED
-                    if (lobby.isPlayerInLobby(message.getUUID())) {
-                        onReconnect(message.getUUID());
-                        lobby.onReconnect(message.getUUID());
-                    }
-                    if (!lobby.isGameReady() && lobby.isAdvancedMode() == ((LobbyRequestMessage) message).isDesiredAdvanceMode() && lobby.getLobbySize() == ((LobbyRequestMessage) message).getDesiredSize()) {
-                        lobby.addPlayerInLobby(message.getUUID(), ch, nicknames.get(message.getUUID()));
-                        LOGGER.info("Lobby found, " + nicknames.get(message.getUUID()) + " entered lobby " + lobby.getMatchID());
-                        lobbyFoundFlag = true;
-                        lobbyFound = lobby;
-                        ch.setMessageReceiver(lobby);
-                        break;
-                    }
-                }
-                if (!lobbyFoundFlag) {
-                    lobbyFound = createLobby(((LobbyRequestMessage) message).getDesiredSize(), ((LobbyRequestMessage) message).isDesiredAdvanceMode());
-                    new Thread(lobbyFound).start();
-                    activeLobbies.add(lobbyFound);
-                    lobbyFound.addPlayerInLobby(message.getUUID(), ch, nicknames.get(message.getUUID()));
-                    LOGGER.info(nicknames.get(message.getUUID()) + " entered lobby " + lobbyFound.getMatchID());
+                Lobby lobbyFound = matchmaking.lobbyOf(message.getUUID());
+                if (lobbyFound != null && lobbyFound.isPlayerDisconnected(message.getUUID())) {
+                    onReconnect(message.getUUID(), ch);
+                    lobbyFound.onReconnect(message.getUUID(), ch);
+                    ch.setMessageReceiver(lobbyFound);
+                } else if (lobbyFound != null) {
+                    response = new ErrorMessage(message.getUUID(), "You are already in a lobby");
+                    LOGGER.error("RequestLobby Response: " + sessions.nicknameOf(message.getUUID()) + " is already in lobby " +
+                            lobbyFound.getMatchID());
+                    ch.sendMessageToClient(response);
+                    return;
+                } else {
+                    MatchmakingIndex.Assignment assignment = matchmaking.join(message.getUUID(), ch,
+                            sessions.nicknameOf(message.getUUID()), request.getDesiredSize(), request.isDesiredAdvanceMode(),
+                            () -> createLobby(request.getDesiredSize(), request.isDesiredAdvanceMode()));
+                    lobbyFound = assignment.lobby();
+                    if (assignment.created()) lobbyFound.start();
+                    LOGGER.info(sessions.nicknameOf(message.getUUID()) + " entered lobby " + lobbyFound.getMatchID());
                     ch.setMessageReceiver(lobbyFound);
                 }
-                for (Lobby lobby : activeLobbies) {
-                    LOGGER.debug("Lobby " + lobby.getMatchID() + " status:\n- LobbySize: " + lobby.getLobbySize() + "\n- IsGameReady: " + lobby.isGameReady() + "\n- Players Connected: " + lobby.getPlayerNicknames().values());
-                }
+                LOGGER.debug("Lobby " + lobbyFound.getMatchID() + " status:\n- LobbySize: " + lobbyFound.getLobbySize() + "\n- IsGameReady: " + lobbyFound.isGameReady() + "\n- Joined by: " + sessions.nicknameOf(message.getUUID()) + "\n- Mailbox: " + lobbyFound.getMailboxStats());
                 response = new ConfirmMessage(message.getUUID(), lobbyFound.getMatchID());
                 LOGGER.info("RequestLobby Response: Confirm Message");
                 sendMessage(response);
@@ -189,32 +321,40 @@ public class Server implements MessageReceiver {
     }
 
     /**
-     * Closes the lobby and deletes the nicknames from the server
+     * Stops assigning the new players to a lobby which has started closing
      *
-     * @param lobby the Lobby to be closed.
+     * @param lobby the closing Lobby.
+     */
+    public void retireLobby(Lobby lobby) {
+        matchmaking.retire(lobby);
+    }
+
+    /**
+     * Releases the resources of a closed lobby and deletes the nicknames of its players from the server
+     *
+     * @param lobby the Lobby that has been closed.
      */
     public void closeLobby(Lobby lobby) {
-        while (lobby.getPlayers().size() > 0) {
-            String uuidToRemove = lobby.getPlayers().keySet().iterator().next();
-            clientHandlerMap.get(uuidToRemove).disconnect();
-            onDisconnect(uuidToRemove);
-        }
-        nicknames.keySet().removeAll(lobby.getPlayerNicknames().keySet());
-        activeLobbies.remove(lobby);
-        LOGGER.info("Lobby " + lobby.getMatchID() + " closed");
+        for (String UUID : lobby.getPlayerNicknames().keySet())
+            sessions.release(UUID);
+        matchmaking.remove(lobby);
+        LOGGER.info("Lobby " + lobby.getMatchID() + " closed, traffic: " + lobby.getTraffic() + ", mailbox: " +
+                lobby.getMailboxStats());
+        LOGGER.debug("Lobbies by state: " + lobbyStates.countLobbies() + ", pending timeouts: " + timer.getPendingTimeouts());
+        if (journalWriter != null)
+            LOGGER.debug("Journal: " + journalWriter.getStats() + ", store: " + journalWriter.getStore());
     }
 
     /**
      * Reconnects the client in the Server.
      *
      * @param clientUUID the client that wants to reconnect.
+     * @param ch         the ClientHandler of the new connection of the client.
      */
-    private void onReconnect(String clientUUID) {
-        ClientHandler clientToReconnect = disconnectedClients.get(clientUUID);
-        clientHandlerMap.put(clientUUID, clientToReconnect);
-        disconnectedClients.remove(clientUUID);
+    private void onReconnect(String clientUUID, ClientHandler ch) {
+        sessions.reconnect(clientUUID, ch);
 
-        LOGGER.info("Reconnected " + nicknames.get(clientUUID) + " on the Server");
+        LOGGER.info("Reconnected " + sessions.nicknameOf(clientUUID) + " on the Server");
     }
 
     /**
@@ -222,7 +362,8 @@ public class Server implements MessageReceiver {
      */
     @Override
     public void sendMessage(Message message) throws InternetException {
-        ClientHandler client = clientHandlerMap.get(message.getUUID());
+        ClientHandler client = sessions.handlerOf(message.getUUID());
+        if (client == null) throw new InternetException();
         client.sendMessageToClient(message);
     }
 
@@ -233,22 +374,13 @@ public class Server implements MessageReceiver {
      */
     @Override
     public void onDisconnect(String clientUUID) {
-        ClientHandler clientToDisconnect = clientHandlerMap.get(clientUUID);
-        disconnectedClients.put(clientUUID, clientToDisconnect);
-        clientHandlerMap.remove(clientUUID);
-
-        boolean found = false;
-        for (Lobby lobby : activeLobbies) {
-            if (lobby.getPlayerNicknames().containsKey(clientUUID) && lobby.getPlayerNicknames().get(clientUUID).equals(nicknames.get(clientUUID))) {
-                found = true;
-                break;
-            }
-        }
-        if (!found)
-            nicknames.remove(clientUUID);
+        Lobby lobby = matchmaking.lobbyOf(clientUUID);
+        String nickname = sessions.nicknameOf(clientUUID);
+        // the players of a lobby keep their nickname, so they can come back to the game
+        sessions.disconnect(clientUUID, lobby != null);
 
-        if (nicknames.get(clientUUID) != null)
-            LOGGER.info("Disconnected " + nicknames.get(clientUUID) + " from the Server");
+        if (nickname != null)
+            LOGGER.info("Disconnected " + nickname + " from the Server");
         else
             LOGGER.info("Disconnected " + clientUUID + " from the Server");
     }
@@ -0,0 +1,139 @@
+package it.polimi.ingsw.am37.network.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the sessions of the clients logged in the server: the nickname and the ClientHandler of every UUID, and the
+ * owner of every nickname, so the uniqueness of a nickname is checked without looking at the other sessions. The
+ * registry is used by the threads of all the connections without a global lock: every operation changes a single
+ * entry of a concurrent map atomically, and a nickname is reserved before its session is created and released after
+ * its session is removed, so it never belongs to two clients.
+ */
+class SessionRegistry {
+
+    /**
+     * The sessions, by UUID
+     */
+    private final ConcurrentHashMap<String, Session> sessions;
+
+    /**
+     * The UUID of the owner of each nickname
+     */
+    private final ConcurrentHashMap<String, String> owners;
+
+    /**
+     * Default constructor
+     */
+    SessionRegistry() {
+        this.sessions = new ConcurrentHashMap<>();
+        this.owners = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Logs a client in. The login is accepted if the nickname is free, or if it belongs to the same client and its
+     * session has lost the connection, that is when the client is coming back to its game
+     *
+     * @param UUID     the UUID of the client
+     * @param nickname the desired nickname
+     * @param ch       the ClientHandler of the client
+     * @return true if the login has been accepted
+     */
+    boolean login(String UUID, String nickname, ClientHandler ch) {
+        if (UUID == null || nickname == null) return false;
+        String owner = owners.putIfAbsent(nickname, UUID);
+        if (owner != null && !owner.equals(UUID)) return false;
+        Session previous = sessions.get(UUID);
+        if (owner != null && previous != null && previous.connected() && previous.nickname().equals(nickname))
+            return false;
+        Session replaced = sessions.put(UUID, new Session(nickname, ch, true));
+        if (replaced != null && !replaced.nickname().equals(nickname)) owners.remove(replaced.nickname(), UUID);
+        return true;
+    }
+
+    /**
+     * @param UUID the UUID of a client, possibly null
+     * @return the ClientHandler of the client, null if it isn't connected
+     */
+    ClientHandler handlerOf(String UUID) {
+        Session session = UUID == null ? null : sessions.get(UUID);
+        return session == null || !session.connected() ? null : session.handler();
+    }
+
+    /**
+     * @param UUID the UUID of a client, possibly null
+     * @return the nickname of the client, null if it isn't logged in
+     */
+    String nicknameOf(String UUID) {
+        Session session = UUID == null ? null : sessions.get(UUID);
+        return session == null ? null : session.nickname();
+    }
+
+    /**
+     * @param nickname a nickname
+     * @return true if the nickname belongs to a client
+     */
+    boolean isNicknameTaken(String nickname) {
+        return owners.containsKey(nickname);
+    }
+
+    /**
+     * @param UUID the UUID of a client, possibly null
+     * @return true if the client is logged in but has lost the connection
+     */
+    boolean isDisconnected(String UUID) {
+        Session session = UUID == null ? null : sessions.get(UUID);
+        return session != null && !session.connected();
+    }
+
+    /**
+     * Records that a client has lost the connection
+     *
+     * @param UUID         the UUID of the client
+     * @param keepNickname true to keep the session and the nickname for when the client comes back, false to release
+     *                     them
+     */
+    void disconnect(String UUID, boolean keepNickname) {
+        if (UUID == null) return;
+        if (keepNickname)
+            sessions.computeIfPresent(UUID, (id, session) -> new Session(session.nickname(), session.handler(), false));
+        else
+            release(UUID);
+    }
+
+    /**
+     * Attaches a new connection to the session of a client which is coming back
+     *
+     * @param UUID the UUID of the client
+     * @param ch   the ClientHandler of the new connection
+     */
+    void reconnect(String UUID, ClientHandler ch) {
+        sessions.computeIfPresent(UUID, (id, session) -> new Session(session.nickname(), ch, true));
+    }
+
+    /**
+     * Removes the session of a client and frees its nickname
+     *
+     * @param UUID the UUID of the client
+     */
+    void release(String UUID) {
+        Session session = UUID == null ? null : sessions.remove(UUID);
+        if (session != null) owners.remove(session.nickname(), UUID);
+    }
+
+    /**
+     * @return the number of sessions, connected or not
+     */
+    int size() {
+        return sessions.size();
+    }
+
+    /**
+     * The state of a client in the server
+     *
+     * @param nickname  the nickname of the client
+     * @param handler   the ClientHandler of the last connection of the client
+     * @param connected true if the connection is still open
+     */
+    private record Session(String nickname, ClientHandler handler, boolean connected) {
+    }
+}
@@ -0,0 +1,331 @@
+package it.polimi.ingsw.am37.network.server;
+
+import com.google.gson.JsonParseException;
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.MessageType;
+import it.polimi.ingsw.am37.network.FrameCodec;
+import it.polimi.ingsw.am37.network.MessageReceiver;
+import it.polimi.ingsw.am37.network.exceptions.InternetException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Counterpart of the client in the server when a blocking transport is used: a thread, run by the server, reads the
+ * socket, while the messages are written by a writer thread of the handler.
+ */
+public class SocketClientHandler extends ClientHandler implements Runnable {
+
+    /**
+     * A Logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(SocketClientHandler.class);
+
+    /**
+     * Flag for disable disconnection when ping timeout fails on debug
+     */
+    private final static boolean debug_disableTimers = false;
+
+    /**
+     * Maximum time, in milliseconds, the client can stay silent before the connection is considered lost
+     */
+    private final static int READ_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Maximum time, in milliseconds, a message can wait in the outbound queue before the connection is considered lost
+     */
+    private final static long SEND_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Maximum number of queued messages written to the socket with a single flush
+     */
+    private final static int MAX_BATCHED_MESSAGES = 64;
+
+    /**
+     * Input stream
+     */
+    private InputStream inputStream;
+
+    /**
+     * Output stream
+     */
+    private OutputStream outputStream;
+
+    /**
+     * DataInput stream used for reading messages
+     */
+    private DataInputStream dataInputStream;
+
+    /**
+     * DataOutput stream used for sending messages
+     */
+    private DataOutputStream dataOutputStream;
+
+    /**
+     * It's the socket connected to the handler
+     */
+    private final Socket clientSocket;
+
+    /**
+     * The state of connection, cleared once by the first call to {@link #disconnect()}
+     */
+    private final AtomicBoolean connectedToClient;
+
+    /**
+     * Maximum time, in nanoseconds, a message can wait in the outbound queue before the connection is considered lost
+     */
+    private final long sendTimeoutNanos;
+
+    /**
+     * Encoded messages waiting to be written to the client by the writer thread
+     */
+    private final BlockingQueue<PendingMessage> outbound;
+
+    /**
+     * Time the batch being written by the writer thread has been queued, as given by {@link System#nanoTime()}, or 0
+     * if the writer is idle
+     */
+    private volatile long writingSince;
+
+    /**
+     * Thread which writes the queued messages to the client
+     */
+    private Thread writer;
+
+    /**
+     * Creates the writer thread
+     */
+    private final ThreadFactory threadFactory;
+
+    /**
+     * Default Constructor
+     */
+    public SocketClientHandler(Socket clientSocket) {
+        this(clientSocket, Thread.ofPlatform().factory());
+    }
+
+    /**
+     * @param clientSocket  the socket connected to the client
+     * @param threadFactory creates the writer thread, it should make the same kind of threads used to run the handler
+     */
+    public SocketClientHandler(Socket clientSocket, ThreadFactory threadFactory) {
+        this(clientSocket, threadFactory, SEND_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param clientSocket      the socket connected to the client
+     * @param threadFactory     creates the writer thread
+     * @param sendTimeoutMillis how long a message can wait to be written before the connection is considered lost
+     */
+    SocketClientHandler(Socket clientSocket, ThreadFactory threadFactory, long sendTimeoutMillis) {
+        this.clientSocket = clientSocket;
+        this.threadFactory = threadFactory;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.connectedToClient = new AtomicBoolean(true);
+        this.outbound = new LinkedBlockingQueue<>();
+        this.writingSince = 0;
+    }
+
+    /**
+     * @return If the clientHandler is connected to its client
+     */
+    @Override
+    public boolean isConnectedToClient() {
+        return this.connectedToClient.get();
+    }
+
+    /**
+     * Checks, before a frame is queued, that the client is connected and the previous messages are being delivered
+     *
+     * @throws InternetException Thrown when connection is failed or when a previous message hasn't been delivered in
+     *                           time
+     */
+    @Override
+    protected void checkCanSend() throws InternetException {
+        super.checkCanSend();
+        checkSendTimeout();
+    }
+
+    /**
+     * Queues a frame, ready to be sent, to be written by the writer thread
+     *
+     * @param envelope the beginning of the frame
+     * @param payload  the rest of the frame, possibly shared with other clients
+     */
+    @Override
+    protected void queueFrame(byte[] envelope, byte[] payload) {
+        outbound.add(new PendingMessage(envelope, payload, System.nanoTime()));
+    }
+
+    /**
+     * Additional thread used to listen messages from the client
+     */
+    @Override
+    public void run() {
+        Message message;
+        setInputAndOutput();
+        writer = threadFactory.newThread(this::writeMessages);
+        writer.start();
+
+        while (connectedToClient.get()) {
+            try {
+                message = readMessage();
+                checkSendTimeout();
+            } catch (InternetException e) {
+                return;
+            }
+            if (message.getMessageType() == MessageType.PING)
+                try {
+                    sendMessageToClient(message);
+                } catch (InternetException e) {
+                    return;
+                }
+            else {
+                try {
+                    getMessageReceiver().onMessageReceived(message, this);
+                } catch (InternetException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Set there isn't connection with client and tries to close the socket. The reader, the writer and the senders can
+     * all find the connection broken at once, only the first call does it.
+     */
+    @Override
+    public void disconnect() {
+        if (!connectedToClient.compareAndSet(true, false)) return;
+        MessageReceiver messageReceiver = getMessageReceiver();
+        if (messageReceiver != null) messageReceiver.onDisconnect(getUUID());
+        if (writer != null) writer.interrupt();
+        outbound.clear();
+        releaseCompression();
+        try {
+            if (dataInputStream != null) dataInputStream.close();
+            if (dataOutputStream != null) dataOutputStream.close();
+            if (inputStream != null) inputStream.close();
+            if (outputStream != null) outputStream.close();
+            clientSocket.close();
+        } catch (IOException e) {
+            LOGGER.error("Error while closing the connection of " + getUUID() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Create clientHandler's OutputStream
+     */
+    private void setOutput() {
+        try {
+            outputStream = clientSocket.getOutputStream();
+            dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        } catch (IOException e) {
+            disconnect();
+        }
+    }
+
+    /**
+     * Create clientHandler's InputStream, the reads fail if the client stays silent for too long
+     */
+    private void setInput() {
+        try {
+            if (!debug_disableTimers) clientSocket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            inputStream = clientSocket.getInputStream();
+            dataInputStream = new DataInputStream(inputStream);
+        } catch (IOException e) {
+            disconnect();
+        }
+    }
+
+    /**
+     * Create streams for clientHandler
+     */
+    private void setInputAndOutput() {
+        setInput();
+        setOutput();
+    }
+
+    /**
+     * Body of the writer thread: waits for queued messages and writes all the available ones with a single flush
+     */
+    private void writeMessages() {
+        List<PendingMessage> batch = new ArrayList<>(MAX_BATCHED_MESSAGES);
+        try {
+            while (connectedToClient.get()) {
+                batch.add(outbound.take());
+                outbound.drainTo(batch, MAX_BATCHED_MESSAGES - 1);
+                writingSince = batch.get(0).enqueuedAt();
+                for (PendingMessage pending : batch) {
+                    dataOutputStream.write(pending.envelope());
+                    dataOutputStream.write(pending.payload());
+                }
+                dataOutputStream.flush();
+                writingSince = 0;
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            disconnect();
+        }
+    }
+
+    /**
+     * Disconnects the client if the oldest message not yet written has been waiting for too long
+     *
+     * @throws InternetException if the client has been disconnected
+     */
+    private void checkSendTimeout() throws InternetException {
+        long oldest = writingSince;
+        if (oldest == 0) {
+            PendingMessage head = outbound.peek();
+            if (head == null) return;
+            oldest = head.enqueuedAt();
+        }
+        if (System.nanoTime() - oldest > sendTimeoutNanos) {
+            if (!debug_disableTimers) {
+                disconnect();
+                throw new InternetException();
+            }
+        }
+    }
+
+    /**
+     * Reads the next message on the calling thread, the socket timeout bounds the wait
+     *
+     * @return Message received from client
+     * @throws InternetException If connection is failed
+     */
+    private Message readMessage() throws InternetException {
+        Message message;
+        try {
+            message = FrameCodec.read(dataInputStream);
+        } catch (IOException | JsonParseException e) {
+            disconnect();
+            throw new InternetException();
+        }
+        if (getUUID() == null)
+            setUUID(message.getUUID());
+        return message;
+    }
+
+    /**
+     * A message waiting to be written, the frame is the envelope followed by the payload
+     *
+     * @param envelope   the beginning of the frame
+     * @param payload    the rest of the frame, possibly shared with other clients
+     * @param enqueuedAt the time the message has been queued, as given by {@link System#nanoTime()}
+     */
+    private record PendingMessage(byte[] envelope, byte[] payload, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,91 @@
+package it.polimi.ingsw.am37.network.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes sent to a group of clients, like the players of a lobby, before and after the compression, so the
+ * saving can be measured. It's updated by the handlers of the clients, possibly from several threads.
+ */
+public class TrafficCounter {
+
+    /**
+     * Number of frames sent
+     */
+    private final LongAdder frames;
+
+    /**
+     * Number of frames sent compressed
+     */
+    private final LongAdder compressedFrames;
+
+    /**
+     * Bytes of the frames as they were encoded
+     */
+    private final LongAdder encodedBytes;
+
+    /**
+     * Bytes of the frames as they have been sent
+     */
+    private final LongAdder sentBytes;
+
+    /**
+     * Default constructor
+     */
+    public TrafficCounter() {
+        this.frames = new LongAdder();
+        this.compressedFrames = new LongAdder();
+        this.encodedBytes = new LongAdder();
+        this.sentBytes = new LongAdder();
+    }
+
+    /**
+     * Counts a frame
+     *
+     * @param encodedLength the length of the frame as it was encoded
+     * @param sentLength    the length of the frame as it has been sent
+     * @param compressed    true if the frame has been compressed
+     */
+    void record(int encodedLength, int sentLength, boolean compressed) {
+        frames.increment();
+        if (compressed) compressedFrames.increment();
+        encodedBytes.add(encodedLength);
+        sentBytes.add(sentLength);
+    }
+
+    /**
+     * @return the number of frames sent
+     */
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    /**
+     * @return the number of frames sent compressed
+     */
+    public long getCompressedFrames() {
+        return compressedFrames.sum();
+    }
+
+    /**
+     * @return the bytes of the frames as they were encoded
+     */
+    public long getEncodedBytes() {
+        return encodedBytes.sum();
+    }
+
+    /**
+     * @return the bytes of the frames as they have been sent
+     */
+    public long getSentBytes() {
+        return sentBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        long encoded = getEncodedBytes();
+        long sent = getSentBytes();
+        long saved = encoded == 0 ? 0 : 100 * (encoded - sent) / encoded;
+        return getFrames() + " frames (" + getCompressedFrames() + " compressed), " + encoded + " bytes encoded, " +
+                sent + " bytes sent, " + saved + "% saved";
+    }
+}
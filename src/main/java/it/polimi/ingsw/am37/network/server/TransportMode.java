@@ -0,0 +1,49 @@
+package it.polimi.ingsw.am37.network.server;
+
+/**
+ * Enumeration of the possible ways the server can handle its connections. Both modes share the same wire format, so
+ * clients are not aware of the mode chosen by the server.
+ */
+public enum TransportMode {
+    /**
+     * One {@link SocketClientHandler} thread for each connected client, blocked on the socket streams
+     */
+    BLOCKING("blocking"),
+    /**
+     * Same model of {@link TransportMode#BLOCKING}, but the connections, the lobbies and the timeouts run on virtual
+     * threads, so idle or slow clients don't hold a platform thread
+     */
+    VIRTUAL("virtual"),
+    /**
+     * A small fixed pool of selector threads multiplexing all the connections, see {@link NioServer}
+     */
+    NIO("nio");
+
+    /**
+     * The name used to select this mode from the command line
+     */
+    private final String label;
+
+    TransportMode(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return the name used to select this mode from the command line
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @param label the name of the mode
+     * @return the mode with the given name
+     * @throws IllegalArgumentException if no mode has the given name
+     */
+    public static TransportMode findByLabel(String label) {
+        for (TransportMode mode : TransportMode.values()) {
+            if (mode.label.equals(label)) return mode;
+        }
+        throw new IllegalArgumentException("No transport mode with label " + label);
+    }
+}
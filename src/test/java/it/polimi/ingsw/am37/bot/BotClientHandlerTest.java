@@ -0,0 +1,43 @@
+package it.polimi.ingsw.am37.bot;
+
+import it.polimi.ingsw.am37.controller.Lobby;
+import it.polimi.ingsw.am37.controller.LobbyScheduler;
+import it.polimi.ingsw.am37.controller.LobbyState;
+import it.polimi.ingsw.am37.controller.LobbyStateCounter;
+import it.polimi.ingsw.am37.controller.journal.GameJournal;
+import it.polimi.ingsw.am37.network.server.Server;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the bots playing in a lobby.
+ */
+public class BotClientHandlerTest {
+
+    /**
+     * Tests that two bots seated in a lobby play a whole game through it, until the end of the game closes the lobby.
+     * The tasks of the lobby are run by the threads that queue them, so the move that hands the turn back to the bot
+     * which made it is handled before the bot has finished sending its turn.
+     */
+    @Test
+    @DisplayName("Tests that two bots seated in a lobby play a whole game through it")
+    public void botsPlayWholeGameInLobby() throws Exception {
+        new Server();
+        Lobby lobby = new Lobby(2, true, 1, LobbyScheduler.direct(), GameJournal.disabled(), new LobbyStateCounter());
+        MonteCarloTreeSearch search = new MonteCarloTreeSearch(1);
+        for (int i = 1; i <= 2; i++) {
+            BotClientHandler bot = new BotClientHandler("uuid-" + i, "bot" + i, lobby, Difficulty.EASY, search);
+            assertTrue(lobby.addPlayerInLobby("uuid-" + i, bot, "bot" + i).join());
+        }
+        lobby.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (lobby.getState() == LobbyState.OPEN && System.nanoTime() < deadline)
+            Thread.sleep(50);
+        assertEquals(LobbyState.CLOSING, lobby.getState());
+    }
+}
@@ -0,0 +1,66 @@
+package it.polimi.ingsw.am37.bot;
+
+import it.polimi.ingsw.am37.client.ClientStatus;
+import it.polimi.ingsw.am37.controller.Lobby;
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.MessageType;
+import it.polimi.ingsw.am37.model.GameManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the search of the moves of the bots.
+ */
+public class MonteCarloTreeSearchTest {
+
+    /**
+     * Test that the bots play a whole game against each other, choosing legal moves which can be sent to the lobby
+     */
+    @Test
+    @DisplayName("Test that the bots play a whole game against each other, choosing legal moves which can be sent to the lobby")
+    public void testBotsPlayWholeGame() {
+        MonteCarloTreeSearch search = new MonteCarloTreeSearch(2);
+        Simulation game = Simulation.newGame(2, true, 21);
+        int moves = 0;
+        while (!game.isOver() && moves < 500) {
+            Move move = search.search(game, Difficulty.EASY, moves);
+            assertTrue(game.legalMoves().contains(move));
+            Message message = game.toMessage(move, "UUID");
+            if (move.type() != Move.Type.CHARACTER || move.value() != Move.NONE) assertNotNull(message);
+            game.apply(move);
+            moves++;
+        }
+        assertTrue(game.isOver());
+        assertEquals(1.0, game.rewards()[0] + game.rewards()[1], 1e-9);
+    }
+
+    /**
+     * Test that a bot plans its whole turn of the action phase, ending with the choice of a cloud
+     */
+    @Test
+    @DisplayName("Test that a bot plans its whole turn of the action phase, ending with the choice of a cloud")
+    public void testBotPlansTurn() {
+        Simulation game = Simulation.newGame(3, false, 21);
+        while (game.getStatus() == ClientStatus.PLAYINGASSISTANT)
+            game.apply(game.legalMoves().get(0));
+        int seat = game.getCurrentSeat();
+        BotClientHandler bot = new BotClientHandler("UUID", "player" + seat, new Lobby(3, false, 1), Difficulty.EASY,
+                new MonteCarloTreeSearch(1));
+
+        List<Message> messages = bot.planTurn(game);
+        assertEquals(GameManager.MAX_FOR_MOVEMENTS[1] + 2, messages.size());
+        for (Message message : messages.subList(0, GameManager.MAX_FOR_MOVEMENTS[1])) {
+            assertTrue(message.getMessageType() == MessageType.STUDENTS_TO_DINING
+                    || message.getMessageType() == MessageType.STUDENTS_TO_ISLAND);
+            assertEquals("UUID", message.getUUID());
+        }
+        assertEquals(MessageType.MOVE_MOTHER_NATURE, messages.get(messages.size() - 2).getMessageType());
+        assertEquals(MessageType.CHOOSE_CLOUD, messages.get(messages.size() - 1).getMessageType());
+        assertNotEquals(seat, game.getCurrentSeat());
+        assertEquals(ClientStatus.MOVINGSTUDENTS, game.getStatus());
+    }
+}
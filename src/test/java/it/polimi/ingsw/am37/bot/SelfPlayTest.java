@@ -0,0 +1,61 @@
+package it.polimi.ingsw.am37.bot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the self-play harness.
+ */
+public class SelfPlayTest {
+
+    /**
+     * Test that random players finish their games without breaking the rules
+     */
+    @Test
+    @DisplayName("Test that random players finish their games without breaking the rules")
+    public void testRandomGames() {
+        SelfPlay selfPlay = new SelfPlay(new ForkJoinPool(2), 2, true, List.of(Policy.random(), Policy.random()), 7);
+        SelfPlayReport report = selfPlay.run(100);
+
+        assertEquals(100, report.getGames());
+        assertEquals(0, report.getUnfinished());
+        assertEquals(report.getFinished(), report.getWins(0) + report.getWins(1));
+        assertEquals(report.getGames(), report.getFinished() + report.getFailures().values().stream()
+                .mapToLong(Long::longValue)
+                .sum());
+        assertTrue(report.getMinRounds() >= 1 && report.getMaxRounds() <= 10);
+        for (Invariant invariant : Invariant.values())
+            assertEquals(0, report.getViolations(invariant), invariant.getDescription());
+    }
+
+    /**
+     * Test that the report depends only on the seed, not on how the games are split among the workers, and that a
+     * game can be played again on its own
+     */
+    @Test
+    @DisplayName("Test that the report depends only on the seed and that a game can be played again on its own")
+    public void testDeterministicReport() {
+        List<Policy> policies = List.of(Policy.random(), Policy.random(), Policy.random());
+        SelfPlayReport single = new SelfPlay(new ForkJoinPool(1), 3, true, policies, 11).run(50);
+        SelfPlayReport parallel = new SelfPlay(new ForkJoinPool(3), 3, true, policies, 11).run(50);
+        assertEquals(single.toString(), parallel.toString());
+
+        SelfPlay selfPlay = new SelfPlay(new ForkJoinPool(1), 3, true, policies, 11);
+        assertEquals(selfPlay.run(1).toString(), selfPlay.play(0).toString());
+    }
+
+    /**
+     * Test that the harness refuses a wrong number of policies
+     */
+    @Test
+    @DisplayName("Test that the harness refuses a wrong number of policies")
+    public void testWrongPolicies() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SelfPlay(ForkJoinPool.commonPool(), 3, false, List.of(Policy.random()), 0));
+    }
+}
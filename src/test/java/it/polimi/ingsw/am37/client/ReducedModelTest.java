@@ -0,0 +1,132 @@
+package it.polimi.ingsw.am37.client;
+
+import it.polimi.ingsw.am37.controller.UpdateController;
+import it.polimi.ingsw.am37.message.MessageCodec;
+import it.polimi.ingsw.am37.message.MessageType;
+import it.polimi.ingsw.am37.message.UpdateMessage;
+import it.polimi.ingsw.am37.model.*;
+import it.polimi.ingsw.am37.model.student_container.FixedUnlimitedStudentsContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.InstanceAlreadyExistsException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the versioned updates applied to the reduced model
+ */
+public class ReducedModelTest {
+
+    /**
+     * The server side objects
+     */
+    private Island island;
+    private Player player;
+
+    /**
+     * The controller observing the objects
+     */
+    private UpdateController controller;
+
+    /**
+     * Creates the objects and registers them to the controller
+     */
+    @BeforeEach
+    void setUp() throws InstanceAlreadyExistsException {
+        controller = new UpdateController();
+        island = new Island(new FixedUnlimitedStudentsContainer(), 0);
+        player = new Player();
+        player.setPlayerId("bramba2000");
+        player.createDeck(WizardTeam.TEAM1);
+        island.addPropertyChangeListener(controller);
+        player.addPropertyChangeListener(controller);
+        new Island(new FixedUnlimitedStudentsContainer(), 1).addPropertyChangeListener(controller);
+    }
+
+    /**
+     * @param message an update created by the server
+     * @return the update as received by the client
+     */
+    private static UpdateMessage send(UpdateMessage message) {
+        MessageCodec codec = MessageCodec.getInstance();
+        return (UpdateMessage) codec.decode(codec.encode(message));
+    }
+
+    /**
+     * Tests that the changed properties are sent alone and applied on the snapshot
+     */
+    @Test
+    @DisplayName("Tests that the changed properties are sent alone and applied on the snapshot")
+    void deltasAreApplied() {
+        ReducedModel model = new ReducedModel();
+        assertTrue(model.apply(send(controller.createSnapshot(MessageType.START_GAME, "StartGame"))));
+        assertEquals(2, model.getIslands().size());
+
+        FixedUnlimitedStudentsContainer students = new FixedUnlimitedStudentsContainer();
+        students.addStudents(2, FactionColor.RED);
+        island.addStudents(students);
+        island.setMotherNatureHere(true);
+        player.receiveCoin();
+        player.useAssistant(player.getAssistantsDeck().get(3));
+        UpdateMessage update = send(controller.createUpdate(MessageType.STUDENTS_TO_ISLAND, "StudentsToIsland"));
+
+        assertFalse(update.isSnapshot());
+        assertNull(update.getUpdatedObjects(UpdatableObject.UpdatableType.PLAYER));
+        assertEquals(4, update.getDeltas().size());
+        assertTrue(model.apply(update));
+        assertEquals(update.getStateVersion(), model.getStateVersion());
+        assertEquals(2, model.getIslands().get(0).getByColor(FactionColor.RED));
+        assertTrue(model.getIslands().get(0).getMotherNatureHere());
+        Player receivedPlayer = model.getPlayers().get("bramba2000");
+        assertEquals(2, receivedPlayer.getNumberOfCoins());
+        assertEquals(3, receivedPlayer.getLastAssistantPlayed().getCardValue());
+        assertFalse(receivedPlayer.getAssistantsDeck().containsKey(3));
+        assertEquals(1, update.getUpdatedObjects(UpdatableObject.UpdatableType.PLAYER).size());
+
+        player.setLastAssistantPlayed(null);
+        assertTrue(model.apply(send(controller.createUpdate(MessageType.CHOOSE_CLOUD, "ChooseCloud"))));
+        assertNull(model.getPlayers().get("bramba2000").getLastAssistantPlayed());
+    }
+
+    /**
+     * Tests that a missed update is detected and the following updates wait for a snapshot
+     */
+    @Test
+    @DisplayName("Tests that a missed update is detected and the following updates wait for a snapshot")
+    void missedUpdateNeedsSnapshot() {
+        ReducedModel model = new ReducedModel();
+        assertTrue(model.apply(send(controller.createSnapshot(MessageType.START_GAME, "StartGame"))));
+        player.receiveCoin();
+        controller.createUpdate(MessageType.PLAY_CHARACTER, "PlayCharacter");
+        player.receiveCoin();
+        assertFalse(model.apply(send(controller.createUpdate(MessageType.PLAY_CHARACTER, "PlayCharacter"))));
+        assertTrue(model.isAwaitingSnapshot());
+        player.receiveCoin();
+        assertFalse(model.apply(send(controller.createUpdate(MessageType.PLAY_CHARACTER, "PlayCharacter"))));
+
+        assertTrue(model.apply(send(controller.createSnapshot(MessageType.RESYNC, "Resync"))));
+        assertFalse(model.isAwaitingSnapshot());
+        assertEquals(4, model.getPlayers().get("bramba2000").getNumberOfCoins());
+        player.receiveCoin();
+        assertTrue(model.apply(send(controller.createUpdate(MessageType.PLAY_CHARACTER, "PlayCharacter"))));
+        assertEquals(5, model.getPlayers().get("bramba2000").getNumberOfCoins());
+    }
+
+    /**
+     * Tests that the islands are replaced as a whole when some of them are united
+     */
+    @Test
+    @DisplayName("Tests that the islands are replaced as a whole when some of them are united")
+    void unitedIslandsAreReplaced() {
+        ReducedModel model = new ReducedModel();
+        assertTrue(model.apply(send(controller.createSnapshot(MessageType.START_GAME, "StartGame"))));
+        island.setNumIslands(0);
+        UpdateMessage update = send(controller.createUpdate(MessageType.MOVE_MOTHER_NATURE, "MoveMotherNature"));
+        assertEquals(1, update.getUpdatedObjects(UpdatableObject.UpdatableType.ISLAND).size());
+        assertTrue(model.apply(update));
+        assertEquals(1, model.getIslands().size());
+        assertEquals(1, model.getIslands().get(0).getIslandId());
+    }
+}
@@ -0,0 +1,42 @@
+package it.polimi.ingsw.am37.controller;
+
+import it.polimi.ingsw.am37.controller.journal.GameJournal;
+import it.polimi.ingsw.am37.network.server.ClientHandler;
+import it.polimi.ingsw.am37.network.server.Server;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of the stages of the life of a lobby.
+ */
+public class LobbyStateTest {
+
+    /**
+     * Tests that a lobby shut down is drained and closed once, and that the lobbies in each state are counted
+     */
+    @Test
+    @DisplayName("Tests that a lobby shut down is drained and closed once, and that the lobbies in each state are counted")
+    void shutdownClosesOnce() {
+        new Server();
+        LobbyStateCounter states = new LobbyStateCounter();
+        Lobby lobby = new Lobby(2, false, 1, LobbyScheduler.direct(), GameJournal.disabled(), states);
+        ClientHandler first = mock(ClientHandler.class);
+        ClientHandler second = mock(ClientHandler.class);
+        lobby.addPlayerInLobby("first", first, "nick1");
+        lobby.addPlayerInLobby("second", second, "nick2");
+        assertEquals(LobbyState.OPEN, lobby.getState());
+        assertEquals(1, states.getLobbies(LobbyState.OPEN));
+
+        lobby.shutdown();
+        lobby.shutdown();
+        assertEquals(LobbyState.CLOSED, lobby.getState());
+        verify(first, times(1)).disconnect();
+        verify(second, times(1)).disconnect();
+        assertEquals(0, states.getLobbies(LobbyState.OPEN));
+        assertEquals(1, states.getLobbies(LobbyState.CLOSED));
+        assertEquals(0, states.getLobbies(LobbyState.DRAINING));
+    }
+}
@@ -0,0 +1,164 @@
+package it.polimi.ingsw.am37.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the mailbox of the lobbies.
+ */
+public class MailboxTest {
+
+    /**
+     * Tests that the tasks posted by many threads run one at a time and in the order each thread posted them
+     */
+    @Test
+    @DisplayName("Tests that the tasks posted by many threads run one at a time and in the order each thread posted them")
+    void tasksRunOneAtATime() throws Exception {
+        int threads = 8;
+        int tasksPerThread = 2000;
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        ExecutorService posters = Executors.newFixedThreadPool(threads);
+        Mailbox mailbox = new Mailbox(workers, Mailbox.DEFAULT_CAPACITY);
+        AtomicInteger running = new AtomicInteger();
+        int[] lastSeen = new int[threads];
+        int[] counter = new int[1];
+        boolean[] outOfOrder = new boolean[1];
+        CountDownLatch done = new CountDownLatch(threads * tasksPerThread);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            posters.submit(() -> {
+                start.await();
+                for (int i = 1; i <= tasksPerThread; i++) {
+                    int sequence = i;
+                    mailbox.post(() -> {
+                        if (running.incrementAndGet() != 1) outOfOrder[0] = true;
+                        // not atomic on purpose, the mailbox must serialize the tasks
+                        counter[0]++;
+                        if (lastSeen[thread] != sequence - 1) outOfOrder[0] = true;
+                        lastSeen[thread] = sequence;
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+                return null;
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        workers.shutdown();
+        posters.shutdown();
+        assertFalse(outOfOrder[0]);
+        assertEquals(threads * tasksPerThread, counter[0]);
+    }
+
+    /**
+     * Tests that the messages of the clients are rejected when the mailbox is full, while the events are accepted
+     */
+    @Test
+    @DisplayName("Tests that the messages of the clients are rejected when the mailbox is full, while the events are accepted")
+    void fullMailboxRejectsMessages() {
+        List<Runnable> pending = new ArrayList<>();
+        Mailbox mailbox = new Mailbox(pending::add, 2);
+        AtomicInteger run = new AtomicInteger();
+        assertTrue(mailbox.offer(run::incrementAndGet));
+        assertTrue(mailbox.offer(run::incrementAndGet));
+        assertFalse(mailbox.offer(run::incrementAndGet));
+        mailbox.post(run::incrementAndGet);
+
+        assertEquals(1, pending.size());
+        pending.remove(0).run();
+        assertEquals(3, run.get());
+        assertTrue(mailbox.offer(run::incrementAndGet));
+    }
+
+    /**
+     * Tests that a worker leaves a busy mailbox after a few tasks and that a failing task doesn't stop the others
+     */
+    @Test
+    @DisplayName("Tests that a worker leaves a busy mailbox after a few tasks and that a failing task doesn't stop the others")
+    void busyMailboxIsRescheduled() {
+        List<Runnable> pending = new ArrayList<>();
+        Mailbox mailbox = new Mailbox(pending::add, Mailbox.DEFAULT_CAPACITY);
+        AtomicInteger run = new AtomicInteger();
+        mailbox.post(() -> {
+            throw new IllegalStateException("Failing task");
+        });
+        for (int i = 0; i < 99; i++)
+            mailbox.post(run::incrementAndGet);
+
+        int turns = 0;
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+            turns++;
+        }
+        assertEquals(99, run.get());
+        assertTrue(turns > 1);
+    }
+
+    /**
+     * Tests that a task throwing an error doesn't leave the mailbox stuck
+     */
+    @Test
+    @DisplayName("Tests that a task throwing an error doesn't leave the mailbox stuck")
+    void errorDoesNotStopTheMailbox() {
+        List<Runnable> pending = new ArrayList<>();
+        Mailbox mailbox = new Mailbox(pending::add, Mailbox.DEFAULT_CAPACITY);
+        AtomicInteger run = new AtomicInteger();
+        mailbox.post(() -> {
+            throw new AssertionError("Failing task");
+        });
+        pending.remove(0).run();
+        mailbox.post(run::incrementAndGet);
+        assertTrue(mailbox.offer(run::incrementAndGet));
+
+        assertEquals(1, pending.size());
+        pending.remove(0).run();
+        assertEquals(2, run.get());
+        assertTrue(pending.isEmpty());
+    }
+
+    /**
+     * Tests that the lobbies sharing a work-stealing scheduler keep their own order and report their statistics
+     */
+    @Test
+    @DisplayName("Tests that the lobbies sharing a work-stealing scheduler keep their own order and report their statistics")
+    void schedulerKeepsLobbiesOrdered() throws Exception {
+        LobbyScheduler scheduler = LobbyScheduler.workStealing(4);
+        int lobbies = 50;
+        int tasksPerLobby = 200;
+        List<Mailbox> mailboxes = new ArrayList<>();
+        int[] lastSeen = new int[lobbies];
+        boolean[] outOfOrder = new boolean[1];
+        CountDownLatch done = new CountDownLatch(lobbies * tasksPerLobby);
+        for (int l = 0; l < lobbies; l++)
+            mailboxes.add(scheduler.newMailbox(Mailbox.DEFAULT_CAPACITY));
+        for (int i = 1; i <= tasksPerLobby; i++)
+            for (int l = 0; l < lobbies; l++) {
+                int lobby = l;
+                int sequence = i;
+                mailboxes.get(l).post(() -> {
+                    if (lastSeen[lobby] != sequence - 1) outOfOrder[0] = true;
+                    lastSeen[lobby] = sequence;
+                    done.countDown();
+                });
+            }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(outOfOrder[0]);
+
+        // a task is counted right after it ends, so the last one may still be finishing
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mailboxes.get(0).getStats().tasksRun() < tasksPerLobby && System.nanoTime() < deadline)
+            Thread.onSpinWait();
+        Mailbox.Stats stats = mailboxes.get(0).getStats();
+        assertEquals(tasksPerLobby, stats.tasksRun());
+        assertEquals(0, stats.queueDepth());
+        assertTrue(stats.maxLatencyMicros() >= stats.averageLatencyMicros());
+    }
+}
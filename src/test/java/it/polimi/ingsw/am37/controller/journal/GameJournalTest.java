@@ -0,0 +1,280 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import it.polimi.ingsw.am37.bot.Move;
+import it.polimi.ingsw.am37.controller.Lobby;
+import it.polimi.ingsw.am37.controller.LobbyScheduler;
+import it.polimi.ingsw.am37.controller.LobbyStateCounter;
+import it.polimi.ingsw.am37.message.ChooseCloudMessage;
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.MessageCodec;
+import it.polimi.ingsw.am37.message.PlayAssistantMessage;
+import it.polimi.ingsw.am37.model.PackedGameState;
+import it.polimi.ingsw.am37.model.Player;
+import it.polimi.ingsw.am37.network.server.BroadcastFrame;
+import it.polimi.ingsw.am37.network.server.ClientHandler;
+import it.polimi.ingsw.am37.network.server.Server;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the journal of the games and of the lobbies rebuilt from it.
+ */
+public class GameJournalTest {
+
+    /**
+     * Stands for a player in a lobby played by the test; its connection can be made to drop while the lobby is
+     * sending it an update
+     */
+    private static class TestClientHandler extends ClientHandler {
+
+        /**
+         * The lobby of the player
+         */
+        private final Lobby lobby;
+
+        /**
+         * True until the handler is disconnected
+         */
+        private volatile boolean connected;
+
+        /**
+         * True if the connection drops at the next update sent
+         */
+        private volatile boolean dropAtNextFrame;
+
+        /**
+         * @param UUID  the player the handler stands for
+         * @param lobby the lobby of the player
+         */
+        TestClientHandler(String UUID, Lobby lobby) {
+            setUUID(UUID);
+            this.lobby = lobby;
+            this.connected = true;
+        }
+
+        @Override
+        public boolean isConnectedToClient() {
+            return connected;
+        }
+
+        @Override
+        public void sendFrameToClient(BroadcastFrame frame) {
+            if (dropAtNextFrame) disconnect();
+        }
+
+        @Override
+        protected void queueFrame(byte[] envelope, byte[] payload) {
+        }
+
+        @Override
+        public void disconnect() {
+            if (!connected) return;
+            connected = false;
+            lobby.onDisconnect(getUUID());
+        }
+    }
+
+    /**
+     * @return the start of a game with two players
+     */
+    private static JournalRecord startRecord() {
+        LinkedHashMap<String, String> seating = new LinkedHashMap<>();
+        seating.put("uuid-1", "nick1");
+        seating.put("uuid-2", "nick2");
+        return new JournalRecord(JournalRecord.Type.START, 1, null, new GameSetup(2, false, 42, seating).encode());
+    }
+
+    /**
+     * Tests that the records are read back as written and that a record cut by a crash ends the journal
+     */
+    @Test
+    @DisplayName("Tests that the records are read back as written and that a record cut by a crash ends the journal")
+    void recordsAreReadBack() {
+        JournalRecord start = startRecord();
+        JournalRecord disconnect = new JournalRecord(JournalRecord.Type.DISCONNECT, 2, "uuid-1", null);
+        JournalRecord checkpoint = new JournalRecord(JournalRecord.Type.CHECKPOINT, 3, null, "12");
+        ByteArrayOutputStream journal = new ByteArrayOutputStream();
+        journal.writeBytes(start.encode());
+        journal.writeBytes(disconnect.encode());
+        byte[] last = checkpoint.encode();
+        journal.write(last, 0, last.length - 1);
+
+        List<JournalRecord> records = JournalRecord.decodeAll(ByteBuffer.wrap(journal.toByteArray()));
+        assertEquals(List.of(start, disconnect), records);
+        assertEquals(2, GameSetup.decode(records.get(0).payload()).seating().size());
+
+        byte[] damaged = journal.toByteArray();
+        damaged[damaged.length - last.length - 2] ^= 1;
+        assertEquals(List.of(start), JournalRecord.decodeAll(ByteBuffer.wrap(damaged)));
+    }
+
+    /**
+     * Tests that the writer appends the records of each journal in order and deletes the finished ones
+     */
+    @Test
+    @DisplayName("Tests that the writer appends the records of each journal in order and deletes the finished ones")
+    void writerAppendsAndDeletes(@TempDir Path directory) throws Exception {
+        JournalWriter writer = new JournalWriter(new FileJournalStore(directory));
+        List<JournalRecord> written = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            JournalRecord record = new JournalRecord(JournalRecord.Type.CHECKPOINT, i, null, String.valueOf(i));
+            written.add(record);
+            writer.append(1, record);
+            writer.append(2, record);
+        }
+        writer.delete(2);
+        writer.close();
+
+        FileJournalStore store = new FileJournalStore(directory);
+        assertEquals(List.of(1), store.matchIDs());
+        assertEquals(written, JournalRecord.decodeAll(store.read(1)));
+        assertEquals(0, store.read(2).remaining());
+    }
+
+    /**
+     * Tests that a lobby rebuilt from its journal replays the same game, with its players disconnected
+     */
+    @Test
+    @DisplayName("Tests that a lobby rebuilt from its journal replays the same game, with its players disconnected")
+    void lobbyIsRebuilt() {
+        List<JournalRecord> records = new ArrayList<>(List.of(startRecord()));
+        Lobby first = Lobby.recover(7, records.iterator(), LobbyScheduler.direct(), GameJournal.disabled());
+        Lobby second = Lobby.recover(7, records.iterator(), LobbyScheduler.direct(), GameJournal.disabled());
+        assertEquals(first.getGameManager().getIslandsManager().getMotherNaturePosition().getIslandId(),
+                second.getGameManager().getIslandsManager().getMotherNaturePosition().getIslandId());
+        Player current = first.getGameManager().getTurnManager().getCurrentPlayer();
+        assertEquals(current.getPlayerId(), second.getGameManager().getTurnManager().getCurrentPlayer().getPlayerId());
+        assertTrue(first.isPlayerDisconnected("uuid-1"));
+        assertTrue(first.isPlayerDisconnected("uuid-2"));
+
+        String UUID = current.getPlayerId().equals("nick1") ? "uuid-1" : "uuid-2";
+        records.add(new JournalRecord(JournalRecord.Type.MESSAGE, 2, UUID,
+                MessageCodec.getInstance().encode(new PlayAssistantMessage(UUID, 5))));
+        Lobby rebuilt = Lobby.recover(7, records.iterator(), LobbyScheduler.direct(), GameJournal.disabled());
+        Player player = rebuilt.getGameManager()
+                .getTurnManager()
+                .getPlayers()
+                .stream()
+                .filter(p -> p.getPlayerId().equals(current.getPlayerId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(5, player.getLastAssistantPlayed().getCardValue());
+
+        records.add(new JournalRecord(JournalRecord.Type.CHECKPOINT, 3, null, "-1"));
+        assertThrows(IllegalStateException.class,
+                () -> Lobby.recover(7, records.iterator(), LobbyScheduler.direct(), GameJournal.disabled()));
+    }
+
+    /**
+     * Plays the game of a lobby with random moves, until the current player is about to choose a cloud after the given
+     * number of actions
+     *
+     * @param lobby    the lobby, started.
+     * @param handlers the handlers of the players, by nickname.
+     * @param actions  the actions played before the choice of the cloud.
+     * @param random   the source of the moves.
+     * @return the choice of the cloud, not sent yet
+     */
+    private static Message playUntilCloud(Lobby lobby, Map<String, TestClientHandler> handlers, int actions,
+                                          Random random) {
+        for (int played = 0; ; ) {
+            AtomicReference<TestClientHandler> sender = new AtomicReference<>();
+            AtomicReference<Message> message = new AtomicReference<>();
+            lobby.inspectGame(game -> {
+                List<Move> moves = game.legalMoves();
+                Move move = moves.get(random.nextInt(moves.size()));
+                String nickname = lobby.getGameManager().getTurnManager().getCurrentPlayer().getPlayerId();
+                sender.set(handlers.get(nickname));
+                message.set(game.toMessage(move, sender.get().getUUID()));
+            });
+            assertNotNull(sender.get(), "The game is over");
+            if (message.get() == null) continue;
+            if (played >= actions && message.get() instanceof ChooseCloudMessage) return message.get();
+            lobby.onMessageReceived(message.get(), sender.get());
+            played++;
+        }
+    }
+
+    /**
+     * Tests that a connection dropping while the lobby handles the choice of a cloud of its player doesn't change how
+     * the game is replayed: the lobby passes the turns as the journal records them
+     */
+    @Test
+    @DisplayName("Tests that a connection dropping during the choice of a cloud is replayed as it was played")
+    void droppedConnectionIsReplayed(@TempDir Path directory) throws Exception {
+        new Server();
+        JournalWriter writer = new JournalWriter(new FileJournalStore(directory));
+        Lobby lobby = new Lobby(2, false, 9, LobbyScheduler.direct(), new GameJournal(9, writer),
+                new LobbyStateCounter());
+        Map<String, TestClientHandler> handlers = new HashMap<>();
+        for (int i = 1; i <= 2; i++) {
+            TestClientHandler handler = new TestClientHandler("uuid-" + i, lobby);
+            handlers.put("nick" + i, handler);
+            assertTrue(lobby.addPlayerInLobby("uuid-" + i, handler, "nick" + i).join());
+        }
+        lobby.start();
+
+        Message choice = playUntilCloud(lobby, handlers, 0, new Random(3));
+        TestClientHandler sender = handlers.get(lobby.getGameManager().getTurnManager().getCurrentPlayer().getPlayerId());
+        sender.dropAtNextFrame = true;
+        lobby.onMessageReceived(choice, sender);
+        assertFalse(sender.isConnectedToClient());
+        assertTrue(lobby.isPlayerDisconnected(sender.getUUID()));
+        writer.close();
+
+        Lobby rebuilt = Lobby.recover(9, new FileJournalStore(directory).records(9), LobbyScheduler.direct(),
+                GameJournal.disabled());
+        assertEquals(PackedGameState.of(lobby.getGameManager()), PackedGameState.of(rebuilt.getGameManager()));
+        assertEquals(lobby.getGameManager().getTurnManager().getCurrentPlayer().getPlayerId(),
+                rebuilt.getGameManager().getTurnManager().getCurrentPlayer().getPlayerId());
+    }
+
+    /**
+     * Tests that a lobby is rebuilt from the snapshot of the last checkpoint of its journal: the messages before it
+     * aren't needed, and the rebuilt game draws the same students as the original one
+     */
+    @Test
+    @DisplayName("Tests that a lobby is rebuilt from the last checkpoint of its journal")
+    void lobbyIsRebuiltFromCheckpoint(@TempDir Path directory) throws Exception {
+        new Server();
+        JournalWriter writer = new JournalWriter(new FileJournalStore(directory));
+        Lobby lobby = new Lobby(2, true, 11, LobbyScheduler.direct(), new GameJournal(11, writer),
+                new LobbyStateCounter());
+        Map<String, TestClientHandler> handlers = new HashMap<>();
+        for (int i = 1; i <= 2; i++) {
+            TestClientHandler handler = new TestClientHandler("uuid-" + i, lobby);
+            handlers.put("nick" + i, handler);
+            assertTrue(lobby.addPlayerInLobby("uuid-" + i, handler, "nick" + i).join());
+        }
+        lobby.start();
+        playUntilCloud(lobby, handlers, GameJournal.CHECKPOINT_INTERVAL, new Random(5));
+        writer.close();
+
+        List<JournalRecord> records = JournalRecord.decodeAll(new FileJournalStore(directory).read(11));
+        int last = 0;
+        for (int i = 0; i < records.size(); i++)
+            if (records.get(i).type() == JournalRecord.Type.CHECKPOINT) last = i;
+        assertTrue(last > 0);
+        List<JournalRecord> withoutPast = new ArrayList<>(records);
+        withoutPast.subList(1, last).removeIf(record -> record.type() == JournalRecord.Type.MESSAGE);
+
+        for (List<JournalRecord> journal : List.of(records, withoutPast)) {
+            Lobby rebuilt = Lobby.recover(11, journal.iterator(), LobbyScheduler.direct(), GameJournal.disabled());
+            assertEquals(PackedGameState.of(lobby.getGameManager()), PackedGameState.of(rebuilt.getGameManager()));
+            assertEquals(lobby.getGameManager().getBagRandomState(), rebuilt.getGameManager().getBagRandomState());
+            assertEquals(lobby.getGameManager().getTurnManager().getCurrentPlayer().getPlayerId(),
+                    rebuilt.getGameManager().getTurnManager().getCurrentPlayer().getPlayerId());
+            for (String UUID : handlers.values().stream().map(ClientHandler::getUUID).toList())
+                assertTrue(rebuilt.isPlayerDisconnected(UUID));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package it.polimi.ingsw.am37.controller.journal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the store keeping the journals in memory-mapped segments.
+ */
+public class MappedJournalStoreTest {
+
+    /**
+     * Size of the segments of the tests, small enough to fill many of them
+     */
+    private static final int SEGMENT_SIZE = 1024;
+
+    /**
+     * @param sequence the sequence number of the record
+     * @return a record of a journal
+     */
+    private static JournalRecord record(long sequence) {
+        return new JournalRecord(JournalRecord.Type.CHECKPOINT, sequence, null, String.valueOf(sequence));
+    }
+
+    /**
+     * @param directory the directory of the store
+     * @return the number of segment files in the directory
+     */
+    private static long segmentFiles(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * @param records the records of a journal
+     * @return the records collected in a list
+     */
+    private static List<JournalRecord> collect(Iterator<JournalRecord> records) {
+        List<JournalRecord> list = new ArrayList<>();
+        records.forEachRemaining(list::add);
+        return list;
+    }
+
+    /**
+     * Tests that the journals spread over many segments are read back in order, also after the store is reopened
+     */
+    @Test
+    @DisplayName("Tests that the journals spread over many segments are read back in order, also after the store is reopened")
+    void journalsAreReadBack(@TempDir Path directory) throws Exception {
+        List<JournalRecord> written = new ArrayList<>();
+        try (MappedJournalStore store = new MappedJournalStore(directory, SEGMENT_SIZE)) {
+            for (int i = 1; i <= 200; i++) {
+                JournalRecord record = record(i);
+                written.add(record);
+                store.append(1, ByteBuffer.wrap(record.encode()));
+                store.append(2, ByteBuffer.wrap(record.encode()));
+                store.sync(1);
+            }
+            assertTrue(store.getSegmentCount() > 1);
+            assertEquals(written, collect(store.records(1)));
+        }
+
+        try (MappedJournalStore store = new MappedJournalStore(directory, SEGMENT_SIZE)) {
+            assertEquals(List.of(1, 2), store.matchIDs());
+            assertEquals(written, JournalRecord.decodeAll(store.read(1)));
+            assertEquals(written, collect(store.records(2)));
+        }
+    }
+
+    /**
+     * Tests that a deleted journal stays deleted after a restart and that compaction removes the segments it filled
+     */
+    @Test
+    @DisplayName("Tests that a deleted journal stays deleted after a restart and that compaction removes the segments it filled")
+    void deletedJournalsAreCompacted(@TempDir Path directory) throws Exception {
+        List<JournalRecord> written = new ArrayList<>();
+        try (MappedJournalStore store = new MappedJournalStore(directory, SEGMENT_SIZE)) {
+            for (int i = 1; i <= 200; i++) {
+                store.append(1, ByteBuffer.wrap(record(i).encode()));
+                if (i % 10 == 0) {
+                    written.add(record(i));
+                    store.append(2, ByteBuffer.wrap(record(i).encode()));
+                }
+            }
+            store.delete(1);
+        }
+
+        long segments = segmentFiles(directory);
+        try (MappedJournalStore store = new MappedJournalStore(directory, SEGMENT_SIZE)) {
+            assertEquals(List.of(2), store.matchIDs());
+            assertEquals(0, store.read(1).remaining());
+            assertTrue(store.compact() > 0);
+            assertTrue(segmentFiles(directory) < segments);
+            assertEquals(written, collect(store.records(2)));
+        }
+
+        try (MappedJournalStore store = new MappedJournalStore(directory, SEGMENT_SIZE)) {
+            assertEquals(List.of(2), store.matchIDs());
+            assertEquals(written, collect(store.records(2)));
+        }
+    }
+
+    /**
+     * Tests that a frame cut by a crash is ignored when the store is reopened and that the writes continue after it
+     */
+    @Test
+    @DisplayName("Tests that a frame cut by a crash is ignored when the store is reopened and that the writes continue after it")
+    void tornFrameIsIgnored(@TempDir Path directory) throws Exception {
+        try (MappedJournalStore store = new MappedJournalStore(directory, SEGMENT_SIZE)) {
+            store.append(1, ByteBuffer.wrap(record(1).encode()));
+            store.append(1, ByteBuffer.wrap(record(2).encode()));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        // damages the last byte of the second frame
+        int end = 2 * (8 + 13 + record(1).encode().length);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), end - 1);
+        }
+
+        try (MappedJournalStore store = new MappedJournalStore(directory, SEGMENT_SIZE)) {
+            assertEquals(List.of(record(1)), collect(store.records(1)));
+            store.append(1, ByteBuffer.wrap(record(3).encode()));
+        }
+        try (MappedJournalStore store = new MappedJournalStore(directory, SEGMENT_SIZE)) {
+            assertEquals(List.of(record(1), record(3)), collect(store.records(1)));
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package it.polimi.ingsw.am37.message;
+
+import it.polimi.ingsw.am37.controller.UpdateController;
+import it.polimi.ingsw.am37.model.*;
+import it.polimi.ingsw.am37.model.character.Effect;
+import it.polimi.ingsw.am37.model.character.Option;
+import it.polimi.ingsw.am37.model.character.OptionBuilder;
+import it.polimi.ingsw.am37.model.student_container.FixedUnlimitedStudentsContainer;
+import it.polimi.ingsw.am37.model.student_container.UnlimitedStudentsContainer;
+import it.polimi.ingsw.am37.network.FrameCodec;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Class used for testing the binary format of the messages
+ */
+public class MessageBinaryTests {
+    static BinaryCodec codec;
+
+    @BeforeAll
+    static void beforeAll() {
+        codec = BinaryCodec.getInstance();
+    }
+
+    /**
+     * @param message a message
+     * @return the message after being encoded and decoded
+     */
+    private static Message roundTrip(Message message) {
+        byte[] bytes = codec.encode(message);
+        assertNotNull(bytes);
+        return codec.decode(bytes);
+    }
+
+    /**
+     * Serialization and deserialization of LoginMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of LoginMessage")
+    void loginBinaryTest() {
+        LoginMessage loginMessage = new LoginMessage("110011", "bramba2000", codec.getId(), true);
+        LoginMessage newLoginMessage = (LoginMessage) roundTrip(loginMessage);
+        assertEquals(loginMessage.UUID, newLoginMessage.UUID);
+        assertEquals("bramba2000", newLoginMessage.getNickname());
+        assertTrue(codec.isCompatible(newLoginMessage.getBinaryCodec()));
+        assertTrue(newLoginMessage.isCompression());
+    }
+
+    /**
+     * Serialization and deserialization of ConfirmMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of ConfirmMessage")
+    void confirmBinaryTest() {
+        ConfirmMessage newConfirmMessage = (ConfirmMessage) roundTrip(new ConfirmMessage("110011"));
+        assertEquals("110011", newConfirmMessage.UUID);
+        assertNull(newConfirmMessage.getBinaryCodec());
+    }
+
+    /**
+     * Serialization and deserialization of ErrorMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of ErrorMessage")
+    void errorMessageBinaryTest() {
+        ErrorMessage newErrorMessage = (ErrorMessage) roundTrip(new ErrorMessage("110011", "errore: è già qui"));
+        assertEquals("110011", newErrorMessage.UUID);
+        assertEquals("errore: è già qui", newErrorMessage.getMessage());
+    }
+
+    /**
+     * Serialization and deserialization of ChooseCloudMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of ChooseCloudMessage")
+    void chooseCloudMessageBinaryTest() {
+        ChooseCloudMessage newMessage = (ChooseCloudMessage) roundTrip(new ChooseCloudMessage("110011", "405040320"));
+        assertEquals("110011", newMessage.UUID);
+        assertEquals("405040320", newMessage.getCloudId());
+    }
+
+    /**
+     * Serialization and deserialization of ChooseTeamMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of ChooseTeamMessage")
+    void chooseTeamMessageBinaryTest() {
+        ChooseTeamMessage newMessage = (ChooseTeamMessage) roundTrip(new ChooseTeamMessage("110011", WizardTeam.TEAM1));
+        assertEquals(WizardTeam.TEAM1, newMessage.getDesiredTeam());
+    }
+
+    /**
+     * Serialization and deserialization of LobbyRequestMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of LobbyRequestMessage")
+    void lobbyRequestMessageBinaryTest() {
+        LobbyRequestMessage newMessage = (LobbyRequestMessage) roundTrip(new LobbyRequestMessage("110011", 2, true));
+        assertTrue(newMessage.isDesiredAdvanceMode());
+        assertEquals(2, newMessage.getDesiredSize());
+    }
+
+    /**
+     * Serialization and deserialization of MoveMotherNatureMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of MoveMotherNatureMessage")
+    void moveMotherNatureMessageBinaryTest() {
+        MoveMotherNatureMessage newMessage = (MoveMotherNatureMessage) roundTrip(new MoveMotherNatureMessage(
+                "110011", 2));
+        assertEquals(2, newMessage.getIslandId());
+    }
+
+    /**
+     * Serialization and deserialization of NextTurnMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of NextTurnMessage")
+    void nextTurnMessageBinaryTest() {
+        NextTurnMessage newMessage = (NextTurnMessage) roundTrip(new NextTurnMessage("110011", "110012", "alexis011"));
+        assertEquals("110011", newMessage.UUID);
+        assertEquals("110012", newMessage.getNextPlayerUUID());
+        assertEquals("alexis011", newMessage.getNextPlayerNickname());
+        assertEquals(MessageType.NEXT_TURN, newMessage.getMessageType());
+    }
+
+    /**
+     * Serialization and deserialization of PingMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of PingMessage")
+    void pingMessageBinaryTest() {
+        Message newMessage = roundTrip(new PingMessage("110011"));
+        assertInstanceOf(PingMessage.class, newMessage);
+        assertEquals(MessageType.PING, newMessage.getMessageType());
+    }
+
+    /**
+     * Serialization and deserialization of PlayAssistantMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of PlayAssistantMessage")
+    void playAssistantMessageBinaryTest() {
+        PlayAssistantMessage newMessage = (PlayAssistantMessage) roundTrip(new PlayAssistantMessage("110011", 40));
+        assertEquals(40, newMessage.getCardValue());
+    }
+
+    /**
+     * Serialization and deserialization of PlayCharacterMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of PlayCharacterMessage")
+    void playCharacterMessageBinaryTest() {
+        Player player = mock(Player.class);
+        when(player.getPlayerId()).thenReturn("bramba2000");
+        Option option = OptionBuilder.newBuilder(mock(GameManager.class), player).build();
+        PlayCharacterMessage newMessage = (PlayCharacterMessage) roundTrip(new PlayCharacterMessage("110011",
+                Effect.GRANDMA, option));
+        assertEquals(Effect.GRANDMA, newMessage.getChosenCharacter());
+    }
+
+    /**
+     * Serialization and deserialization of StudentsToIslandMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of StudentsToIslandMessage")
+    void studentsToIslandMessageBinaryTest() {
+        UnlimitedStudentsContainer container = new UnlimitedStudentsContainer();
+        container.addStudents(3, FactionColor.BLUE);
+        StudentsToIslandMessage newMessage = (StudentsToIslandMessage) roundTrip(new StudentsToIslandMessage(
+                "110011", container, 4));
+        assertEquals(3, newMessage.getContainer().getByColor(FactionColor.BLUE));
+        assertEquals(4, newMessage.getIslandId());
+    }
+
+    /**
+     * Serialization and deserialization of UpdateMessage
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of UpdateMessage")
+    void updateMessageBinaryTest() {
+        UpdateMessage newMessage = (UpdateMessage) roundTrip(new UpdateMessage("110011",
+                List.of(new Cloud(true, 0), new Island(null, 3)), MessageType.PING, "Last action description"));
+        assertTrue(((Cloud) newMessage.getUpdatedObjects(UpdatableObject.UpdatableType.CLOUD).get(0)).getIsFor2());
+        assertEquals(3, ((Island) newMessage.getUpdatedObjects(UpdatableObject.UpdatableType.ISLAND).get(0))
+                .getIslandId());
+        assertEquals(MessageType.PING, newMessage.getLastAction());
+        assertTrue(newMessage.isSnapshot());
+    }
+
+    /**
+     * Serialization and deserialization of an UpdateMessage made of property deltas
+     */
+    @Test
+    @DisplayName("Serialization and deserialization of an UpdateMessage made of property deltas")
+    void deltaUpdateMessageBinaryTest() {
+        UpdateController controller = new UpdateController();
+        Island island = new Island(new FixedUnlimitedStudentsContainer(), 0);
+        island.addPropertyChangeListener(controller);
+        FixedUnlimitedStudentsContainer students = new FixedUnlimitedStudentsContainer();
+        students.addStudents(2, FactionColor.PINK);
+        island.addStudents(students);
+        UpdateMessage update = controller.createUpdate(MessageType.STUDENTS_TO_ISLAND, "StudentsToIsland");
+
+        UpdateMessage newMessage = (UpdateMessage) roundTrip(update);
+        assertEquals(update.getStateVersion(), newMessage.getStateVersion());
+        assertEquals(update.getDeltas().size(), newMessage.getDeltas().size());
+        assertEquals("0", newMessage.getDeltas().get(0).getObjectId());
+        assertEquals(MessageCodec.getInstance().toJsonTree(update), MessageCodec.getInstance().toJsonTree(newMessage));
+    }
+
+    /**
+     * Tests that the binary format is smaller than JSON and that both kinds of frames are read
+     */
+    @Test
+    @DisplayName("Tests that the binary format is smaller than JSON and that both kinds of frames are read")
+    void framesBinaryTest() throws IOException {
+        UnlimitedStudentsContainer container = new UnlimitedStudentsContainer();
+        container.addStudents(3, FactionColor.BLUE);
+        Message message = new StudentsToDiningMessage("110011", container);
+        byte[] binary = FrameCodec.encode(message, true);
+        byte[] json = FrameCodec.encode(message, false);
+        assertTrue(binary.length < json.length);
+        for (byte[] frame : List.of(binary, json)) {
+            StudentsToDiningMessage read = (StudentsToDiningMessage) FrameCodec.read(
+                    new DataInputStream(new ByteArrayInputStream(frame)));
+            assertEquals(3, read.getContainer().getByColor(FactionColor.BLUE));
+            assertEquals(3, ((StudentsToDiningMessage) FrameCodec.decode(frame)).getContainer()
+                    .getByColor(FactionColor.BLUE));
+        }
+    }
+
+    /**
+     * Tests that messages longer than 64 KB can be sent in both formats
+     */
+    @Test
+    @DisplayName("Tests that messages longer than 64 KB can be sent in both formats")
+    void longMessageBinaryTest() throws IOException {
+        String text = "€".repeat(40000);
+        for (boolean binary : new boolean[]{false, true}) {
+            byte[] frame = FrameCodec.encode(new ErrorMessage("110011", text), binary);
+            assertTrue(frame.length > 65535);
+            ErrorMessage read = (ErrorMessage) FrameCodec.read(new DataInputStream(new ByteArrayInputStream(frame)));
+            assertEquals(text, read.getMessage());
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package it.polimi.ingsw.am37.message;
 
-import com.google.gson.Gson;
 import it.polimi.ingsw.am37.model.*;
 import it.polimi.ingsw.am37.model.character.Effect;
 import it.polimi.ingsw.am37.model.character.Option;
@@ -20,14 +19,11 @@ import static org.mockito.Mockito.when;
  * Class used for testing gson
  */
 public class MessageJSONTests {
-    static Gson gson;
+    static MessageCodec codec;
 
     @BeforeAll
     static void beforeAll() {
-        gson = new MessageGsonBuilder().registerMessageAdapter()
-                .registerStudentContainerAdapter()
-                .getGsonBuilder()
-                .create();
+        codec = MessageCodec.getInstance();
     }
 
     /**
@@ -37,9 +33,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of LoginMessage")
     void loginJSONTest() {
         LoginMessage loginMessage = new LoginMessage("110011", "bramba2000");
-        String json = gson.toJson(loginMessage);
+        String json = codec.encode(loginMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         LoginMessage newLoginMessage = (LoginMessage) newMessage;
         assertEquals(loginMessage.UUID, loginMessage.UUID);
         assertEquals(loginMessage.getNickname(), loginMessage.getNickname());
@@ -52,9 +48,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of ConfirmMessage")
     void confirmJSONTest() {
         ConfirmMessage confirmMessage = new ConfirmMessage("110011");
-        String json = gson.toJson(confirmMessage);
+        String json = codec.encode(confirmMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         ConfirmMessage newConfirmMessage = (ConfirmMessage) newMessage;
         assertEquals(confirmMessage.UUID, newConfirmMessage.UUID);
     }
@@ -66,9 +62,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of ErrorMessage")
     void errorMessageJSONTest() {
         ErrorMessage errorMessage = new ErrorMessage("110011", "error message");
-        String json = gson.toJson(errorMessage);
+        String json = codec.encode(errorMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         ErrorMessage newErrorMessage = (ErrorMessage) newMessage;
         assertEquals(errorMessage.UUID, newErrorMessage.UUID);
         assertEquals(errorMessage.getMessage(), newErrorMessage.getMessage());
@@ -81,9 +77,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of ChooseCloudMessage")
     void chooseCloudMessageJSONTest() {
         ChooseCloudMessage chooseCloudMessage = new ChooseCloudMessage("110011", "405040320");
-        String json = gson.toJson(chooseCloudMessage);
+        String json = codec.encode(chooseCloudMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         ChooseCloudMessage newChooseCloudMessage = (ChooseCloudMessage) newMessage;
         assertEquals(chooseCloudMessage.UUID, newChooseCloudMessage.UUID);
         assertEquals(chooseCloudMessage.getCloudId(), newChooseCloudMessage.getCloudId());
@@ -96,9 +92,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of ChooseTeamMessage")
     void chooseTeamMessageJSONTest() {
         ChooseTeamMessage chooseTeamMessage = new ChooseTeamMessage("110011", WizardTeam.TEAM1);
-        String json = gson.toJson(chooseTeamMessage);
+        String json = codec.encode(chooseTeamMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         ChooseTeamMessage newChooseTeamMessage = (ChooseTeamMessage) newMessage;
         assertEquals(chooseTeamMessage.UUID, newChooseTeamMessage.UUID);
         assertEquals(WizardTeam.TEAM1, newChooseTeamMessage.getDesiredTeam());
@@ -111,9 +107,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of LobbyRequestMessage")
     void lobbyRequestMessageJSONTest() {
         LobbyRequestMessage lobbyRequestMessage = new LobbyRequestMessage("110011", 2, true);
-        String json = gson.toJson(lobbyRequestMessage);
+        String json = codec.encode(lobbyRequestMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         LobbyRequestMessage newLobbyRequestMessage = (LobbyRequestMessage) newMessage;
         assertEquals(lobbyRequestMessage.UUID, newLobbyRequestMessage.UUID);
         assertTrue(newLobbyRequestMessage.isDesiredAdvanceMode());
@@ -127,9 +123,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of MoveMotherNatureMessage")
     void moveMotherNatureMessageJSONTest() {
         MoveMotherNatureMessage moveMotherNatureMessage = new MoveMotherNatureMessage("110011", 2);
-        String json = gson.toJson(moveMotherNatureMessage);
+        String json = codec.encode(moveMotherNatureMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         MoveMotherNatureMessage newMoveMotherNatureMessage = (MoveMotherNatureMessage) newMessage;
         assertEquals(moveMotherNatureMessage.UUID, newMoveMotherNatureMessage.UUID);
         assertEquals(2, newMoveMotherNatureMessage.getIslandId());
@@ -142,9 +138,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of NextTurnMessage")
     void nextTurnMessageJSONTest() {
         NextTurnMessage nextTurnMessage = new NextTurnMessage("110011", "110012", "alexis011");
-        String json = gson.toJson(nextTurnMessage);
+        String json = codec.encode(nextTurnMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         NextTurnMessage newNextTurnMessage = (NextTurnMessage) newMessage;
         assertEquals(nextTurnMessage.UUID, newNextTurnMessage.UUID);
         assertEquals("110012", newNextTurnMessage.getNextPlayerUUID());
@@ -159,9 +155,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of PingMessage")
     void pingMessageJSONTest() {
         PingMessage pingMessage = new PingMessage("110011");
-        String json = gson.toJson(pingMessage);
+        String json = codec.encode(pingMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         PingMessage newPingMessage = (PingMessage) newMessage;
         assertEquals(pingMessage.UUID, newPingMessage.UUID);
         assertEquals(MessageType.PING, newPingMessage.getMessageType());
@@ -174,9 +170,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of PlayAssistantMessage")
     void playAssistantMessageJSONTest() {
         PlayAssistantMessage playAssistantMessage = new PlayAssistantMessage("110011", 40);
-        String json = gson.toJson(playAssistantMessage);
+        String json = codec.encode(playAssistantMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         PlayAssistantMessage newPlayAssistantMessage = (PlayAssistantMessage) newMessage;
         assertEquals(playAssistantMessage.UUID, newPlayAssistantMessage.UUID);
         assertEquals(40, newPlayAssistantMessage.getCardValue());
@@ -193,9 +189,9 @@ public class MessageJSONTests {
         Option option = OptionBuilder.newBuilder(mock(GameManager.class), player).build();
         PlayCharacterMessage playCharacterMessage = new PlayCharacterMessage("110011", Effect.GRANDMA,
                 option);
-        String json = gson.toJson(playCharacterMessage);
+        String json = codec.encode(playCharacterMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         PlayCharacterMessage newPlayCharacterMessage = (PlayCharacterMessage) newMessage;
         assertEquals(playCharacterMessage.UUID, newPlayCharacterMessage.UUID);
         assertEquals(Effect.GRANDMA, newPlayCharacterMessage.getChosenCharacter());
@@ -210,9 +206,9 @@ public class MessageJSONTests {
         UnlimitedStudentsContainer container = new UnlimitedStudentsContainer();
         container.addStudents(3, FactionColor.BLUE);
         StudentsToDiningMessage studentsToDiningMessage = new StudentsToDiningMessage("110011", container);
-        String json = gson.toJson(studentsToDiningMessage);
+        String json = codec.encode(studentsToDiningMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         StudentsToDiningMessage newStudentsToDiningMessage = (StudentsToDiningMessage) newMessage;
         assertEquals(studentsToDiningMessage.UUID, newStudentsToDiningMessage.UUID);
         assertEquals(3, newStudentsToDiningMessage.getContainer().getByColor(FactionColor.BLUE));
@@ -227,9 +223,9 @@ public class MessageJSONTests {
         UnlimitedStudentsContainer container = new UnlimitedStudentsContainer();
         container.addStudents(3, FactionColor.BLUE);
         StudentsToIslandMessage studentsToIslandMessage = new StudentsToIslandMessage("110011", container, 4);
-        String json = gson.toJson(studentsToIslandMessage);
+        String json = codec.encode(studentsToIslandMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         StudentsToIslandMessage newStudentsToIslandMessage = (StudentsToIslandMessage) newMessage;
         assertEquals(studentsToIslandMessage.UUID, newStudentsToIslandMessage.UUID);
         assertEquals(3, newStudentsToIslandMessage.getContainer().getByColor(FactionColor.BLUE));
@@ -244,9 +240,9 @@ public class MessageJSONTests {
     void updateMessageJSONTest() {
         UpdateMessage updateMessage = new UpdateMessage("110011", List.of(new Cloud(true, 0), new Island(null, 3)),
                 MessageType.PING, "Last action " + "description");
-        String json = gson.toJson(updateMessage);
+        String json = codec.encode(updateMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         UpdateMessage newUpdateMessage = (UpdateMessage) newMessage;
         assertEquals(updateMessage.UUID, newUpdateMessage.UUID);
         assertInstanceOf(Cloud.class, updateMessage.getUpdatedObjects()
@@ -270,9 +266,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of StartGameMessage")
     void startGameMessageJSONTest() {
         StartGameMessage startGameMessage = new StartGameMessage("110011");
-        String json = gson.toJson(startGameMessage);
+        String json = codec.encode(startGameMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         StartGameMessage newStartGameMessage = (StartGameMessage) newMessage;
         assertEquals(startGameMessage.UUID, newStartGameMessage.UUID);
     }
@@ -284,9 +280,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of EndGameMessage")
     void endGameMessageJSONTest() {
         EndGameMessage endGameMessage = new EndGameMessage("110011", "11012", "axios011");
-        String json = gson.toJson(endGameMessage);
+        String json = codec.encode(endGameMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         EndGameMessage newEndGameMessage = (EndGameMessage) newMessage;
         assertEquals(endGameMessage.UUID, newEndGameMessage.UUID);
         assertEquals("11012", endGameMessage.getWinnerUUID());
@@ -300,9 +296,9 @@ public class MessageJSONTests {
     @DisplayName("Serialization and deserialization of PlanningPhaseMessage")
     void planningPhaseMessageJSONTest() {
         PlanningPhaseMessage planningPhaseMessage = new PlanningPhaseMessage("110011");
-        String json = gson.toJson(planningPhaseMessage);
+        String json = codec.encode(planningPhaseMessage);
         assertNotNull(json);
-        Message newMessage = gson.fromJson(json, Message.class);
+        Message newMessage = codec.decode(json);
         PlanningPhaseMessage newPlanningPhaseMessage = (PlanningPhaseMessage) newMessage;
         assertEquals(planningPhaseMessage.UUID, newPlanningPhaseMessage.UUID);
     }
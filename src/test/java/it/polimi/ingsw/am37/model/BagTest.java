@@ -1,5 +1,7 @@
 package it.polimi.ingsw.am37.model;
 
+import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
+import it.polimi.ingsw.am37.model.student_container.UnlimitedStudentsContainer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -45,4 +47,46 @@ public class BagTest
         assertEquals(0, bag.size());
         assertFalse(bag.isEmpty());
     }
+
+    /**
+     * Tests that the single extractions follow the students left in the bag and never pick an exhausted color.
+     */
+    @Test
+    @DisplayName("Tests that the single extractions follow the students left in the bag and never pick an exhausted color.")
+    public void extractSingleStudents() {
+        Bag bag = new Bag(new MatchRandom(1));
+        int[] extracted = new int[FactionColor.values().length];
+        for (int i = 0; i < 120; i++)
+            extracted[bag.extractStudent().getIndex()]++;
+        for (FactionColor color : FactionColor.values()) {
+            assertEquals(24, extracted[color.getIndex()]);
+            assertEquals(0, bag.getByColor(color));
+        }
+        assertThrows(IllegalStateException.class, bag::extractStudent);
+    }
+
+    /**
+     * Tests that the bulk extractions take each color in proportion to the students left in the bag.
+     */
+    @Test
+    @DisplayName("Tests that the bulk extractions take each color in proportion to the students left in the bag.")
+    public void extractStudentsInProportion() {
+        MatchRandom random = new MatchRandom(7);
+        int rounds = 20000;
+        int red = 0;
+        // 24 red students and 6 of each other color
+        UnlimitedStudentsContainer contents = new UnlimitedStudentsContainer();
+        for (FactionColor color : FactionColor.values())
+            contents.addStudents(color == FactionColor.RED ? 24 : 6, color);
+        for (int i = 0; i < rounds; i++) {
+            Bag bag = new Bag(random);
+            bag.extractStudents(120);
+            bag.addStudents(contents);
+            LimitedStudentsContainer cloud = bag.extractStudents(4);
+            assertEquals(4, cloud.size());
+            red += cloud.getByColor(FactionColor.RED);
+        }
+        // 4 students out of 48, half of them red
+        assertEquals(2.0, (double) red / rounds, 0.05);
+    }
 }
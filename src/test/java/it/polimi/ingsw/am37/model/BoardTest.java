@@ -1,5 +1,7 @@
 package it.polimi.ingsw.am37.model;
 
+import it.polimi.ingsw.am37.model.exceptions.StudentSpaceException;
+import it.polimi.ingsw.am37.model.exceptions.WinningException;
 import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -86,4 +88,44 @@ class BoardTest {
         board = new Board(2, TowerColor.BLACK, false, container, new Player());
         assertTrue(board.getEntrance().size() > 0);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that the entrance loses nothing when it doesn't have all the students to remove, and that only the colors
+     * which fit are added to it
+     */
+    @Test
+    @DisplayName("Test removing students the entrance doesn't have and adding more than it holds")
+    void testEntranceLimits() {
+        board = new Board(2, TowerColor.BLACK, false, new Player());
+        board.addStudentsToEntrance(container);
+
+        LimitedStudentsContainer missing = new LimitedStudentsContainer(7);
+        missing.addStudents(1, FactionColor.BLUE);
+        missing.addStudents(1, FactionColor.RED);
+        assertThrows(StudentSpaceException.class, () -> board.removeStudentsFromEntrance(missing));
+        assertEquals(2, board.getEntrance().getByColor(FactionColor.BLUE));
+
+        LimitedStudentsContainer added = new LimitedStudentsContainer(7);
+        added.addStudents(1, FactionColor.RED);
+        added.addStudents(3, FactionColor.PINK);
+        board.addStudentsToEntrance(added);
+        assertEquals(1, board.getEntrance().getByColor(FactionColor.RED));
+        assertEquals(0, board.getEntrance().getByColor(FactionColor.PINK));
+        assertEquals(6, board.getEntrance().size());
+    }
+
+    /**
+     * Test that a player who places the last towers wins, even when the islands conquered would take more
+     */
+    @Test
+    @DisplayName("Test that placing more towers than the ones left wins")
+    void testRemoveMoreTowersThanLeft() {
+        Player player = new Player();
+        board = new Board(2, TowerColor.BLACK, false, player);
+        board.getTowers().removeTowers(7);
+
+        WinningException winner = assertThrows(WinningException.class, () -> board.removeTowers(2));
+        assertSame(player, winner.getWinner());
+        assertEquals(0, board.getTowers().getCurrentSize());
+    }
+}
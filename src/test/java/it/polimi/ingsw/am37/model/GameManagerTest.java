@@ -50,6 +50,43 @@ class GameManagerTest {
         assertEquals(3, manager.getTurnManager().getPlayers().size());
     }
 
+    /**
+     * Test that two games created with the same seed are set up the same way and extract the same students
+     */
+    @Test
+    @DisplayName("Test that two games created with the same seed are set up the same way and extract the same students")
+    public void testSameSeedSameGame() {
+        GameManager first = new GameManager(3, true, 42);
+        GameManager second = new GameManager(3, true, 42);
+        first.prepareGame();
+        second.prepareGame();
+        assertEquals(42, first.getSeed());
+        assertEquals(describe(first), describe(second));
+        assertEquals(first.getBag().extractStudents(10).getStudentsAsString(),
+                second.getBag().extractStudents(10).getStudentsAsString());
+
+        GameManager other = new GameManager(3, true, 43);
+        other.prepareGame();
+        assertNotEquals(describe(first), describe(other));
+    }
+
+    /**
+     * @param manager a prepared game
+     * @return the random choices of the set up of the game
+     */
+    private static String describe(GameManager manager) {
+        StringBuilder description = new StringBuilder();
+        description.append(manager.getIslandsManager().getMotherNaturePosition().getIslandId()).append('|');
+        for (Island island : manager.getIslandsManager().getIslands())
+            description.append(island.getStudentsOnIsland().getStudentsAsString()).append('|');
+        for (Player player : manager.getTurnManager().getPlayers())
+            description.append(player.getBoard().getEntrance().getStudentsAsString()).append('|');
+        description.append(manager.getTurnManager().getCurrentPlayer().getPlayerId()).append('|');
+        for (Character character : manager.getCharacters())
+            description.append(character.getEffectType()).append('|');
+        return description.toString();
+    }
+
     /**
      * Test moving students from entrance to island
      */
@@ -157,4 +194,23 @@ class GameManagerTest {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that the winner is the player with fewer towers left, then the one with more professors
+     */
+    @Test
+    @DisplayName("Test that the winner is the player with fewer towers left, then the one with more professors")
+    public void testCalculateWinningPlayer() {
+        GameManager manager = new GameManager(3, false, 5);
+        manager.prepareGame();
+        Player current = manager.getTurnManager().getCurrentPlayer();
+        Player other = manager.getTurnManager().getPlayers().stream().filter(p -> p != current).findFirst().orElseThrow();
+        assertSame(current, manager.calculateWinningPlayer());
+
+        other.getBoard().addProf(FactionColor.RED);
+        assertSame(other, manager.calculateWinningPlayer());
+
+        current.getBoard().getTowers().removeTowers(1);
+        assertSame(current, manager.calculateWinningPlayer());
+    }
+}
@@ -9,6 +9,7 @@ import javax.management.InstanceAlreadyExistsException;
 import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class IslandsManagerTest {
@@ -536,6 +537,50 @@ class IslandsManagerTest {
             assertEquals(0, islandsManager.getIslands().get(index).getByColor(color));
     }
 
+    /**
+     * Tests uniteIfPossible with the last of five islands, compatible with the first and the one before it, then moves
+     * Mother Nature around the end of the ring
+     */
+    @Test
+    @DisplayName("Tests uniteIfPossible with the last of five islands, compatible with the first and the one before it")
+    void uniteIfPossibleAroundTheRing() throws InstanceAlreadyExistsException, MNmovementWrongException {
+        IslandsManager islandsManager = new IslandsManager();
+        for (int i = 0; i < 5; i++) {
+            FixedUnlimitedStudentsContainer students = new FixedUnlimitedStudentsContainer();
+            students.addStudents(i + 1, FactionColor.RED);
+            islandsManager.getIslands().add(new Island(students, i));
+        }
+        Island first = islandsManager.getIslands().get(0);
+        Island last = islandsManager.getIslands().get(4);
+        first.setTower(TowerColor.WHITE);
+        islandsManager.getIslands().get(3).setTower(TowerColor.WHITE);
+        last.setTower(TowerColor.WHITE);
+        islandsManager.setMotherNaturePosition(last);
+        last.setMotherNatureHere(true);
+
+        islandsManager.uniteIfPossible(last);
+
+        assertEquals(3, islandsManager.getIslands().size());
+        assertEquals(last, islandsManager.getIslands().get(2));
+        assertEquals(3, last.getNumIslands());
+        assertEquals(1 + 4 + 5, last.getByColor(FactionColor.RED));
+        assertEquals(0, first.getNumIslands());
+        for (int i = 0; i < islandsManager.getIslands().size(); i++)
+            assertEquals(i, islandsManager.getIslands().get(i).getIslandId());
+        assertEquals(2, islandsManager.getMotherNatureIndex());
+
+        Player player = new Player();
+        player.setBoard(new Board(2, TowerColor.BLACK, false, player));
+        player.createDeck(WizardTeam.TEAM1);
+        player.useAssistant(player.getAssistantsDeck().get(1)); //1 max movement
+        islandsManager.setCurrentPlayer(player);
+        Island second = islandsManager.getIslands().get(1);
+        assertThrows(MNmovementWrongException.class, () -> islandsManager.moveMotherNature(second));
+        islandsManager.moveMotherNature(islandsManager.getIslands().get(0));
+        assertEquals(0, islandsManager.getMotherNatureIndex());
+        assertFalse(last.getMotherNatureHere());
+    }
+
     /**
      * Tests the possible movement of Mother Nature starting from random position
      */
@@ -647,4 +692,52 @@ class IslandsManagerTest {
         assertEquals(5, players.get(2).getBoard().getTowers().getCurrentSize());
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the influence on the islands follows the students added, the professors moved and the islands united
+     */
+    @Test
+    @DisplayName("Tests that the influence on the islands follows the students added, the professors moved and the islands united")
+    void trackInfluence() {
+        ArrayList<Player> players = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            players.add(new Player());
+            players.get(i).setPlayerId(String.valueOf(i));
+        }
+        players.get(0).setBoard(new Board(2, TowerColor.BLACK, false, players.get(0)));
+        players.get(1).setBoard(new Board(2, TowerColor.GRAY, false, players.get(1)));
+        players.get(0).getBoard().addProf(FactionColor.GREEN);
+
+        IslandsManager islandsManager = new IslandsManager();
+        for (int i = 0; i < 3; i++) {
+            FixedUnlimitedStudentsContainer students = new FixedUnlimitedStudentsContainer();
+            students.addStudents(1, FactionColor.GREEN);
+            students.addStudents(2, FactionColor.RED);
+            islandsManager.getIslands().add(new Island(students, i));
+        }
+        islandsManager.trackInfluence(players);
+        Island island = islandsManager.getIslands().get(0);
+        assertEquals(1, island.getInfluence(0));
+        assertEquals(0, island.getInfluence(1));
+
+        FixedUnlimitedStudentsContainer added = new FixedUnlimitedStudentsContainer();
+        added.addStudents(2, FactionColor.GREEN);
+        island.addStudents(added);
+        players.get(1).getBoard().addProf(FactionColor.RED);
+        assertEquals(3, island.getInfluence(0));
+        assertEquals(2, island.getInfluence(1));
+
+        players.get(0).getBoard().removeProf(FactionColor.GREEN);
+        players.get(1).getBoard().addProf(FactionColor.GREEN);
+        assertEquals(0, island.getInfluence(0));
+        assertEquals(5, island.getInfluence(1));
+
+        islandsManager.setCurrentPlayer(players.get(1));
+        islandsManager.checkConqueror(island, players);
+        islandsManager.checkConqueror(islandsManager.getIslands().get(1), players);
+        islandsManager.uniteIfPossible(island);
+        assertEquals(2, islandsManager.getIslands().size());
+        assertEquals(8, island.getInfluence(1));
+        assertEquals(TowerColor.GRAY, island.getCurrentTower());
+    }
+}
@@ -0,0 +1,102 @@
+package it.polimi.ingsw.am37.model;
+
+import it.polimi.ingsw.am37.model.exceptions.AssistantImpossibleToPlay;
+import it.polimi.ingsw.am37.model.student_container.LimitedStudentsContainer;
+import it.polimi.ingsw.am37.model.student_container.UnlimitedStudentsContainer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the packed state of a game.
+ */
+public class PackedGameStateTest {
+
+    /**
+     * Test that the students are packed a byte per color and counted at once
+     */
+    @Test
+    @DisplayName("Test that the students are packed a byte per color and counted at once")
+    public void testStudentsArePacked() {
+        UnlimitedStudentsContainer students = new UnlimitedStudentsContainer();
+        students.addStudents(26, FactionColor.BLUE);
+        students.addStudents(3, FactionColor.YELLOW);
+        students.addStudents(26, FactionColor.PINK);
+        long packed = PackedGameState.pack(students);
+        assertEquals(26, PackedGameState.count(packed, FactionColor.BLUE));
+        assertEquals(0, PackedGameState.count(packed, FactionColor.RED));
+        assertEquals(3, PackedGameState.count(packed, FactionColor.YELLOW));
+        assertEquals(55, PackedGameState.total(packed));
+    }
+
+    /**
+     * Test that a game rebuilt from its packed state packs to the same state, also in the middle of a round
+     */
+    @Test
+    @DisplayName("Test that a game rebuilt from its packed state packs to the same state, also in the middle of a round")
+    public void testGameIsRebuilt() throws AssistantImpossibleToPlay {
+        GameManager manager = new GameManager(3, true, 11);
+        manager.prepareGame();
+        PackedGameState start = PackedGameState.of(manager);
+        assertEquals(start, PackedGameState.of(start.toGameManager(5)));
+
+        Player current = manager.getTurnManager().getCurrentPlayer();
+        manager.playAssistant(current.getAssistantsDeck().get(7));
+        LimitedStudentsContainer moved = new LimitedStudentsContainer(3);
+        FactionColor color = Arrays.stream(FactionColor.values())
+                .filter(c -> manager.getTurnManager().getCurrentPlayer().getBoard().getEntrance().getByColor(c) > 0)
+                .findFirst()
+                .orElseThrow();
+        moved.addStudents(1, color);
+        manager.moveStudentsToDining(moved);
+        manager.getIslandsManager().getIslands().get(4).setTower(TowerColor.BLACK);
+        manager.getIslandsManager().setPowerBonusFlag(2);
+
+        PackedGameState state = PackedGameState.of(manager);
+        assertNotEquals(start, state);
+        GameManager rebuilt = state.toGameManager(5);
+        assertEquals(state, PackedGameState.of(rebuilt));
+        int seat = manager.getTurnManager().getPlayers().indexOf(current);
+        assertEquals(7, state.getLastAssistant(seat));
+        assertEquals(9, Integer.bitCount(state.getDeck(seat)));
+        assertEquals(TowerColor.BLACK, state.getTower(4));
+        assertEquals(manager.getBag().size(),
+                Arrays.stream(FactionColor.values()).mapToInt(state::getBag).sum());
+        assertEquals(rebuilt.getTurnManager().getPlayers().get(1),
+                rebuilt.getIslandsManager().getIslands().get(4).getCurrentConqueror());
+    }
+
+    /**
+     * Test that a copy of a state is equal to it and doesn't share its storage
+     */
+    @Test
+    @DisplayName("Test that a copy of a state is equal to it and doesn't share its storage")
+    public void testCopy() {
+        GameManager manager = new GameManager(2, false, 3);
+        manager.prepareGame();
+        PackedGameState state = PackedGameState.of(manager);
+        PackedGameState copy = state.copy();
+        assertEquals(state, copy);
+        assertEquals(state.hashCode(), copy.hashCode());
+        assertNull(copy.getCharacter(0));
+        assertEquals(2, copy.getPlayersNumber());
+        assertEquals(12, copy.getIslandCount());
+        assertEquals(8, copy.getTowers(0));
+    }
+
+    /**
+     * Test that a state written as text is read back as the same state, and that a text too short is refused
+     */
+    @Test
+    @DisplayName("Test that a state written as text is read back as the same state")
+    public void testEncode() {
+        GameManager manager = new GameManager(3, true, 11);
+        manager.prepareGame();
+        PackedGameState state = PackedGameState.of(manager);
+        assertEquals(state, PackedGameState.decode(state.encode()));
+        assertThrows(IllegalArgumentException.class, () -> PackedGameState.decode("AAAA"));
+    }
+}
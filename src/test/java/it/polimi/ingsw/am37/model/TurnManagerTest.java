@@ -8,6 +8,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.util.HashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -705,4 +706,36 @@ class TurnManagerTest {
         assertThrows(StudentSpaceException.class, () -> turnManager.removeStudentsFromDining(temp));
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that a professor taken with a draw goes back to its owner at the end of the round, even if the player who
+     * took it isn't the last to play
+     */
+    @Test
+    @DisplayName("Tests that a professor taken with a draw goes back to its owner at the end of the round")
+    void testProfessorWithDrawGivenBack() {
+        TurnManager turnManager = new TurnManager(false, 3);
+        for (int i = 0; i < 3; i++)
+            turnManager.getPlayers().add(new Player());
+        turnManager.getPlayers().get(0).setBoard(new Board(3, TowerColor.BLACK, false, turnManager.getPlayers().get(0)));
+        turnManager.getPlayers().get(1).setBoard(new Board(3, TowerColor.WHITE, false, turnManager.getPlayers().get(1)));
+        turnManager.getPlayers().get(2).setBoard(new Board(3, TowerColor.GRAY, false, turnManager.getPlayers().get(2)));
+        turnManager.restore(turnManager.getPlayers().get(0), turnManager.getPlayers(), new HashMap<>());
+
+        LimitedStudentsContainer green = new LimitedStudentsContainer(7);
+        green.addStudents(2, FactionColor.GREEN);
+        turnManager.addStudentsToDining(green);
+
+        turnManager.setCurrentPlayer(turnManager.getPlayers().get(1));
+        turnManager.setProfWithDraw();
+        turnManager.addStudentsToDining(green);
+        assertTrue(turnManager.getPlayers().get(1).getBoard().getProfTable()[FactionColor.GREEN.getIndex()]);
+        assertFalse(turnManager.getPlayers().get(0).getBoard().getProfTable()[FactionColor.GREEN.getIndex()]);
+
+        turnManager.setCurrentPlayer(turnManager.getPlayers().get(2));
+        turnManager.resetFlags();
+        assertTrue(turnManager.getPlayers().get(0).getBoard().getProfTable()[FactionColor.GREEN.getIndex()]);
+        for (int i = 1; i < 3; i++)
+            assertFalse(turnManager.getPlayers().get(i).getBoard().getProfTable()[FactionColor.GREEN.getIndex()]);
+    }
+
+}
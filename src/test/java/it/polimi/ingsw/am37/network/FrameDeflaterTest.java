@@ -0,0 +1,79 @@
+package it.polimi.ingsw.am37.network;
+
+import com.google.gson.JsonParseException;
+import it.polimi.ingsw.am37.controller.UpdateController;
+import it.polimi.ingsw.am37.message.*;
+import it.polimi.ingsw.am37.model.Island;
+import it.polimi.ingsw.am37.model.UpdatableObject;
+import it.polimi.ingsw.am37.model.student_container.FixedUnlimitedStudentsContainer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the compression of the frames sent on a connection
+ */
+public class FrameDeflaterTest {
+
+    /**
+     * @return a snapshot of twelve islands, as sent at the start of a game
+     */
+    private static UpdateMessage snapshot() {
+        UpdateController controller = new UpdateController();
+        for (int i = 0; i < 12; i++)
+            new Island(new FixedUnlimitedStudentsContainer(), i).addPropertyChangeListener(controller);
+        return controller.createSnapshot(MessageType.START_GAME, "StartGame");
+    }
+
+    /**
+     * Tests that the frames are read back in both formats and that the repeated ones shrink thanks to the shared
+     * stream
+     */
+    @Test
+    @DisplayName("Tests that the frames are read back in both formats and that the repeated ones shrink")
+    void framesAreInflated() throws IOException {
+        FrameDeflater deflater = new FrameDeflater(FrameDeflater.DEFAULT_THRESHOLD);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int[] sizes = new int[4];
+        for (int i = 0; i < 4; i++) {
+            byte[] frame = FrameCodec.encode(snapshot(), i % 2 == 1);
+            byte[] compressed = deflater.deflate(frame, new byte[0]);
+            assertNotNull(compressed);
+            assertTrue(compressed.length < frame.length);
+            sizes[i] = compressed.length;
+            stream.write(compressed);
+            byte[] ping = FrameCodec.encode(new PingMessage("110011"), false);
+            assertNull(deflater.deflate(ping, new byte[0]));
+            stream.write(ping);
+        }
+        assertTrue(sizes[2] < sizes[0] / 2);
+        deflater.end();
+
+        FrameInflater inflater = new FrameInflater();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(stream.toByteArray()));
+        for (int i = 0; i < 4; i++) {
+            UpdateMessage update = (UpdateMessage) FrameCodec.read(in, inflater);
+            assertEquals(12, update.getUpdatedObjects(UpdatableObject.UpdatableType.ISLAND).size());
+            assertEquals(MessageType.PING, FrameCodec.read(in, inflater).getMessageType());
+        }
+        inflater.end();
+    }
+
+    /**
+     * Tests that a compressed frame is rejected by a reader which didn't ask for compression
+     */
+    @Test
+    @DisplayName("Tests that a compressed frame is rejected by a reader which didn't ask for compression")
+    void compressedFrameRejected() {
+        FrameDeflater deflater = new FrameDeflater(0);
+        byte[] frame = deflater.deflate(FrameCodec.encode(new ErrorMessage("110011", "error"), false), new byte[0]);
+        deflater.end();
+        assertThrows(JsonParseException.class, () -> FrameCodec.decode(frame));
+    }
+}
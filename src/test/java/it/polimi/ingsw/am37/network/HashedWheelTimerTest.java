@@ -0,0 +1,64 @@
+package it.polimi.ingsw.am37.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the timing wheel used for the network timeouts.
+ */
+public class HashedWheelTimerTest {
+
+    /**
+     * Tests that a scheduled task is run after its delay.
+     */
+    @Test
+    @DisplayName("Tests that a scheduled task is run after its delay.")
+    public void taskIsRunAfterDelay() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8, Runnable::run);
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(timeout.isExpired());
+        assertEquals(0, timer.getPendingTimeouts());
+    }
+
+    /**
+     * Tests that a delay longer than a round of the wheel isn't expired early.
+     */
+    @Test
+    @DisplayName("Tests that a delay longer than a round of the wheel isn't expired early.")
+    public void longDelayWaitsMoreRounds() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 4, Runnable::run);
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        timer.schedule(latch::countDown, 150, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+    }
+
+    /**
+     * Tests that a cancelled task is never run and isn't counted as pending.
+     */
+    @Test
+    @DisplayName("Tests that a cancelled task is never run and isn't counted as pending.")
+    public void cancelledTaskIsNotRun() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8, Runnable::run);
+        AtomicBoolean run = new AtomicBoolean(false);
+        HashedWheelTimer.Timeout timeout = timer.schedule(() -> run.set(true), 30, TimeUnit.MILLISECONDS);
+        assertEquals(1, timer.getPendingTimeouts());
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timer.getPendingTimeouts());
+        Thread.sleep(100);
+        assertFalse(run.get());
+        assertTrue(timeout.isCancelled());
+    }
+}
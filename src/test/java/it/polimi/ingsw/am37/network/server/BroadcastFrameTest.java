@@ -0,0 +1,85 @@
+package it.polimi.ingsw.am37.network.server;
+
+import it.polimi.ingsw.am37.message.ErrorMessage;
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.NextTurnMessage;
+import it.polimi.ingsw.am37.network.FrameCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the messages encoded once for many clients.
+ */
+public class BroadcastFrameTest {
+
+    /**
+     * Reads a frame as the clients do.
+     *
+     * @param envelope the beginning of the frame
+     * @param payload  the rest of the frame
+     * @return the decoded message
+     */
+    private static Message readFrame(byte[] envelope, byte[] payload) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(envelope);
+        frame.write(payload);
+        return FrameCodec.read(new DataInputStream(new ByteArrayInputStream(frame.toByteArray())));
+    }
+
+    /**
+     * Tests that each recipient receives the message with its own UUID.
+     */
+    @Test
+    @DisplayName("Tests that each recipient receives the message with its own UUID.")
+    public void eachRecipientGetsItsUUID() throws IOException {
+        BroadcastFrame frame = new BroadcastFrame(new NextTurnMessage("next-uuid", "nickname"));
+        for (boolean binary : new boolean[]{false, true}) {
+            for (String UUID : new String[]{"first", "second-\"quoted\""}) {
+                NextTurnMessage received =
+                        (NextTurnMessage) readFrame(frame.envelopeFor(UUID, binary), frame.getPayload(binary));
+                assertEquals(UUID, received.getUUID());
+                assertEquals("next-uuid", received.getNextPlayerUUID());
+                assertEquals("nickname", received.getNextPlayerNickname());
+            }
+        }
+    }
+
+    /**
+     * Tests that a recipient without UUID receives the message without it.
+     */
+    @Test
+    @DisplayName("Tests that a recipient without UUID receives the message without it.")
+    public void recipientWithoutUUID() throws IOException {
+        BroadcastFrame frame = new BroadcastFrame(new NextTurnMessage("next-uuid", "nickname"));
+        for (boolean binary : new boolean[]{false, true}) {
+            Message received = readFrame(frame.envelopeFor(null, binary), frame.getPayload(binary));
+            assertNull(received.getUUID());
+            assertEquals(frame.getMessageType(), received.getMessageType());
+        }
+    }
+
+    /**
+     * Tests that a message too long for a classic frame is sent in an extended one.
+     */
+    @Test
+    @DisplayName("Tests that a message too long for a classic frame is sent in an extended one.")
+    public void longMessageInExtendedFrame() throws IOException {
+        String text = "x".repeat(70000);
+        BroadcastFrame frame = new BroadcastFrame(new ErrorMessage(null, text));
+        for (boolean binary : new boolean[]{false, true}) {
+            byte[] envelope = frame.envelopeFor("uuid", binary);
+            assertEquals(0, envelope[0]);
+            assertEquals(0, envelope[1]);
+            ErrorMessage received = (ErrorMessage) readFrame(envelope, frame.getPayload(binary));
+            assertEquals("uuid", received.getUUID());
+            assertEquals(text, received.getMessage());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package it.polimi.ingsw.am37.network.server;
+
+import it.polimi.ingsw.am37.controller.Lobby;
+import it.polimi.ingsw.am37.controller.LobbyScheduler;
+import it.polimi.ingsw.am37.controller.LobbyState;
+import it.polimi.ingsw.am37.controller.LobbyStateCounter;
+import it.polimi.ingsw.am37.controller.journal.GameJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests of the index used to assign the players to the lobbies.
+ */
+public class MatchmakingIndexTest {
+
+    /**
+     * The tested index
+     */
+    private MatchmakingIndex index;
+
+    /**
+     * Match ID of the next lobby created
+     */
+    private int nextMatchID;
+
+    /**
+     * Creates an empty index
+     */
+    @BeforeEach
+    void setUp() {
+        index = new MatchmakingIndex();
+        nextMatchID = 1;
+    }
+
+    /**
+     * @param UUID         the UUID of the player
+     * @param lobbySize    the desired size
+     * @param advancedMode the desired mode
+     * @return the result of the assignment
+     */
+    private MatchmakingIndex.Assignment join(String UUID, int lobbySize, boolean advancedMode) {
+        return index.join(UUID, mock(ClientHandler.class), "nick-" + UUID, lobbySize, advancedMode,
+                () -> new Lobby(lobbySize, advancedMode, nextMatchID++));
+    }
+
+    /**
+     * Tests that the players are grouped by size and mode and that a full lobby isn't joined anymore.
+     */
+    @Test
+    @DisplayName("Tests that the players are grouped by size and mode and that a full lobby isn't joined anymore.")
+    public void playersAreGrouped() {
+        MatchmakingIndex.Assignment first = join("a", 2, false);
+        assertTrue(first.created());
+        assertTrue(join("b", 2, true).created());
+        MatchmakingIndex.Assignment third = join("c", 2, false);
+        assertFalse(third.created());
+        assertSame(first.lobby(), third.lobby());
+        assertTrue(first.lobby().isGameReady());
+
+        MatchmakingIndex.Assignment fourth = join("d", 2, false);
+        assertTrue(fourth.created());
+        assertNotSame(first.lobby(), fourth.lobby());
+        assertSame(first.lobby(), index.lobbyOf("c"));
+        assertSame(fourth.lobby(), index.lobbyOf("d"));
+        assertEquals(List.of(1, 2, 3), index.getActiveMatchIDs());
+    }
+
+    /**
+     * Tests that a closed lobby and its players are forgotten.
+     */
+    @Test
+    @DisplayName("Tests that a closed lobby and its players are forgotten.")
+    public void closedLobbyIsRemoved() {
+        Lobby lobby = join("a", 3, true).lobby();
+        index.remove(lobby);
+        assertNull(index.lobbyOf("a"));
+        assertTrue(index.getActiveMatchIDs().isEmpty());
+        MatchmakingIndex.Assignment next = join("b", 3, true);
+        assertTrue(next.created());
+        assertNotSame(lobby, next.lobby());
+    }
+
+    /**
+     * Tests that a lobby which starts closing after a player has taken a seat refuses it, and that the player is
+     * assigned to a new lobby
+     */
+    @Test
+    @DisplayName("Tests that a lobby which starts closing refuses the player, who gets a new lobby")
+    public void closingLobbyRefusesPlayers() throws Exception {
+        new Server();
+        BlockingQueue<Runnable> pending = new LinkedBlockingQueue<>();
+        LobbyScheduler scheduler = new LobbyScheduler("manual", pending::add);
+        Supplier<Lobby> newLobby = () -> new Lobby(2, false, nextMatchID++, scheduler, GameJournal.disabled(),
+                new LobbyStateCounter());
+
+        AtomicReference<MatchmakingIndex.Assignment> first = new AtomicReference<>();
+        Thread joining = Thread.ofPlatform().start(() -> first.set(index.join("a", mock(ClientHandler.class),
+                "nick-a", 2, false, newLobby)));
+        runUntilDone(joining, pending);
+        Lobby closing = first.get().lobby();
+
+        // the only player leaves, then a new player takes the seat before the lobby handles the disconnection
+        closing.onDisconnect("a");
+        AtomicReference<MatchmakingIndex.Assignment> second = new AtomicReference<>();
+        joining = Thread.ofPlatform().start(() -> second.set(index.join("b", mock(ClientHandler.class), "nick-b", 2,
+                false, newLobby)));
+        while (closing.getMailboxStats().queueDepth() < 2)
+            Thread.onSpinWait();
+        runUntilDone(joining, pending);
+
+        assertEquals(LobbyState.CLOSED, closing.getState());
+        assertFalse(closing.getPlayerNicknames().containsKey("b"));
+        assertTrue(second.get().created());
+        assertNotSame(closing, second.get().lobby());
+        assertSame(second.get().lobby(), index.lobbyOf("b"));
+        assertTrue(second.get().lobby().getPlayerNicknames().containsKey("b"));
+    }
+
+    /**
+     * Runs the tasks of the lobbies on the calling thread until a thread joining a lobby is done
+     *
+     * @param joining the thread joining a lobby
+     * @param pending the tasks of the lobbies
+     */
+    private static void runUntilDone(Thread joining, BlockingQueue<Runnable> pending) throws InterruptedException {
+        while (joining.isAlive() || !pending.isEmpty()) {
+            Runnable task = pending.poll(10, TimeUnit.MILLISECONDS);
+            if (task != null) task.run();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package it.polimi.ingsw.am37.network.server;
+
+import it.polimi.ingsw.am37.message.*;
+import it.polimi.ingsw.am37.network.FrameCodec;
+import it.polimi.ingsw.am37.network.MessageReceiver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the framing of the bytes read by the handler of the non-blocking transport. The reactor isn't run: the test
+ * reads the channel in its place, and the messages are delivered on the reading thread.
+ */
+public class NioClientHandlerTest {
+
+    /**
+     * The client side of the connection
+     */
+    private SocketChannel client;
+
+    /**
+     * The handler of the server side of the connection
+     */
+    private NioClientHandler handler;
+
+    /**
+     * The messages delivered to the receiver
+     */
+    private List<Message> received;
+
+    /**
+     * How many times the receiver has been told of the disconnection
+     */
+    private AtomicInteger disconnections;
+
+    /**
+     * Connects a client to a handler through the loopback interface
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            client = SocketChannel.open(serverChannel.getLocalAddress());
+            SocketChannel channel = serverChannel.accept();
+            channel.configureBlocking(false);
+            handler = new NioClientHandler(channel, new NioReactor(), Runnable::run);
+        }
+        received = new CopyOnWriteArrayList<>();
+        disconnections = new AtomicInteger();
+        handler.setMessageReceiver(new MessageReceiver() {
+            @Override
+            public void onMessageReceived(Message message, ClientHandler ch) {
+                received.add(message);
+            }
+
+            @Override
+            public void sendMessage(Message message) {
+            }
+
+            @Override
+            public void onDisconnect(String UUID) {
+                disconnections.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Closes the connection
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        handler.disconnect();
+    }
+
+    /**
+     * Writes the bytes from the client side
+     *
+     * @param bytes the bytes to write
+     */
+    private void write(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining())
+            client.write(buffer);
+    }
+
+    /**
+     * Reads the channel, as the reactor would when it's readable, until the condition holds or a second has passed
+     *
+     * @param condition the expected outcome of the reads
+     * @return true if the condition holds
+     */
+    private boolean readUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            handler.onReadable();
+            Thread.sleep(5);
+        }
+        return condition.getAsBoolean();
+    }
+
+    /**
+     * Tests that a frame arriving in pieces is delivered only once it's whole, even when the first piece doesn't hold
+     * the whole header
+     */
+    @Test
+    @DisplayName("Tests that a frame read in pieces is delivered once it's whole")
+    void partialReads() throws Exception {
+        byte[] frame = FrameCodec.encode(new LobbyRequestMessage("UUID", 3, true), false);
+
+        write(Arrays.copyOfRange(frame, 0, 1));
+        assertFalse(readUntil(() -> !received.isEmpty()));
+        write(Arrays.copyOfRange(frame, 1, frame.length / 2));
+        assertFalse(readUntil(() -> !received.isEmpty()));
+        write(Arrays.copyOfRange(frame, frame.length / 2, frame.length));
+        assertTrue(readUntil(() -> !received.isEmpty()));
+
+        assertEquals(1, received.size());
+        assertEquals(MessageType.LOBBY_REQUEST, received.get(0).getMessageType());
+        assertEquals("UUID", handler.getUUID());
+        assertEquals(0, disconnections.get());
+    }
+
+    /**
+     * Tests that the frames written together are all delivered, in order, including one longer than the initial read
+     * buffer, in both the formats
+     */
+    @Test
+    @DisplayName("Tests that several frames read at once are all delivered in order")
+    void severalFramesInOneRead() throws Exception {
+        String longNickname = "n".repeat(2000);
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        frames.write(FrameCodec.encode(new LoginMessage("UUID", "nick"), false));
+        frames.write(FrameCodec.encode(new LoginMessage("UUID", longNickname), false));
+        frames.write(FrameCodec.encode(new LobbyRequestMessage("UUID", 2, false), true));
+        write(frames.toByteArray());
+
+        assertTrue(readUntil(() -> received.size() == 3));
+        assertEquals("nick", ((LoginMessage) received.get(0)).getNickname());
+        assertEquals(longNickname, ((LoginMessage) received.get(1)).getNickname());
+        assertEquals(MessageType.LOBBY_REQUEST, received.get(2).getMessageType());
+        assertEquals(0, disconnections.get());
+    }
+
+    /**
+     * Tests that a frame announcing a payload over {@link FrameCodec#MAX_PAYLOAD_LENGTH} drops the connection before
+     * its payload is buffered
+     */
+    @Test
+    @DisplayName("Tests that a frame over the size cap drops the connection")
+    void frameOverCapDisconnects() throws Exception {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.write(0);
+        header.write(0);
+        header.write(0);
+        BinaryCodec.writeVarint(header, FrameCodec.MAX_PAYLOAD_LENGTH + 1L);
+        write(header.toByteArray());
+
+        assertTrue(readUntil(() -> disconnections.get() > 0));
+        assertEquals(1, disconnections.get());
+        assertTrue(received.isEmpty());
+        assertFalse(handler.isConnectedToClient());
+    }
+}
@@ -0,0 +1,157 @@
+package it.polimi.ingsw.am37.network.server;
+
+import it.polimi.ingsw.am37.controller.Lobby;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests of the sessions of the server, also when they are used by many threads at once.
+ */
+public class SessionRegistryTest {
+
+    /**
+     * Number of threads used by the stress tests
+     */
+    private static final int THREADS = 16;
+
+    /**
+     * Runs the same task on many threads started together.
+     *
+     * @param task the task, given the index of its thread
+     */
+    private static void hammer(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(thread);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    /**
+     * Tests that a client can come back with its nickname only after losing the connection.
+     */
+    @Test
+    @DisplayName("Tests that a client can come back with its nickname only after losing the connection.")
+    public void reconnectKeepsNickname() {
+        SessionRegistry registry = new SessionRegistry();
+        ClientHandler first = mock(ClientHandler.class);
+        ClientHandler second = mock(ClientHandler.class);
+        assertTrue(registry.login("a", "bramba2000", first));
+        assertFalse(registry.login("b", "bramba2000", second));
+        assertFalse(registry.login("a", "bramba2000", second));
+
+        registry.disconnect("a", true);
+        assertTrue(registry.isDisconnected("a"));
+        assertNull(registry.handlerOf("a"));
+        assertFalse(registry.login("b", "bramba2000", second));
+        assertTrue(registry.login("a", "bramba2000", second));
+        assertSame(second, registry.handlerOf("a"));
+
+        registry.disconnect("a", false);
+        assertFalse(registry.isNicknameTaken("bramba2000"));
+        assertTrue(registry.login("b", "bramba2000", second));
+    }
+
+    /**
+     * Tests that each nickname is given to exactly one of the clients asking for it at the same time.
+     */
+    @Test
+    @DisplayName("Tests that each nickname is given to exactly one of the clients asking for it at the same time.")
+    public void concurrentLoginsGetUniqueNicknames() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        ClientHandler ch = mock(ClientHandler.class);
+        int nicknames = 500;
+        Map<String, AtomicInteger> winners = new ConcurrentHashMap<>();
+        hammer(thread -> {
+            for (int i = 0; i < nicknames; i++) {
+                String nickname = "nick" + (i + thread * 7) % nicknames;
+                if (registry.login(thread + "-" + nickname, nickname, ch))
+                    winners.computeIfAbsent(nickname, n -> new AtomicInteger()).incrementAndGet();
+            }
+        });
+        assertEquals(nicknames, winners.size());
+        winners.values().forEach(count -> assertEquals(1, count.get()));
+        assertEquals(nicknames, registry.size());
+    }
+
+    /**
+     * Tests that logins, lobby requests, disconnections and reconnections from many threads leave the server
+     * consistent.
+     */
+    @Test
+    @DisplayName("Tests that logins, lobby requests and disconnections from many threads leave the server consistent.")
+    public void stressLoginLobbyDisconnect() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        MatchmakingIndex matchmaking = new MatchmakingIndex();
+        ClientHandler ch = mock(ClientHandler.class);
+        AtomicInteger matchIDs = new AtomicInteger();
+        Map<Integer, Lobby> lobbies = new ConcurrentHashMap<>();
+        int clientsPerThread = 100;
+        hammer(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < clientsPerThread; i++) {
+                String UUID = thread + "-" + i;
+                String nickname = "nick" + random.nextInt(clientsPerThread);
+                while (!registry.login(UUID, nickname, ch))
+                    nickname = "nick" + random.nextInt(clientsPerThread * THREADS * 4);
+                int size = 2 + random.nextInt(2);
+                boolean advanced = random.nextBoolean();
+                Lobby lobby = matchmaking.join(UUID, ch, nickname, size, advanced, () -> {
+                    Lobby created = new Lobby(size, advanced, matchIDs.incrementAndGet());
+                    lobbies.put(created.getMatchID(), created);
+                    return created;
+                }).lobby();
+                assertSame(lobby, matchmaking.lobbyOf(UUID));
+                registry.disconnect(UUID, true);
+                assertTrue(registry.login(UUID, nickname, ch));
+                registry.release(UUID);
+            }
+        });
+
+        assertEquals(0, registry.size());
+        int players = 0;
+        int notFull = 0;
+        for (Lobby lobby : lobbies.values()) {
+            int joined = lobby.getPlayerNicknames().size();
+            assertTrue(joined <= lobby.getLobbySize());
+            assertEquals(joined == lobby.getLobbySize(), lobby.isGameReady());
+            if (!lobby.isGameReady()) notFull++;
+            players += joined;
+        }
+        assertEquals(THREADS * clientsPerThread, players);
+        // one lobby at most is waiting for players for each size and mode
+        assertTrue(notFull <= 4);
+        assertEquals(lobbies.size(), matchmaking.getActiveMatchIDs().size());
+        lobbies.values().forEach(matchmaking::remove);
+        assertTrue(matchmaking.getActiveMatchIDs().isEmpty());
+    }
+
+    /**
+     * A task run by each thread of a stress test
+     */
+    private interface ThreadTask {
+
+        /**
+         * @param thread the index of the thread
+         */
+        void run(int thread) throws Exception;
+    }
+}
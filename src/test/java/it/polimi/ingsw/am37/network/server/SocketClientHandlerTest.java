@@ -0,0 +1,74 @@
+package it.polimi.ingsw.am37.network.server;
+
+import it.polimi.ingsw.am37.message.Message;
+import it.polimi.ingsw.am37.message.PingMessage;
+import it.polimi.ingsw.am37.network.MessageReceiver;
+import it.polimi.ingsw.am37.network.exceptions.InternetException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the handler of the connections of the blocking transports.
+ */
+public class SocketClientHandlerTest {
+
+    /**
+     * Tests that the messages sent after the oldest queued one has missed its deadline disconnect the client once,
+     * even when many threads find it at the same time
+     */
+    @Test
+    @DisplayName("Tests that sending after the send deadline disconnects the client once")
+    void sendAfterDeadlineDisconnectsOnce() throws Exception {
+        AtomicInteger disconnections = new AtomicInteger();
+        // the handler isn't run, so no writer takes the queued messages
+        SocketClientHandler ch = new SocketClientHandler(new Socket(), Thread.ofPlatform().factory(), 50);
+        ch.setMessageReceiver(new MessageReceiver() {
+            @Override
+            public void onMessageReceived(Message message, ClientHandler ch) {
+            }
+
+            @Override
+            public void sendMessage(Message message) {
+            }
+
+            @Override
+            public void onDisconnect(String UUID) {
+                disconnections.incrementAndGet();
+            }
+        });
+        ch.sendMessageToClient(new PingMessage());
+        Thread.sleep(100);
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        List<Thread> senders = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            senders.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    ch.sendMessageToClient(new PingMessage());
+                } catch (InternetException e) {
+                    failures.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        start.countDown();
+        for (Thread sender : senders)
+            sender.join();
+
+        assertEquals(8, failures.get());
+        assertEquals(1, disconnections.get());
+        assertFalse(ch.isConnectedToClient());
+        ch.disconnect();
+        assertEquals(1, disconnections.get());
+    }
+}